@@ -106,3 +106,75 @@ exit:
     return ok;
 }
 
+
+/*
+ * Class:     org_atalk_impl_neomedia_transform_srtp_SRTPCipherCTROpenSSL
+ * Method:    AES128CTR_CTX_processBatch
+ * Signature: (J[B[[B[I[II)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_atalk_impl_neomedia_transform_srtp_SRTPCipherCTROpenSSL_AES128CTR_1CTX_1processBatch
+  (JNIEnv *env, jclass clazz, jlong ctx, jbyteArray ivs, jobjectArray inOuts, jintArray offsets,
+   jintArray lens, jint count)
+{
+    int ok = 0;
+    jint i;
+    jbyte *ivs_ = NULL;
+    jint *offsets_ = NULL;
+    jint *lens_ = NULL;
+
+    ivs_ = (*env)->GetByteArrayElements(env, ivs, NULL);
+    if (!ivs_)
+        goto exit;
+    offsets_ = (*env)->GetIntArrayElements(env, offsets, NULL);
+    if (!offsets_)
+        goto exit;
+    lens_ = (*env)->GetIntArrayElements(env, lens, NULL);
+    if (!lens_)
+        goto exit;
+
+    ok = 1;
+    for (i = 0; ok && i < count; i++) {
+        jbyteArray inOut = (jbyteArray) (*env)->GetObjectArrayElement(env, inOuts, i);
+        jbyte *inOut_;
+
+        if (!inOut) {
+            ok = 0;
+            break;
+        }
+        inOut_ = (*env)->GetPrimitiveArrayCritical(env, inOut, NULL);
+        if (inOut_) {
+            int len_ = lens_[i];
+
+            ok = EVP_CipherInit_ex(
+                        (EVP_CIPHER_CTX *) (intptr_t) ctx,
+                        NULL,
+                        NULL,
+                        NULL,
+                        (unsigned char *) (ivs_ + 16 * i),
+                        -1);
+            if (ok) {
+                ok = EVP_CipherUpdate(
+                            (EVP_CIPHER_CTX *) (intptr_t) ctx,
+                            (unsigned char *) (inOut_ + offsets_[i]), &len_,
+                            (unsigned char *) (inOut_ + offsets_[i]), lens_[i]);
+            }
+            (*env)->ReleasePrimitiveArrayCritical(env, inOut, inOut_, 0);
+        }
+        else {
+            ok = 0;
+        }
+        (*env)->DeleteLocalRef(env, inOut);
+    }
+
+exit:
+    /* The counters, offsets and lengths are input only. */
+    if (lens_)
+        (*env)->ReleaseIntArrayElements(env, lens, lens_, JNI_ABORT);
+    if (offsets_)
+        (*env)->ReleaseIntArrayElements(env, offsets, offsets_, JNI_ABORT);
+    if (ivs_)
+        (*env)->ReleaseByteArrayElements(env, ivs, ivs_, JNI_ABORT);
+
+    return ok;
+}
@@ -39,6 +39,14 @@ JNIEXPORT jboolean JNICALL Java_org_atalk_impl_neomedia_transform_srtp_SRTPCiphe
 JNIEXPORT jboolean JNICALL Java_org_atalk_impl_neomedia_transform_srtp_SRTPCipherCTROpenSSL_AES128CTR_1CTX_1process
   (JNIEnv *, jclass, jlong, jbyteArray, jbyteArray, jint, jint);
 
+/*
+ * Class:     org_atalk_impl_neomedia_transform_srtp_SRTPCipherCTROpenSSL
+ * Method:    AES128CTR_CTX_processBatch
+ * Signature: (J[B[[B[I[II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_atalk_impl_neomedia_transform_srtp_SRTPCipherCTROpenSSL_AES128CTR_1CTX_1processBatch
+  (JNIEnv *, jclass, jlong, jbyteArray, jobjectArray, jintArray, jintArray, jint);
+
 #ifdef __cplusplus
 }
 #endif
@@ -0,0 +1,257 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.crypto.omemo;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.atalk.android.aTalkApp;
+import org.atalk.persistance.DatabaseBackend;
+import org.jivesoftware.smackx.omemo.internal.OmemoCachedDeviceList;
+import org.jivesoftware.smackx.omemo.internal.OmemoDevice;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.jxmpp.jid.BareJid;
+import org.jxmpp.jid.impl.JidCreate;
+import org.whispersystems.libsignal.state.SessionRecord;
+import org.whispersystems.libsignal.state.SessionState;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the caches of {@link SQLiteOmemoStore} to be invalidated by the bulk removals and by
+ * {@link SQLiteOmemoStore#storeCachedDeviceList}, and the sessions pending in the session batch
+ * of one thread to be visible to the other threads and to be neither lost nor resurrected. The
+ * state in the database is checked through a second store, the caches of which are empty.
+ *
+ * The store keeps its records in the database of the application, hence this is an
+ * instrumented test; it only touches the records of a contact of its own, which it purges.
+ *
+ * @author Eng Chong Meng
+ */
+@RunWith(AndroidJUnit4.class)
+public class SQLiteOmemoStoreTest
+{
+    private BareJid contact;
+
+    private OmemoDevice userDevice;
+
+    private SQLiteOmemoStore store;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        contact = JidCreate.bareFrom("omemo-store-test@example.org");
+        userDevice = new OmemoDevice(JidCreate.bareFrom("omemo-store-user@example.org"), 1);
+        purge();
+        store = new SQLiteOmemoStore();
+    }
+
+    @After
+    public void tearDown()
+    {
+        purge();
+    }
+
+    private void purge()
+    {
+        DatabaseBackend.getInstance(aTalkApp.getGlobalContext()).purgeOmemoDb(contact.toString());
+    }
+
+    @Test
+    public void removeAllRawSessionsOf()
+    {
+        store.storeRawSession(userDevice, device(1), session(1));
+        store.storeRawSession(userDevice, device(2), session(2));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)),
+                store.loadAllRawSessionsOf(userDevice, contact).keySet());
+
+        // A session pending in a batch is removed too, and not written when the batch ends.
+        store.beginSessionBatch();
+        try {
+            store.storeRawSession(userDevice, device(3), session(3));
+            store.removeAllRawSessionsOf(userDevice, contact);
+        } finally {
+            store.endSessionBatch();
+        }
+
+        for (SQLiteOmemoStore s : new SQLiteOmemoStore[]{store, new SQLiteOmemoStore()}) {
+            assertTrue(s.loadAllRawSessionsOf(userDevice, contact).isEmpty());
+            for (int deviceId = 1; deviceId <= 3; deviceId++) {
+                assertNull(s.loadRawSession(userDevice, device(deviceId)));
+                assertFalse(s.containsRawSession(userDevice, device(deviceId)));
+            }
+        }
+
+        // The emptied device list of the contact is extended by a later session.
+        store.storeRawSession(userDevice, device(4), session(4));
+        assertEquals(Collections.singleton(4), store.loadAllRawSessionsOf(userDevice, contact).keySet());
+    }
+
+    @Test
+    public void storeCachedDeviceList()
+    {
+        store.storeCachedDeviceList(userDevice, contact, deviceList(new int[]{1, 2}, new int[0]));
+        OmemoCachedDeviceList deviceList = store.loadCachedDeviceList(userDevice, contact);
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), deviceList.getActiveDevices());
+
+        // The caller may modify the list it gets without affecting the cached one.
+        deviceList.getActiveDevices().add(9);
+        assertFalse(store.loadCachedDeviceList(userDevice, contact).getActiveDevices().contains(9));
+
+        // A later list replaces the cached one; the devices not in it keep their stored state.
+        store.storeCachedDeviceList(userDevice, contact, deviceList(new int[]{3}, new int[]{1}));
+        for (SQLiteOmemoStore s : new SQLiteOmemoStore[]{store, new SQLiteOmemoStore()}) {
+            deviceList = s.loadCachedDeviceList(userDevice, contact);
+            assertEquals(new HashSet<>(Arrays.asList(2, 3)), deviceList.getActiveDevices());
+            assertEquals(Collections.singleton(1), deviceList.getInactiveDevices());
+        }
+    }
+
+    @Test
+    public void purgeOwnDeviceKeys()
+    {
+        OmemoDevice purged = device(1);
+
+        store.storeCachedDeviceList(userDevice, contact, deviceList(new int[]{1, 2}, new int[0]));
+        store.storeRawSession(userDevice, device(2), session(2));
+        store.loadCachedDeviceList(userDevice, contact);
+
+        // The session of the purged device pending in a batch is not resurrected by its end.
+        store.beginSessionBatch();
+        try {
+            store.storeRawSession(userDevice, purged, session(1));
+            store.purgeOwnDeviceKeys(purged);
+        } finally {
+            store.endSessionBatch();
+        }
+
+        for (SQLiteOmemoStore s : new SQLiteOmemoStore[]{store, new SQLiteOmemoStore()}) {
+            assertNull(s.loadRawSession(userDevice, purged));
+            assertFalse(s.containsRawSession(userDevice, purged));
+            assertEquals(Collections.singleton(2), s.loadAllRawSessionsOf(userDevice, contact).keySet());
+            assertEquals(Collections.singleton(2), s.loadCachedDeviceList(userDevice, contact).getActiveDevices());
+        }
+    }
+
+    /**
+     * A session stored in the open batch of one thread is served to the other threads before it
+     * is written to the database when the batch ends.
+     */
+    @Test
+    public void batchSessionsVisibleToOtherThreads()
+            throws Exception
+    {
+        final CountDownLatch stored = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread batchThread = runBatch(device(1), session(1), stored, release);
+
+        assertTrue(stored.await(5, TimeUnit.SECONDS));
+        assertEquals(1, registrationId(store.loadRawSession(userDevice, device(1))));
+        assertTrue(store.containsRawSession(userDevice, device(1)));
+        assertEquals(Collections.singleton(1), store.loadAllRawSessionsOf(userDevice, contact).keySet());
+        // Not in the database yet.
+        assertFalse(new SQLiteOmemoStore().containsRawSession(userDevice, device(1)));
+
+        release.countDown();
+        batchThread.join(5000);
+        assertEquals(1, registrationId(new SQLiteOmemoStore().loadRawSession(userDevice, device(1))));
+    }
+
+    /**
+     * A session stored outside a batch supersedes the one pending in the batch of another thread,
+     * which must not overwrite it in the database when the batch ends.
+     */
+    @Test
+    public void storeSupersedesOtherThreadsBatch()
+            throws Exception
+    {
+        final CountDownLatch stored = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread batchThread = runBatch(device(1), session(1), stored, release);
+
+        assertTrue(stored.await(5, TimeUnit.SECONDS));
+        store.storeRawSession(userDevice, device(1), session(2));
+        release.countDown();
+        batchThread.join(5000);
+
+        assertEquals(2, registrationId(store.loadRawSession(userDevice, device(1))));
+        assertEquals(2, registrationId(new SQLiteOmemoStore().loadRawSession(userDevice, device(1))));
+    }
+
+    /**
+     * Starts a thread which stores a session in a batch and ends the batch once released.
+     */
+    private Thread runBatch(final OmemoDevice contactDevice, final SessionRecord session,
+            final CountDownLatch stored, final CountDownLatch release)
+    {
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                store.beginSessionBatch();
+                try {
+                    store.storeRawSession(userDevice, contactDevice, session);
+                    stored.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    store.endSessionBatch();
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    private OmemoDevice device(int deviceId)
+    {
+        return new OmemoDevice(contact, deviceId);
+    }
+
+    /**
+     * Returns a session told apart from the others by its remote registration id.
+     */
+    private static SessionRecord session(int registrationId)
+    {
+        SessionState state = new SessionState();
+        state.setRemoteRegistrationId(registrationId);
+        return new SessionRecord(state);
+    }
+
+    private static int registrationId(SessionRecord session)
+    {
+        assertNotNull(session);
+        return session.getSessionState().getRemoteRegistrationId();
+    }
+
+    private static OmemoCachedDeviceList deviceList(int[] active, int[] inactive)
+    {
+        OmemoCachedDeviceList deviceList = new OmemoCachedDeviceList();
+        for (int deviceId : active)
+            deviceList.getActiveDevices().add(deviceId);
+        for (int deviceId : inactive)
+            deviceList.getInactiveDevices().add(deviceId);
+        return deviceList;
+    }
+}
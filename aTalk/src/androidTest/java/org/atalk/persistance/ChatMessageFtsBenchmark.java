@@ -0,0 +1,231 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.persistance;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.atalk.android.gui.chat.ChatMessage;
+import org.atalk.util.Benchmark;
+import org.junit.*;
+import org.junit.runner.RunWith;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the keyword searches of a chat session in a message history of {@link #MESSAGES}
+ * messages over {@link #SESSIONS} chat sessions, both with <tt>LIKE '%keyword%'</tt> as the
+ * message history did before and through the full-text index of {@link ChatMessageFts}, and
+ * checks both to find the same messages, also after the history is vacuumed. The measurements
+ * run with the other benchmarks, see {@link Benchmark}.
+ *
+ * The words of the messages are "w" followed by a number so that a keyword found anywhere in a
+ * body is also the prefix of one of its words. The history lives in an in-memory database, hence
+ * this is an instrumented test, which has the Android SQLite classes.
+ *
+ * @author Eng Chong Meng
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChatMessageFtsBenchmark
+{
+    /**
+     * The number of messages in the history measured.
+     */
+    private static final int MESSAGES = 1000000;
+
+    /**
+     * The number of messages in the history the searches are checked on.
+     */
+    private static final int CHECKED_MESSAGES = 20000;
+
+    /**
+     * The number of chat sessions the messages are spread over.
+     */
+    private static final int SESSIONS = 100;
+
+    /**
+     * The number of distinct words the messages consist of.
+     */
+    private static final int WORDS = 20000;
+
+    /**
+     * The number of searches checked or measured, the latter after as many warm-up searches.
+     */
+    private static final int SEARCHES = 20;
+
+    private final Random random = new Random(0);
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp()
+    {
+        db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + ChatMessage.TABLE_NAME + "( "
+                + ChatMessage.UUID + " TEXT, "
+                + ChatMessage.SESSION_UUID + " TEXT, "
+                + ChatMessage.TIME_STAMP + " NUMBER, "
+                + ChatMessage.MSG_BODY + " TEXT, UNIQUE(" + ChatMessage.UUID
+                + ") ON CONFLICT REPLACE);");
+        ChatMessageFts.createIndex(db);
+    }
+
+    @After
+    public void tearDown()
+    {
+        db.close();
+    }
+
+    @Test
+    public void ftsMatchesLike()
+    {
+        insertMessages(CHECKED_MESSAGES);
+        checkSearches();
+    }
+
+    /**
+     * Checks the index to find the same messages after VACUUM, with the messages deleted or
+     * replaced before it leaving gaps in the row IDs.
+     */
+    @Test
+    public void ftsMatchesLikeAfterVacuum()
+    {
+        insertMessages(CHECKED_MESSAGES);
+        db.delete(ChatMessage.TABLE_NAME, ChatMessage.TIME_STAMP + " % 3 = 0", null);
+        insertMessages(CHECKED_MESSAGES / 10);
+        db.execSQL("VACUUM");
+        checkSearches();
+    }
+
+    @Test
+    public void search()
+            throws Exception
+    {
+        Benchmark.assumeEnabled();
+
+        long startTime = System.nanoTime();
+        insertMessages(MESSAGES);
+        Benchmark.report("Inserted and indexed %d messages in %d ms.", MESSAGES,
+                (System.nanoTime() - startTime) / 1000000);
+
+        final String[] sessionUuids = new String[2 * SEARCHES];
+        final String[][] keywords = new String[2 * SEARCHES][];
+        for (int i = 0; i < sessionUuids.length; i++) {
+            sessionUuids[i] = "session" + random.nextInt(SESSIONS);
+            keywords[i] = new String[]{"w" + random.nextInt(WORDS), "w" + random.nextInt(WORDS / 10)};
+        }
+
+        Benchmark.measure(SEARCHES + " searches of a session in " + MESSAGES + " messages, LIKE",
+                SEARCHES, new Benchmark.Operation()
+                {
+                    @Override
+                    public void run(int i)
+                    {
+                        searchLike(sessionUuids[i], keywords[i]);
+                    }
+                });
+        Benchmark.measure(SEARCHES + " searches of a session in " + MESSAGES + " messages, FTS",
+                SEARCHES, new Benchmark.Operation()
+                {
+                    @Override
+                    public void run(int i)
+                    {
+                        searchFts(sessionUuids[i], keywords[i]);
+                    }
+                });
+    }
+
+    /**
+     * Inserts messages of random words, the first of them replacing the message with the same
+     * UUID if any.
+     */
+    private void insertMessages(int count)
+    {
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + ChatMessage.TABLE_NAME + "("
+                + ChatMessage.UUID + ", " + ChatMessage.SESSION_UUID + ", " + ChatMessage.TIME_STAMP + ", "
+                + ChatMessage.MSG_BODY + ") VALUES (?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                StringBuilder body = new StringBuilder();
+                for (int j = 4 + random.nextInt(12); j > 0; j--)
+                    body.append(" w").append(random.nextInt(WORDS));
+
+                insert.bindString(1, "msg" + i);
+                insert.bindString(2, "session" + (i % SESSIONS));
+                insert.bindLong(3, i);
+                insert.bindString(4, body.substring(1));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        insert.close();
+    }
+
+    private void checkSearches()
+    {
+        for (int i = 0; i < SEARCHES; i++) {
+            String sessionUuid = "session" + random.nextInt(SESSIONS);
+            String[] keywords = {"w" + random.nextInt(WORDS), "w" + random.nextInt(WORDS / 10)};
+
+            assertEquals(Arrays.toString(keywords), searchLike(sessionUuid, keywords),
+                    searchFts(sessionUuid, keywords));
+        }
+    }
+
+    private List<String> searchLike(String sessionUuid, String[] keywords)
+    {
+        String selection = ChatMessage.SESSION_UUID + "=? AND ( " + ChatMessage.MSG_BODY
+                + " LIKE '%" + keywords[0] + "%' OR " + ChatMessage.MSG_BODY + " LIKE '%"
+                + keywords[1] + "%' )";
+        return search(selection, new String[]{sessionUuid});
+    }
+
+    private List<String> searchFts(String sessionUuid, String[] keywords)
+    {
+        List<String> selectionArgs = new ArrayList<>();
+        selectionArgs.add(sessionUuid);
+        String selection = ChatMessage.SESSION_UUID + "=? AND "
+                + ChatMessageFts.getSelection(db, keywords, selectionArgs);
+        return search(selection, selectionArgs.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the UUIDs of the messages a search finds, reading them all as the message history
+     * does.
+     */
+    private List<String> search(String selection, String[] selectionArgs)
+    {
+        Cursor cursor = db.query(ChatMessage.TABLE_NAME, null, selection, selectionArgs, null, null,
+                ChatMessage.TIME_STAMP + " ASC");
+        List<String> uuids = new ArrayList<>();
+
+        while (cursor.moveToNext()) {
+            cursor.getString(cursor.getColumnIndex(ChatMessage.MSG_BODY));
+            uuids.add(cursor.getString(cursor.getColumnIndex(ChatMessage.UUID)));
+        }
+        cursor.close();
+        return uuids;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * otr4j, the open source java otr library.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.otr4j.crypto;
+
+import java.security.KeyPair;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import timber.log.Timber;
+
+/**
+ * A bounded pool of D-H key pairs generated in advance by a low-priority background thread, so
+ * that the AKE and the key rotation of an OTR session do not wait for a D-H key generation. A key
+ * pair is handed out once only; when the pool is empty, one is generated on the calling thread.
+ * A refill which fails to generate a key pair stops, and is retried when the next key pair is
+ * taken.
+ *
+ * @author Eng Chong Meng
+ */
+public class DHKeyPairPool
+{
+	/**
+	 * The name of the <tt>System</tt> property which specifies the number of key pairs kept ready.
+	 */
+	public static final String PNAME_POOL_SIZE = "net.java.otr4j.crypto.DH_KEY_PAIR_POOL_SIZE";
+
+	private static final int POOL_SIZE = Math.max(1, Integer.getInteger(PNAME_POOL_SIZE, 3));
+
+	private static final DHKeyPairPool INSTANCE = new DHKeyPairPool();
+
+	private final OtrCryptoEngine otrCryptoEngine = new OtrCryptoEngineImpl();
+
+	private final BlockingQueue<KeyPair> keyPairs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	/**
+	 * Whether a refill of the pool is scheduled or running.
+	 */
+	private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "OtrDHKeyPairPool");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	});
+
+	private final Runnable refillTask = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			try {
+				while (keyPairs.remainingCapacity() > 0) {
+					keyPairs.offer(otrCryptoEngine.generateDHKeyPair());
+				}
+			}
+			catch (OtrCryptoException e) {
+				// not rescheduled, the generation is likely to fail again right away.
+				Timber.w(e, "Failed to generate D-H key pair for the pool");
+				return;
+			}
+			finally {
+				refilling.set(false);
+			}
+			// a key pair taken while the flag was still set must still be replaced.
+			if (keyPairs.remainingCapacity() > 0)
+				refill();
+		}
+	};
+
+	private DHKeyPairPool()
+	{
+	}
+
+	public static DHKeyPairPool getInstance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns a D-H key pair from the pool, or a newly generated one if the pool is empty, and
+	 * schedules the refill of the pool.
+	 *
+	 * @return a D-H key pair which has not been handed out before
+	 * @throws OtrCryptoException if the pool is empty and the key pair generation fails
+	 */
+	public KeyPair takeKeyPair()
+			throws OtrCryptoException
+	{
+		KeyPair keyPair = keyPairs.poll();
+
+		if (keyPair != null) {
+			hitCount.incrementAndGet();
+		}
+		else {
+			missCount.incrementAndGet();
+			keyPair = otrCryptoEngine.generateDHKeyPair();
+		}
+		refill();
+		return keyPair;
+	}
+
+	/**
+	 * Schedules the generation of key pairs in the background until the pool is full, unless it
+	 * is full or being refilled already.
+	 */
+	public void refill()
+	{
+		if ((keyPairs.remainingCapacity() > 0) && refilling.compareAndSet(false, true)) {
+			try {
+				refillExecutor.execute(refillTask);
+			}
+			catch (RejectedExecutionException e) {
+				refilling.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of key pairs handed out from the pool.
+	 *
+	 * @return the number of key pairs handed out from the pool
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of key pairs generated on the calling thread as the pool was empty.
+	 *
+	 * @return the number of key pairs generated on the calling thread
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+}
@@ -31,6 +31,12 @@ import javax.crypto.spec.*;
  */
 public class OtrCryptoEngineImpl implements OtrCryptoEngine
 {
+	/**
+	 * The source of the D-H private keys; shared as seeding a new <tt>SecureRandom</tt> per key
+	 * pair adds to the cost of the key generation.
+	 */
+	private static final SecureRandom DH_RANDOM = new SecureRandom();
+
 	@Override
 	public KeyPair generateDHKeyPair()
 			throws OtrCryptoException
@@ -39,7 +45,7 @@ public class OtrCryptoEngineImpl implements OtrCryptoEngine
 		DHParameters dhParams
 				= new DHParameters(MODULUS, GENERATOR, null, DH_PRIVATE_KEY_MINIMUM_BIT_LENGTH);
 		DHKeyGenerationParameters params
-				= new DHKeyGenerationParameters(new SecureRandom(), dhParams);
+				= new DHKeyGenerationParameters(DH_RANDOM, dhParams);
 		DHKeyPairGenerator kpGen = new DHKeyPairGenerator();
 
 		kpGen.init(params);
@@ -6,6 +6,7 @@
 package net.java.otr4j.session;
 
 import net.java.otr4j.OtrException;
+import net.java.otr4j.crypto.DHKeyPairPool;
 import net.java.otr4j.crypto.OtrCryptoEngine;
 import net.java.otr4j.crypto.OtrCryptoEngineImpl;
 import net.java.otr4j.io.SerializationUtils;
@@ -276,7 +277,7 @@ class AuthContextImpl extends AuthContext
             throws OtrException
     {
         if (localDHKeyPair == null) {
-            localDHKeyPair = new OtrCryptoEngineImpl().generateDHKeyPair();
+            localDHKeyPair = DHKeyPairPool.getInstance().takeKeyPair();
             Timber.log(TimberLog.FINER, "Generated local D-H key pair.");
         }
         return localDHKeyPair;
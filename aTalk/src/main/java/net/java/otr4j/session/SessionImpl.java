@@ -9,6 +9,7 @@ package net.java.otr4j.session;
 import android.text.TextUtils;
 
 import net.java.otr4j.*;
+import net.java.otr4j.crypto.DHKeyPairPool;
 import net.java.otr4j.crypto.OtrCryptoEngine;
 import net.java.otr4j.crypto.OtrCryptoEngineImpl;
 import net.java.otr4j.io.*;
@@ -81,6 +82,9 @@ public class SessionImpl implements Session
 
         assembler = new OtrAssembler(getSenderInstanceTag());
         fragmenter = new OtrFragmenter(this, listener);
+
+        // Have D-H key pairs ready by the time the AKE of the session starts
+        DHKeyPairPool.getInstance().refill();
     }
 
     // A private constructor for instantiating 'slave' sessions.
@@ -191,7 +195,7 @@ public class SessionImpl implements Session
         SessionKeys sess4 = getSessionKeysByIndex(SessionKeys.Current, SessionKeys.Previous);
         sess2.setLocalPair(sess4.getLocalPair(), sess4.getLocalKeyID());
 
-        KeyPair newPair = new OtrCryptoEngineImpl().generateDHKeyPair();
+        KeyPair newPair = DHKeyPairPool.getInstance().takeKeyPair();
         sess3.setLocalPair(newPair, sess3.getLocalKeyID() + 1);
         sess4.setLocalPair(newPair, sess4.getLocalKeyID() + 1);
     }
@@ -226,7 +230,7 @@ public class SessionImpl implements Session
                     current.setS(auth.getS());
                 }
 
-                KeyPair nextDH = new OtrCryptoEngineImpl().generateDHKeyPair();
+                KeyPair nextDH = DHKeyPairPool.getInstance().takeKeyPair();
                 for (int i = 0; i < this.getSessionKeys()[1].length; i++) {
                     SessionKeys current = getSessionKeysByIndex(1, i);
                     current.setRemoteDHPublicKey(auth.getRemoteDHPublicKey(), 1);
@@ -5,6 +5,7 @@
  */
 package net.java.sip.communicator.impl.configuration;
 
+import org.atalk.impl.configuration.ConfigurationServiceImpl;
 import org.atalk.service.configuration.ConfigurationService;
 import org.atalk.service.libjitsi.LibJitsi;
 import org.osgi.framework.BundleActivator;
@@ -53,6 +54,12 @@ public class ConfigurationActivator implements BundleActivator
     public void stop(BundleContext bundleContext)
             throws Exception
     {
+        ConfigurationService configurationService = LibJitsi.getConfigurationService();
+
+        if (configurationService instanceof ConfigurationServiceImpl)
+            ((ConfigurationServiceImpl) configurationService).stop();
+        else if (configurationService != null)
+            configurationService.flush();
     }
 
     /**
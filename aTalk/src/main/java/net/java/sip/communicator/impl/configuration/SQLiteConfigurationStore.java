@@ -20,8 +20,7 @@ import org.atalk.persistance.DatabaseBackend;
 import org.atalk.service.osgi.OSGiService;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import timber.log.Timber;
 
@@ -44,6 +43,35 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
     private final SQLiteOpenHelper openHelper;
     private static SQLiteDatabase mDB = null;
 
+    /**
+     * The index of the names of the properties in table TABLE_NAME, loaded from the database on
+     * the first prefix query and kept up to date with it from then on; guarded by
+     * <tt>openHelper</tt> for writing.
+     */
+    private final PropertyNameIndex tableNameIndex = new PropertyNameIndex();
+
+    /**
+     * The indicator which determines whether {@link #tableNameIndex} has been loaded.
+     */
+    private volatile boolean tableNameIndexLoaded = false;
+
+    /**
+     * The value of a property in {@link #pendingChanges} which has been removed.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The changes to the properties in table TABLE_NAME which have not been written to the
+     * database yet, in the order they were made: the new value of each property or
+     * {@link #REMOVED}; guarded by <tt>openHelper</tt>. They are written in a single transaction
+     * by {@link #storeConfiguration()} i.e. when <tt>ConfigurationServiceImpl</tt> stores the
+     * configuration after its coalescing delay, and before the table is queried for names.
+     *
+     * The account properties in table AccountID.TBL_PROPERTIES are still written right away,
+     * because <tt>AccountID.fromCursor()</tt> reads them from the database directly.
+     */
+    private final Map<String, Object> pendingChanges = new LinkedHashMap<>();
+
     /**
      * Initializes a new <tt>SQLiteConfigurationStore</tt> instance.
      */
@@ -87,6 +115,11 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
                                 args, null, null, null, "1");
                     }
                 }
+                else if (pendingChanges.containsKey(name)) {
+                    Object pendingValue = pendingChanges.get(name);
+                    if (pendingValue != REMOVED)
+                        value = pendingValue;
+                }
                 else {
                     cursor = mDB.query(TABLE_NAME, columns,
                             COLUMN_NAME + "=?", new String[]{name}, null, null, null, "1");
@@ -128,6 +161,7 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
             }
             else {
                 tableName = TABLE_NAME;
+                writePendingChanges();
             }
 
             try (Cursor cursor = mDB.query(tableName, new String[]{COLUMN_NAME},
@@ -140,6 +174,44 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
 		return propertyNames.toArray(new String[0]);
 	}
 
+    /**
+     * Overrides {@link HashtableConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)}.
+     * The names of the properties in table TABLE_NAME are looked up in {@link #tableNameIndex}
+     * rather than read from the database on every call. The names of account properties are
+     * still read from table AccountID.TBL_PROPERTIES as {@link #getPropertyNames(String)} does.
+     *
+     * @param prefix the prefix of the property names to add
+     * @param exactPrefixMatch <tt>true</tt> to only add the property names of which <tt>prefix</tt> is the
+     * whole prefix; <tt>false</tt> to also add those with a longer prefix
+     * @param resultSet the <tt>Set</tt> to add the matching property names to
+     * @see ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)
+     */
+    @Override
+    public void getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch, Set<String> resultSet)
+    {
+        if (prefix.startsWith(AccountID.ACCOUNT_UUID_PREFIX)) {
+            for (String name : getPropertyNames(prefix))
+                PropertyNameIndex.addIfMatches(name, prefix, exactPrefixMatch, resultSet);
+            return;
+        }
+
+        if (!tableNameIndexLoaded) {
+            synchronized (openHelper) {
+                if (!tableNameIndexLoaded) {
+                    writePendingChanges();
+                    mDB = openHelper.getReadableDatabase();
+                    try (Cursor cursor = mDB.query(TABLE_NAME, new String[]{COLUMN_NAME},
+                            null, null, null, null, null)) {
+                        while (cursor.moveToNext())
+                            tableNameIndex.add(cursor.getString(0));
+                    }
+                    tableNameIndexLoaded = true;
+                }
+            }
+        }
+        tableNameIndex.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultSet);
+    }
+
     /**
      * Removes all property name-value associations currently present in this
      * <tt>ConfigurationStore</tt> instance and de-serializes new property name-value
@@ -154,6 +226,53 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
         // TODO Auto-generated method stub
     }
 
+    /**
+     * Overrides {@link DatabaseConfigurationStore#storeConfiguration()}. Writes the
+     * {@link #pendingChanges} to the database in a single transaction.
+     */
+    @Override
+    protected void storeConfiguration()
+    {
+        synchronized (openHelper) {
+            writePendingChanges();
+        }
+    }
+
+    /**
+     * Writes the {@link #pendingChanges} to table TABLE_NAME in a single transaction. They are
+     * kept to be written again if the transaction fails. The caller holds <tt>openHelper</tt>.
+     */
+    private void writePendingChanges()
+    {
+        if (pendingChanges.isEmpty())
+            return;
+
+        mDB = openHelper.getWritableDatabase();
+        mDB.beginTransaction();
+        try {
+            for (Map.Entry<String, Object> change : pendingChanges.entrySet()) {
+                String name = change.getKey();
+                Object value = change.getValue();
+
+                if (value == REMOVED) {
+                    mDB.delete(TABLE_NAME, COLUMN_NAME + "=?", new String[]{name});
+                }
+                else {
+                    ContentValues contentValues = new ContentValues();
+                    contentValues.put(COLUMN_NAME, name);
+                    contentValues.put(COLUMN_VALUE, value.toString());
+                    if (mDB.replace(TABLE_NAME, null, contentValues) == -1)
+                        Timber.e("Failed to set non-system property: %s", name);
+                }
+            }
+            mDB.setTransactionSuccessful();
+        } finally {
+            mDB.endTransaction();
+        }
+        Timber.log(TimberLog.FINER, "### Stored %s property changes", pendingChanges.size());
+        pendingChanges.clear();
+    }
+
     /**
      * Overrides {@link HashtableConfigurationStore#removeProperty(String)}. Removes the value
      * association in this <tt>ConfigurationStore</tt> of the property with a specific name. If
@@ -184,14 +303,19 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
                 }
             }
             else {
-                mDB.delete(TABLE_NAME, COLUMN_NAME + "=?", new String[]{name});
+                // moved to the end so that the changes are written in the order they were made
+                pendingChanges.remove(name);
+                pendingChanges.put(name, REMOVED);
+                tableNameIndex.remove(name);
             }
         }
         Timber.log(TimberLog.FINER, "### Remove property from table: %s", name);
     }
 
     /**
-     * Overrides {@link HashtableConfigurationStore#setNonSystemProperty(String, Object)}.
+     * Overrides {@link HashtableConfigurationStore#setNonSystemProperty(String, Object)}. The
+     * property is written to the database by the next {@link #storeConfiguration()} unless it
+     * is an account property.
      *
      * @param name the name of the non-system property to be set to the specified value in this
      * <tt>ConfigurationStore</tt>
@@ -203,23 +327,22 @@ public class SQLiteConfigurationStore extends DatabaseConfigurationStore
     public void setNonSystemProperty(String name, Object value)
     {
         synchronized (openHelper) {
-            SQLiteDatabase mDB = openHelper.getWritableDatabase();
-            String tableName = TABLE_NAME;
-
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COLUMN_VALUE, value.toString());
-
             if (name.startsWith(AccountID.ACCOUNT_UUID_PREFIX)) {
+                SQLiteDatabase mDB = openHelper.getWritableDatabase();
                 int idx = name.indexOf(".");
+
+                ContentValues contentValues = new ContentValues();
                 contentValues.put(AccountID.ACCOUNT_UUID, name.substring(0, idx));
                 contentValues.put(COLUMN_NAME, name.substring(idx + 1));
-                tableName = AccountID.TBL_PROPERTIES;
+                contentValues.put(COLUMN_VALUE, value.toString());
+                if (mDB.replace(AccountID.TBL_PROPERTIES, null, contentValues) == -1)
+                    Timber.e("Failed to set non-system property: %s", name);
             }
             else {
-                contentValues.put(COLUMN_NAME, name);
+                pendingChanges.remove(name);
+                pendingChanges.put(name, value);
+                tableNameIndex.add(name);
             }
-            if (mDB.replace(tableName, null, contentValues) == -1)
-                Timber.e("Failed to set non-system property: %s", name);
         }
 
         // cmeng to take care of properties and accountProperties ????
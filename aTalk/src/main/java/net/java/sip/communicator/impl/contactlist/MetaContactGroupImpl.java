@@ -39,7 +39,7 @@ public class MetaContactGroupImpl implements MetaContactGroup
     /**
      * All the subgroups that this group contains.
      */
-    private Set<MetaContactGroupImpl> subgroups = new TreeSet<>();
+    private final Set<MetaContactGroupImpl> subgroups = new TreeSet<>();
 
     /**
      * A list containing all child contacts.
@@ -62,16 +62,18 @@ public class MetaContactGroupImpl implements MetaContactGroup
     private String groupName;
 
     /**
-     * We use this copy for returning iterators and searching over the list in order to avoid
-     * creating it upon each query. The copy is updated upon each modification
+     * An immutable array-backed snapshot of {@link #childContacts} which we use for returning
+     * iterators and searching over the list without copying or locking it upon each query. A
+     * modification only discards the snapshot, guarded by <tt>childContacts</tt>, and the next
+     * query takes a new one, so that loading a group of n contacts does not copy it n times.
      */
-    private List<MetaContact> childContactsOrderedCopy = new LinkedList<>();
+    private volatile List<MetaContact> childContactsSnapshot = Collections.emptyList();
 
     /**
-     * We use this copy for returning iterators and searching over the list in order to avoid
-     * creating it upon each query. The copy is updated upon each modification
+     * An immutable array-backed snapshot of {@link #subgroups}, taken and discarded in the same
+     * way as {@link #childContactsSnapshot} guarded by <tt>subgroups</tt>.
      */
-    private List<MetaContactGroup> subgroupsOrderedCopy = new LinkedList<>();
+    private volatile List<MetaContactGroup> subgroupsSnapshot = Collections.emptyList();
 
     /**
      * The meta contact group that is currently containing us.
@@ -233,7 +235,53 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     public Iterator<MetaContact> getChildContacts()
     {
-        return childContactsOrderedCopy.iterator();
+        return getChildContactsSnapshot().iterator();
+    }
+
+    /**
+     * Returns the snapshot of the child contacts of this group, taking a new one if they have
+     * changed since the last.
+     *
+     * @return an immutable <tt>List</tt> of the child contacts of this group in their order
+     */
+    private List<MetaContact> getChildContactsSnapshot()
+    {
+        List<MetaContact> snapshot = childContactsSnapshot;
+
+        if (snapshot == null) {
+            synchronized (childContacts) {
+                snapshot = childContactsSnapshot;
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(
+                            Arrays.asList(childContacts.toArray(new MetaContact[childContacts.size()])));
+                    childContactsSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot of the subgroups of this group, taking a new one if they have changed
+     * since the last.
+     *
+     * @return an immutable <tt>List</tt> of the subgroups of this group in their order
+     */
+    private List<MetaContactGroup> getSubgroupsSnapshot()
+    {
+        List<MetaContactGroup> snapshot = subgroupsSnapshot;
+
+        if (snapshot == null) {
+            synchronized (subgroups) {
+                snapshot = subgroupsSnapshot;
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(
+                            Arrays.asList(subgroups.toArray(new MetaContactGroup[subgroups.size()])));
+                    subgroupsSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
     }
 
     /**
@@ -594,7 +642,7 @@ public class MetaContactGroupImpl implements MetaContactGroup
     public MetaContact getMetaContact(int index)
             throws IndexOutOfBoundsException
     {
-        return this.childContactsOrderedCopy.get(index);
+        return getChildContactsSnapshot().get(index);
     }
 
     /**
@@ -607,6 +655,8 @@ public class MetaContactGroupImpl implements MetaContactGroup
         // set this group as a callback in the meta contact
         metaContact.setParentGroup(this);
         lightAddMetaContact(metaContact);
+        if (isInContactList())
+            mclServiceImpl.getMetaContactIndex().addMetaContact(metaContact);
     }
 
     /**
@@ -616,15 +666,13 @@ public class MetaContactGroupImpl implements MetaContactGroup
      * contacts.
      *
      * @param metaContact the <tt>MetaContact</tt> to add in the local vector.
-     * @return the index at which the contact was added.
      */
-    int lightAddMetaContact(MetaContactImpl metaContact)
+    void lightAddMetaContact(MetaContactImpl metaContact)
     {
         synchronized (childContacts) {
             this.childContacts.add(metaContact);
-            // no need to synch it's not a disaster if s.o. else reads the old copy.
-            childContactsOrderedCopy = new LinkedList<>(childContacts);
-            return childContactsOrderedCopy.indexOf(metaContact);
+            // it's not a disaster if s.o. else reads the old snapshot.
+            childContactsSnapshot = null;
         }
     }
 
@@ -632,8 +680,8 @@ public class MetaContactGroupImpl implements MetaContactGroup
      * Removes the <tt>metaContact</tt> from the local list of child contacts without unsetting
      * synchronization. This method is meant for use _PRIMARILY_ by the <tt>MetaContact</tt>
      * itself upon change in its encapsulated protocol specific contacts. The method would also
-     * regenerate the ordered copy used for generating iterators and performing search operations
-     * over the group.
+     * discard the snapshot used for generating iterators and performing search operations over
+     * the group.
      *
      * @param metaContact the <tt>MetaContact</tt> to remove from the local vector.
      */
@@ -641,8 +689,8 @@ public class MetaContactGroupImpl implements MetaContactGroup
     {
         synchronized (childContacts) {
             this.childContacts.remove(metaContact);
-            // no need to sync it's not a disaster if s.o. else reads the old copy.
-            childContactsOrderedCopy = new LinkedList<>(childContacts);
+            // it's not a disaster if s.o. else reads the old snapshot.
+            childContactsSnapshot = null;
         }
     }
 
@@ -653,8 +701,13 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     void removeMetaContact(MetaContactImpl metaContact)
     {
+        // the contact may already have been added to another group of the contact list.
+        boolean unindex = (metaContact.getParentGroup() == this) && isInContactList();
+
         metaContact.unsetParentGroup(this);
         lightRemoveMetaContact(metaContact);
+        if (unindex)
+            mclServiceImpl.getMetaContactIndex().removeMetaContact(metaContact);
     }
 
     /**
@@ -669,7 +722,7 @@ public class MetaContactGroupImpl implements MetaContactGroup
     public MetaContactGroup getMetaContactSubgroup(int index)
             throws IndexOutOfBoundsException
     {
-        return subgroupsOrderedCopy.get(index);
+        return getSubgroupsSnapshot().get(index);
     }
 
     /**
@@ -733,7 +786,9 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     public boolean contains(MetaContactGroup group)
     {
-        return this.subgroups.contains(group);
+        synchronized (subgroups) {
+            return this.subgroups.contains(group);
+        }
     }
 
     /**
@@ -748,7 +803,7 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     public Iterator<MetaContactGroup> getSubgroups()
     {
-        return subgroupsOrderedCopy.iterator();
+        return getSubgroupsSnapshot().iterator();
     }
 
     /**
@@ -846,10 +901,14 @@ public class MetaContactGroupImpl implements MetaContactGroup
     void addSubgroup(MetaContactGroup subgroup)
     {
         Timber.log(TimberLog.FINER, "Adding subgroup %s to %s", subgroup.getGroupName(), getGroupName());
-        this.subgroups.add((MetaContactGroupImpl) subgroup);
+        synchronized (subgroups) {
+            this.subgroups.add((MetaContactGroupImpl) subgroup);
+            subgroupsSnapshot = null;
+        }
         ((MetaContactGroupImpl) subgroup).parentMetaContactGroup = this;
 
-        this.subgroupsOrderedCopy = new LinkedList<>(subgroups);
+        if (isInContactList())
+            mclServiceImpl.getMetaContactIndex().addMetaContactGroup((MetaContactGroupImpl) subgroup);
     }
 
     /**
@@ -860,12 +919,18 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     MetaContactGroupImpl removeSubgroup(int index)
     {
-        MetaContactGroupImpl subgroup = (MetaContactGroupImpl) subgroupsOrderedCopy.get(index);
+        MetaContactGroupImpl subgroup = (MetaContactGroupImpl) getSubgroupsSnapshot().get(index);
+        boolean removed;
 
-        if (subgroups.remove(subgroup))
+        synchronized (subgroups) {
+            removed = subgroups.remove(subgroup);
+            subgroupsSnapshot = null;
+        }
+        if (removed) {
             subgroup.parentMetaContactGroup = null;
-
-        subgroupsOrderedCopy = new LinkedList<>(subgroups);
+            if (isInContactList())
+                mclServiceImpl.getMetaContactIndex().removeMetaContactGroup(subgroup);
+        }
         return subgroup;
     }
 
@@ -877,8 +942,10 @@ public class MetaContactGroupImpl implements MetaContactGroup
      */
     boolean removeSubgroup(MetaContactGroup group)
     {
-        if (subgroups.contains(group)) {
-            removeSubgroup(subgroupsOrderedCopy.indexOf(group));
+        int index = getSubgroupsSnapshot().indexOf(group);
+
+        if (index >= 0) {
+            removeSubgroup(index);
             return true;
         }
         else {
@@ -896,6 +963,22 @@ public class MetaContactGroupImpl implements MetaContactGroup
         return mclServiceImpl;
     }
 
+    /**
+     * Determines whether this group is the root group of its <tt>MetaContactListServiceImpl</tt>
+     * or one of its descendants, i.e. whether the meta contacts it contains are in the contact
+     * list and its <tt>MetaContactIndex</tt>.
+     *
+     * @return <tt>true</tt> if this group is in the contact list; otherwise, <tt>false</tt>
+     */
+    boolean isInContactList()
+    {
+        MetaContactGroupImpl group = this;
+
+        while (group.parentMetaContactGroup != null)
+            group = group.parentMetaContactGroup;
+        return (mclServiceImpl != null) && (group == mclServiceImpl.rootMetaGroup);
+    }
+
     /**
      * Implements {@link MetaContactGroup#getData(Object)}.
      *
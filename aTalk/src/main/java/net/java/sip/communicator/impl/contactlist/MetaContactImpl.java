@@ -46,6 +46,14 @@ public class MetaContactImpl extends DataObject implements MetaContact
      */
     private final List<Contact> protoContacts = new Vector<>();
 
+    /**
+     * An immutable array-backed snapshot of {@link #protoContacts} which we use for returning
+     * iterators and searching over the list without copying or locking it upon each query. A
+     * modification only discards the snapshot, guarded by <tt>protoContacts</tt>, and the next
+     * query takes a new one.
+     */
+    private volatile List<Contact> protoContactsSnapshot = Collections.emptyList();
+
     /**
      * The list of capabilities of the meta contact.
      */
@@ -153,7 +161,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
     public Iterator<Contact> getContactsForProvider(ProtocolProviderService provider)
     {
         LinkedList<Contact> providerContacts = new LinkedList<>();
-        for (Contact contact : protoContacts) {
+        for (Contact contact : getContactsSnapshot()) {
             if (contact.getProtocolProvider() == provider)
                 providerContacts.add(contact);
         }
@@ -172,7 +180,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
     public List<Contact> getContactsForOperationSet(Class<? extends OperationSet> opSetClass)
     {
         LinkedList<Contact> opSetContacts = new LinkedList<>();
-        for (Contact contact : protoContacts) {
+        for (Contact contact : getContactsSnapshot()) {
             ProtocolProviderService contactProvider = contact.getProtocolProvider();
             // First try to ask the capabilities operation set if such is available.
             OperationSetContactCapabilities capOpSet
@@ -204,7 +212,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
     public Iterator<Contact> getContactsForContactGroup(ContactGroup parentProtoGroup)
     {
         List<Contact> providerContacts = new LinkedList<>();
-        for (Contact contact : protoContacts) {
+        for (Contact contact : getContactsSnapshot()) {
             if (contact.getParentContactGroup() == parentProtoGroup)
                 providerContacts.add(contact);
         }
@@ -223,7 +231,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
      */
     public Contact getContact(String contactAddress, ProtocolProviderService ownerProvider)
     {
-        for (Contact contact : protoContacts) {
+        for (Contact contact : getContactsSnapshot()) {
             if ((contact.getProtocolProvider() == ownerProvider)
                     && (contact.getAddress().equals(contactAddress)
                     || contact.toString().equals(contactAddress)))
@@ -244,7 +252,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
      */
     public Contact getContact(String contactAddress, String accountID)
     {
-        for (Contact contact : protoContacts) {
+        for (Contact contact : getContactsSnapshot()) {
             if (contact.getProtocolProvider().getAccountID().getAccountUniqueID().equals(accountID)
                     && contact.getAddress().equals(contactAddress))
                 return contact;
@@ -270,14 +278,37 @@ public class MetaContactImpl extends DataObject implements MetaContact
      * encapsulated by this <tt>MetaContact</tt>.
      *
      * In order to prevent problems with concurrency, the <tt>Iterator</tt> returned by
-     * this method is not over the actual list of contacts but over a copy of that list.
+     * this method is not over the actual list of contacts but over an immutable snapshot of that list.
      *
      * @return a <tt>java.util.Iterator</tt> over all protocol specific <tt>Contact</tt>s
      * that were registered as subContacts for this <tt>MetaContact</tt>
      */
     public Iterator<Contact> getContacts()
     {
-        return new LinkedList<>(protoContacts).iterator();
+        return getContactsSnapshot().iterator();
+    }
+
+    /**
+     * Returns the snapshot of the protocol specific contacts of this meta contact, taking a new
+     * one if they have changed since the last.
+     *
+     * @return an immutable <tt>List</tt> of the protocol specific contacts of this meta contact
+     */
+    private List<Contact> getContactsSnapshot()
+    {
+        List<Contact> snapshot = protoContactsSnapshot;
+
+        if (snapshot == null) {
+            synchronized (protoContacts) {
+                snapshot = protoContactsSnapshot;
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(
+                            Arrays.asList(protoContacts.toArray(new Contact[protoContacts.size()])));
+                    protoContactsSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
     }
 
     /**
@@ -290,7 +321,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
     {
         if (defaultContact == null) {
             PresenceStatus currentStatus = null;
-            for (Contact protoContact : protoContacts) {
+            for (Contact protoContact : getContactsSnapshot()) {
                 PresenceStatus contactStatus = protoContact.getPresenceStatus();
 
                 if (currentStatus != null) {
@@ -344,7 +375,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
         if (defaultOpSetContact == null) {
             PresenceStatus currentStatus = null;
 
-            for (Contact protoContact : protoContacts) {
+            for (Contact protoContact : getContactsSnapshot()) {
                 ProtocolProviderService contactProvider = protoContact.getProtocolProvider();
 
                 // First try to ask the capabilities operation set if such is available.
@@ -605,7 +636,14 @@ public class MetaContactImpl extends DataObject implements MetaContact
                 parentGroup.lightRemoveMetaContact(this);
             contactsOnline += contact.getPresenceStatus().isOnline() ? 1 : 0;
 
-            this.protoContacts.add(contact);
+            synchronized (protoContacts) {
+                this.protoContacts.add(contact);
+                protoContactsSnapshot = null;
+            }
+
+            MetaContactIndex index = getMetaContactIndex();
+            if (index != null)
+                index.addContact(this, contact);
 
             // Re-init the default contact.
             defaultContact = null;
@@ -653,7 +691,7 @@ public class MetaContactImpl extends DataObject implements MetaContact
             this.contactsOnline = 0;
             int maxContactStatus = 0;
 
-            for (Contact contact : protoContacts) {
+            for (Contact contact : getContactsSnapshot()) {
                 int contactStatus = contact.getPresenceStatus().getStatus();
 
                 if (maxContactStatus < contactStatus) {
@@ -666,7 +704,8 @@ public class MetaContactImpl extends DataObject implements MetaContact
             // now read it and the contact would be automatically placed
             // properly by the containing group
             if (parentGroup != null) {
-                return parentGroup.lightAddMetaContact(this);
+                parentGroup.lightAddMetaContact(this);
+                return parentGroup.indexOf(this);
             }
         }
 
@@ -687,7 +726,14 @@ public class MetaContactImpl extends DataObject implements MetaContact
             if (parentGroup != null)
                 parentGroup.lightRemoveMetaContact(this);
             contactsOnline -= contact.getPresenceStatus().isOnline() ? 1 : 0;
-            this.protoContacts.remove(contact);
+            synchronized (protoContacts) {
+                this.protoContacts.remove(contact);
+                protoContactsSnapshot = null;
+            }
+
+            MetaContactIndex index = getMetaContactIndex();
+            if (index != null)
+                index.removeContact(this, contact);
 
             if (defaultContact == contact)
                 defaultContact = null;
@@ -721,22 +767,22 @@ public class MetaContactImpl extends DataObject implements MetaContact
      */
     boolean removeContactsForProvider(ProtocolProviderService provider)
     {
-        boolean modified = false;
-        Iterator<Contact> contactsIter = protoContacts.iterator();
+        List<Contact> removedContacts = new ArrayList<>();
+
+        synchronized (protoContacts) {
+            Iterator<Contact> contactsIter = protoContacts.iterator();
 
-        while (contactsIter.hasNext()) {
-            Contact contact = contactsIter.next();
+            while (contactsIter.hasNext()) {
+                Contact contact = contactsIter.next();
 
-            if (contact.getProtocolProvider() == provider) {
-                contactsIter.remove();
-                modified = true;
+                if (contact.getProtocolProvider() == provider) {
+                    contactsIter.remove();
+                    removedContacts.add(contact);
+                }
             }
+            protoContactsSnapshot = null;
         }
-        // if the default contact has been modified, set it to null
-        if (modified && !protoContacts.contains(defaultContact)) {
-            defaultContact = null;
-        }
-        return modified;
+        return contactsRemoved(removedContacts);
     }
 
     /**
@@ -747,21 +793,61 @@ public class MetaContactImpl extends DataObject implements MetaContact
      */
     boolean removeContactsForGroup(ContactGroup protoGroup)
     {
-        boolean modified = false;
-        Iterator<Contact> contacts = protoContacts.iterator();
-
-        while (contacts.hasNext()) {
-            Contact contact = contacts.next();
-            if (contact.getParentContactGroup() == protoGroup) {
-                contacts.remove();
-                modified = true;
+        List<Contact> removedContacts = new ArrayList<>();
+
+        synchronized (protoContacts) {
+            Iterator<Contact> contacts = protoContacts.iterator();
+
+            while (contacts.hasNext()) {
+                Contact contact = contacts.next();
+                if (contact.getParentContactGroup() == protoGroup) {
+                    contacts.remove();
+                    removedContacts.add(contact);
+                }
             }
+            protoContactsSnapshot = null;
         }
+        return contactsRemoved(removedContacts);
+    }
+
+    /**
+     * Updates the default contact and the <tt>MetaContactIndex</tt> of the contact list after
+     * specific proto contacts have been removed from this meta contact.
+     *
+     * @param removedContacts the proto contacts which have been removed
+     * @return true if <tt>removedContacts</tt> is not empty i.e. this <tt>MetaContact</tt> was
+     * modified and false otherwise.
+     */
+    private boolean contactsRemoved(List<Contact> removedContacts)
+    {
+        if (removedContacts.isEmpty())
+            return false;
+
         // if the default contact has been modified, set it to null
-        if (modified && !protoContacts.contains(defaultContact)) {
+        if (!protoContacts.contains(defaultContact)) {
             defaultContact = null;
         }
-        return modified;
+
+        MetaContactIndex index = getMetaContactIndex();
+        if (index != null) {
+            for (Contact contact : removedContacts)
+                index.removeContact(this, contact);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the <tt>MetaContactIndex</tt> of the contact list this meta contact is in.
+     *
+     * @return the <tt>MetaContactIndex</tt> of the contact list or <tt>null</tt> if this meta
+     * contact is not in a contact list
+     */
+    private MetaContactIndex getMetaContactIndex()
+    {
+        MetaContactGroupImpl parentGroup = this.parentGroup;
+
+        return ((parentGroup != null) && parentGroup.isInContactList())
+                ? parentGroup.getMclServiceImpl().getMetaContactIndex() : null;
     }
 
     /**
@@ -0,0 +1,296 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.protocol.Contact;
+import net.java.sip.communicator.service.protocol.ProtocolProviderService;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hash indexes of the <tt>MetaContactImpl</tt>s in the contact list of a
+ * <tt>MetaContactListServiceImpl</tt>, so that looking up the meta contact of a protocol contact,
+ * an address or a meta UID does not walk the whole <tt>MetaContactGroupImpl</tt> tree. The indexes
+ * are maintained incrementally by <tt>MetaContactGroupImpl</tt> and <tt>MetaContactImpl</tt> as
+ * meta contacts, protocol contacts and groups are added to and removed from the contact list, and
+ * only contain the meta contacts which are reachable from its root group.
+ *
+ * Readers do not lock; each index is a <tt>ConcurrentHashMap</tt>. Writers synchronize on the
+ * index they change, so that an inner map which has become empty is only removed when no other
+ * writer is adding to it.
+ *
+ * @author Eng Chong Meng
+ */
+class MetaContactIndex
+{
+    /**
+     * The meta contacts by their meta UIDs.
+     */
+    private final ConcurrentMap<String, MetaContactImpl> byMetaUID = new ConcurrentHashMap<>();
+
+    /**
+     * The meta contacts by the providers and the addresses of their protocol contacts.
+     */
+    private final ConcurrentMap<ProtocolProviderService, ConcurrentMap<String, MetaContactImpl>> byProvider
+            = new ConcurrentHashMap<>();
+
+    /**
+     * The meta contacts by the unique IDs of the accounts and the addresses of their protocol
+     * contacts.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MetaContactImpl>> byAccountID
+            = new ConcurrentHashMap<>();
+
+    /**
+     * The meta contacts by the addresses of their protocol contacts.
+     */
+    private final ConcurrentMap<String, Set<MetaContactImpl>> byAddress = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a meta contact and all of its protocol contacts to the indexes.
+     *
+     * @param metaContact the <tt>MetaContactImpl</tt> which has been added to the contact list
+     */
+    void addMetaContact(MetaContactImpl metaContact)
+    {
+        byMetaUID.put(metaContact.getMetaUID(), metaContact);
+
+        Iterator<Contact> contacts = metaContact.getContacts();
+        while (contacts.hasNext())
+            addContact(metaContact, contacts.next());
+    }
+
+    /**
+     * Removes a meta contact and all of its protocol contacts from the indexes.
+     *
+     * @param metaContact the <tt>MetaContactImpl</tt> which has been removed from the contact list
+     */
+    void removeMetaContact(MetaContactImpl metaContact)
+    {
+        byMetaUID.remove(metaContact.getMetaUID(), metaContact);
+
+        Iterator<Contact> contacts = metaContact.getContacts();
+        while (contacts.hasNext()) {
+            Contact contact = contacts.next();
+
+            removeKey(byProvider, contact.getProtocolProvider(), contact.getAddress(), metaContact);
+            removeKey(byAccountID, getAccountID(contact), contact.getAddress(), metaContact);
+            removeAddress(contact.getAddress(), metaContact);
+        }
+    }
+
+    /**
+     * Adds the meta contacts of a group and of all of its subgroups to the indexes.
+     *
+     * @param metaGroup the <tt>MetaContactGroupImpl</tt> which has been added to the contact list
+     */
+    void addMetaContactGroup(MetaContactGroupImpl metaGroup)
+    {
+        Iterator<MetaContact> childContacts = metaGroup.getChildContacts();
+        while (childContacts.hasNext())
+            addMetaContact((MetaContactImpl) childContacts.next());
+
+        Iterator<?> subgroups = metaGroup.getSubgroups();
+        while (subgroups.hasNext())
+            addMetaContactGroup((MetaContactGroupImpl) subgroups.next());
+    }
+
+    /**
+     * Removes the meta contacts of a group and of all of its subgroups from the indexes.
+     *
+     * @param metaGroup the <tt>MetaContactGroupImpl</tt> which has been removed from the contact list
+     */
+    void removeMetaContactGroup(MetaContactGroupImpl metaGroup)
+    {
+        Iterator<MetaContact> childContacts = metaGroup.getChildContacts();
+        while (childContacts.hasNext())
+            removeMetaContact((MetaContactImpl) childContacts.next());
+
+        Iterator<?> subgroups = metaGroup.getSubgroups();
+        while (subgroups.hasNext())
+            removeMetaContactGroup((MetaContactGroupImpl) subgroups.next());
+    }
+
+    /**
+     * Adds a protocol contact of a meta contact in the contact list to the indexes.
+     *
+     * @param metaContact the <tt>MetaContactImpl</tt> which contains <tt>contact</tt>
+     * @param contact the protocol <tt>Contact</tt> which has been added to <tt>metaContact</tt>
+     */
+    void addContact(MetaContactImpl metaContact, Contact contact)
+    {
+        putKey(byProvider, contact.getProtocolProvider(), contact.getAddress(), metaContact);
+        putKey(byAccountID, getAccountID(contact), contact.getAddress(), metaContact);
+        addAddress(contact.getAddress(), metaContact);
+    }
+
+    /**
+     * Removes a protocol contact, which has just been removed from a meta contact in the contact
+     * list, from the indexes.
+     *
+     * @param metaContact the <tt>MetaContactImpl</tt> which contained <tt>contact</tt>
+     * @param contact the protocol <tt>Contact</tt> which has been removed from <tt>metaContact</tt>
+     */
+    void removeContact(MetaContactImpl metaContact, Contact contact)
+    {
+        String address = contact.getAddress();
+        boolean providerAddressLeft = false, accountAddressLeft = false, addressLeft = false;
+
+        // Another protocol contact of metaContact may still be indexed under the same keys.
+        Iterator<Contact> contacts = metaContact.getContacts();
+        while (contacts.hasNext()) {
+            Contact other = contacts.next();
+
+            if (address.equals(other.getAddress())) {
+                addressLeft = true;
+                if (other.getProtocolProvider() == contact.getProtocolProvider())
+                    providerAddressLeft = true;
+                if (getAccountID(other).equals(getAccountID(contact)))
+                    accountAddressLeft = true;
+            }
+        }
+
+        if (!providerAddressLeft)
+            removeKey(byProvider, contact.getProtocolProvider(), address, metaContact);
+        if (!accountAddressLeft)
+            removeKey(byAccountID, getAccountID(contact), address, metaContact);
+        if (!addressLeft)
+            removeAddress(address, metaContact);
+    }
+
+    /**
+     * Gets the meta contact with a specific meta UID.
+     *
+     * @param metaUID the meta UID of the meta contact to get
+     * @return the <tt>MetaContactImpl</tt> with the specified <tt>metaUID</tt> or <tt>null</tt>
+     */
+    MetaContactImpl findMetaContactByMetaUID(String metaUID)
+    {
+        return byMetaUID.get(metaUID);
+    }
+
+    /**
+     * Gets the meta contact which contains a protocol contact with a specific address and
+     * provider.
+     *
+     * @param contactAddress the address of the protocol contact
+     * @param provider the provider of the protocol contact
+     * @return the <tt>MetaContactImpl</tt> which contains the protocol contact or <tt>null</tt>
+     */
+    MetaContactImpl findMetaContactByContact(String contactAddress, ProtocolProviderService provider)
+    {
+        ConcurrentMap<String, MetaContactImpl> metaContacts = byProvider.get(provider);
+        return (metaContacts == null) ? null : metaContacts.get(contactAddress);
+    }
+
+    /**
+     * Gets the meta contact which contains a protocol contact with a specific address of an
+     * account with a specific unique ID.
+     *
+     * @param contactAddress the address of the protocol contact
+     * @param accountID the unique ID of the account of the protocol contact
+     * @return the <tt>MetaContactImpl</tt> which contains the protocol contact or <tt>null</tt>
+     */
+    MetaContactImpl findMetaContactByContact(String contactAddress, String accountID)
+    {
+        ConcurrentMap<String, MetaContactImpl> metaContacts = byAccountID.get(accountID);
+        return (metaContacts == null) ? null : metaContacts.get(contactAddress);
+    }
+
+    /**
+     * Gets the meta contacts which contain a protocol contact of a specific provider.
+     *
+     * @param provider the provider of the protocol contacts
+     * @return a <tt>List</tt> of the meta contacts which contain a protocol contact of
+     * <tt>provider</tt>, each of them once
+     */
+    List<MetaContact> findAllMetaContactsForProvider(ProtocolProviderService provider)
+    {
+        ConcurrentMap<String, MetaContactImpl> metaContacts = byProvider.get(provider);
+        if (metaContacts == null)
+            return new ArrayList<>();
+        return new ArrayList<MetaContact>(new LinkedHashSet<>(metaContacts.values()));
+    }
+
+    /**
+     * Gets the meta contacts which contain a protocol contact with a specific address.
+     *
+     * @param contactAddress the address of the protocol contacts
+     * @return a <tt>List</tt> of the meta contacts which contain a protocol contact with
+     * <tt>contactAddress</tt>, each of them once
+     */
+    List<MetaContact> findAllMetaContactsForAddress(String contactAddress)
+    {
+        Set<MetaContactImpl> metaContacts = byAddress.get(contactAddress);
+        return (metaContacts == null) ? new ArrayList<>() : new ArrayList<MetaContact>(metaContacts);
+    }
+
+    /**
+     * Gets the unique ID of the account of a specific protocol contact.
+     */
+    private static String getAccountID(Contact contact)
+    {
+        return contact.getProtocolProvider().getAccountID().getAccountUniqueID();
+    }
+
+    private void addAddress(String address, MetaContactImpl metaContact)
+    {
+        if (address == null)
+            return;
+
+        synchronized (byAddress) {
+            Set<MetaContactImpl> metaContacts = byAddress.get(address);
+            if (metaContacts == null) {
+                metaContacts = Collections.newSetFromMap(new ConcurrentHashMap<MetaContactImpl, Boolean>());
+                byAddress.put(address, metaContacts);
+            }
+            metaContacts.add(metaContact);
+        }
+    }
+
+    private void removeAddress(String address, MetaContactImpl metaContact)
+    {
+        if (address == null)
+            return;
+
+        synchronized (byAddress) {
+            Set<MetaContactImpl> metaContacts = byAddress.get(address);
+            if ((metaContacts != null) && metaContacts.remove(metaContact) && metaContacts.isEmpty())
+                byAddress.remove(address);
+        }
+    }
+
+    private static <K> void putKey(ConcurrentMap<K, ConcurrentMap<String, MetaContactImpl>> index,
+            K key, String address, MetaContactImpl metaContact)
+    {
+        synchronized (index) {
+            ConcurrentMap<String, MetaContactImpl> metaContacts = index.get(key);
+            if (metaContacts == null) {
+                metaContacts = new ConcurrentHashMap<>();
+                index.put(key, metaContacts);
+            }
+            metaContacts.put(address, metaContact);
+        }
+    }
+
+    /**
+     * Removes the mapping of an address to a meta contact from the inner map of a specific key
+     * of an index, and the inner map itself once it is empty.
+     */
+    private static <K> void removeKey(ConcurrentMap<K, ConcurrentMap<String, MetaContactImpl>> index,
+            K key, String address, MetaContactImpl metaContact)
+    {
+        synchronized (index) {
+            ConcurrentMap<String, MetaContactImpl> metaContacts = index.get(key);
+            if ((metaContacts != null) && metaContacts.remove(address, metaContact)
+                    && metaContacts.isEmpty())
+                index.remove(key);
+        }
+    }
+}
@@ -58,6 +58,12 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public final MetaContactGroupImpl rootMetaGroup;
 
+    /**
+     * The indexes of the meta contacts under {@link #rootMetaGroup} by protocol contact, address
+     * and meta UID.
+     */
+    private final MetaContactIndex metaContactIndex = new MetaContactIndex();
+
     /**
      * The event handler that will be handling our subscription events.
      */
@@ -80,6 +86,17 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     private final List<MetaContactListListener> metaContactListListeners = new Vector<>();
 
+    /**
+     * The number of the <tt>MetaContactListBulkListener</tt>s in {@link #metaContactListListeners}.
+     * The presence changes are only collected for bulk delivery while there are any.
+     */
+    private volatile int bulkListenerCount = 0;
+
+    /**
+     * Collects the presence changes of the meta contacts for the <tt>MetaContactListBulkListener</tt>s.
+     */
+    private final PresenceEventCoalescer presenceEventCoalescer = new PresenceEventCoalescer(this);
+
     /**
      * Contains (as keys) <tt>MetaContactGroup</tt> names that are currently being resolved
      * against a given protocol and that this class's <tt>ContactGroupListener</tt> should ignore
@@ -110,8 +127,17 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public MetaContactListServiceImpl()
     {
-        rootMetaGroup = new MetaContactGroupImpl(this,
-                aTalkApp.getResString(R.string.service_gui_CONTACTS), ContactGroup.ROOT_GROUP_UID);
+        this(aTalkApp.getResString(R.string.service_gui_CONTACTS));
+    }
+
+    /**
+     * Creates an instance of this class with a root group of a specific name.
+     *
+     * @param rootGroupName the name of the root group
+     */
+    MetaContactListServiceImpl(String rootGroupName)
+    {
+        rootMetaGroup = new MetaContactGroupImpl(this, rootGroupName, ContactGroup.ROOT_GROUP_UID);
     }
 
     /**
@@ -194,6 +220,7 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
             }
         }
         currentlyInstalledProviders.clear();
+        presenceEventCoalescer.dispose();
     }
 
     /**
@@ -204,8 +231,11 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
     public void addMetaContactListListener(MetaContactListListener listener)
     {
         synchronized (metaContactListListeners) {
-            if (!metaContactListListeners.contains(listener))
+            if (!metaContactListListeners.contains(listener)) {
                 metaContactListListeners.add(listener);
+                if (listener instanceof MetaContactListBulkListener)
+                    bulkListenerCount++;
+            }
         }
     }
 
@@ -955,7 +985,9 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
     public void removeMetaContactListListener(MetaContactListListener listener)
     {
         synchronized (metaContactListListeners) {
-            this.metaContactListListeners.remove(listener);
+            if (this.metaContactListListeners.remove(listener)
+                    && (listener instanceof MetaContactListBulkListener))
+                bulkListenerCount--;
         }
     }
 
@@ -1143,7 +1175,7 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public MetaContact findMetaContactByContact(Contact contact)
     {
-        return rootMetaGroup.findMetaContactByContact(contact);
+        return metaContactIndex.findMetaContactByContact(contact.getAddress(), contact.getProtocolProvider());
     }
 
     /**
@@ -1160,7 +1192,7 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public MetaContact findMetaContactByContact(String contactAddress, String accountID)
     {
-        return rootMetaGroup.findMetaContactByContact(contactAddress, accountID);
+        return metaContactIndex.findMetaContactByContact(contactAddress, accountID);
     }
 
     /**
@@ -1172,7 +1204,7 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public MetaContact findMetaContactByMetaUID(String metaContactID)
     {
-        return rootMetaGroup.findMetaContactByMetaUID(metaContactID);
+        return metaContactIndex.findMetaContactByMetaUID(metaContactID);
     }
 
     /**
@@ -1197,9 +1229,7 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public Iterator<MetaContact> findAllMetaContactsForProvider(ProtocolProviderService protocolProvider)
     {
-        List<MetaContact> resultList = new ArrayList<>();
-        this.findAllMetaContactsForProvider(protocolProvider, rootMetaGroup, resultList);
-        return resultList.iterator();
+        return metaContactIndex.findAllMetaContactsForProvider(protocolProvider).iterator();
     }
 
     /**
@@ -1229,46 +1259,18 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
      */
     public Iterator<MetaContact> findAllMetaContactsForAddress(String contactAddress)
     {
-        List<MetaContact> resultList = new LinkedList<>();
-        findAllMetaContactsForAddress(rootMetaGroup, contactAddress, resultList);
-        return resultList.iterator();
+        return metaContactIndex.findAllMetaContactsForAddress(contactAddress).iterator();
     }
 
     /**
-     * Returns a list of all <tt>MetaContact</tt>s containing a protocol contact corresponding to
-     * the given <tt>contactAddress</tt> string.
+     * Returns the indexes of the meta contacts in this contact list, which are kept up to date by
+     * <tt>MetaContactGroupImpl</tt> and <tt>MetaContactImpl</tt>.
      *
-     * @param contactAddress the contact address for which we're looking for a parent <tt>MetaContact</tt>.
-     * @param metaContactGroup the parent group.
-     * @param resultList the list containing the result of the search.
+     * @return the <tt>MetaContactIndex</tt> of this contact list
      */
-    private void findAllMetaContactsForAddress(MetaContactGroup metaContactGroup,
-            String contactAddress, List<MetaContact> resultList)
+    MetaContactIndex getMetaContactIndex()
     {
-        Iterator<MetaContact> childContacts = metaContactGroup.getChildContacts();
-        while (childContacts.hasNext()) {
-            MetaContact metaContact = childContacts.next();
-
-            Iterator<Contact> protocolContacts = metaContact.getContacts();
-
-            while (protocolContacts.hasNext()) {
-                Contact protocolContact = protocolContacts.next();
-
-                if (protocolContact.getAddress().equals(contactAddress)
-                        || protocolContact.getDisplayName().equals(contactAddress))
-                    resultList.add(metaContact);
-            }
-        }
-
-        Iterator<MetaContactGroup> subGroups = metaContactGroup.getSubgroups();
-        while (subGroups.hasNext()) {
-            MetaContactGroup subGroup = subGroups.next();
-
-            Iterator<ContactGroup> protocolSubgroups = subGroup.getContactGroups();
-            if (protocolSubgroups.hasNext()) {
-                this.findAllMetaContactsForAddress(subGroup, contactAddress, resultList);
-            }
-        }
+        return metaContactIndex;
     }
 
     /**
@@ -2223,9 +2225,50 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
         }
     }
 
+    /**
+     * Creates the corresponding <tt>MetaContactGroupEvent</tt> and notifies all
+     * <tt>MetaContactListListener</tt>s but the <tt>MetaContactListBulkListener</tt>s that the
+     * child contacts of a group have been reordered by a presence change; the bulk listeners are
+     * told of it by the next <tt>MetaContactPresenceEvent</tt> instead.
+     *
+     * @param source the group whose child contacts have been reordered.
+     * @param provider the ProtocolProviderService instance where this event occurred.
+     */
+    private synchronized void fireChildContactsReordered(MetaContactGroup source,
+            ProtocolProviderService provider)
+    {
+        MetaContactGroupEvent evt = new MetaContactGroupEvent(source, provider, null,
+                MetaContactGroupEvent.CHILD_CONTACTS_REORDERED);
+        Timber.log(TimberLog.FINER, "Will dispatch the following mcl event: %s", evt);
+
+        for (MetaContactListListener listener : getMetaContactListListeners()) {
+            if (!(listener instanceof MetaContactListBulkListener))
+                listener.childContactsReordered(evt);
+        }
+    }
+
+    /**
+     * Notifies all <tt>MetaContactListBulkListener</tt>s of the presence changes collected by
+     * {@link #presenceEventCoalescer}. Synchronized for the same reason as the other
+     * <tt>fireXXX</tt> methods.
+     *
+     * @param evt the <tt>MetaContactPresenceEvent</tt> to dispatch.
+     */
+    synchronized void fireMetaContactPresenceEvent(MetaContactPresenceEvent evt)
+    {
+        Timber.log(TimberLog.FINER, "Will dispatch the following mcl presence event: %s", evt);
+
+        for (MetaContactListListener listener : getMetaContactListListeners()) {
+            if (listener instanceof MetaContactListBulkListener)
+                ((MetaContactListBulkListener) listener).metaContactsPresenceChanged(evt);
+        }
+    }
+
     /**
      * Upon each status notification this method finds the corresponding meta contact and updates
-     * the ordering in its parent group.
+     * the ordering in its parent group. The <tt>MetaContactListBulkListener</tt>s are told of
+     * the change by the <tt>MetaContactPresenceEvent</tt> of its window, and the other listeners
+     * right away as before.
      * <p>
      *
      * @param evt the ContactPresenceStatusChangeEvent describing the status change.
@@ -2240,10 +2283,14 @@ public class MetaContactListServiceImpl implements MetaContactListService, Servi
 
         int oldContactIndex = metaContactImpl.getParentGroup().indexOf(metaContactImpl);
         int newContactIndex = metaContactImpl.reevalContact();
+        MetaContactGroup reorderedGroup = null;
+
         if (oldContactIndex != newContactIndex) {
-            fireMetaContactGroupEvent(findParentMetaContactGroup(metaContactImpl),
-                    evt.getSourceProvider(), null, MetaContactGroupEvent.CHILD_CONTACTS_REORDERED);
+            reorderedGroup = findParentMetaContactGroup(metaContactImpl);
+            fireChildContactsReordered(reorderedGroup, evt.getSourceProvider());
         }
+        if (bulkListenerCount > 0)
+            presenceEventCoalescer.add(metaContactImpl, reorderedGroup);
     }
 
     /**
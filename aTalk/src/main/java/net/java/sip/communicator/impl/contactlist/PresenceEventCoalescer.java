@@ -0,0 +1,139 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.contactlist.MetaContactGroup;
+import net.java.sip.communicator.service.contactlist.event.MetaContactPresenceEvent;
+
+import java.util.*;
+
+import timber.log.Timber;
+
+/**
+ * Collects the presence changes of the meta contacts of a <tt>MetaContactListServiceImpl</tt>
+ * over a window of {@link #WINDOW} milliseconds after the first of them, and then delivers them
+ * as one <tt>MetaContactPresenceEvent</tt> to its <tt>MetaContactListBulkListener</tt>s. A meta
+ * contact or a group which changes several times in a window is reported once.
+ *
+ * @author Eng Chong Meng
+ */
+class PresenceEventCoalescer
+{
+    /**
+     * The name of the <tt>System</tt> property which specifies the value of {@link #WINDOW}.
+     */
+    static final String PNAME_WINDOW = "net.java.sip.communicator.impl.contactlist.PRESENCE_EVENT_WINDOW";
+
+    /**
+     * The number of milliseconds presence changes are collected for before they are delivered.
+     */
+    private static final long WINDOW = Long.getLong(PNAME_WINDOW, 250);
+
+    /**
+     * The <tt>MetaContactListServiceImpl</tt> which fires the events.
+     */
+    private final MetaContactListServiceImpl mclServiceImpl;
+
+    /**
+     * The meta contacts which have changed in the current window; guarded by <tt>this</tt>.
+     */
+    private Set<MetaContact> metaContacts = new LinkedHashSet<>();
+
+    /**
+     * The groups which have been reordered in the current window; guarded by <tt>this</tt>.
+     */
+    private Set<MetaContactGroup> reorderedGroups = new LinkedHashSet<>();
+
+    /**
+     * Whether the delivery of the current window has been scheduled; guarded by <tt>this</tt>.
+     */
+    private boolean scheduled = false;
+
+    /**
+     * The timer which delivers the windows, created on first use; guarded by <tt>this</tt>.
+     */
+    private Timer timer;
+
+    /**
+     * Initializes a new <tt>PresenceEventCoalescer</tt> for a specific
+     * <tt>MetaContactListServiceImpl</tt>.
+     *
+     * @param mclServiceImpl the <tt>MetaContactListServiceImpl</tt> which is to fire the events
+     */
+    PresenceEventCoalescer(MetaContactListServiceImpl mclServiceImpl)
+    {
+        this.mclServiceImpl = mclServiceImpl;
+    }
+
+    /**
+     * Adds a presence change of a meta contact to the current window.
+     *
+     * @param metaContact the <tt>MetaContact</tt> a protocol contact of which has changed its
+     * presence status
+     * @param reorderedGroup the group the child contacts of which have been reordered by the
+     * change or <tt>null</tt> if they have not
+     */
+    synchronized void add(MetaContact metaContact, MetaContactGroup reorderedGroup)
+    {
+        metaContacts.add(metaContact);
+        if (reorderedGroup != null)
+            reorderedGroups.add(reorderedGroup);
+
+        if (!scheduled) {
+            if (timer == null)
+                timer = new Timer(getClass().getSimpleName(), true);
+            timer.schedule(new TimerTask()
+            {
+                @Override
+                public void run()
+                {
+                    flush();
+                }
+            }, WINDOW);
+            scheduled = true;
+        }
+    }
+
+    /**
+     * Delivers the presence changes of the current window, if any, and starts a new window.
+     */
+    void flush()
+    {
+        MetaContactPresenceEvent evt;
+
+        synchronized (this) {
+            scheduled = false;
+            if (metaContacts.isEmpty())
+                return;
+
+            evt = new MetaContactPresenceEvent(mclServiceImpl, metaContacts, reorderedGroups);
+            metaContacts = new LinkedHashSet<>();
+            reorderedGroups = new LinkedHashSet<>();
+        }
+
+        try {
+            mclServiceImpl.fireMetaContactPresenceEvent(evt);
+        } catch (RuntimeException re) {
+            // a failing listener must not stop the timer and with it all later deliveries.
+            Timber.e(re, "Failed to deliver %s", evt);
+        }
+    }
+
+    /**
+     * Discards the presence changes of the current window and stops the timer.
+     */
+    synchronized void dispose()
+    {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        scheduled = false;
+        metaContacts.clear();
+        reorderedGroups.clear();
+    }
+}
@@ -43,6 +43,7 @@ import org.atalk.android.R;
 import org.atalk.android.aTalkApp;
 import org.atalk.android.gui.chat.*;
 import org.atalk.android.plugin.timberlog.TimberLog;
+import org.atalk.persistance.ChatMessageFts;
 import org.atalk.persistance.DatabaseBackend;
 import org.atalk.service.configuration.ConfigurationService;
 import org.atalk.util.StringUtils;
@@ -110,6 +111,11 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     private SQLiteDatabase mDB;
     private ContentValues contentValues = new ContentValues();
 
+    /**
+     * The thread indexing the messages which predate the full-text index of the message bodies.
+     */
+    private Thread ftsBackfillThread;
+
     /**
      * Starts the service. Check the current registered protocol providers which supports
      * BasicIM and adds message listener to them
@@ -121,6 +127,23 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
         this.bundleContext = bc;
         mDB = DatabaseBackend.getWritableDB();
 
+        ftsBackfillThread = new Thread("MessageFtsBackfill")
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    ChatMessageFts.backfill(mDB);
+                } catch (RuntimeException e) {
+                    // searches keep scanning the messages not indexed yet; retried on next start.
+                    Timber.e(e, "Failed to index the message history");
+                }
+            }
+        };
+        ftsBackfillThread.setDaemon(true);
+        ftsBackfillThread.setPriority(Thread.MIN_PRIORITY);
+        ftsBackfillThread.start();
+
         ServiceReference refConfig = bundleContext.getServiceReference(ConfigurationService.class.getName());
         configService = (ConfigurationService) bundleContext.getService(refConfig);
 
@@ -160,6 +183,10 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
         if (configService != null)
             configService.removePropertyChangeListener(msgHistoryPropListener);
 
+        if (ftsBackfillThread != null) {
+            ftsBackfillThread.interrupt();
+            ftsBackfillThread = null;
+        }
         stopMessageHistoryService();
     }
 
@@ -1527,30 +1554,19 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByPeriod(MetaContact metaContact, Date startDate,
             Date endDate, String[] keywords, boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String startTimeStamp = String.valueOf(startDate.getTime());
-        String endTimeStamp = String.valueOf(endDate.getTime());
-        String filterLike = "( ";
-        for (String word : keywords) {
-            filterLike += ChatMessage.MSG_BODY + " LIKE '%" + word + "%' OR ";
-        }
-        filterLike = filterLike.substring(0, filterLike.length() - 4) + " )";
+        List<RankedEvent> result = new ArrayList<>();
 
         Iterator<Contact> contacts = metaContact.getContacts();
         while (contacts.hasNext()) {
             Contact contact = contacts.next();
-            String sessionUuid = getSessionUuidByJid(contact);
-            String[] args = {sessionUuid, startTimeStamp, endTimeStamp};
-
-            Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                    ChatMessage.SESSION_UUID + "=? AND " + ChatMessage.TIME_STAMP + ">=? AND "
-                            + ChatMessage.TIME_STAMP + "<? AND " + filterLike, args, null, null, ORDER_ASC);
+            Cursor cursor = queryByKeywords(getSessionUuidByJid(contact), startDate, endDate, keywords);
 
             while (cursor.moveToNext()) {
-                result.add(convertHistoryRecordToMessageEvent(cursor, contact));
+                result.add(new RankedEvent(convertHistoryRecordToMessageEvent(cursor, contact), cursor, keywords));
             }
+            cursor.close();
         }
-        return result;
+        return RankedEvent.toCollection(result);
     }
 
     /**
@@ -1565,23 +1581,7 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByKeyword(MetaContact metaContact, String keyword,
             boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String filterLike = "( " + ChatMessage.MSG_BODY + " LIKE '%" + keyword + "%' )";
-
-        Iterator<Contact> contacts = metaContact.getContacts();
-        while (contacts.hasNext()) {
-            Contact contact = contacts.next();
-            String sessionUuid = getSessionUuidByJid(contact);
-            String[] args = {sessionUuid};
-
-            Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                    ChatMessage.SESSION_UUID + "=? AND " + filterLike, args, null, null, ORDER_ASC);
-
-            while (cursor.moveToNext()) {
-                result.add(convertHistoryRecordToMessageEvent(cursor, contact));
-            }
-        }
-        return result;
+        return findByKeywords(metaContact, new String[]{keyword}, caseSensitive);
     }
 
     /**
@@ -1596,27 +1596,46 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByKeywords(MetaContact metaContact,
             String[] keywords, boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String filterLike = "( ";
-        for (String word : keywords) {
-            filterLike += ChatMessage.MSG_BODY + " LIKE '%" + word + "%' OR ";
-        }
-        filterLike = filterLike.substring(0, filterLike.length() - 4) + " )";
+        List<RankedEvent> result = new ArrayList<>();
 
         Iterator<Contact> contacts = metaContact.getContacts();
         while (contacts.hasNext()) {
             Contact contact = contacts.next();
-            String sessionUuid = getSessionUuidByJid(contact);
-            String[] args = {sessionUuid};
-
-            Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                    ChatMessage.SESSION_UUID + "=? AND " + filterLike, args, null, null, ORDER_ASC);
+            Cursor cursor = queryByKeywords(getSessionUuidByJid(contact), null, null, keywords);
 
             while (cursor.moveToNext()) {
-                result.add(convertHistoryRecordToMessageEvent(cursor, contact));
+                result.add(new RankedEvent(convertHistoryRecordToMessageEvent(cursor, contact), cursor, keywords));
             }
+            cursor.close();
         }
-        return result;
+        return RankedEvent.toCollection(result);
+    }
+
+    /**
+     * Queries the messages of a chat session, optionally between the given dates, the body of
+     * which contains any of the given keywords; through the full-text index of the message bodies.
+     *
+     * @param sessionUuid the uuid of the chat session
+     * @param startDate the start date of the messages or <tt>null</tt> for the whole history
+     * @param endDate the end date of the messages; ignored if <tt>startDate</tt> is <tt>null</tt>
+     * @param keywords array of keywords
+     * @return the cursor of the messages, in ascending order of their time stamps
+     */
+    private Cursor queryByKeywords(String sessionUuid, Date startDate, Date endDate, String[] keywords)
+    {
+        List<String> args = new ArrayList<>();
+        String selection = ChatMessage.SESSION_UUID + "=? AND ";
+
+        args.add(sessionUuid);
+        if (startDate != null) {
+            selection += ChatMessage.TIME_STAMP + ">=? AND " + ChatMessage.TIME_STAMP + "<? AND ";
+            args.add(String.valueOf(startDate.getTime()));
+            args.add(String.valueOf(endDate.getTime()));
+        }
+        selection += ChatMessageFts.getSelection(mDB, keywords, args);
+
+        return mDB.query(ChatMessage.TABLE_NAME, null, selection, args.toArray(new String[0]),
+                null, null, ORDER_ASC);
     }
 
     /**
@@ -1723,25 +1742,14 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByPeriod(ChatRoom room, Date startDate, Date
             endDate, String[] keywords, boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String startTimeStamp = String.valueOf(startDate.getTime());
-        String endTimeStamp = String.valueOf(endDate.getTime());
-        String sessionUuid = getSessionUuidByJid(room);
-        String[] args = {sessionUuid, startTimeStamp, endTimeStamp};
-        String filterLike = "( ";
-        for (String word : keywords) {
-            filterLike += ChatMessage.MSG_BODY + " LIKE '%" + word + "%' OR ";
-        }
-        filterLike = filterLike.substring(0, filterLike.length() - 4) + " )";
-
-        Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                ChatMessage.SESSION_UUID + "=? AND " + ChatMessage.TIME_STAMP + ">=? AND "
-                        + ChatMessage.TIME_STAMP + "<? AND " + filterLike, args, null, null, ORDER_ASC);
+        List<RankedEvent> result = new ArrayList<>();
+        Cursor cursor = queryByKeywords(getSessionUuidByJid(room), startDate, endDate, keywords);
 
         while (cursor.moveToNext()) {
-            result.add(convertHistoryRecordToMessageEvent(cursor, room));
+            result.add(new RankedEvent(convertHistoryRecordToMessageEvent(cursor, room), cursor, keywords));
         }
-        return result;
+        cursor.close();
+        return RankedEvent.toCollection(result);
     }
 
     /**
@@ -1768,18 +1776,7 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByKeyword(ChatRoom room, String keyword,
             boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String sessionUuid = getSessionUuidByJid(room);
-        String[] args = {sessionUuid};
-        String filterLike = "( " + ChatMessage.MSG_BODY + " LIKE '%" + keyword + "%' )";
-
-        Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                ChatMessage.SESSION_UUID + "=? AND " + filterLike, args, null, null, ORDER_ASC);
-
-        while (cursor.moveToNext()) {
-            result.add(convertHistoryRecordToMessageEvent(cursor, room));
-        }
-        return result;
+        return findByKeywords(room, new String[]{keyword}, caseSensitive);
     }
 
     /**
@@ -1807,22 +1804,14 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
     public Collection<EventObject> findByKeywords(ChatRoom room, String[] keywords,
             boolean caseSensitive)
     {
-        HashSet<EventObject> result = new HashSet<>();
-        String sessionUuid = getSessionUuidByJid(room);
-        String[] args = {sessionUuid};
-        String filterLike = "( ";
-        for (String word : keywords) {
-            filterLike += ChatMessage.MSG_BODY + " LIKE '%" + word + "%' OR ";
-        }
-        filterLike = filterLike.substring(0, filterLike.length() - 4) + " )";
-
-        Cursor cursor = mDB.query(ChatMessage.TABLE_NAME, null,
-                ChatMessage.SESSION_UUID + "=? AND " + filterLike, args, null, null, ORDER_ASC);
+        List<RankedEvent> result = new ArrayList<>();
+        Cursor cursor = queryByKeywords(getSessionUuidByJid(room), null, null, keywords);
 
         while (cursor.moveToNext()) {
-            result.add(convertHistoryRecordToMessageEvent(cursor, room));
+            result.add(new RankedEvent(convertHistoryRecordToMessageEvent(cursor, room), cursor, keywords));
         }
-        return result;
+        cursor.close();
+        return RankedEvent.toCollection(result);
     }
 
     /**
@@ -2308,6 +2297,47 @@ public class MessageHistoryServiceImpl implements MessageHistoryService,
         }
     }
 
+    /**
+     * A message event found by a keyword search, with the rank of its message body for the
+     * keywords searched for.
+     */
+    private static class RankedEvent
+    {
+        private final EventObject event;
+
+        private final int rank;
+
+        /**
+         * Initializes a new <tt>RankedEvent</tt> of the message at the current position of a cursor.
+         */
+        RankedEvent(EventObject event, Cursor cursor, String[] keywords)
+        {
+            this.event = event;
+            this.rank = ChatMessageFts.rank(
+                    cursor.getString(cursor.getColumnIndex(ChatMessage.MSG_BODY)), keywords);
+        }
+
+        /**
+         * Returns the events in descending order of their rank; in the order they were queried,
+         * i.e. by timestamp per chat session, for the same rank.
+         */
+        static Collection<EventObject> toCollection(List<RankedEvent> rankedEvents)
+        {
+            Collections.sort(rankedEvents, new Comparator<RankedEvent>()
+            {
+                public int compare(RankedEvent e1, RankedEvent e2)
+                {
+                    return (e1.rank < e2.rank) ? 1 : ((e1.rank == e2.rank) ? 0 : -1);
+                }
+            });
+
+            Collection<EventObject> result = new LinkedHashSet<>();
+            for (RankedEvent rankedEvent : rankedEvents)
+                result.add(rankedEvent.event);
+            return result;
+        }
+    }
+
     /**
      * A wrapper around HistorySearchProgressListener that fires events for
      * MessageHistorySearchProgressListener
@@ -26,6 +26,7 @@ import org.atalk.android.gui.util.AndroidUtils;
 import org.atalk.android.gui.util.XhtmlUtil;
 import org.atalk.android.plugin.timberlog.TimberLog;
 import org.atalk.crypto.omemo.OmemoAuthenticateDialog;
+import org.atalk.crypto.omemo.SQLiteOmemoStore;
 import org.atalk.util.StringUtils;
 import org.jivesoftware.smack.MessageListener;
 import org.jivesoftware.smack.*;
@@ -44,6 +45,7 @@ import org.jivesoftware.smackx.muc.packet.MUCUser;
 import org.jivesoftware.smackx.nick.packet.Nick;
 import org.jivesoftware.smackx.omemo.OmemoManager;
 import org.jivesoftware.smackx.omemo.OmemoMessage;
+import org.jivesoftware.smackx.omemo.OmemoService;
 import org.jivesoftware.smackx.omemo.element.OmemoElement;
 import org.jivesoftware.smackx.omemo.exceptions.*;
 import org.jivesoftware.smackx.omemo.internal.OmemoDevice;
@@ -985,21 +987,31 @@ public class ChatRoomJabberImpl extends AbstractChatRoom implements CaptchaDialo
         String errMessage = null;
 
         try {
-            OmemoMessage.Sent encryptedMessage = omemoManager.encrypt(mMultiUserChat, msgContent);
-            Message sendMessage = encryptedMessage.asMessage(entityBareJid);
-
-            if (IMessage.ENCODE_HTML == message.getMimeType()) {
-                String xhtmlBody = encryptedMessage.getElement().toXML().toString();
-                XHTMLText htmlBody = new XHTMLText("", "us").append(xhtmlBody).appendCloseBodyTag();
-
-                // OMEMO normal body message content will strip off any html tags info
-                msgContent = Html.fromHtml(msgContent).toString();
+            SQLiteOmemoStore omemoStore = (SQLiteOmemoStore) OmemoService.getInstance().getOmemoStoreBackend();
+            OmemoMessage.Sent encryptedMessage;
+            Message sendMessage;
 
+            // Store the sessions ratcheted for all the recipient devices in one transaction
+            omemoStore.beginSessionBatch();
+            try {
                 encryptedMessage = omemoManager.encrypt(mMultiUserChat, msgContent);
                 sendMessage = encryptedMessage.asMessage(entityBareJid);
 
-                // Add the XHTML text to the message
-                XHTMLManager.addBody(sendMessage, htmlBody);
+                if (IMessage.ENCODE_HTML == message.getMimeType()) {
+                    String xhtmlBody = encryptedMessage.getElement().toXML().toString();
+                    XHTMLText htmlBody = new XHTMLText("", "us").append(xhtmlBody).appendCloseBodyTag();
+
+                    // OMEMO normal body message content will strip off any html tags info
+                    msgContent = Html.fromHtml(msgContent).toString();
+
+                    encryptedMessage = omemoManager.encrypt(mMultiUserChat, msgContent);
+                    sendMessage = encryptedMessage.asMessage(entityBareJid);
+
+                    // Add the XHTML text to the message
+                    XHTMLManager.addBody(sendMessage, htmlBody);
+                }
+            } finally {
+                omemoStore.endSessionBatch();
             }
 
             // proceed to send message if no exceptions.
@@ -18,6 +18,7 @@ import org.atalk.android.gui.chat.ChatMessage;
 import org.atalk.android.gui.util.XhtmlUtil;
 import org.atalk.android.plugin.timberlog.TimberLog;
 import org.atalk.crypto.omemo.OmemoAuthenticateDialog;
+import org.atalk.crypto.omemo.SQLiteOmemoStore;
 import org.jivesoftware.smack.*;
 import org.jivesoftware.smack.SmackException.NoResponseException;
 import org.jivesoftware.smack.SmackException.NotConnectedException;
@@ -39,6 +40,7 @@ import org.jivesoftware.smackx.delay.packet.DelayInformation;
 import org.jivesoftware.smackx.message_correct.element.MessageCorrectExtension;
 import org.jivesoftware.smackx.omemo.OmemoManager;
 import org.jivesoftware.smackx.omemo.OmemoMessage;
+import org.jivesoftware.smackx.omemo.OmemoService;
 import org.jivesoftware.smackx.omemo.element.OmemoElement;
 import org.jivesoftware.smackx.omemo.exceptions.*;
 import org.jivesoftware.smackx.omemo.internal.OmemoDevice;
@@ -511,20 +513,30 @@ public class OperationSetBasicInstantMessagingJabberImpl extends AbstractOperati
         String errMessage = null;
 
         try {
-            OmemoMessage.Sent encryptedMessage = omemoManager.encrypt(entityBareJid, msgContent);
-            Message sendMessage = encryptedMessage.asMessage(entityBareJid);
+            SQLiteOmemoStore omemoStore = (SQLiteOmemoStore) OmemoService.getInstance().getOmemoStoreBackend();
+            OmemoMessage.Sent encryptedMessage;
+            Message sendMessage;
 
-            if (IMessage.ENCODE_HTML == message.getMimeType()) {
-                String xhtmlBody = encryptedMessage.getElement().toXML().toString();
-                XHTMLText htmlBody = new XHTMLText("", "us").append(xhtmlBody).appendCloseBodyTag();
-
-                // OMEMO body message content will strip off any html tags info
-                msgContent = Html.fromHtml(msgContent).toString();
+            // Store the sessions ratcheted for all the recipient devices in one transaction
+            omemoStore.beginSessionBatch();
+            try {
                 encryptedMessage = omemoManager.encrypt(entityBareJid, msgContent);
                 sendMessage = encryptedMessage.asMessage(entityBareJid);
 
-                // Add the XHTML text to the message
-                XHTMLManager.addBody(sendMessage, htmlBody);
+                if (IMessage.ENCODE_HTML == message.getMimeType()) {
+                    String xhtmlBody = encryptedMessage.getElement().toXML().toString();
+                    XHTMLText htmlBody = new XHTMLText("", "us").append(xhtmlBody).appendCloseBodyTag();
+
+                    // OMEMO body message content will strip off any html tags info
+                    msgContent = Html.fromHtml(msgContent).toString();
+                    encryptedMessage = omemoManager.encrypt(entityBareJid, msgContent);
+                    sendMessage = encryptedMessage.asMessage(entityBareJid);
+
+                    // Add the XHTML text to the message
+                    XHTMLManager.addBody(sendMessage, htmlBody);
+                }
+            } finally {
+                omemoStore.endSessionBatch();
             }
 
             // proceed to send message if no exceptions.
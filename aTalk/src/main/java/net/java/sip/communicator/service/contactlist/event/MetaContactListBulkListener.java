@@ -0,0 +1,35 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.java.sip.communicator.service.contactlist.event;
+
+/**
+ * A <tt>MetaContactListListener</tt> which handles the presence changes of the contact list in
+ * bulk. Instead of a <tt>MetaContactGroupEvent.CHILD_CONTACTS_REORDERED</tt> per presence change,
+ * it is told of all the presence changes of a short window of time at once.
+ *
+ * @author Eng Chong Meng
+ */
+public interface MetaContactListBulkListener extends MetaContactListListener
+{
+    /**
+     * Indicates that the presence status of the protocol contacts of a number of meta contacts
+     * has changed.
+     *
+     * @param evt the <tt>MetaContactPresenceEvent</tt> containing the meta contacts and the
+     * reordered groups
+     */
+    void metaContactsPresenceChanged(MetaContactPresenceEvent evt);
+}
@@ -0,0 +1,100 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.java.sip.communicator.service.contactlist.event;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.contactlist.MetaContactGroup;
+import net.java.sip.communicator.service.contactlist.MetaContactListService;
+
+import java.util.*;
+
+/**
+ * Indicates that the presence status of the protocol contacts of a number of meta contacts has
+ * changed during a short window of time, e.g. while the roster of an account is being received
+ * after a reconnect. Each meta contact and each group is reported once per event however many
+ * presence changes it has gone through.
+ *
+ * @author Eng Chong Meng
+ */
+public class MetaContactPresenceEvent extends EventObject
+{
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * The meta contacts the protocol contacts of which have changed their presence status.
+     */
+    private final Collection<MetaContact> metaContacts;
+
+    /**
+     * The groups the child contacts of which have been reordered by the presence changes.
+     */
+    private final Collection<MetaContactGroup> reorderedGroups;
+
+    /**
+     * Creates a new <tt>MetaContactPresenceEvent</tt> according to the specified parameters.
+     *
+     * @param source the <tt>MetaContactListService</tt> which fires the event
+     * @param metaContacts the meta contacts the protocol contacts of which have changed their
+     * presence status, each of them once
+     * @param reorderedGroups the groups the child contacts of which have been reordered, each of
+     * them once
+     */
+    public MetaContactPresenceEvent(MetaContactListService source,
+            Collection<MetaContact> metaContacts, Collection<MetaContactGroup> reorderedGroups)
+    {
+        super(source);
+        this.metaContacts = Collections.unmodifiableCollection(metaContacts);
+        this.reorderedGroups = Collections.unmodifiableCollection(reorderedGroups);
+    }
+
+    /**
+     * Returns the meta contacts the protocol contacts of which have changed their presence status.
+     *
+     * @return an unmodifiable <tt>Collection</tt> of the meta contacts in the order of their
+     * first presence change
+     */
+    public Collection<MetaContact> getMetaContacts()
+    {
+        return metaContacts;
+    }
+
+    /**
+     * Returns the groups the child contacts of which have been reordered by the presence changes,
+     * which a <tt>MetaContactListListener</tt> would have been told of one
+     * <tt>MetaContactGroupEvent.CHILD_CONTACTS_REORDERED</tt> at a time.
+     *
+     * @return an unmodifiable <tt>Collection</tt> of the reordered groups
+     */
+    public Collection<MetaContactGroup> getReorderedGroups()
+    {
+        return reorderedGroups;
+    }
+
+    /**
+     * Returns a String representation of this MetaContactPresenceEvent
+     *
+     * @return A String representation of this MetaContactPresenceEvent.
+     */
+    @Override
+    public String toString()
+    {
+        return "MetaContactPresenceEvent-[ MetaContacts=" + metaContacts.size()
+                + ", ReorderedGroups=" + reorderedGroups.size() + "]";
+    }
+}
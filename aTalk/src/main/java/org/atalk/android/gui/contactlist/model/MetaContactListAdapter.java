@@ -11,9 +11,6 @@ import net.java.sip.communicator.service.contactlist.*;
 import net.java.sip.communicator.service.contactlist.event.*;
 import net.java.sip.communicator.service.gui.ContactListFilter;
 import net.java.sip.communicator.service.protocol.Contact;
-import net.java.sip.communicator.service.protocol.OperationSetPresence;
-import net.java.sip.communicator.service.protocol.event.ContactPresenceStatusChangeEvent;
-import net.java.sip.communicator.service.protocol.event.ContactPresenceStatusListener;
 import net.java.sip.communicator.util.ServiceUtils;
 
 import org.atalk.android.R;
@@ -38,7 +35,7 @@ import timber.log.Timber;
  * @author Eng Chong Meng
  */
 public class MetaContactListAdapter extends BaseContactListAdapter
-        implements MetaContactListListener, ContactPresenceStatusListener, UIGroupRenderer
+        implements MetaContactListBulkListener, UIGroupRenderer
 {
     /**
      * The list of contact list in original groups before filtered
@@ -315,7 +312,6 @@ public class MetaContactListAdapter extends BaseContactListAdapter
      */
     private void addContact(MetaContactGroup metaGroup, MetaContact metaContact)
     {
-        addContactStatusListener(metaContact, this);
         int origGroupIndex = originalGroups.indexOf(metaGroup);
         int groupIndex = groups.indexOf(metaGroup);
         boolean isMatchingQuery = isMatching(metaContact, currentFilterQuery);
@@ -370,8 +366,6 @@ public class MetaContactListAdapter extends BaseContactListAdapter
      */
     private void removeContact(MetaContactGroup metaGroup, MetaContact metaContact)
     {
-        removeContactStatusListener(metaContact, this);
-
         // Remove the contact from the original list and its group if empty.
         int origGroupIndex = originalGroups.indexOf(metaGroup);
         if (origGroupIndex != -1) {
@@ -648,7 +642,18 @@ public class MetaContactListAdapter extends BaseContactListAdapter
     {
         Timber.d("CHILD CONTACTS REORDERED: %s", evt.getSourceMetaContactGroup());
 
-        MetaContactGroup group = evt.getSourceMetaContactGroup();
+        reorderChildContacts(evt.getSourceMetaContactGroup());
+        uiChangeUpdate();
+    }
+
+    /**
+     * Re-sorts the child contacts of a given <tt>MetaContactGroup</tt> in both the original and
+     * the filtered list of this adapter.
+     *
+     * @param group the <tt>MetaContactGroup</tt> the child contacts of which have been reordered
+     */
+    private void reorderChildContacts(MetaContactGroup group)
+    {
         int origGroupIndex = originalGroups.indexOf(group);
         int groupIndex = groups.indexOf(group);
 
@@ -675,7 +680,6 @@ public class MetaContactListAdapter extends BaseContactListAdapter
                 }
             }
         }
-        uiChangeUpdate();
     }
 
     /**
@@ -870,66 +874,29 @@ public class MetaContactListAdapter extends BaseContactListAdapter
     }
 
     /**
-     * Indicates that a contact Presence Status Change has been received.
+     * Indicates that the presence status of a number of meta contacts has changed. The reordered
+     * groups are re-sorted and the status of the meta contacts updated in a single pass on the
+     * UI thread, instead of once per presence change.
      *
-     * @param event the <tt>ContactPresenceStatusChangeEvent</tt> that notified us
+     * @param evt the <tt>MetaContactPresenceEvent</tt> that notified us
      */
     @Override
-    public void contactPresenceStatusChanged(final ContactPresenceStatusChangeEvent event)
+    public void metaContactsPresenceChanged(final MetaContactPresenceEvent evt)
     {
-        uiHandler.post(() -> {
-            Contact sourceContact = event.getSourceContact();
-            Timber.d("Contact presence status changed: %s", sourceContact.getAddress());
+        Timber.d("Contacts presence status changed: %s", evt);
+
+        for (MetaContactGroup group : evt.getReorderedGroups())
+            reorderChildContacts(group);
 
-            MetaContact metaContact = contactListService.findMetaContactByContact(sourceContact);
-            // metaContact is already existing, just update it
-            if (metaContact != null) {
+        uiHandler.post(() -> {
+            for (MetaContact metaContact : evt.getMetaContacts()) {
                 // if (mDialogMode || presenceFilter.isShowOffline())
                 updateStatus(metaContact);
             }
+            notifyDataSetChanged();
         });
     }
 
-    /**
-     * Adds the given <tt>MessageListener</tt> to listen for message events in this chat session.
-     *
-     * @param metaContact the <tt>MetaContact</tt> for which we add the listener
-     * @param l the <tt>MessageListener</tt> to add
-     */
-    private void addContactStatusListener(MetaContact metaContact, ContactPresenceStatusListener l)
-    {
-        Iterator<Contact> protoContacts = metaContact.getContacts();
-        while (protoContacts.hasNext()) {
-            Contact protoContact = protoContacts.next();
-            OperationSetPresence presenceOpSet
-                    = protoContact.getProtocolProvider().getOperationSet(OperationSetPresence.class);
-
-            if (presenceOpSet != null) {
-                presenceOpSet.addContactPresenceStatusListener(l);
-            }
-        }
-    }
-
-    /**
-     * Removes the given <tt>MessageListener</tt> from this chat session.
-     *
-     * @param metaContact the <tt>MetaContact</tt> for which we remove the listener
-     * @param l the <tt>MessageListener</tt> to remove
-     */
-    private void removeContactStatusListener(MetaContact metaContact, ContactPresenceStatusListener l)
-    {
-        Iterator<Contact> protoContacts = metaContact.getContacts();
-        while (protoContacts.hasNext()) {
-            Contact protoContact = protoContacts.next();
-            OperationSetPresence presenceOpSet
-                    = protoContact.getProtocolProvider().getOperationSet(OperationSetPresence.class);
-
-            if (presenceOpSet != null) {
-                presenceOpSet.removeContactPresenceStatusListener(l);
-            }
-        }
-    }
-
     /**
      * Checks if given <tt>metaContact</tt> is considered to be selected. That is if the chat
      * session with given <tt>metaContact</tt> is the one currently visible.
@@ -105,6 +105,9 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     public static final String SESSION_KEY = "key";
 
     private static final int NUM_TRUSTS_TO_CACHE = 100;
+    private static final int NUM_SESSIONS_TO_CACHE = 256;
+    private static final int NUM_IDENTITIES_TO_CACHE = 256;
+    private static final int NUM_DEVICE_LISTS_TO_CACHE = 64;
 
     private OmemoManager mOmemoManager;
     private final DatabaseBackend mDB;
@@ -136,6 +139,40 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
                 }
             };
 
+    /*
+     * Write-through caches of the sessions, identityKeys and deviceLists in the database; an entry is
+     * updated or removed together with its database records.
+     *
+     * The sessions are cached serialized: libsignal updates the SessionRecord it loads in place and
+     * stores it only after a successful ratchet step, so each load must return a fresh copy.
+     */
+    private final LruCache<OmemoDevice, byte[]> sessionCache = new LruCache<>(NUM_SESSIONS_TO_CACHE);
+
+    /**
+     * Cache of a map contact BareJid to the deviceIds of all its sessions.
+     */
+    private final LruCache<BareJid, Set<Integer>> sessionDeviceIdsCache = new LruCache<>(NUM_DEVICE_LISTS_TO_CACHE);
+
+    private final LruCache<OmemoDevice, IdentityKey> identityKeyCache = new LruCache<>(NUM_IDENTITIES_TO_CACHE);
+
+    /**
+     * Cache of a map contact BareJid to its deviceList; copies are returned as the caller may modify it.
+     */
+    private final LruCache<BareJid, OmemoCachedDeviceList> deviceListCache = new LruCache<>(NUM_DEVICE_LISTS_TO_CACHE);
+
+    /**
+     * The sessions stored while a session batch is open, to be written to the database in one
+     * transaction when the last batch open on the thread which stored them ends; guarded by
+     * sessionCache.
+     */
+    private final Map<OmemoDevice, byte[]> pendingSessions = new HashMap<>();
+
+    /**
+     * The session batch open on the current thread, if any; the batches of a thread do not hold
+     * back the sessions stored by the others.
+     */
+    private final ThreadLocal<SessionBatch> sessionBatch = new ThreadLocal<>();
+
     // --------------------------------------
     // FingerprintStatus utilities
     // --------------------------------------
@@ -161,6 +198,7 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     {
         mDB.setIdentityKeyTrust(device, fingerprint, status);
         trustCache.remove(fingerprint); // clear old status in trustCache
+        deviceListCache.remove(device.getJid()); // status includes the device active state
     }
 
     //======================= OMEMO Store =========================================
@@ -376,6 +414,8 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
         String fingerprint = mKeyUtil.getFingerprintOfIdentityKeyPair(identityKeyPair).toString();
         Timber.i("Store omemo identityKeyPair for :%s", userDevice);
         mDB.storeIdentityKeyPair(userDevice, identityKeyPair, fingerprint);
+        identityKeyCache.remove(userDevice);
+        deviceListCache.remove(userDevice.getJid());
     }
 
     /**
@@ -387,6 +427,8 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     public void removeOmemoIdentityKeyPair(OmemoDevice userDevice)
     {
         mDB.deleteIdentityKey(userDevice);
+        identityKeyCache.remove(userDevice);
+        deviceListCache.remove(userDevice.getJid());
     }
 
     /**
@@ -401,9 +443,14 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     public IdentityKey loadOmemoIdentityKey(OmemoDevice userDevice, OmemoDevice contactDevice)
             throws CorruptedOmemoKeyException
     {
-        IdentityKey identityKey;
+        IdentityKey identityKey = identityKeyCache.get(contactDevice);
+        if (identityKey != null)
+            return identityKey;
+
         try {
             identityKey = mDB.loadIdentityKey(contactDevice);
+            if (identityKey != null)
+                identityKeyCache.put(contactDevice, identityKey);
         } catch (CorruptedOmemoKeyException e) {
             // throw only if key is corrupted else return null
             Timber.w("%s", e.getMessage());
@@ -437,6 +484,10 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public void storeOmemoIdentityKey(OmemoDevice userDevice, OmemoDevice contactDevice, IdentityKey contactKey)
     {
+        // Skip database access if the same identityKey is already stored
+        if (contactKey.equals(identityKeyCache.get(contactDevice)))
+            return;
+
         String bareJid = contactDevice.getJid().toString();
         String fingerprint = mKeyUtil.getFingerprintOfIdentityKey(contactKey).toString();
 
@@ -459,7 +510,9 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
             }
             mDB.storeIdentityKey(contactDevice, contactKey, fingerprint, fpStatus);
             trustCache.remove(fingerprint);
+            deviceListCache.remove(contactDevice.getJid());
         }
+        identityKeyCache.put(contactDevice, contactKey);
         // else {
             // Code for testing only
             // if (contactDevice.getJid().toString().contains("atalkuser1")) {
@@ -480,6 +533,8 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     public void removeOmemoIdentityKey(OmemoDevice userDevice, OmemoDevice contactDevice)
     {
         mDB.deleteIdentityKey(contactDevice);
+        identityKeyCache.remove(contactDevice);
+        deviceListCache.remove(contactDevice.getJid());
     }
 
     public OmemoTrustCallback getTrustCallBack()
@@ -590,7 +645,23 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
         // OmemoCachedDeviceList list = mDB.loadCachedDeviceList(contact);
         // Timber.d("Cached list for active (inActive): %s (%s)", list.getActiveDevices(), list.getInactiveDevices());
         // return list;
-        return mDB.loadCachedDeviceList(contact);
+        if (contact == null)
+            return null;
+
+        OmemoCachedDeviceList deviceList = deviceListCache.get(contact);
+        if (deviceList == null) {
+            deviceList = mDB.loadCachedDeviceList(contact);
+            deviceListCache.put(contact, deviceList);
+        }
+        return copyOf(deviceList);
+    }
+
+    private static OmemoCachedDeviceList copyOf(OmemoCachedDeviceList deviceList)
+    {
+        OmemoCachedDeviceList copy = new OmemoCachedDeviceList();
+        copy.getActiveDevices().addAll(deviceList.getActiveDevices());
+        copy.getInactiveDevices().addAll(deviceList.getInactiveDevices());
+        return copy;
     }
 
     /**
@@ -605,6 +676,9 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     public void storeCachedDeviceList(OmemoDevice userDevice, BareJid contact, OmemoCachedDeviceList contactDeviceList)
     {
         mDB.storeCachedDeviceList(userDevice, contact, contactDeviceList);
+        // Devices not in contactDeviceList keep their stored state, so reload on next access
+        if (contact != null)
+            deviceListCache.remove(contact);
     }
 
     // --------------------------------------
@@ -622,7 +696,20 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public SessionRecord loadRawSession(OmemoDevice userDevice, OmemoDevice contactDevice)
     {
-        return mDB.loadSession(contactDevice);
+        byte[] serialized;
+        synchronized (sessionCache) {
+            serialized = getCachedSession(contactDevice);
+            if (serialized == null) {
+                SessionRecord session = mDB.loadSession(contactDevice);
+                if (session == null)
+                    return null;
+
+                serialized = session.serialize();
+                sessionCache.put(contactDevice, serialized);
+                return session;
+            }
+        }
+        return deserializeSession(serialized);
     }
 
     /**
@@ -635,7 +722,38 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public HashMap<Integer, SessionRecord> loadAllRawSessionsOf(OmemoDevice userDevice, BareJid contact)
     {
-        return mDB.getSubDeviceSessions(contact);
+        HashMap<Integer, SessionRecord> deviceSessions;
+        synchronized (sessionCache) {
+            Set<Integer> deviceIds = sessionDeviceIdsCache.get(contact);
+            if (deviceIds == null) {
+                deviceSessions = mDB.getSubDeviceSessions(contact);
+                for (Map.Entry<Integer, SessionRecord> entry : deviceSessions.entrySet()) {
+                    OmemoDevice contactDevice = new OmemoDevice(contact, entry.getKey());
+                    if (pendingSessions.containsKey(contactDevice))
+                        entry.setValue(null);
+                    else if (entry.getValue() != null)
+                        sessionCache.put(contactDevice, entry.getValue().serialize());
+                }
+                // Sessions stored in the open batch are missing or outdated in the database
+                for (OmemoDevice contactDevice : pendingSessions.keySet()) {
+                    if (contact.equals(contactDevice.getJid()))
+                        deviceSessions.put(contactDevice.getDeviceId(), null);
+                }
+                sessionDeviceIdsCache.put(contact, new HashSet<>(deviceSessions.keySet()));
+            }
+            else {
+                deviceSessions = new HashMap<>();
+                for (int deviceId : deviceIds)
+                    deviceSessions.put(deviceId, null);
+            }
+        }
+
+        // Fill in the sessions not loaded from the database, mostly from sessionCache
+        for (Map.Entry<Integer, SessionRecord> entry : deviceSessions.entrySet()) {
+            if (entry.getValue() == null)
+                entry.setValue(loadRawSession(userDevice, new OmemoDevice(contact, entry.getKey())));
+        }
+        return deviceSessions;
     }
 
     /**
@@ -648,7 +766,24 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public void storeRawSession(OmemoDevice userDevice, OmemoDevice contactDevice, SessionRecord session)
     {
-        mDB.storeSession(contactDevice, session);
+        byte[] serialized = session.serialize();
+        SessionBatch batch = sessionBatch.get();
+        synchronized (sessionCache) {
+            if (batch != null) {
+                pendingSessions.put(contactDevice, serialized);
+                batch.devices.add(contactDevice);
+            }
+            else {
+                // supersedes the session pending in the batch of another thread, if any
+                pendingSessions.remove(contactDevice);
+                mDB.storeSession(contactDevice, session);
+            }
+
+            sessionCache.put(contactDevice, serialized);
+            Set<Integer> deviceIds = sessionDeviceIdsCache.get(contactDevice.getJid());
+            if (deviceIds != null)
+                deviceIds.add(contactDevice.getDeviceId());
+        }
     }
 
     /**
@@ -660,7 +795,14 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public void removeRawSession(OmemoDevice userDevice, OmemoDevice contactDevice)
     {
-        mDB.deleteSession(contactDevice);
+        synchronized (sessionCache) {
+            mDB.deleteSession(contactDevice);
+            pendingSessions.remove(contactDevice);
+            sessionCache.remove(contactDevice);
+            Set<Integer> deviceIds = sessionDeviceIdsCache.get(contactDevice.getJid());
+            if (deviceIds != null)
+                deviceIds.remove(contactDevice.getDeviceId());
+        }
     }
 
     /**
@@ -672,7 +814,19 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public void removeAllRawSessionsOf(OmemoDevice userDevice, BareJid contact)
     {
-        mDB.deleteAllSessions(contact);
+        synchronized (sessionCache) {
+            mDB.deleteAllSessions(contact);
+            Iterator<OmemoDevice> pending = pendingSessions.keySet().iterator();
+            while (pending.hasNext()) {
+                if (contact.equals(pending.next().getJid()))
+                    pending.remove();
+            }
+            for (OmemoDevice contactDevice : sessionCache.snapshot().keySet()) {
+                if (contact.equals(contactDevice.getJid()))
+                    sessionCache.remove(contactDevice);
+            }
+            sessionDeviceIdsCache.put(contact, new HashSet<Integer>());
+        }
     }
 
     /**
@@ -686,7 +840,112 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public boolean containsRawSession(OmemoDevice userDevice, OmemoDevice contactDevice)
     {
-        return mDB.containsSession(contactDevice);
+        synchronized (sessionCache) {
+            return (getCachedSession(contactDevice) != null) || mDB.containsSession(contactDevice);
+        }
+    }
+
+    /**
+     * Return the serialized session of the device from the open session batch or sessionCache.
+     * Must be called with sessionCache lock held.
+     *
+     * @param contactDevice device whose session we want to get
+     * @return the serialized session; null if it is not cached
+     */
+    private byte[] getCachedSession(OmemoDevice contactDevice)
+    {
+        byte[] serialized = pendingSessions.get(contactDevice);
+        return (serialized != null) ? serialized : sessionCache.get(contactDevice);
+    }
+
+    private static SessionRecord deserializeSession(byte[] serialized)
+    {
+        try {
+            return new SessionRecord(serialized);
+        } catch (IOException e) {
+            // Should never happen as the session was serialized by SessionRecord#serialize()
+            Timber.w("Could not deserialize cached session. %s", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Open a session batch on the current thread: the sessions it stores until the matching
+     * {@link #endSessionBatch()} are written to the database in one transaction instead of one
+     * each, e.g. the sessions ratcheted while encrypting one message to all the recipient devices.
+     * They are served from memory until then.
+     */
+    public void beginSessionBatch()
+    {
+        SessionBatch batch = sessionBatch.get();
+        if (batch == null) {
+            batch = new SessionBatch();
+            sessionBatch.set(batch);
+        }
+        batch.count++;
+    }
+
+    /**
+     * Close a session batch opened by {@link #beginSessionBatch()} on the current thread; the
+     * sessions stored in its batches are written to the database when the last of them ends. Must
+     * be called in a finally block, as libsignal has advanced the sessions even if the encryption
+     * failed later.
+     */
+    public void endSessionBatch()
+    {
+        SessionBatch batch = sessionBatch.get();
+        if ((batch != null) && (--batch.count == 0)) {
+            sessionBatch.remove();
+            flushPendingSessions(batch);
+        }
+    }
+
+    /**
+     * Write the sessions stored in a session batch, and still pending, to the database.
+     *
+     * @param batch the session batch which has ended
+     */
+    private void flushPendingSessions(SessionBatch batch)
+    {
+        synchronized (sessionCache) {
+            Map<OmemoDevice, byte[]> sessions = new HashMap<>();
+            for (OmemoDevice contactDevice : batch.devices) {
+                byte[] serialized = pendingSessions.remove(contactDevice);
+                if (serialized != null)
+                    sessions.put(contactDevice, serialized);
+            }
+            if (!sessions.isEmpty())
+                mDB.storeSessions(sessions);
+        }
+    }
+
+    /**
+     * Write the sessions stored in all the open session batches to the database.
+     */
+    private void flushPendingSessions()
+    {
+        synchronized (sessionCache) {
+            if (!pendingSessions.isEmpty()) {
+                mDB.storeSessions(pendingSessions);
+                pendingSessions.clear();
+            }
+        }
+    }
+
+    /**
+     * The session batches open on a thread.
+     */
+    private static class SessionBatch
+    {
+        /**
+         * The number of session batches open on the thread.
+         */
+        int count = 0;
+
+        /**
+         * The devices the sessions of which the batches have stored.
+         */
+        final Set<OmemoDevice> devices = new HashSet<>();
     }
 
     /**
@@ -803,8 +1062,23 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
     @Override
     public void purgeOwnDeviceKeys(OmemoDevice userDevice)
     {
+        flushPendingSessions();
         mDB.purgeOmemoDb(userDevice);
+        evictAllCaches();
+    }
+
+    /**
+     * Clear all the caches of the database records, after a bulk removal of the records.
+     */
+    private void evictAllCaches()
+    {
         trustCache.evictAll();
+        identityKeyCache.evictAll();
+        deviceListCache.evictAll();
+        synchronized (sessionCache) {
+            sessionCache.evictAll();
+            sessionDeviceIdsCache.evictAll();
+        }
     }
 
     /**
@@ -836,8 +1110,9 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
             }
         }
         // Purge local omemo database for the deleted account
+        flushPendingSessions();
         mDB.purgeOmemoDb(userJid.toString());
-        trustCache.evictAll();
+        evictAllCaches();
     }
 
     /**
@@ -909,6 +1184,7 @@ public class SQLiteOmemoStore extends SignalOmemoStore implements OmemoManager.I
 
                     // Also delete all devices with null Identity key - omemoService will re-create if needed
                     int count = mDB.deleteNullIdentyKeyDevices();
+                    deviceListCache.evictAll();
                     Timber.d("Number of null identities deleted: %s", count);
 
                 } catch (SmackException | InterruptedException | XMPPException.XMPPErrorException | IOException e) {
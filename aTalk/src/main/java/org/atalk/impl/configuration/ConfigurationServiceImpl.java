@@ -60,6 +60,19 @@ public class ConfigurationServiceImpl implements ConfigurationService
      */
     private static final String DEFAULT_OVERRIDES_PROPS_FILE_NAME = "atalk-default-overrides.properties";
 
+    /**
+     * The name of the system property which specifies the maximum time in milliseconds by which
+     * the storing of property changes into the configuration file is delayed, so that the
+     * changes made in the meantime are stored together. A value of <tt>0</tt> stores every
+     * change as soon as it is made.
+     */
+    private static final String PNAME_STORE_DELAY = "net.java.sip.communicator.CONFIGURATION_STORE_DELAY";
+
+    /**
+     * The default value of the {@link #PNAME_STORE_DELAY} system property.
+     */
+    private static final long DEFAULT_STORE_DELAY = 500;
+
     /**
      * Specify names of command line arguments which are password, so that their values will be
      * masked when 'sun.java.command' is printed to the logs. Separate each name with a comma.
@@ -93,6 +106,16 @@ public class ConfigurationServiceImpl implements ConfigurationService
      */
     private Map<String, String> defaultProperties = new HashMap<>();
 
+    /**
+     * The index of the names of the {@link #immutableDefaultProperties}.
+     */
+    private final PropertyNameIndex immutableDefaultPropertyNames = new PropertyNameIndex();
+
+    /**
+     * The index of the names of the {@link #defaultProperties}.
+     */
+    private final PropertyNameIndex defaultPropertyNames = new PropertyNameIndex();
+
     /**
      * Our event dispatcher.
      */
@@ -118,6 +141,19 @@ public class ConfigurationServiceImpl implements ConfigurationService
      */
     private ConfigurationStore store;
 
+    /**
+     * The indicator which determines whether property changes have been made which are to be
+     * stored by {@link #storeTimer}. Guarded by <tt>this</tt>.
+     */
+    private boolean storePending = false;
+
+    /**
+     * The <tt>Timer</tt> which stores property changes into the configuration file in the
+     * background after {@link #PNAME_STORE_DELAY}. Created when first needed and guarded by
+     * <tt>this</tt>.
+     */
+    private Timer storeTimer;
+
     public ConfigurationServiceImpl()
     {
         /*
@@ -181,11 +217,7 @@ public class ConfigurationServiceImpl implements ConfigurationService
         // no exception was thrown - lets change the property and fire a change event
         // cmeng - define the location where to store the change properties - can be removed??? file system not use
         doSetProperty(propertyName, property, isSystem);
-        try {
-            storeConfiguration();
-        } catch (IOException ex) {
-            Timber.e("Failed to store configuration after a property change");
-        }
+        storeConfigurationLater();
 
         if (changeEventDispatcher.hasPropertyChangeListeners(propertyName))
             changeEventDispatcher.firePropertyChange(propertyName, oldValue, property);
@@ -195,7 +227,8 @@ public class ConfigurationServiceImpl implements ConfigurationService
      * Implements ConfigurationService#setProperties(Map). Optimizes the setting of properties by
      * performing a single saving of the property store to the configuration file which is known
      * to be slow because it involves converting the whole store to a string representation
-     * and writing a file to the disk.
+     * and writing a file to the disk. The saving is further coalesced with that of the changes
+     * made right before and after, see {@link #storeConfigurationLater()}.
      *
      * @throws ConfigPropertyVetoException in case someone is not happy with the change.
      */
@@ -217,11 +250,7 @@ public class ConfigurationServiceImpl implements ConfigurationService
         for (Map.Entry<String, Object> property : properties.entrySet())
             doSetProperty(property.getKey(), property.getValue(), false);
 
-        try {
-            storeConfiguration();
-        } catch (IOException ex) {
-            Timber.e("Failed to store configuration after property changes");
-        }
+        storeConfigurationLater();
 
         for (Map.Entry<String, Object> property : properties.entrySet()) {
             String propertyName = property.getKey();
@@ -291,11 +320,7 @@ public class ConfigurationServiceImpl implements ConfigurationService
         // remove the parent properties if any
         removePropertyInternal(propertyName);
 
-        try {
-            storeConfiguration();
-        } catch (IOException ex) {
-            Timber.e("Failed to store configuration after a property change");
-        }
+        storeConfigurationLater();
         return size;
     }
 
@@ -398,63 +423,16 @@ public class ConfigurationServiceImpl implements ConfigurationService
         HashSet<String> resultKeySet = new HashSet<>();
 
         // first fill in the names from the immutable default property set
-        Set<String> propertyNameSet;
-        String[] namesArray;
-
-        if (immutableDefaultProperties.size() > 0) {
-            propertyNameSet = immutableDefaultProperties.keySet();
-            namesArray = propertyNameSet.toArray(new String[0]);
-            getPropertyNamesByPrefix(prefix, exactPrefixMatch, namesArray, resultKeySet);
-        }
+        immutableDefaultPropertyNames.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultKeySet);
 
         // now get property names from the current store.
-        getPropertyNamesByPrefix(prefix, exactPrefixMatch, store.getPropertyNames(prefix), resultKeySet);
+        store.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultKeySet);
 
         // finally, get property names from mutable default property set.
-        if (defaultProperties.size() > 0) {
-            propertyNameSet = defaultProperties.keySet();
-            namesArray = propertyNameSet.toArray(new String[0]);
-            getPropertyNamesByPrefix(prefix, exactPrefixMatch, namesArray, resultKeySet);
-        }
+        defaultPropertyNames.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultKeySet);
         return new ArrayList<>(resultKeySet);
     }
 
-    /**
-     * Updates the specified <tt>String</tt> <tt>resultSet</tt> to contain all property names in
-     * the <tt>names</tt> array that partially or completely match the specified prefix.
-     * Depending on the value of the <tt>exactPrefixMatch</tt> parameter the method will (when
-     * false) or will not (when exactPrefixMatch is true) include property names that have prefixes
-     * longer than the specified <tt>prefix</tt> param.
-     *
-     * @param prefix a String containing the prefix (the non dotted non-caps part of a property name) that
-     * we're looking for.
-     * @param exactPrefixMatch a boolean indicating whether the returned property names should all have
-     * a prefix that is an exact match of the the <tt>prefix</tt> param or whether properties with
-     * prefixes that contain it but are longer than it are also accepted.
-     * @param names the list of names that we'd like to search.
-     * @return a reference to the updated result set.
-     */
-    private Set<String> getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch,
-            String[] names, Set<String> resultSet)
-    {
-        for (String key : names) {
-            // cmeng - A valid Property item must have a "." with suffix propertyName string
-            int ix = key.lastIndexOf('.');
-            if (ix != -1) {
-                String keyPrefix = key.substring(0, ix);
-                if (exactPrefixMatch) {
-                    if (prefix.equals(keyPrefix)) {
-                        resultSet.add(key);
-                    }
-                }
-                else if (keyPrefix.startsWith(prefix)) {
-                    resultSet.add(key);
-                }
-            }
-        }
-        return resultSet;
-    }
-
     /**
      * Returns a <tt>List</tt> of <tt>String</tt>s containing the property names that have the
      * specified suffix. A suffix is considered to be everything after the last dot in the property name.
@@ -587,6 +565,9 @@ public class ConfigurationServiceImpl implements ConfigurationService
     public void reloadConfiguration()
             throws IOException
     {
+        // Do not lose the changes which have not been stored yet.
+        flush();
+
         this.configurationFile = null;
         File file = getConfigurationFile();
         if (file != null) {
@@ -618,9 +599,87 @@ public class ConfigurationServiceImpl implements ConfigurationService
     public synchronized void storeConfiguration()
             throws IOException
     {
+        storePending = false;
         storeConfiguration(getConfigurationFile());
     }
 
+    /*
+     * Implements ConfigurationService#flush().
+     */
+    @Override
+    public synchronized void flush()
+            throws IOException
+    {
+        if (storePending)
+            storeConfiguration();
+    }
+
+    /**
+     * Stores the property changes which have just been made in memory into the configuration
+     * file, either right away or, by default, after {@link #PNAME_STORE_DELAY} milliseconds on
+     * {@link #storeTimer} together with all changes made in the meantime. The store itself is
+     * done through the same <tt>FailSafeTransaction</tt> either way, so the configuration file
+     * is never left half written; a crash within the delay loses only the changes made in it.
+     * The default <tt>SQLiteConfigurationStore</tt> writes the changes made within the delay to
+     * its database in a single transaction likewise.
+     */
+    private void storeConfigurationLater()
+    {
+        long delay = DEFAULT_STORE_DELAY;
+        String delayStr = System.getProperty(PNAME_STORE_DELAY);
+
+        if (delayStr != null) {
+            try {
+                delay = Long.parseLong(delayStr);
+            } catch (NumberFormatException ex) {
+                Timber.w("Invalid %s: %s", PNAME_STORE_DELAY, delayStr);
+            }
+        }
+
+        synchronized (this) {
+            if (delay <= 0) {
+                try {
+                    storeConfiguration();
+                } catch (IOException ex) {
+                    Timber.e("Failed to store configuration after a property change");
+                }
+            }
+            else if (!storePending) {
+                storePending = true;
+                if (storeTimer == null)
+                    storeTimer = new Timer(getClass().getName() + ".storeTimer", true);
+                storeTimer.schedule(new TimerTask()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try {
+                            flush();
+                        } catch (IOException ex) {
+                            Timber.e("Failed to store configuration after property changes");
+                        }
+                    }
+                }, delay);
+            }
+        }
+    }
+
+    /**
+     * Stops storing property changes in the background: cancels {@link #storeTimer} and stores
+     * the changes it was to store right away. The changes made afterwards are stored as before.
+     *
+     * @throws IOException if storing the pending changes fails
+     */
+    public synchronized void stop()
+            throws IOException
+    {
+        if (storeTimer != null) {
+            storeTimer.cancel();
+            storeTimer = null;
+        }
+        flush();
+    }
+
     /**
      * Stores local properties in the specified configuration file.
      *
@@ -1434,16 +1493,20 @@ public class ConfigurationServiceImpl implements ConfigurationService
 
                     // it seems that we have a valid default immutable property
                     immutableDefaultProperties.put(name, value);
+                    immutableDefaultPropertyNames.add(name);
 
                     // in case this is an override, make sure we remove previous definitions of this property
                     defaultProperties.remove(name);
+                    defaultPropertyNames.remove(name);
                 }
                 else {
                     // this property is a regular, mutable default property.
                     defaultProperties.put(name, value);
+                    defaultPropertyNames.add(name);
 
                     // in case this is an override, make sure we remove previous definitions of this property
                     immutableDefaultProperties.remove(name);
+                    immutableDefaultPropertyNames.remove(name);
                 }
             }
         } catch (Exception ex) {
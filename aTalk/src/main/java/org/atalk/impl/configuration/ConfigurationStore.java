@@ -8,6 +8,7 @@ package org.atalk.impl.configuration;
 import org.atalk.util.xml.XMLException;
 
 import java.io.*;
+import java.util.Set;
 
 /**
  * Abstracts the runtime storage, the serialization and deserialization of the configuration
@@ -41,6 +42,22 @@ public interface ConfigurationStore
 	 */
 	public String[] getPropertyNames(String name);
 
+	/**
+	 * Adds the names of the properties which have values associated in this
+	 * <tt>ConfigurationStore</tt> and which match a specific prefix to a specific <tt>Set</tt>,
+	 * see {@link PropertyNameIndex#addIfMatches(String, String, boolean, java.util.Collection)}.
+	 *
+	 * @param prefix
+	 * 		the prefix of the property names to add
+	 * @param exactPrefixMatch
+	 * 		<tt>true</tt> to only add the property names of which <tt>prefix</tt> is the whole
+	 * 		prefix; <tt>false</tt> to also add those with a longer prefix
+	 * @param resultSet
+	 * 		the <tt>Set</tt> to add the matching property names to
+	 */
+	public void getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch,
+			Set<String> resultSet);
+
 	/**
 	 * Determines whether a specific name stands for a system property.
 	 *
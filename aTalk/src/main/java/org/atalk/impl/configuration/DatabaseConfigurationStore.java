@@ -65,6 +65,7 @@ public abstract class DatabaseConfigurationStore extends HashtableConfigurationS
 			throws IOException, XMLException
 	{
 		properties.clear();
+		propertyNameIndex.clear();
 		reloadConfiguration();
 	}
 
@@ -27,6 +27,12 @@ public abstract class HashtableConfigurationStore<T extends Hashtable>
 	 */
 	protected final T properties;
 
+	/**
+	 * The index of the names of the {@link #properties}, kept up to date with them by this
+	 * instance and its descendants.
+	 */
+	protected final PropertyNameIndex propertyNameIndex = new PropertyNameIndex();
+
 	/**
 	 * Creates an instance of this class using <tt>properties</tt> as the set of properties where
 	 * it will be storing an retrieving properties.
@@ -37,6 +43,7 @@ public abstract class HashtableConfigurationStore<T extends Hashtable>
 	protected HashtableConfigurationStore(T properties)
 	{
 		this.properties = properties;
+		propertyNameIndex.addAll(properties.keySet());
 	}
 
 	/**
@@ -69,10 +76,26 @@ public abstract class HashtableConfigurationStore<T extends Hashtable>
 	 */
 	public String[] getPropertyNames(String name)
 	{
-		synchronized (properties) {
-			Set<?> propertyNames = properties.keySet();
-			return propertyNames.toArray(new String[propertyNames.size()]);
-		}
+		return propertyNameIndex.toArray();
+	}
+
+	/**
+	 * Implements {@link ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)}
+	 * through {@link #propertyNameIndex}.
+	 *
+	 * @param prefix
+	 * 		the prefix of the property names to add
+	 * @param exactPrefixMatch
+	 * 		<tt>true</tt> to only add the property names of which <tt>prefix</tt> is the whole
+	 * 		prefix; <tt>false</tt> to also add those with a longer prefix
+	 * @param resultSet
+	 * 		the <tt>Set</tt> to add the matching property names to
+	 * @see ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)
+	 */
+	public void getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch,
+			Set<String> resultSet)
+	{
+		propertyNameIndex.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultSet);
 	}
 
 	/**
@@ -104,6 +127,7 @@ public abstract class HashtableConfigurationStore<T extends Hashtable>
 	public void removeProperty(String name)
 	{
 		properties.remove(name);
+		propertyNameIndex.remove(name);
 	}
 
 	/**
@@ -121,6 +145,7 @@ public abstract class HashtableConfigurationStore<T extends Hashtable>
 	public void setNonSystemProperty(String name, Object value)
 	{
 		properties.put(name, value);
+		propertyNameIndex.add(name);
 	}
 
 	/**
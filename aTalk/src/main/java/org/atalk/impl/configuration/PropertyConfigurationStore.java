@@ -44,12 +44,14 @@ public class PropertyConfigurationStore extends HashtableConfigurationStore<Prop
 			throws IOException
 	{
 		properties.clear();
+		propertyNameIndex.clear();
 
 		InputStream in = new BufferedInputStream(new FileInputStream(file));
 		try {
 			properties.load(in);
 		} finally {
 			in.close();
+			propertyNameIndex.addAll(properties.keySet());
 		}
 	}
 
@@ -71,6 +73,7 @@ public class PropertyConfigurationStore extends HashtableConfigurationStore<Prop
 	public void setNonSystemProperty(String name, Object value)
 	{
 		properties.setProperty(name, value.toString());
+		propertyNameIndex.add(name);
 	}
 
 	/**
@@ -0,0 +1,135 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ * 
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.configuration;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * A sorted index of property names which answers the prefix queries of
+ * <tt>ConfigurationService#getPropertyNamesByPrefix(String, boolean)</tt> in O(log n + k) time
+ * for n indexed names and k names with the prefix, instead of scanning all names. The index is
+ * backed by a <tt>ConcurrentSkipListSet</tt> so queries do not lock out, and are not locked out
+ * by, the property changes which update it.
+ *
+ * @author Eng Chong Meng
+ */
+public class PropertyNameIndex
+{
+	/**
+	 * The indexed property names in ascending order.
+	 */
+	private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>();
+
+	/**
+	 * Adds a specific property name to this index.
+	 *
+	 * @param name
+	 * 		the property name to add
+	 */
+	public void add(String name)
+	{
+		names.add(name);
+	}
+
+	/**
+	 * Adds specific property names to this index.
+	 *
+	 * @param names
+	 * 		the property names to add; anything but a <tt>String</tt> is ignored
+	 */
+	public void addAll(Collection<?> names)
+	{
+		for (Object name : names) {
+			if (name instanceof String)
+				this.names.add((String) name);
+		}
+	}
+
+	/**
+	 * Removes all property names from this index.
+	 */
+	public void clear()
+	{
+		names.clear();
+	}
+
+	/**
+	 * Removes a specific property name from this index.
+	 *
+	 * @param name
+	 * 		the property name to remove
+	 */
+	public void remove(String name)
+	{
+		names.remove(name);
+	}
+
+	/**
+	 * Gets the property names in this index.
+	 *
+	 * @return an array of the property names in this index in ascending order
+	 */
+	public String[] toArray()
+	{
+		return names.toArray(new String[0]);
+	}
+
+	/**
+	 * Adds the property names in this index which match a specific prefix to a specific
+	 * <tt>Collection</tt>, see {@link #addIfMatches(String, String, boolean, Collection)}.
+	 *
+	 * @param prefix
+	 * 		the prefix of the property names to add
+	 * @param exactPrefixMatch
+	 * 		<tt>true</tt> to only add the property names of which <tt>prefix</tt> is the whole
+	 * 		prefix; <tt>false</tt> to also add those with a longer prefix
+	 * @param resultSet
+	 * 		the <tt>Collection</tt> to add the matching property names to
+	 */
+	public void getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch,
+		Collection<String> resultSet)
+	{
+		// All names which start with prefix follow it directly in ascending order.
+		for (String name : names.tailSet(prefix)) {
+			if (!name.startsWith(prefix))
+				break;
+			addIfMatches(name, prefix, exactPrefixMatch, resultSet);
+		}
+	}
+
+	/**
+	 * Adds a specific property name to a specific <tt>Collection</tt> if its prefix, the part
+	 * before its last dot, matches a specific prefix. A property name without a dot has no
+	 * prefix and never matches.
+	 *
+	 * @param name
+	 * 		the property name to add if it matches
+	 * @param prefix
+	 * 		the prefix to match
+	 * @param exactPrefixMatch
+	 * 		<tt>true</tt> if the prefix of <tt>name</tt> is to be equal to <tt>prefix</tt>;
+	 * 		<tt>false</tt> if it is only to start with it
+	 * @param resultSet
+	 * 		the <tt>Collection</tt> to add <tt>name</tt> to if it matches
+	 */
+	public static void addIfMatches(String name, String prefix, boolean exactPrefixMatch,
+		Collection<String> resultSet)
+	{
+		// cmeng - A valid Property item must have a "." with suffix propertyName string
+		int ix = name.lastIndexOf('.');
+		if (ix == -1)
+			return;
+
+		if (exactPrefixMatch) {
+			if ((ix == prefix.length()) && name.startsWith(prefix))
+				resultSet.add(name);
+		}
+		else if ((ix >= prefix.length()) && name.startsWith(prefix)) {
+			resultSet.add(name);
+		}
+	}
+}
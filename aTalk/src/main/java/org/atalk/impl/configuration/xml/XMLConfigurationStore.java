@@ -6,6 +6,7 @@
 package org.atalk.impl.configuration.xml;
 
 import org.atalk.impl.configuration.ConfigurationStore;
+import org.atalk.impl.configuration.PropertyNameIndex;
 import org.atalk.util.xml.*;
 import org.w3c.dom.*;
 import org.xml.sax.SAXException;
@@ -48,6 +49,11 @@ public class XMLConfigurationStore implements ConfigurationStore
      */
     private Hashtable<String, Object> properties = new Hashtable<>();
 
+    /**
+     * The index of the names of the {@link #properties}.
+     */
+    private final PropertyNameIndex propertyNameIndex = new PropertyNameIndex();
+
     /**
      * Contains the properties that were initially loaded from the configuration file or (if the
      * properties have been modified and saved since initially loaded) those that were last
@@ -129,8 +135,22 @@ public class XMLConfigurationStore implements ConfigurationStore
      */
     public String[] getPropertyNames(String name)
     {
-        Set<String> propertyNames = properties.keySet();
-        return propertyNames.toArray(new String[0]);
+        return propertyNameIndex.toArray();
+    }
+
+    /**
+     * Implements {@link ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)}
+     * through {@link #propertyNameIndex}.
+     *
+     * @param prefix the prefix of the property names to add
+     * @param exactPrefixMatch <tt>true</tt> to only add the property names of which <tt>prefix</tt> is the
+     * whole prefix; <tt>false</tt> to also add those with a longer prefix
+     * @param resultSet the <tt>Set</tt> to add the matching property names to
+     * @see ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)
+     */
+    public void getPropertyNamesByPrefix(String prefix, boolean exactPrefixMatch, Set<String> resultSet)
+    {
+        propertyNameIndex.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultSet);
     }
 
     /**
@@ -307,6 +327,8 @@ public class XMLConfigurationStore implements ConfigurationStore
         properties = new Hashtable<>();
         fileExtractedProperties = loadConfiguration(file);
         properties.putAll(fileExtractedProperties);
+        propertyNameIndex.clear();
+        propertyNameIndex.addAll(fileExtractedProperties.keySet());
     }
 
     /**
@@ -321,6 +343,7 @@ public class XMLConfigurationStore implements ConfigurationStore
     public void removeProperty(String propertyName)
     {
         properties.remove(propertyName);
+        propertyNameIndex.remove(propertyName);
 
         fileExtractedProperties.remove(propertyName);
     }
@@ -339,6 +362,7 @@ public class XMLConfigurationStore implements ConfigurationStore
     public void setNonSystemProperty(String propertyName, Object property)
     {
         properties.put(propertyName, property);
+        propertyNameIndex.add(propertyName);
     }
 
     /**
@@ -144,6 +144,14 @@ public abstract class RTPConnectorInputStream<T extends Closeable> implements Pu
      */
     private final MonotonicAtomicLong lastActivityTime = new MonotonicAtomicLong();
 
+    /**
+     * The single-element array in which {@link #createRawPacket(DatagramPacket)} returns the
+     * packet received by {@link #receiveThread}. The array is emptied by
+     * {@link #transferData(RawPacket[])} before the next packet is received so it is reused
+     * instead of being allocated per packet.
+     */
+    private final RawPacket[] receivedPacket = new RawPacket[1];
+
     /**
      * Initializes a new <tt>RTPConnectorInputStream</tt> which is to receive packet data from a specific UDP socket.
      *
@@ -290,7 +298,7 @@ public abstract class RTPConnectorInputStream<T extends Closeable> implements Pu
      */
     protected RawPacket[] createRawPacket(DatagramPacket datagramPacket)
     {
-        RawPacket[] pkts = new RawPacket[1];
+        RawPacket[] pkts = receivedPacket;
 
         RawPacket pkt = rawPacketPool.poll();
         if (pkt == null)
@@ -5,8 +5,6 @@
  */
 package org.atalk.impl.neomedia;
 
-import net.sf.fmj.media.util.MediaThread;
-
 import org.atalk.android.plugin.timberlog.TimberLog;
 import org.atalk.service.configuration.ConfigurationService;
 import org.atalk.service.libjitsi.LibJitsi;
@@ -20,7 +18,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.media.rtp.OutputDataStream;
 
@@ -53,9 +51,16 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
     private static final int AVERAGE_BITRATE_WINDOW_MS;
 
     /**
-     * The flag which controls whether this {@link RTPConnectorOutputStream} should create its own
-     * thread which will perform the packetization (and potential transformation) and sending of
-     * packets to the targets.
+     * The maximum number of {@link Queue.Buffer}s sent by a single run of {@link Queue#drain()} so
+     * that a busy stream does not starve the other streams of a shared {@link RTPConnectorReactor}.
+     */
+    private static final int MAX_BUFFERS_PER_DRAIN = 16;
+
+    /**
+     * The flag which controls whether this {@link RTPConnectorOutputStream} should have a thread
+     * which will perform the packetization (and potential transformation) and sending of packets
+     * to the targets: one of the threads shared by all streams or, if
+     * {@link #DEDICATED_SEND_THREADS}, a thread of its own.
      *
      * If {@code true}, calls to {@link #write(byte[], int, int)} will only add the given bytes to
      * {@link #queue}. Otherwise, packetization (via {@link #packetize(byte[], int, int, Object)})
@@ -71,6 +76,21 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
      */
     private static final String USE_SEND_THREAD_PNAME = RTPConnectorOutputStream.class.getName() + ".USE_SEND_THREAD";
 
+    /**
+     * The flag which controls whether the send queue of each {@link RTPConnectorOutputStream} is
+     * drained by a thread of its own rather than by the pool of {@link RTPConnectorReactor}
+     * threads shared by all streams, one per processor. Off by default; a shared thread serves
+     * {@link #MAX_BUFFERS_PER_DRAIN} buffers of a stream at a time, but a stream blocked in a send
+     * still delays the other streams of its thread.
+     */
+    private static final boolean DEDICATED_SEND_THREADS;
+
+    /**
+     * The name of the property which controls the value of {@link #DEDICATED_SEND_THREADS}.
+     */
+    private static final String DEDICATED_SEND_THREADS_PNAME
+            = RTPConnectorOutputStream.class.getName() + ".DEDICATED_SEND_THREADS";
+
     /**
      * The name of the <tt>ConfigurationService</tt> and/or <tt>System</tt> integer property which
      * specifies the value of {@link #PACKET_QUEUE_CAPACITY}.
@@ -94,6 +114,7 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
 
         // Set USE_SEND_THREAD
         USE_SEND_THREAD = ConfigUtils.getBoolean(cfg, USE_SEND_THREAD_PNAME, true);
+        DEDICATED_SEND_THREADS = ConfigUtils.getBoolean(cfg, DEDICATED_SEND_THREADS_PNAME, false);
         POOL_CAPACITY = ConfigUtils.getInt(cfg, POOL_CAPACITY_PNAME, 100);
         AVERAGE_BITRATE_WINDOW_MS = ConfigUtils.getInt(cfg, AVERAGE_BITRATE_WINDOW_MS_PNAME, 5000);
 
@@ -106,8 +127,8 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
         }
 
         PACKET_QUEUE_CAPACITY = packetQueueCapacity >= 0 ? packetQueueCapacity : 1024;
-        Timber.log(TimberLog.FINER, "Initialized configuration. Send thread: %s. Pool capacity: %s. Queue capacity: %s. Avg bitrate window: %s",
-                USE_SEND_THREAD, POOL_CAPACITY, PACKET_QUEUE_CAPACITY, AVERAGE_BITRATE_WINDOW_MS);
+        Timber.log(TimberLog.FINER, "Initialized configuration. Send thread: %s. Dedicated: %s. Pool capacity: %s. Queue capacity: %s. Avg bitrate window: %s",
+                USE_SEND_THREAD, DEDICATED_SEND_THREADS, POOL_CAPACITY, PACKET_QUEUE_CAPACITY, AVERAGE_BITRATE_WINDOW_MS);
     }
 
     /**
@@ -177,7 +198,9 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
     public RTPConnectorOutputStream()
     {
         if (USE_SEND_THREAD) {
-            queue = new Queue();
+            queue = DEDICATED_SEND_THREADS
+                    ? new Queue(RTPConnectorReactor.newDedicated(Queue.class.getName() + ".sendThread"), true)
+                    : new Queue(RTPConnectorReactor.next(), false);
         }
         else {
             queue = null;
@@ -206,6 +229,8 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
         if (!closed) {
             closed = true;
             removeTargets();
+            if (queue != null)
+                queue.close();
         }
     }
 
@@ -381,7 +406,7 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
             queue.setMaxPacketsPerMillis(maxPackets, perMillis);
         }
         else {
-            Timber.e("Cannot enable pacing: send thread is not enabled.");
+            Timber.e("Cannot enable pacing: send queue is not enabled.");
         }
         return queue != null;
     }
@@ -545,7 +570,7 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
     private class Queue
     {
         /**
-         * The {@link java.util.Queue} which holds {@link Buffer}s to be processed by {@link #sendThread}.
+         * The {@link java.util.Queue} which holds {@link Buffer}s to be processed by {@link #drain()}.
          */
         final ArrayBlockingQueue<Buffer> queue = new ArrayBlockingQueue<>(PACKET_QUEUE_CAPACITY);
 
@@ -555,13 +580,13 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
         final ArrayBlockingQueue<Buffer> pool = new ArrayBlockingQueue<>(15);
 
         /**
-         * The maximum number of {@link Buffer}s to be processed by {@link #sendThread} per {@link #perNanos} nanoseconds.
+         * The maximum number of {@link Buffer}s to be processed by {@link #drain()} per {@link #perNanos} nanoseconds.
          */
         int maxBuffers = -1;
 
         /**
          * The time interval in nanoseconds during which no more than {@link #maxBuffers}
-         * {@link Buffer}s are to be processed by {@link #sendThread}.
+         * {@link Buffer}s are to be processed by {@link #drain()}.
          */
         long perNanos = -1;
 
@@ -576,10 +601,26 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
         long intervalStartTimeNanos = 0;
 
         /**
-         * The {@link Thread} which is to read {@link Buffer}s from this {@link Queue} and send them
-         * to this {@link RTPConnectorOutputStream} 's targets.
+         * The {@link RTPConnectorReactor} which is to read {@link Buffer}s from this {@link Queue}
+         * and send them to this {@link RTPConnectorOutputStream}'s targets.
+         */
+        final RTPConnectorReactor reactor;
+
+        /**
+         * Whether {@link #reactor} serves this queue only and is to be shut down with it.
          */
-        final Thread sendThread;
+        final boolean dedicatedReactor;
+
+        /**
+         * Whether {@link #drainTask} has been submitted to {@link #reactor} and has not completed
+         * yet. Makes sure that the {@link Buffer}s of this queue are sent by one task at a time.
+         */
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        /**
+         * The task which runs {@link #drain()} on {@link #reactor}.
+         */
+        final Runnable drainTask = this::drain;
 
         /**
          * The instance optionally used to gather and print statistics about this queue.
@@ -587,28 +628,30 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
         QueueStatistics queueStats = null;
 
         /**
-         * Initializes a new {@link Queue} instance and starts its send thread.
+         * Initializes a new {@link Queue} instance which is drained by a specific reactor.
+         *
+         * @param reactor the {@link RTPConnectorReactor} which is to send the queued packets
+         * @param dedicatedReactor whether <tt>reactor</tt> serves the new queue only
          */
-        private Queue()
+        private Queue(RTPConnectorReactor reactor, boolean dedicatedReactor)
         {
             if (TimberLog.isTraceEnable) {
                 // queueStats = QueueStatistics.get(getClass().getSimpleName());
                 queueStats = new QueueStatistics(getClass().getSimpleName() + "-" + hashCode());
             }
+            this.reactor = reactor;
+            this.dedicatedReactor = dedicatedReactor;
+        }
 
-            sendThread = new Thread()
-            {
-                @Override
-                public void run()
-                {
-                    runInSendThread();
-                }
-            };
-            sendThread.setDaemon(true);
-            sendThread.setName(Queue.class.getName() + ".sendThread");
-
-            RTPConnectorInputStream.setThreadPriority(sendThread, MediaThread.getNetworkPriority());
-            sendThread.start();
+        /**
+         * Discards the queued {@link Buffer}s and ends the thread of {@link #reactor} if it is
+         * dedicated to this queue.
+         */
+        private void close()
+        {
+            if (dedicatedReactor)
+                reactor.shutdown();
+            queue.clear();
         }
 
         /**
@@ -650,86 +693,88 @@ public abstract class RTPConnectorOutputStream implements OutputDataStream
             if (queue.offer(buffer) && queueStats != null) {
                 queueStats.add(now);
             }
+            if (draining.compareAndSet(false, true)) {
+                reactor.execute(drainTask);
+            }
         }
 
         /**
-         * Reads {@link Buffer}s from {@link #queue}, "packetizes" them through
-         * {@link RTPConnectorOutputStream#packetize(byte[], int, int, Object)} and sends the
-         * resulting packets to this {@link RTPConnectorOutputStream}'s targets.
+         * Reads up to {@link #MAX_BUFFERS_PER_DRAIN} {@link Buffer}s from {@link #queue},
+         * "packetizes" them through {@link RTPConnectorOutputStream#packetize(byte[], int, int, Object)}
+         * and sends the resulting packets to this {@link RTPConnectorOutputStream}'s targets.
+         * Resubmits itself to {@link #reactor} while the queue is not empty.
          *
-         * If a pacing policy is configured, makes sure that it is respected. Note that this pacing
-         * is done on the basis of the number of {@link Buffer}s read from the queue, which
-         * technically could be different than the number of {@link RawPacket}s sent. This is done
-         * in order to keep the implementation simpler, and because in the majority of the cases
-         * (and in all current cases where pacing is enabled) the numbers do match.
+         * If a pacing policy is configured, makes sure that it is respected by delaying the next
+         * run rather than blocking the reactor thread. Note that this pacing is done on the basis
+         * of the number of {@link Buffer}s read from the queue, which technically could be
+         * different than the number of {@link RawPacket}s sent. This is done in order to keep the
+         * implementation simpler, and because in the majority of the cases (and in all current
+         * cases where pacing is enabled) the numbers do match.
          */
-        private void runInSendThread()
+        private void drain()
         {
-            if (!Thread.currentThread().equals(sendThread)) {
-                Timber.w(new Throwable(), "runInSendThread executing in the wrong thread: %s",
-                        Thread.currentThread().getName());
-                return;
-            }
+            long delayNanos = 0;
 
-            try {
-                while (!closed) {
-                    Buffer buffer;
-                    try {
-                        buffer = queue.poll(500, TimeUnit.MILLISECONDS);
-                    } catch (InterruptedException iex) {
-                        continue;
-                    }
+            for (int i = 0; i < MAX_BUFFERS_PER_DRAIN && !closed; i++) {
+                if (perNanos > 0 && maxBuffers > 0) {
+                    long time = System.nanoTime();
+                    long nanosElapsedTime = time - intervalStartTimeNanos;
 
-                    // The current thread has potentially waited.
-                    if (closed) {
-                        break;
+                    if (nanosElapsedTime >= perNanos) {
+                        intervalStartTimeNanos = time;
+                        buffersProcessedInCurrentInterval = 0;
                     }
-                    if (buffer == null) {
-                        continue;
-                    }
-                    if (queueStats != null) {
-                        queueStats.remove(System.currentTimeMillis());
-                    }
-                    RawPacket[] pkts;
-                    try {
-                        // We will sooner or later process the Buffer. Since this
-                        // may take a non-negligible amount of time, do it
-                        // before taking pacing into account.
-                        pkts = packetize(buffer.buf, 0, buffer.len, buffer.context);
-                    } catch (Exception e) {
-                        // The sending thread must not die because of a failure
-                        // in the conversion to RawPacket[] or any of the
-                        // transformations (because of e.g. parsing errors).
-                        Timber.e(e, "Failed to handle an outgoing packet.");
-                        continue;
-                    } finally {
-                        pool.offer(buffer);
+                    else if (buffersProcessedInCurrentInterval >= maxBuffers) {
+                        delayNanos = perNanos - nanosElapsedTime;
+                        break;
                     }
+                }
 
-                    if (perNanos > 0 && maxBuffers > 0) {
-                        long time = System.nanoTime();
-                        long nanosRemainingTime = time - intervalStartTimeNanos;
-
-                        if (nanosRemainingTime >= perNanos) {
-                            intervalStartTimeNanos = time;
-                            buffersProcessedInCurrentInterval = 0;
-                        }
-                        else if (buffersProcessedInCurrentInterval >= maxBuffers) {
-                            LockSupport.parkNanos(nanosRemainingTime);
-                        }
-                    }
+                Buffer buffer = queue.poll();
+                if (buffer == null) {
+                    break;
+                }
+                if (queueStats != null) {
+                    queueStats.remove(System.currentTimeMillis());
+                }
+                RawPacket[] pkts;
+                try {
+                    pkts = packetize(buffer.buf, 0, buffer.len, buffer.context);
+                } catch (Exception e) {
+                    // The reactor must not be disturbed by a failure in the conversion to
+                    // RawPacket[] or any of the transformations (because of e.g. parsing errors).
+                    Timber.e(e, "Failed to handle an outgoing packet.");
+                    continue;
+                } finally {
+                    pool.offer(buffer);
+                }
 
-                    try {
-                        RTPConnectorOutputStream.this.write(pkts);
-                    } catch (Exception e) {
-                        Timber.e(e, "Failed to send a packet.");
-                        continue;
-                    }
-                    buffersProcessedInCurrentInterval++;
+                try {
+                    RTPConnectorOutputStream.this.write(pkts);
+                } catch (Exception e) {
+                    Timber.e(e, "Failed to send a packet.");
+                    continue;
                 }
-            } finally {
+                buffersProcessedInCurrentInterval++;
+            }
+
+            if (closed) {
                 queue.clear();
             }
+            else if (delayNanos > 0) {
+                reactor.schedule(drainTask, delayNanos);
+                return;
+            }
+            else if (!queue.isEmpty()) {
+                reactor.execute(drainTask);
+                return;
+            }
+
+            draining.set(false);
+            // A Buffer may have been queued after the last poll but before the flag was cleared.
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                reactor.execute(drainTask);
+            }
         }
 
         public void setMaxPacketsPerMillis(int maxPackets, long perMillis)
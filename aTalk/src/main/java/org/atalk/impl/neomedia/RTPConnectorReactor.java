@@ -0,0 +1,269 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia;
+
+import net.sf.fmj.media.util.MediaThread;
+
+import org.atalk.service.configuration.ConfigurationService;
+import org.atalk.service.libjitsi.LibJitsi;
+import org.atalk.util.ConfigUtils;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+
+import timber.log.Timber;
+
+/**
+ * Drains the send queues of the <tt>RTPConnectorOutputStream</tt>s. Each reactor runs the tasks
+ * submitted to it, in order, and the tasks scheduled with a delay once they are due, on a thread
+ * of its own. The streams share a pool of {@link #REACTOR_COUNT} reactors by default, see
+ * {@link #next()}, rather than having a send thread each; a stream may instead have a dedicated
+ * reactor, see {@link #newDedicated(String)}, so that it cannot be delayed by a slow one.
+ *
+ * The streams are received from by a thread per <tt>RTPConnectorInputStream</tt> as before: the
+ * sockets of ice4j, which carry the RTP of aTalk, are not created from a <tt>DatagramChannel</tt>
+ * and cannot be multiplexed on a <tt>Selector</tt>.
+ *
+ * @author Eng Chong Meng
+ */
+class RTPConnectorReactor implements Runnable
+{
+    /**
+     * The name of the property which specifies the value of {@link #REACTOR_COUNT}.
+     */
+    private static final String REACTOR_COUNT_PNAME = RTPConnectorReactor.class.getName() + ".REACTOR_COUNT";
+
+    /**
+     * The number of reactors which serve all RTP connectors; by default, one per processor.
+     */
+    private static final int REACTOR_COUNT;
+
+    /**
+     * The reactors, started on demand.
+     */
+    private static final RTPConnectorReactor[] reactors;
+
+    /**
+     * The index in {@link #reactors} of the reactor to be returned by the next {@link #next()}.
+     */
+    private static int nextReactor = 0;
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+
+        int reactorCount = ConfigUtils.getInt(cfg, REACTOR_COUNT_PNAME, -1);
+        REACTOR_COUNT = (reactorCount > 0) ? reactorCount : Runtime.getRuntime().availableProcessors();
+        reactors = new RTPConnectorReactor[REACTOR_COUNT];
+    }
+
+    /**
+     * Gets the shared reactor which is to serve a new stream. The streams are assigned to the
+     * shared reactors in a round-robin fashion.
+     *
+     * @return the shared <tt>RTPConnectorReactor</tt> which is to serve a new stream
+     */
+    static synchronized RTPConnectorReactor next()
+    {
+        int index = nextReactor;
+        RTPConnectorReactor reactor = reactors[index];
+
+        if (reactor == null) {
+            reactor = new RTPConnectorReactor(RTPConnectorReactor.class.getName() + "-" + index);
+            reactors[index] = reactor;
+        }
+        nextReactor = (index + 1) % REACTOR_COUNT;
+        return reactor;
+    }
+
+    /**
+     * Starts a reactor which is to serve a single stream only and is to be shut down with it.
+     *
+     * @param name the name of the thread of the new reactor
+     * @return the new <tt>RTPConnectorReactor</tt>
+     */
+    static RTPConnectorReactor newDedicated(String name)
+    {
+        return new RTPConnectorReactor(name);
+    }
+
+    /**
+     * The tasks scheduled with a delay; guarded by {@link #tasks}.
+     */
+    private final PriorityQueue<DelayedTask> delayedTasks = new PriorityQueue<>();
+
+    /**
+     * The tasks to be run by the reactor thread as soon as possible; also the monitor the reactor
+     * thread waits on for tasks.
+     */
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * Whether this reactor has been shut down; guarded by {@link #tasks}.
+     */
+    private boolean shutdown = false;
+
+    /**
+     * Initializes a new <tt>RTPConnectorReactor</tt> and starts its thread.
+     *
+     * @param name the name of the thread of the new instance
+     */
+    private RTPConnectorReactor(String name)
+    {
+        Thread thread = new Thread(this);
+        thread.setDaemon(true);
+        thread.setName(name);
+        RTPConnectorInputStream.setThreadPriority(thread, MediaThread.getNetworkPriority());
+        thread.start();
+    }
+
+    /**
+     * Runs a specific task on the reactor thread as soon as possible.
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task)
+    {
+        synchronized (tasks) {
+            if (!shutdown) {
+                tasks.add(task);
+                tasks.notify();
+            }
+        }
+    }
+
+    /**
+     * Discards the pending tasks of this reactor and ends its thread. The tasks submitted
+     * afterwards are ignored.
+     */
+    void shutdown()
+    {
+        synchronized (tasks) {
+            shutdown = true;
+            tasks.clear();
+            delayedTasks.clear();
+            tasks.notify();
+        }
+    }
+
+    /**
+     * Runs the tasks as they are submitted and the delayed tasks as they are due.
+     */
+    @Override
+    public void run()
+    {
+        while (true) {
+            Runnable task;
+
+            synchronized (tasks) {
+                task = nextTask();
+                if (shutdown)
+                    return;
+            }
+            if (task != null)
+                runTask(task);
+        }
+    }
+
+    /**
+     * Waits for the next task to run, a delayed task which is due taking precedence over the
+     * submitted ones. Must be called with the monitor of {@link #tasks} held.
+     *
+     * @return the next task to run or <tt>null</tt> if the wait has been interrupted or this
+     * reactor has been shut down
+     */
+    private Runnable nextTask()
+    {
+        while (!shutdown) {
+            DelayedTask delayedTask = delayedTasks.peek();
+            long delayNanos = (delayedTask == null) ? -1 : delayedTask.timeNanos - System.nanoTime();
+
+            if (delayedTask != null && delayNanos <= 0) {
+                delayedTasks.poll();
+                return delayedTask.task;
+            }
+            if (!tasks.isEmpty())
+                return tasks.poll();
+
+            try {
+                if (delayedTask == null)
+                    tasks.wait();
+                else
+                    tasks.wait(delayNanos / 1000000, (int) (delayNanos % 1000000));
+            } catch (InterruptedException ie) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a specific task on the reactor thread, logging rather than propagating its failure
+     * because the reactor serves many streams and must not die because of any one of them.
+     *
+     * @param task the task to run
+     */
+    private static void runTask(Runnable task)
+    {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            if (t instanceof ThreadDeath)
+                throw (ThreadDeath) t;
+            Timber.e(t, "Failed to run an RTP connector task");
+        }
+    }
+
+    /**
+     * Runs a specific task on the reactor thread after a specific delay.
+     *
+     * @param task the task to run
+     * @param delayNanos the delay in nanoseconds
+     */
+    void schedule(Runnable task, long delayNanos)
+    {
+        if (delayNanos <= 0) {
+            execute(task);
+        }
+        else {
+            synchronized (tasks) {
+                if (!shutdown) {
+                    delayedTasks.add(new DelayedTask(task, System.nanoTime() + delayNanos));
+                    tasks.notify();
+                }
+            }
+        }
+    }
+
+    /**
+     * A task scheduled to run on the reactor thread at a specific time.
+     */
+    private static class DelayedTask
+            implements Comparable<DelayedTask>
+    {
+        /**
+         * The task to run.
+         */
+        final Runnable task;
+
+        /**
+         * The value of <tt>System.nanoTime()</tt> at which {@link #task} is to run.
+         */
+        final long timeNanos;
+
+        DelayedTask(Runnable task, long timeNanos)
+        {
+            this.task = task;
+            this.timeNanos = timeNanos;
+        }
+
+        @Override
+        public int compareTo(DelayedTask other)
+        {
+            long diff = timeNanos - other.timeNanos;
+            return (diff < 0) ? -1 : ((diff == 0) ? 0 : 1);
+        }
+    }
+}
@@ -5,8 +5,6 @@
  */
 package org.atalk.impl.neomedia.audiolevel;
 
-import org.atalk.util.ArrayIOUtils;
-
 /**
  * Implements the calculation of audio level as defined by RFC 6465 &quot;A Real-time Transport
  * Protocol (RTP) Header Extension for Mixer-to-Client Audio Level Indication&quot;.
@@ -39,17 +37,59 @@ public class AudioLevelCalculator
 	 */
 	public static byte calculateAudioLevel(byte[] samples, int offset, int length)
 	{
-		double rms = 0; // root mean square (RMS) amplitude
+		int sampleCount = length / 2;
+		long sumOfSquares = 0;
 
-		for (; offset < length; offset += 2) {
-			double sample = ArrayIOUtils.readShort(samples, offset);
+		/*
+		 * The 16-bit little endian samples are squared in integer arithmetic and without
+		 * branches so that the loop is a candidate for auto-vectorization.
+		 */
+		for (int i = 0; i < sampleCount; i++) {
+			int sample = (samples[offset + 2 * i + 1] << 8) | (samples[offset + 2 * i] & 0xFF);
 
-			sample /= Short.MAX_VALUE;
-			rms += sample * sample;
+			sumOfSquares += sample * sample;
 		}
+		return toAudioLevel(sumOfSquares, sampleCount);
+	}
 
-		int sampleCount = length / 2;
-		rms = (sampleCount == 0) ? 0 : Math.sqrt(rms / sampleCount);
+	/**
+	 * Calculates the audio level of a signal with specific <tt>samples</tt>.
+	 *
+	 * @param samples
+	 * 		the samples of the signal to calculate the audio level of
+	 * @param offset
+	 * 		the offset in <tt>samples</tt> in which the samples start
+	 * @param length
+	 * 		the number of samples of the signal in <tt>samples</tt>
+	 * 		starting at <tt>offset</tt>
+	 * @return the audio level of the specified signal
+	 */
+	public static byte calculateAudioLevel(short[] samples, int offset, int length)
+	{
+		long sumOfSquares = 0;
+
+		for (int i = 0; i < length; i++) {
+			int sample = samples[offset + i];
+
+			sumOfSquares += sample * sample;
+		}
+		return toAudioLevel(sumOfSquares, length);
+	}
+
+	/**
+	 * Converts the sum of the squares of the samples of a signal into its audio level.
+	 *
+	 * @param sumOfSquares
+	 * 		the sum of the squares of the samples of the signal
+	 * @param sampleCount
+	 * 		the number of samples of the signal
+	 * @return the audio level of the signal
+	 */
+	private static byte toAudioLevel(long sumOfSquares, int sampleCount)
+	{
+		// root mean square (RMS) amplitude
+		double rms = (sampleCount == 0)
+			? 0 : Math.sqrt((double) sumOfSquares / sampleCount) / Short.MAX_VALUE;
 
 		double db;
 
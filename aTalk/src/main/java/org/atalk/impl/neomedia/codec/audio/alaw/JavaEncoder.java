@@ -171,12 +171,12 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 	/**
 	 * An array where the index is the 16-bit PCM input, and the value is the a-law result.
 	 */
-	private static byte[] pcmToALawMap;
+	private static final byte[] pcmToALawMap;
 
 	static {
 		pcmToALawMap = new byte[65536];
 		for (int i = Short.MIN_VALUE; i <= Short.MAX_VALUE; i++)
-			pcmToALawMap[uShortToInt((short) i)] = encode(i);
+			pcmToALawMap[i & 0xffff] = encode(i);
 	}
 
 	/**
@@ -239,8 +239,8 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 	{
 		int size = length / 2;
 		for (int i = 0; i < size; i++)
-			target[i] = aLawEncode(((data[offset + 2 * i + 1] & 0xff) << 8)
-				| (data[offset + 2 * i]) & 0xff);
+			target[i] = pcmToALawMap[((data[offset + 2 * i + 1] & 0xff) << 8)
+				| (data[offset + 2 * i] & 0xff)];
 	}
 
 	/**
@@ -259,8 +259,8 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 	{
 		int size = length / 2;
 		for (int i = 0; i < size; i++)
-			target[i] = aLawEncode(((data[offset + 2 * i + 1]) & 0xff)
-				| ((data[offset + 2 * i] & 0xff) << 8));
+			target[i] = pcmToALawMap[(data[offset + 2 * i + 1] & 0xff)
+				| ((data[offset + 2 * i] & 0xff) << 8)];
 	}
 
 	/**
@@ -272,7 +272,7 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 	 */
 	public static byte aLawEncode(int pcm)
 	{
-		return pcmToALawMap[uShortToInt((short) (pcm & 0xffff))];
+		return pcmToALawMap[pcm & 0xffff];
 	}
 
 	/**
@@ -36,6 +36,16 @@ class AcelpCo
 	 * File : ACELP_CO.C Used for the floating point version of G.729 main body (not for G.729A)
 	 */
 
+	/**
+	 * The signs of the 4 pulses found by the last {@link #ACELP_codebook}.
+	 */
+	int sign;
+
+	/* Work vectors of the codebook search, allocated once per encoder. */
+	private final float[] dn = new float[Ld8k.L_SUBFR];
+	private final float[] rr = new float[Ld8k.DIM_RR];
+	private final float[] p_sign = new float[Ld8k.L_SUBFR];
+
 	/**
 	 *
 	 * @param x
@@ -52,19 +62,16 @@ class AcelpCo
 	 *        (o) :Innovative codebook
 	 * @param y
 	 *        (o) :Filtered innovative codebook
-	 * @param sign
-	 *        (o) :Signs of 4 pulses
-	 * @return index of pulses positions
+	 * @return index of pulses positions; the signs of the 4 pulses are left in {@link #sign}
 	 */
 	int ACELP_codebook(float x[], float h[], int t0, float pitch_sharp, int i_subfr, float code[],
-		float y[], IntReference sign)
+		float y[])
 	{
-		int DIM_RR = Ld8k.DIM_RR;
 		int L_SUBFR = Ld8k.L_SUBFR;
 
 		int i, index;
-		float[] dn = new float[L_SUBFR];
-		float[] rr = new float[DIM_RR];
+		float[] dn = this.dn;
+		float[] rr = this.rr;
 
 		/*----------------------------------------------------------------*
 		 * Include fixed-gain pitch contribution into impulse resp. h[]    *
@@ -87,7 +94,7 @@ class AcelpCo
 		 * Find innovative codebook.                                       *
 		 *-----------------------------------------------------------------*/
 
-		index = d4i40_17(dn, rr, h, code, y, sign, i_subfr);
+		index = d4i40_17(dn, rr, h, code, y, i_subfr);
 
 		/*------------------------------------------------------*
 		 * - Add the fixed-gain pitch contribution to code[].    *
@@ -467,14 +474,11 @@ class AcelpCo
 	 *        (o) : selected algebraic codeword
 	 * @param y
 	 *        (o) : output: selected algebraic codeword
-	 * @param signs
-	 *        (o) : signs of 4 pulses
 	 * @param i_subfr
 	 *        (i) subframe flag
-	 * @return pulse positions
+	 * @return pulse positions; the signs of the 4 pulses are left in {@link #sign}
 	 */
-	private int d4i40_17(float dn[], float rr[], float h[], float cod[], float y[],
-		IntReference signs, int i_subfr)
+	private int d4i40_17(float dn[], float rr[], float h[], float cod[], float y[], int i_subfr)
 	{
 		int L_SUBFR = Ld8k.L_SUBFR;
 		int MAX_TIME = Ld8k.MAX_TIME;
@@ -496,7 +500,7 @@ class AcelpCo
 		float ps0, ps1, ps2, ps3, alp0, alp1, alp2, alp3;
 		float ps3c, psc, alpha;
 		float average, max0, max1, max2, thres;
-		float[] p_sign = new float[L_SUBFR];
+		float[] p_sign = this.p_sign;
 
 		int rri0i0, rri1i1, rri2i2, rri3i3, rri4i4;
 		int rri0i1, rri0i2, rri0i3, rri0i4;
@@ -802,7 +806,7 @@ class AcelpCo
 			i += 4;
 		if (p_sign[ip3] > 0.0f)
 			i += 8;
-		signs.value = i;
+		sign = i;
 
 		ip0 = ip0 / 5;
 		ip1 = ip1 / 5;
@@ -96,7 +96,44 @@ class CodLd8k extends Ld8k
 
 	private float sharp;
 
+	/* Work vectors of coder_ld8k(), allocated once per encoder */
+
+	/* LPC coefficients */
+	private final float[] r = new float[MP1]; /* Autocorrelations low and hi */
+	private final float[] A_t = new float[(MP1) * 2]; /* A(z) unquantized for the 2 subframes */
+	private final float[] Aq_t = new float[(MP1) * 2]; /* A(z) quantized for the 2 subframes */
+	private final float[] Ap1 = new float[MP1]; /* A(z) with spectral expansion */
+	private final float[] Ap2 = new float[MP1]; /* A(z) with spectral expansion */
+
+	/* LSP coefficients */
+	private final float[] lsp_new = new float[M], lsp_new_q = new float[M]; /* LSPs at 2th subframe */
+	private final float[] lsf_int = new float[M]; /* Interpolated LSF 1st subframe. */
+	private final float[] lsf_new = new float[M];
+
+	/* Variable added for adaptive gamma1 and gamma2 of the PWF */
+	private final float[] rc = new float[M]; /* Reflection coefficients */
+	private final float[] gamma1 = new float[2]; /* Gamma1 for 1st and 2nd subframes */
+	private final float[] gamma2 = new float[2]; /* Gamma2 for 1st and 2nd subframes */
+
+	/* Other vectors */
+	private final float[] synth = new float[L_FRAME]; /* Buffer for synthesis speech */
+	private final float[] h1 = new float[L_SUBFR]; /* Impulse response h1[] */
+	private final float[] xn = new float[L_SUBFR]; /* Target vector for pitch search */
+	private final float[] xn2 = new float[L_SUBFR]; /* Target vector for codebook search */
+	private final float[] code = new float[L_SUBFR]; /* Fixed codebook excitation */
+	private final float[] y1 = new float[L_SUBFR]; /* Filtered adaptive excitation */
+	private final float[] y2 = new float[L_SUBFR]; /* Filtered fixed codebook excitation */
+	private final float[] lsp_int = new float[M]; /* Interpolated LSPs */
+	private final float[] f1 = new float[NC + 1], f2 = new float[NC + 1]; /* F1(z) and F2(z) */
+	private final float[] y_window = new float[L_WINDOW]; /* Windowed speech */
+	private final float[] yy_b = new float[L_SUBFR + M]; /* Memory and output of syn_filt() */
+	private final float[] g_coeff = new float[5]; /*
+												 * Correlations between xn, y1, & y2: <y1,y1>,
+												 * <xn,y1>, <y2,y2>, <xn,y2>,<y1,y2>
+												 */
+
 	private final AcelpCo acelpCo = new AcelpCo();
+	private final Pitch pitch = new Pitch();
 	private final Pwf pwf = new Pwf();
 	private final QuaGain quaGain = new QuaGain();
 	private final QuaLsp quaLsp = new QuaLsp();
@@ -165,48 +202,21 @@ class CodLd8k extends Ld8k
 	 */
 	void coder_ld8k(int ana[])
 	{
-		/* LPC coefficients */
-		float[] r = new float[MP1]; /* Autocorrelations low and hi */
-		float[] A_t = new float[(MP1) * 2]; /* A(z) unquantized for the 2 subframes */
-		float[] Aq_t = new float[(MP1) * 2]; /* A(z) quantized for the 2 subframes */
-		float[] Ap1 = new float[MP1]; /* A(z) with spectral expansion */
-		float[] Ap2 = new float[MP1]; /* A(z) with spectral expansion */
+		float[] r = this.r, A_t = this.A_t, Aq_t = this.Aq_t, Ap1 = this.Ap1, Ap2 = this.Ap2;
 		float[] A, Aq; /* Pointer on A_t and Aq_t */
 		int A_offset, Aq_offset;
-
-		/* LSP coefficients */
-		float[] lsp_new = new float[M], lsp_new_q = new float[M]; /* LSPs at 2th subframe */
-		float[] lsf_int = new float[M]; /* Interpolated LSF 1st subframe. */
-		float[] lsf_new = new float[M];
-
-		/* Variable added for adaptive gamma1 and gamma2 of the PWF */
-
-		float[] rc = new float[M]; /* Reflection coefficients */
-		float[] gamma1 = new float[2]; /* Gamma1 for 1st and 2nd subframes */
-		float[] gamma2 = new float[2]; /* Gamma2 for 1st and 2nd subframes */
-
-		/* Other vectors */
-		float[] synth = new float[L_FRAME]; /* Buffer for synthesis speech */
-		float[] h1 = new float[L_SUBFR]; /* Impulse response h1[] */
-		float[] xn = new float[L_SUBFR]; /* Target vector for pitch search */
-		float[] xn2 = new float[L_SUBFR]; /* Target vector for codebook search */
-		float[] code = new float[L_SUBFR]; /* Fixed codebook excitation */
-		float[] y1 = new float[L_SUBFR]; /* Filtered adaptive excitation */
-		float[] y2 = new float[L_SUBFR]; /* Filtered fixed codebook excitation */
-		float[] g_coeff = new float[5]; /*
-										 * Correlations between xn, y1, & y2: <y1,y1>, <xn,y1>,
-										 * <y2,y2>, <xn,y2>,<y1,y2>
-										 */
+		float[] lsp_new = this.lsp_new, lsp_new_q = this.lsp_new_q, lsf_int = this.lsf_int,
+			lsf_new = this.lsf_new;
+		float[] rc = this.rc, gamma1 = this.gamma1, gamma2 = this.gamma2;
+		float[] synth = this.synth, h1 = this.h1, xn = this.xn, xn2 = this.xn2, code = this.code,
+			y1 = this.y1, y2 = this.y2, g_coeff = this.g_coeff;
 
 		/* Scalars */
 
 		int i, j, i_gamma, i_subfr;
-		IntReference iRef = new IntReference();
-		int T_op, t0;
-		IntReference t0_min = new IntReference(), t0_max = new IntReference(), t0_frac = new IntReference();
+		int T_op, t0, t0_frac;
 		int index, taming;
-		float gain_pit, gain_code = 0.0f;
-		FloatReference _gain_pit = new FloatReference(), _gain_code = new FloatReference();
+		float gain_pit, gain_code;
 
 		int ana_offset = 0;
 
@@ -222,10 +232,10 @@ class CodLd8k extends Ld8k
 
 		/* LP analysis */
 
-		Lpc.autocorr(p_window, p_window_offset, M, r); /* Autocorrelations */
+		Lpc.autocorr(p_window, p_window_offset, M, r, y_window); /* Autocorrelations */
 		Lpc.lag_window(M, r); /* Lag windowing */
 		Lpc.levinson(r, A_t, MP1, rc); /* Levinson Durbin */
-		Lpc.az_lsp(A_t, MP1, lsp_new, lsp_old); /* From A(z) to lsp */
+		Lpc.az_lsp(A_t, MP1, lsp_new, lsp_old, f1, f2); /* From A(z) to lsp */
 
 		/* LSP quantization */
 
@@ -239,8 +249,8 @@ class CodLd8k extends Ld8k
 		 * and the quantized interpolated parameters are in array Aq_t[]      *
 		 *--------------------------------------------------------------------*/
 
-		Lpcfunc.int_lpc(lsp_old, lsp_new, lsf_int, lsf_new, A_t);
-		Lpcfunc.int_qlpc(lsp_old_q, lsp_new_q, Aq_t);
+		Lpcfunc.int_lpc(lsp_old, lsp_new, lsf_int, lsf_new, A_t, lsp_int, f1, f2);
+		Lpcfunc.int_qlpc(lsp_old_q, lsp_new_q, Aq_t, lsp_int, f1, f2);
 
 		/* update the LSPs for the next frame */
 
@@ -264,27 +274,27 @@ class CodLd8k extends Ld8k
 		Lpcfunc.weight_az(A_t, 0, gamma1[0], M, Ap1);
 		Lpcfunc.weight_az(A_t, 0, gamma2[0], M, Ap2);
 		Filter.residu(Ap1, 0, speech, speech_offset, wsp, wsp_offset, L_SUBFR);
-		Filter.syn_filt(Ap2, 0, wsp, wsp_offset, wsp, wsp_offset, L_SUBFR, mem_w, 0, 1);
+		Filter.syn_filt(Ap2, 0, wsp, wsp_offset, wsp, wsp_offset, L_SUBFR, mem_w, 0, 1, yy_b);
 
 		Lpcfunc.weight_az(A_t, MP1, gamma1[1], M, Ap1);
 		Lpcfunc.weight_az(A_t, MP1, gamma2[1], M, Ap2);
 		Filter.residu(Ap1, 0, speech, speech_offset + L_SUBFR, wsp, wsp_offset + L_SUBFR, L_SUBFR);
 		Filter.syn_filt(Ap2, 0, wsp, wsp_offset + L_SUBFR, wsp, wsp_offset + L_SUBFR, L_SUBFR,
-			mem_w, 0, 1);
+			mem_w, 0, 1, yy_b);
 
 		/* Find open loop pitch lag for whole speech frame */
 
-		T_op = Pitch.pitch_ol(wsp, wsp_offset, PIT_MIN, PIT_MAX, L_FRAME);
+		T_op = pitch.pitch_ol(wsp, wsp_offset, PIT_MIN, PIT_MAX, L_FRAME);
 
 		/* range for closed loop pitch search in 1st subframe */
 
-		t0_min.value = T_op - 3;
-		if (t0_min.value < PIT_MIN)
-			t0_min.value = PIT_MIN;
-		t0_max.value = t0_min.value + 6;
-		if (t0_max.value > PIT_MAX) {
-			t0_max.value = PIT_MAX;
-			t0_min.value = t0_max.value - 6;
+		pitch.t0_min = T_op - 3;
+		if (pitch.t0_min < PIT_MIN)
+			pitch.t0_min = PIT_MIN;
+		pitch.t0_max = pitch.t0_min + 6;
+		if (pitch.t0_max > PIT_MAX) {
+			pitch.t0_max = PIT_MAX;
+			pitch.t0_min = pitch.t0_max - 6;
 		}
 
 		/*------------------------------------------------------------------------*
@@ -329,8 +339,8 @@ class CodLd8k extends Ld8k
 
 			for (i = 0; i <= M; i++)
 				ai_zero[i] = Ap1[i];
-			Filter.syn_filt(Aq, Aq_offset, ai_zero, 0, h1, 0, L_SUBFR, zero, zero_offset, 0);
-			Filter.syn_filt(Ap2, 0, h1, 0, h1, 0, L_SUBFR, zero, zero_offset, 0);
+			Filter.syn_filt(Aq, Aq_offset, ai_zero, 0, h1, 0, L_SUBFR, zero, zero_offset, 0, yy_b);
+			Filter.syn_filt(Ap2, 0, h1, 0, h1, 0, L_SUBFR, zero, zero_offset, 0, yy_b);
 
 			/*------------------------------------------------------------------------*
 			 *                                                                        *
@@ -364,20 +374,21 @@ class CodLd8k extends Ld8k
 												 */
 
 			Filter.syn_filt(Aq, Aq_offset, exc, exc_offset + i_subfr, error, error_offset, L_SUBFR,
-				mem_err, 0, 0);
+				mem_err, 0, 0, yy_b);
 
 			Filter.residu(Ap1, 0, error, error_offset, xn, 0, L_SUBFR);
 
-			Filter.syn_filt(Ap2, 0, xn, 0, xn, 0, L_SUBFR, mem_w0, 0, 0); /* target signal xn[] */
+			Filter.syn_filt(Ap2, 0, xn, 0, xn, 0, L_SUBFR, mem_w0, 0, 0, yy_b); /* target signal xn[] */
 
 			/*----------------------------------------------------------------------*
 			 *                 Closed-loop fractional pitch search                  *
 			 *----------------------------------------------------------------------*/
 
-			t0 = Pitch.pitch_fr3(exc, exc_offset + i_subfr, xn, h1, L_SUBFR, t0_min.value,
-				t0_max.value, i_subfr, t0_frac);
+			t0 = pitch.pitch_fr3(exc, exc_offset + i_subfr, xn, h1, L_SUBFR, pitch.t0_min,
+				pitch.t0_max, i_subfr);
+			t0_frac = pitch.pit_frac;
 
-			index = Pitch.enc_lag3(t0, t0_frac.value, t0_min, t0_max, PIT_MIN, PIT_MAX, i_subfr);
+			index = pitch.enc_lag3(t0, t0_frac, PIT_MIN, PIT_MAX, i_subfr);
 
 			ana[ana_offset] = index;
 			ana_offset++;
@@ -395,14 +406,14 @@ class CodLd8k extends Ld8k
 			 *   - find LTP residual.                                          *
 			 *-----------------------------------------------------------------*/
 
-			PredLt3.pred_lt_3(exc, exc_offset + i_subfr, t0, t0_frac.value, L_SUBFR);
+			PredLt3.pred_lt_3(exc, exc_offset + i_subfr, t0, t0_frac, L_SUBFR);
 
 			Filter.convolve(exc, exc_offset + i_subfr, h1, y1, L_SUBFR);
 
 			gain_pit = Pitch.g_pitch(xn, y1, g_coeff, L_SUBFR);
 
 			/* clip pitch gain if taming is necessary */
-			taming = this.taming.test_err(t0, t0_frac.value);
+			taming = this.taming.test_err(t0, t0_frac);
 
 			if (taming == 1) {
 				if (gain_pit > GPCLIP) {
@@ -417,12 +428,10 @@ class CodLd8k extends Ld8k
 			 * - Innovative codebook search.                       *
 			 *-----------------------------------------------------*/
 
-			iRef.value = i;
-			index = acelpCo.ACELP_codebook(xn2, h1, t0, sharp, i_subfr, code, y2, iRef);
-			i = iRef.value;
+			index = acelpCo.ACELP_codebook(xn2, h1, t0, sharp, i_subfr, code, y2);
 			ana[ana_offset] = index; /* Positions index */
 			ana_offset++;
-			ana[ana_offset] = i; /* Signs index */
+			ana[ana_offset] = acelpCo.sign; /* Signs index */
 			ana_offset++;
 
 			/*-----------------------------------------------------*
@@ -430,12 +439,9 @@ class CodLd8k extends Ld8k
 			 *-----------------------------------------------------*/
 			CorFunc.corr_xy2(xn, y1, y2, g_coeff);
 
-			_gain_pit.value = gain_pit;
-			_gain_code.value = gain_code;
-			ana[ana_offset] = quaGain.qua_gain(code, g_coeff, L_SUBFR, _gain_pit, _gain_code,
-				taming);
-			gain_pit = _gain_pit.value;
-			gain_code = _gain_code.value;
+			ana[ana_offset] = quaGain.qua_gain(code, g_coeff, L_SUBFR, taming);
+			gain_pit = quaGain.gain_pit;
+			gain_code = quaGain.gain_code;
 			ana_offset++;
 
 			/*------------------------------------------------------------*
@@ -463,7 +469,7 @@ class CodLd8k extends Ld8k
 			this.taming.update_exc_err(gain_pit, t0);
 
 			Filter.syn_filt(Aq, Aq_offset, exc, exc_offset + i_subfr, synth, i_subfr, L_SUBFR,
-				mem_syn, 0, 1);
+				mem_syn, 0, 1, yy_b);
 
 			for (i = L_SUBFR - M, j = 0; i < L_SUBFR; i++, j++) {
 				mem_err[j] = speech[speech_offset + i_subfr + i] - synth[i_subfr + i];
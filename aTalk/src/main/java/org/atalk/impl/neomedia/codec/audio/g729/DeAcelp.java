@@ -43,12 +43,13 @@ class DeAcelp
 	 *        input : positions of 4 pulses
 	 * @param cod
 	 *        output: innovative codevector
+	 * @param pos
+	 *        work vector of length 4 for the positions of the pulses
 	 */
-	static void decod_ACELP(int sign, int index, float cod[])
+	static void decod_ACELP(int sign, int index, float cod[], int pos[])
 	{
 		int L_SUBFR = Ld8k.L_SUBFR;
 
-		int[] pos = new int[4];
 		int i, j;
 
 		/* decode the positions of 4 pulses */
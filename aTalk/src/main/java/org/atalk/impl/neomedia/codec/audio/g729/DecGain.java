@@ -34,6 +34,16 @@ class DecGain
 	 */
 	private final float[/* 4 */] past_qua_en = { -14.0f, -14.0f, -14.0f, -14.0f };
 
+	/**
+	 * The quantized acb gain; decoded by {@link #dec_gain} and attenuated on frame erasure.
+	 */
+	float gain_pit;
+
+	/**
+	 * The quantized fcb gain; decoded by {@link #dec_gain} and attenuated on frame erasure.
+	 */
+	float gain_code;
+
 	/**
 	 * Decode the adaptive and fixed codebook gains.
 	 *
@@ -45,13 +55,8 @@ class DecGain
 	 *        input : subframe size
 	 * @param bfi
 	 *        input : bad frame indicator good = 0
-	 * @param gain_pit
-	 *        output: quantized acb gain
-	 * @param gain_code
-	 *        output: quantized fcb gain
 	 */
-	void dec_gain(int index, float code[], int l_subfr, int bfi, FloatReference gain_pit,
-		FloatReference gain_code)
+	void dec_gain(int index, float code[], int l_subfr, int bfi)
 	{
 		int NCODE2 = Ld8k.NCODE2;
 		float[][] gbk1 = TabLd8k.gbk1;
@@ -64,10 +69,10 @@ class DecGain
 
 		/*----------------- Test erasure ---------------*/
 		if (bfi != 0) {
-			gain_pit.value *= 0.9f;
-			if (gain_pit.value > 0.9f)
-				gain_pit.value = 0.9f;
-			gain_code.value *= 0.98f;
+			gain_pit *= 0.9f;
+			if (gain_pit > 0.9f)
+				gain_pit = 0.9f;
+			gain_code *= 0.98f;
 
 			/*----------------------------------------------*
 			 * update table of past quantized energies      *
@@ -82,7 +87,7 @@ class DecGain
 
 		index1 = imap1[index / NCODE2];
 		index2 = imap2[index % NCODE2];
-		gain_pit.value = gbk1[index1][0] + gbk2[index2][0];
+		gain_pit = gbk1[index1][0] + gbk2[index2][0];
 
 		/*-------------- Decode codebook gain ---------------*/
 
@@ -99,7 +104,7 @@ class DecGain
 		 *-----------------------------------------------------------------*/
 
 		g_code = gbk1[index1][1] + gbk2[index2][1];
-		gain_code.value = g_code * gcode0;
+		gain_code = g_code * gcode0;
 
 		/*----------------------------------------------*
 		 * update table of past quantized energies      *
@@ -34,6 +34,11 @@ class DecLag3
 	 * File : DEC_LAG3.C Used for the floating point version of both G.729 main body and G.729A
 	 */
 
+	/**
+	 * The integer and fractional parts of the pitch lag decoded by the last {@link #dec_lag3}.
+	 */
+	int T0, T0_frac;
+
 	/**
 	 * Decoding of fractional pitch lag with 1/3 resolution. See the source for more details about
 	 * the encoding procedure.
@@ -46,16 +51,13 @@ class DecLag3
 	 *        input : maximum pitch lag
 	 * @param i_subfr
 	 *        input : subframe flag
-	 * @param T0
-	 *        output: integer part of pitch lag
-	 * @param T0_frac
-	 *        output: fractional part of pitch lag
+	 * @param t0_first
+	 *        input : integer part of pitch lag of the 1st subframe, used for the 2nd subframe
 	 */
-	static void dec_lag3(int index, int pit_min, int pit_max, int i_subfr, IntReference T0,
-		IntReference T0_frac)
+	void dec_lag3(int index, int pit_min, int pit_max, int i_subfr, int t0_first)
 	{
 		int i;
-		int _T0 = T0.value, _T0_frac = T0_frac.value;
+		int _T0 = t0_first, _T0_frac;
 		int T0_min, T0_max;
 
 		if (i_subfr == 0) /* if 1st subframe */
@@ -88,7 +90,7 @@ class DecLag3
 			_T0 = i + T0_min;
 			_T0_frac = index - 2 - i * 3;
 		}
-		T0.value = _T0;
-		T0_frac.value = _T0_frac;
+		T0 = _T0;
+		T0_frac = _T0_frac;
 	}
 }
@@ -89,18 +89,34 @@ class DecLd8k extends Ld8k
 	private int old_t0;
 
 	/**
-	 * fixed codebook gain
+	 * LSPs; work vector of decod_ld8k()
 	 */
-	private final FloatReference gain_code = new FloatReference();
+	private final float[] lsp_new = new float[M];
 
 	/**
-	 * adaptive codebook gain
+	 * algebraic codevector; work vector of decod_ld8k()
 	 */
-	private final FloatReference gain_pitch = new FloatReference();
+	private final float[] code = new float[L_SUBFR];
 
+	/**
+	 * Work vectors of Lpcfunc.int_qlpc(), DeAcelp.decod_ACELP() and Filter.syn_filt()
+	 */
+	private final float[] lsp_int = new float[M], f1 = new float[NC + 1], f2 = new float[NC + 1];
+	private final int[] pos = new int[4];
+	private final float[] yy_b = new float[L_SUBFR + M];
+
+	/**
+	 * Decodes the adaptive and fixed codebook gains and keeps them for the frame erasures.
+	 */
 	private final DecGain decGain = new DecGain();
+	private final DecLag3 decLag3 = new DecLag3();
 	private final Lspdec lspdec = new Lspdec();
 
+	/**
+	 * Seed of the random generator of the frame erasure concealment
+	 */
+	private short seed = 21845;
+
 	/**
 	 * Initialization of variables for the decoder section.
 	 */
@@ -116,8 +132,8 @@ class DecLd8k extends Ld8k
 
 		sharp = SHARPMIN;
 		old_t0 = 60;
-		gain_code.value = 0.f;
-		gain_pitch.value = 0.f;
+		decGain.gain_code = 0.f;
+		decGain.gain_pit = 0.f;
 
 		lspdec.lsp_decw_reset();
 	}
@@ -144,12 +160,12 @@ class DecLd8k extends Ld8k
 		int t0_first = 0; /* output: integer delay of first subframe */
 		float[] Az; /* Pointer to A_t (LPC coefficients) */
 		int Az_offset;
-		float[] lsp_new = new float[M]; /* LSPs */
-		float[] code = new float[L_SUBFR]; /* algebraic codevector */
+		float[] lsp_new = this.lsp_new; /* LSPs */
+		float[] code = this.code; /* algebraic codevector */
 
 		/* Scalars */
 		int i, i_subfr;
-		IntReference t0 = new IntReference(), t0_frac = new IntReference();
+		int t0 = 0, t0_frac = 0;
 		int index;
 
 		int bfi;
@@ -167,7 +183,7 @@ class DecLd8k extends Ld8k
 
 		/* Interpolation of LPC for the 2 subframes */
 
-		Lpcfunc.int_qlpc(lsp_old, lsp_new, A_t);
+		Lpcfunc.int_qlpc(lsp_old, lsp_new, A_t, lsp_int, f1, f2);
 
 		/* update the LSFs for the next frame */
 
@@ -197,29 +213,33 @@ class DecLd8k extends Ld8k
 				parm_offset++;
 				bad_pitch = bfi + i;
 				if (bad_pitch == 0) {
-					DecLag3.dec_lag3(index, PIT_MIN, PIT_MAX, i_subfr, t0, t0_frac);
-					old_t0 = t0.value;
+					decLag3.dec_lag3(index, PIT_MIN, PIT_MAX, i_subfr, t0);
+					t0 = decLag3.T0;
+					t0_frac = decLag3.T0_frac;
+					old_t0 = t0;
 				}
 				else /* Bad frame, or parity error */
 				{
-					t0.value = old_t0;
-					t0_frac.value = 0;
+					t0 = old_t0;
+					t0_frac = 0;
 					old_t0++;
 					if (old_t0 > PIT_MAX) {
 						old_t0 = PIT_MAX;
 					}
 				}
-				t0_first = t0.value; /* If first frame */
+				t0_first = t0; /* If first frame */
 			}
 			else /* second subframe */
 			{
 				if (bfi == 0) {
-					DecLag3.dec_lag3(index, PIT_MIN, PIT_MAX, i_subfr, t0, t0_frac);
-					old_t0 = t0.value;
+					decLag3.dec_lag3(index, PIT_MIN, PIT_MAX, i_subfr, t0);
+					t0 = decLag3.T0;
+					t0_frac = decLag3.T0_frac;
+					old_t0 = t0;
 				}
 				else {
-					t0.value = old_t0;
-					t0_frac.value = 0;
+					t0 = old_t0;
+					t0_frac = 0;
 					old_t0++;
 					if (old_t0 > PIT_MAX) {
 						old_t0 = PIT_MAX;
@@ -231,7 +251,7 @@ class DecLd8k extends Ld8k
 			 *  - Find the adaptive codebook vector.            *
 			 *--------------------------------------------------*/
 
-			PredLt3.pred_lt_3(exc, exc_offset + i_subfr, t0.value, t0_frac.value, L_SUBFR);
+			PredLt3.pred_lt_3(exc, exc_offset + i_subfr, t0, t0_frac, L_SUBFR);
 
 			/*-------------------------------------------------------*
 			 * - Decode innovative codebook.                         *
@@ -239,14 +259,14 @@ class DecLd8k extends Ld8k
 			 *-------------------------------------------------------*/
 
 			if (bfi != 0) { /* Bad Frame Error Concealment */
-				parm[parm_offset + 0] = (Util.random_g729() & 0x1fff); /* 13 bits random */
-				parm[parm_offset + 1] = (Util.random_g729() & 0x000f); /* 4 bits random */
+				parm[parm_offset + 0] = (random_g729() & 0x1fff); /* 13 bits random */
+				parm[parm_offset + 1] = (random_g729() & 0x000f); /* 4 bits random */
 			}
 
-			DeAcelp.decod_ACELP(parm[parm_offset + 1], parm[parm_offset + 0], code);
+			DeAcelp.decod_ACELP(parm[parm_offset + 1], parm[parm_offset + 0], code, pos);
 			parm_offset += 2;
-			for (i = t0.value; i < L_SUBFR; i++)
-				code[i] += sharp * code[i - t0.value];
+			for (i = t0; i < L_SUBFR; i++)
+				code[i] += sharp * code[i - t0];
 
 			/*-------------------------------------------------*
 			 * - Decode pitch and codebook gains.              *
@@ -254,13 +274,13 @@ class DecLd8k extends Ld8k
 
 			index = parm[parm_offset]; /* index of energy VQ */
 			parm_offset++;
-			decGain.dec_gain(index, code, L_SUBFR, bfi, gain_pitch, gain_code);
+			decGain.dec_gain(index, code, L_SUBFR, bfi);
 
 			/*-------------------------------------------------------------*
 			 * - Update pitch sharpening "sharp" with quantized gain_pitch *
 			 *-------------------------------------------------------------*/
 
-			sharp = gain_pitch.value;
+			sharp = decGain.gain_pit;
 			if (sharp > SHARPMAX)
 				sharp = SHARPMAX;
 			if (sharp < SHARPMIN)
@@ -273,20 +293,20 @@ class DecLd8k extends Ld8k
 			if (bfi != 0) {
 				if (voicing == 0) { /* for unvoiced frame */
 					for (i = 0; i < L_SUBFR; i++) {
-						exc[exc_offset + i + i_subfr] = gain_code.value * code[i];
+						exc[exc_offset + i + i_subfr] = decGain.gain_code * code[i];
 					}
 				}
 				else { /* for voiced frame */
 					for (i = 0; i < L_SUBFR; i++) {
-						exc[exc_offset + i + i_subfr] = gain_pitch.value
+						exc[exc_offset + i + i_subfr] = decGain.gain_pit
 							* exc[exc_offset + i + i_subfr];
 					}
 				}
 			}
 			else { /* No frame errors */
 				for (i = 0; i < L_SUBFR; i++) {
-					exc[exc_offset + i + i_subfr] = gain_pitch.value
-						* exc[exc_offset + i + i_subfr] + gain_code.value * code[i];
+					exc[exc_offset + i + i_subfr] = decGain.gain_pit
+						* exc[exc_offset + i + i_subfr] + decGain.gain_code * code[i];
 				}
 			}
 
@@ -295,7 +315,7 @@ class DecLd8k extends Ld8k
 			 *-------------------------------------------------------*/
 
 			Filter.syn_filt(Az, Az_offset, exc, exc_offset + i_subfr, synth,
-				synth_offset + i_subfr, L_SUBFR, mem_syn, 0, 1);
+				synth_offset + i_subfr, L_SUBFR, mem_syn, 0, 1, yy_b);
 
 			Az_offset += MP1; /* interpolated LPC parameters for next subframe */
 		}
@@ -307,4 +327,16 @@ class DecLd8k extends Ld8k
 		Util.copy(old_exc, L_FRAME, old_exc, PIT_MAX + L_INTERPOL);
 		return t0_first;
 	}
+
+	/**
+	 * Return random short.
+	 *
+	 * @return random short
+	 */
+	private short random_g729()
+	{
+		seed = (short) (seed * 31821L + 13849L);
+
+		return (seed);
+	}
 }
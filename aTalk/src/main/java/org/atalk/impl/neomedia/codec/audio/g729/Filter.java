@@ -86,17 +86,17 @@ class Filter
 	 *        input : filter memory ofset
 	 * @param update
 	 *        input : 0 = no memory update, 1 = update
+	 * @param yy_b
+	 *        work vector of length L_SUBFR+M, at least l+M
 	 */
 	static void syn_filt(float a[], int a_offset, float x[], int x_offset, float y[], int y_offset,
-		int l, float mem[], int mem_offset, int update)
+		int l, float mem[], int mem_offset, int update, float yy_b[])
 	{
-		int L_SUBFR = Ld8k.L_SUBFR;
 		int M = Ld8k.M;
 
 		int i, j;
 
 		/* This is usually done by memory allocation (l+m) */
-		float[] yy_b = new float[L_SUBFR + M];
 		float s;
 		int yy, py, pa;
 		/* Copy mem[] to yy[] */
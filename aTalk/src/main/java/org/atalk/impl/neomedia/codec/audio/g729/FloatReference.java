@@ -1,14 +0,0 @@
-/*
- * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
- * 
- * Distributable under LGPL license. See terms of license at gnu.org.
- */
-package org.atalk.impl.neomedia.codec.audio.g729;
-
-/**
- * @author Lubomir Marinov
- */
-class FloatReference
-{
-	float value;
-}
@@ -48,13 +48,14 @@ class Lpc
 	 *        (i) LPC order
 	 * @param r
 	 *        (o) auto-correlation vector r[0:M]
+	 * @param y
+	 *        work vector y[0:L_WINDOW]
 	 */
-	static void autocorr(float[] x, int x_offset, int m, float[] r)
+	static void autocorr(float[] x, int x_offset, int m, float[] r, float[] y)
 	{
 		int L_WINDOW = Ld8k.L_WINDOW;
 		float[] hamwindow = TabLd8k.hamwindow;
 
-		float[] y = new float[L_WINDOW];
 		float sum;
 		int i, j;
 
@@ -146,8 +147,13 @@ class Lpc
 	 *        (o) Line spectral pairs (in the cosine domain)
 	 * @param old_lsp
 	 *        (i) LSP vector from past frame
+	 * @param f1
+	 *        work vector f1[0:NC]
+	 * @param f2
+	 *        work vector f2[0:NC]
 	 */
-	static void az_lsp(float[] a, int a_offset, float[] lsp, float[] old_lsp)
+	static void az_lsp(float[] a, int a_offset, float[] lsp, float[] old_lsp, float[] f1,
+		float[] f2)
 	{
 		int GRID_POINTS = Ld8k.GRID_POINTS;
 		int M = Ld8k.M;
@@ -158,8 +164,6 @@ class Lpc
 		float xlow, ylow, xhigh, yhigh, xmid, ymid, xint;
 		float[] coef;
 
-		float[] f1 = new float[NC + 1], f2 = new float[NC + 1];
-
 		/*-------------------------------------------------------------*
 		 * find the sum and diff polynomials F1(z) and F2(z)           *
 		 *      F1(z) = [A(z) + z^11 A(z^-1)]/(1+z^-1)                 *
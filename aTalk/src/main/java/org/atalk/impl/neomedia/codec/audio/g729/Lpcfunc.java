@@ -43,13 +43,16 @@ class Lpcfunc
 	 *        output: predictor coeffs a[0:M], a[0] = 1.
 	 * @param a_offset
 	 *        input: predictor coeffs a offset.
+	 * @param f1
+	 *        work vector f1[0:NC]
+	 * @param f2
+	 *        work vector f2[0:NC]
 	 */
-	private static void lsp_az(float[] lsp, float[] a, int a_offset)
+	private static void lsp_az(float[] lsp, float[] a, int a_offset, float[] f1, float[] f2)
 	{
 		int M = Ld8k.M;
 		int NC = Ld8k.NC;
 
-		float[] f1 = new float[NC + 1], f2 = new float[NC + 1];
 		int i, j;
 
 		get_lsp_pol(lsp, 0, f1);
@@ -167,19 +170,25 @@ class Lpcfunc
 	 *        input : LSPs for present frame (0:M-1)
 	 * @param az
 	 *        output: filter parameters in 2 subfr (dim 2(m+1))
+	 * @param lsp
+	 *        work vector lsp[0:M-1]
+	 * @param f1
+	 *        work vector f1[0:NC]
+	 * @param f2
+	 *        work vector f2[0:NC]
 	 */
-	static void int_qlpc(float lsp_old[], float lsp_new[], float az[])
+	static void int_qlpc(float lsp_old[], float lsp_new[], float az[], float lsp[], float f1[],
+		float f2[])
 	{
 		int M = Ld8k.M;
 
 		int i;
-		float[] lsp = new float[M];
 
 		for (i = 0; i < M; i++)
 			lsp[i] = lsp_old[i] * 0.5f + lsp_new[i] * 0.5f;
 
-		lsp_az(lsp, az, 0);
-		lsp_az(lsp_new, az, M + 1);
+		lsp_az(lsp, az, 0, f1, f2);
+		lsp_az(lsp_new, az, M + 1, f1, f2);
 	}
 
 	/**
@@ -195,19 +204,24 @@ class Lpcfunc
 	 *        input : LSFs for present frame (0:M-1)
 	 * @param az
 	 *        output: filter parameters in 2 subfr (dim 2(m+1))
+	 * @param lsp
+	 *        work vector lsp[0:M-1]
+	 * @param f1
+	 *        work vector f1[0:NC]
+	 * @param f2
+	 *        work vector f2[0:NC]
 	 */
 	static void int_lpc(float lsp_old[], float lsp_new[], float lsf_int[], float lsf_new[],
-		float az[])
+		float az[], float lsp[], float f1[], float f2[])
 	{
 		int M = Ld8k.M;
 
 		int i;
-		float[] lsp = new float[M];
 
 		for (i = 0; i < M; i++)
 			lsp[i] = lsp_old[i] * 0.5f + lsp_new[i] * 0.5f;
 
-		lsp_az(lsp, az, 0);
+		lsp_az(lsp, az, 0, f1, f2);
 
 		lsp_lsf(lsp, lsf_int, M);
 		lsp_lsf(lsp_new, lsf_new, M);
@@ -63,6 +63,11 @@ class Lspdec
 	 */
 	private final float[] prev_lsp = new float[M];
 
+	/**
+	 * Work vector of lsp_iqua_cs(), allocated once per decoder
+	 */
+	private final float[] buf = new float[M];
+
 	/**
 	 * Set the previous LSP vectors.
 	 */
@@ -106,7 +111,7 @@ class Lspdec
 		int code0;
 		int code1;
 		int code2;
-		float[] buf = new float[M];
+		float[] buf = this.buf;
 
 		if (erase == 0) /* Not frame erasure */
 		{
@@ -116,7 +121,7 @@ class Lspdec
 			code2 = prm[prm_offset + 1] & (short) (NC1 - 1);
 
 			Lspgetq.lsp_get_quant(lspcb1, lspcb2, code0, code1, code2, fg[mode_index], freq_prev,
-				lsp_q, fg_sum[mode_index]);
+				lsp_q, fg_sum[mode_index], buf);
 
 			Util.copy(lsp_q, prev_lsp, M);
 			prev_ma = mode_index;
@@ -55,9 +55,12 @@ class Lspgetq
 	 *        output: quantized LSP parameters
 	 * @param fg_sum
 	 *        input : present MA prediction coef.
+	 * @param buf
+	 *        work vector of length M
 	 */
 	static void lsp_get_quant(float lspcb1[][/* M */], float lspcb2[][/* M */], int code0, int code1,
-		int code2, float fg[][/* M */], float freq_prev[][/* M */], float lspq[], float fg_sum[])
+		int code2, float fg[][/* M */], float freq_prev[][/* M */], float lspq[], float fg_sum[],
+		float buf[])
 	{
 		float GAP1 = Ld8k.GAP1;
 		float GAP2 = Ld8k.GAP2;
@@ -65,7 +68,6 @@ class Lspgetq
 		int NC = Ld8k.NC;
 
 		int j;
-		float[] buf = new float[M];
 
 		for (j = 0; j < NC; j++)
 			buf[j] = lspcb1[code0][j] + lspcb2[code1][j];
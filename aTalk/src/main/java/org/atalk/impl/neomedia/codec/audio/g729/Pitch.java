@@ -36,6 +36,26 @@ class Pitch
 	 * File : PITCH.C Used for the floating point version of G.729 main body (not for G.729A)
 	 */
 
+	/**
+	 * The fraction of the pitch period found by the last {@link #pitch_fr3}.
+	 */
+	int pit_frac;
+
+	/**
+	 * The range of the closed-loop pitch search; set for the 1st subframe by the encoder and for
+	 * the 2nd subframe by {@link #enc_lag3}.
+	 */
+	int t0_min, t0_max;
+
+	/**
+	 * The normalized correlation of the lag found by the last {@link #lag_max}.
+	 */
+	private float cor_max;
+
+	/* Work vectors of the pitch search, allocated once per encoder. */
+	private final float[] corr_v = new float[10 + 2 * Ld8k.L_INTER4];
+	private final float[] excf = new float[Ld8k.L_SUBFR];
+
 	/**
 	 * Compute the open loop pitch lag.
 	 *
@@ -51,7 +71,7 @@ class Pitch
 	 *        input : error minimization window
 	 * @return open-loop pitch lag
 	 */
-	static int pitch_ol(float[] signal,
+	int pitch_ol(float[] signal,
 
 	int signal_offset, int pit_min, int pit_max, int l_frame)
 	{
@@ -71,13 +91,12 @@ class Pitch
 		 *  Third section:  lag delay = 39 to 20                              *
 		 *--------------------------------------------------------------------*/
 
-		FloatReference maxRef = new FloatReference();
-		p_max1 = lag_max(signal, signal_offset, l_frame, pit_max, 80, maxRef);
-		max1 = maxRef.value;
-		p_max2 = lag_max(signal, signal_offset, l_frame, 79, 40, maxRef);
-		max2 = maxRef.value;
-		p_max3 = lag_max(signal, signal_offset, l_frame, 39, pit_min, maxRef);
-		max3 = maxRef.value;
+		p_max1 = lag_max(signal, signal_offset, l_frame, pit_max, 80);
+		max1 = cor_max;
+		p_max2 = lag_max(signal, signal_offset, l_frame, 79, 40);
+		max2 = cor_max;
+		p_max3 = lag_max(signal, signal_offset, l_frame, 39, pit_min);
+		max3 = cor_max;
 
 		/*--------------------------------------------------------------------*
 		 * Compare the 3 sections maxima, and favor small lag.                *
@@ -107,12 +126,10 @@ class Pitch
 	 *        input : maximum lag
 	 * @param lagmin
 	 *        input : minimum lag
-	 * @param cor_max
-	 *        input : normalized correlation of selected lag
-	 * @return lag found
+	 * @return lag found; its normalized correlation is left in {@link #cor_max}
 	 */
-	private static int lag_max(float[] signal, int signal_offset, int l_frame, int lagmax,
-		int lagmin, FloatReference cor_max)
+	private int lag_max(float[] signal, int signal_offset, int l_frame, int lagmax,
+		int lagmin)
 	{
 		float FLT_MIN_G729 = Ld8k.FLT_MIN_G729;
 
@@ -147,7 +164,7 @@ class Pitch
 		}
 		t0 = inv_sqrt(t0); /* 1/sqrt(energy) */
 
-		cor_max.value = max * t0; /* max/sqrt(energy) */
+		cor_max = max * t0; /* max/sqrt(energy) */
 
 		return (p_max);
 	}
@@ -171,18 +188,15 @@ class Pitch
 	 *        input : maximum value in the searched range
 	 * @param i_subfr
 	 *        input : indicator for first subframe
-	 * @param pit_frac
-	 *        output: chosen fraction
-	 * @return integer part of pitch period
+	 * @return integer part of pitch period; the chosen fraction is left in {@link #pit_frac}
 	 */
-	static int pitch_fr3(float[] exc, /*                  */
+	int pitch_fr3(float[] exc, /*                  */
 		int exc_offset, float xn[], /*                        */
 		float h[], /*        */
 		int l_subfr, /*     */
 		int t0_min, /*  */
 		int t0_max, /*  */
-		int i_subfr, /*         */
-		IntReference pit_frac /*                      */
+		int i_subfr /*         */
 	)
 	{
 		int L_INTER4 = Ld8k.L_INTER4;
@@ -191,7 +205,7 @@ class Pitch
 		int lag, t_min, t_max;
 		float max;
 		float corr_int;
-		float[] corr_v = new float[10 + 2 * L_INTER4]; /* size: 2*L_INTER4+t0_max-t0_min+1 */
+		float[] corr_v = this.corr_v; /* size: 2*L_INTER4+t0_max-t0_min+1 */
 		float[] corr;
 		int corr_offset;
 
@@ -222,7 +236,7 @@ class Pitch
 		/* If first subframe and lag > 84 do not search fractionnal pitch */
 
 		if ((i_subfr == 0) && (lag > 84)) {
-			pit_frac.value = 0;
+			pit_frac = 0;
 			return (lag);
 		}
 
@@ -253,7 +267,7 @@ class Pitch
 			lag += 1;
 		}
 
-		pit_frac.value = frac;
+		pit_frac = frac;
 
 		return lag;
 	}
@@ -281,13 +295,11 @@ class Pitch
 	 * @param corr_norm_offset
 	 *        input: normalized correlation offset
 	 */
-	private static void norm_corr(float[] exc, int exc_offset, float xn[], float h[], int l_subfr,
+	private void norm_corr(float[] exc, int exc_offset, float xn[], float h[], int l_subfr,
 		int t_min, int t_max, float corr_norm[], int corr_norm_offset)
 	{
-		int L_SUBFR = Ld8k.L_SUBFR;
-
 		int i, j, k;
-		float[] excf = new float[L_SUBFR]; /* filtered past excitation */
+		float[] excf = this.excf; /* filtered past excitation */
 		float alp, s, norm;
 
 		k = exc_offset - t_min;
@@ -399,23 +411,19 @@ class Pitch
 	 *        input : Pitch delay
 	 * @param T0_frac
 	 *        input : Fractional pitch delay
-	 * @param T0_min
-	 *        in/out: Minimum search delay
-	 * @param T0_max
-	 *        in/out: Maximum search delay
 	 * @param pit_min
 	 *        input : Minimum pitch delay
 	 * @param pit_max
 	 *        input : Maximum pitch delay
 	 * @param pit_flag
 	 *        input : Flag for 1st subframe
-	 * @return Return index of encoding
+	 * @return Return index of encoding; the minimum and maximum search delays {@link #t0_min}
+	 *         and {@link #t0_max} are updated for the 2nd subframe
 	 */
-	static int enc_lag3(int T0, int T0_frac, IntReference T0_min, IntReference T0_max, int pit_min,
-		int pit_max, int pit_flag)
+	int enc_lag3(int T0, int T0_frac, int pit_min, int pit_max, int pit_flag)
 	{
 		int index;
-		int _T0_min = T0_min.value, _T0_max = T0_max.value;
+		int _T0_min = t0_min, _T0_max = t0_max;
 
 		if (pit_flag == 0) /* if 1st subframe */
 		{
@@ -443,8 +451,8 @@ class Pitch
 			index = T0 - _T0_min;
 			index = index * 3 + 2 + T0_frac;
 		}
-		T0_min.value = _T0_min;
-		T0_max.value = _T0_max;
+		t0_min = _T0_min;
+		t0_max = _T0_max;
 		return index;
 	}
 
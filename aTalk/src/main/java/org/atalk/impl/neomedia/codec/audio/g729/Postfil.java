@@ -88,6 +88,21 @@ class Postfil extends Ld8k
 	 */
 	private float gain_prec;
 
+	/* Outputs of search_del() */
+	private int ltpdel, phase, off_yup;
+	private float num_gltp, den_gltp;
+
+	/* Outputs of compute_ltp_l() */
+	private float num_ltp_l, den_ltp_l;
+
+	/* Work vectors, allocated once per decoder */
+	private final float[] apond1 = new float[MP1]; /* s.t. denominator coeff. */
+	private final float[] sig_ltp = new float[L_SUBFRP1]; /* H0 output signal */
+	private final float[] y_up = new float[SIZ_Y_UP];
+	private final float[] tab_den0 = new float[F_UP_PST - 1], tab_den1 = new float[F_UP_PST - 1];
+	private final float[] h = new float[LONG_H_ST];
+	private final float[] yy_b = new float[L_SUBFR + M];
+
 	/**
 	 * Initialize postfilter functions
 	 */
@@ -144,8 +159,8 @@ class Postfil extends Ld8k
 	{
 		int vo; /* output: voicing decision 0 = uv, > 0 delay */
 
-		float[] apond1 = new float[MP1]; /* s.t. denominator coeff. */
-		float[] sig_ltp = new float[L_SUBFRP1]; /* H0 output signal */
+		float[] apond1 = this.apond1; /* s.t. denominator coeff. */
+		float[] sig_ltp = this.sig_ltp; /* H0 output signal */
 		int sig_ltp_ptr;
 		float parcor0;
 
@@ -169,7 +184,7 @@ class Postfil extends Ld8k
 
 		/* 1/A(gamma1) filtering, mem_stp is updated */
 		Filter.syn_filt(apond1, 0, sig_ltp, sig_ltp_ptr, sig_ltp, sig_ltp_ptr, L_SUBFR, mem_stp, 0,
-			1);
+			1, yy_b);
 
 		/* (1 + mu z-1) tilt filtering */
 		filt_mu(sig_ltp, sig_out, sig_out_offset, parcor0);
@@ -208,24 +223,18 @@ class Postfil extends Ld8k
 		float num_gltp, den_gltp;
 		float num2_gltp, den2_gltp;
 		float gain_plt;
-		float[] y_up = new float[SIZ_Y_UP];
+		float[] y_up = this.y_up;
 		float[] ptr_y_up;
 		int ptr_y_up_offset;
 		int off_yup;
 
 		/* Sub optimal delay search */
-		IntReference _ltpdel = new IntReference();
-		IntReference _phase = new IntReference();
-		FloatReference _num_gltp = new FloatReference();
-		FloatReference _den_gltp = new FloatReference();
-		IntReference _off_yup = new IntReference();
-		search_del(t0, ptr_sig_in, ptr_sig_in_offset, _ltpdel, _phase, _num_gltp, _den_gltp, y_up,
-			_off_yup);
-		ltpdel = _ltpdel.value;
-		phase = _phase.value;
-		num_gltp = _num_gltp.value;
-		den_gltp = _den_gltp.value;
-		off_yup = _off_yup.value;
+		search_del(t0, ptr_sig_in, ptr_sig_in_offset, y_up);
+		ltpdel = this.ltpdel;
+		phase = this.phase;
+		num_gltp = this.num_gltp;
+		den_gltp = this.den_gltp;
+		off_yup = this.off_yup;
 
 		vo = ltpdel;
 
@@ -241,12 +250,10 @@ class Postfil extends Ld8k
 
 			else {
 				/* Filtering with long filter */
-				FloatReference _num2_gltp = new FloatReference();
-				FloatReference _den2_gltp = new FloatReference();
 				compute_ltp_l(ptr_sig_in, ptr_sig_in_offset, ltpdel, phase, ptr_sig_pst0,
-					ptr_sig_pst0_offset, _num2_gltp, _den2_gltp);
-				num2_gltp = _num2_gltp.value;
-				den2_gltp = _den2_gltp.value;
+					ptr_sig_pst0_offset);
+				num2_gltp = num_ltp_l;
+				den2_gltp = den_ltp_l;
 
 				if (select_ltp(num_gltp, den_gltp, num2_gltp, den2_gltp) == 1) {
 
@@ -279,7 +286,10 @@ class Postfil extends Ld8k
 	}
 
 	/**
-	 * Computes best (shortest) integer LTP delay + fine search
+	 * Computes best (shortest) integer LTP delay + fine search. The delay
+	 * <tt>ltpdel - phase / f_up</tt>, the numerator and denominator of the LTP gain
+	 * <tt>num_gltp</tt> and <tt>den_gltp</tt> and <tt>off_yup</tt> are left in the fields of the
+	 * same names.
 	 *
 	 * @param t0
 	 *        input : pitch delay given by coder
@@ -287,20 +297,9 @@ class Postfil extends Ld8k
 	 *        input : input signal (with delay line)
 	 * @param ptr_sig_in_offset
 	 *        input : input signal offset
-	 * @param ltpdel
-	 *        output: delay = *ltpdel - *phase / f_up
-	 * @param phase
-	 *        output: phase
-	 * @param num_gltp
-	 *        output: numerator of LTP gain
-	 * @param den_gltp
-	 *        output: denominator of LTP gain
 	 * @param y_up
-	 * @param off_yup
 	 */
-	private void search_del(int t0, float[] ptr_sig_in, int ptr_sig_in_offset, IntReference ltpdel,
-		IntReference phase, FloatReference num_gltp, FloatReference den_gltp, float[] y_up,
-		IntReference off_yup)
+	private void search_del(int t0, float[] ptr_sig_in, int ptr_sig_in_offset, float[] y_up)
 	{
 		float[] tab_hup_s = TabLd8k.tab_hup_s;
 
@@ -308,7 +307,7 @@ class Postfil extends Ld8k
 		int ptr_h;
 
 		/* Variables and local arrays */
-		float[] tab_den0 = new float[F_UP_PST - 1], tab_den1 = new float[F_UP_PST - 1];
+		float[] tab_den0 = this.tab_den0, tab_den1 = this.tab_den1;
 		int ptr_den0, ptr_den1;
 		int ptr_sig_past, ptr_sig_past0;
 		int ptr1;
@@ -328,10 +327,10 @@ class Postfil extends Ld8k
 			ener += ptr_sig_in[ptr_sig_in_offset + i] * ptr_sig_in[ptr_sig_in_offset + i];
 		}
 		if (ener < 0.1f) {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 			return;
 		}
 
@@ -359,10 +358,10 @@ class Postfil extends Ld8k
 			ptr_sig_past--;
 		}
 		if (num_int <= 0.f) {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 			return;
 		}
 
@@ -374,10 +373,10 @@ class Postfil extends Ld8k
 			den_int += ptr_sig_in[ptr_sig_past + n] * ptr_sig_in[ptr_sig_past + n];
 		}
 		if (den_int < 0.1f) {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 			return;
 		}
 		/* Select best phase around lambda */
@@ -438,10 +437,10 @@ class Postfil extends Ld8k
 			ptr_h += LH2_S;
 		}
 		if (den_max < 0.1f) {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 			return;
 		}
 		/* Computation of the numerators */
@@ -516,10 +515,10 @@ class Postfil extends Ld8k
 		/* test if normalised crit0[iopt] > THRESCRIT */
 
 		if ((num_max == 0.f) || (den_max <= 0.1f)) {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 			return;
 		}
 
@@ -527,17 +526,17 @@ class Postfil extends Ld8k
 		/* with ener * den x THRESCRIT */
 		temp1 = den_max * ener * THRESCRIT;
 		if (numsq_max >= temp1) {
-			ltpdel.value = lambda + 1 - ioff;
-			off_yup.value = ioff;
-			phase.value = phi_max;
-			num_gltp.value = num_max;
-			den_gltp.value = den_max;
+			ltpdel = lambda + 1 - ioff;
+			off_yup = ioff;
+			phase = phi_max;
+			num_gltp = num_max;
+			den_gltp = den_max;
 		}
 		else {
-			num_gltp.value = 0.f;
-			den_gltp.value = 1.f;
-			ltpdel.value = 0;
-			phase.value = 0;
+			num_gltp = 0.f;
+			den_gltp = 1.f;
+			ltpdel = 0;
+			phase = 0;
 		}
 	}
 
@@ -592,14 +591,11 @@ class Postfil extends Ld8k
 	 * @param y_up
 	 *        delayed signal
 	 * @param y_up_offset
-	 *        delayed signal offset
-	 * @param num
-	 *        numerator of LTP gain
-	 * @param den
-	 *        denominator of LTP gain
+	 *        delayed signal offset; the numerator and denominator of the LTP gain are left in
+	 *        <tt>num_ltp_l</tt> and <tt>den_ltp_l</tt>
 	 */
 	private void compute_ltp_l(float[] s_in, int s_in_offset, int ltpdel, int phase, float[] y_up,
-		int y_up_offset, FloatReference num, FloatReference den)
+		int y_up_offset)
 	{
 		float[] tab_hup_l = TabLd8k.tab_hup_l;
 
@@ -633,14 +629,14 @@ class Postfil extends Ld8k
 		}
 		if (_num < 0.0f)
 			_num = 0.0f;
-		num.value = _num;
+		num_ltp_l = _num;
 
 		float _den = 0.f;
 		/* Compute den */
 		for (int n = y_up_offset, toIndex = y_up_offset + L_SUBFR; n < toIndex; n++) {
 			_den += y_up[n] * y_up[n];
 		}
-		den.value = _den;
+		den_ltp_l = _den;
 	}
 
 	/**
@@ -686,12 +682,12 @@ class Postfil extends Ld8k
 	private float calc_st_filt(float[] apond2, float[] apond1, float[] sig_ltp_ptr,
 		int sig_ltp_ptr_offset)
 	{
-		float[] h = new float[LONG_H_ST];
+		float[] h = this.h;
 		float parcor0; /* output: 1st parcor calcul. on composed filter */
 		float g0, temp;
 
 		/* computes impulse response of apond1 / apond2 */
-		Filter.syn_filt(apond1, 0, apond2, 0, h, 0, LONG_H_ST, mem_zero, 0, 0);
+		Filter.syn_filt(apond1, 0, apond2, 0, h, 0, LONG_H_ST, mem_zero, 0, 0, yy_b);
 
 		/* computes 1st parcor */
 		parcor0 = calc_rc0_h(h);
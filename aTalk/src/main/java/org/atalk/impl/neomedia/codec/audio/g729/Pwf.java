@@ -36,6 +36,7 @@ class Pwf
 
 	private int smooth = 1;
 	private final float[/* 2 */] lar_old = { 0.0f, 0.0f };
+	private final float[] lar = new float[4];
 
 	/**
 	 * Adaptive bandwidth expansion for perceptual weighting filter
@@ -66,7 +67,7 @@ class Pwf
 		float THRESH_L1 = Ld8k.THRESH_L1;
 		float THRESH_L2 = Ld8k.THRESH_L2;
 
-		float[] lar = new float[4];
+		float[] lar = this.lar;
 		float[] lsf;
 		float critlar0, critlar1;
 		float d_min, temp;
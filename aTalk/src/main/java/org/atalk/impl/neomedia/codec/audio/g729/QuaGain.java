@@ -38,6 +38,18 @@ class QuaGain
 
 	private final float[/* 4 */] past_qua_en = { -14.0f, -14.0f, -14.0f, -14.0f };
 
+	/**
+	 * The quantized acb and fcb gains found by the last {@link #qua_gain}.
+	 */
+	float gain_pit, gain_code;
+
+	/**
+	 * The indices of the best 1st and 2nd stage vectors found by the last {@link #gbk_presel}.
+	 */
+	private int cand1, cand2;
+
+	private final float[] best_gain = new float[2];
+
 	/**
 	 * Quantization of pitch and codebook gains
 	 *
@@ -47,16 +59,12 @@ class QuaGain
 	 *        input : correlation factors
 	 * @param l_subfr
 	 *        input : fcb vector length
-	 * @param gain_pit
-	 *        output: quantized acb gain
-	 * @param gain_code
-	 *        output: quantized fcb gain
 	 * @param tameflag
 	 *        input : flag set to 1 if taming is needed
-	 * @return quantizer index
+	 * @return quantizer index; the quantized gains are left in {@link #gain_pit} and
+	 *         {@link #gain_code}
 	 */
-	int qua_gain(float code[], float[] g_coeff, int l_subfr, FloatReference gain_pit,
-		FloatReference gain_code, int tameflag)
+	int qua_gain(float code[], float[] g_coeff, int l_subfr, int tameflag)
 	{
 		float FLT_MAX_G729 = Ld8k.FLT_MAX_G729;
 		float GP0999 = Ld8k.GP0999;
@@ -81,7 +89,7 @@ class QuaGain
 		int cand1, cand2;
 		float gcode0;
 		float dist, dist_min, g_pitch, g_code;
-		float[] best_gain = new float[2];
+		float[] best_gain = this.best_gain;
 		float tmp;
 
 		/*---------------------------------------------------*
@@ -105,11 +113,9 @@ class QuaGain
 		 *   - presearch for gain codebook -            *
 		 *----------------------------------------------*/
 
-		IntReference cand1Ref = new IntReference();
-		IntReference cand2Ref = new IntReference();
-		gbk_presel(best_gain, cand1Ref, cand2Ref, gcode0);
-		cand1 = cand1Ref.value;
-		cand2 = cand2Ref.value;
+		gbk_presel(best_gain, gcode0);
+		cand1 = this.cand1;
+		cand2 = this.cand2;
 
 		/*-- selection --*/
 		dist_min = FLT_MAX_G729;
@@ -146,9 +152,9 @@ class QuaGain
 				}
 			}
 		}
-		gain_pit.value = gbk1[index1][0] + gbk2[index2][0];
+		gain_pit = gbk1[index1][0] + gbk2[index2][0];
 		g_code = gbk1[index1][1] + gbk2[index2][1];
-		gain_code.value = g_code * gcode0;
+		gain_code = g_code * gcode0;
 		/*----------------------------------------------*
 		 * update table of past quantized energies      *
 		 *----------------------------------------------*/
@@ -162,14 +168,10 @@ class QuaGain
 	 *
 	 * @param best_gain
 	 *        input : [0] unquantized pitch gain [1] unquantized code gain
-	 * @param cand1
-	 *        output: index of best 1st stage vector
-	 * @param cand2
-	 *        output: index of best 2nd stage vector
 	 * @param gcode0
 	 *        input : presearch for gain codebook
 	 */
-	private void gbk_presel(float best_gain[], IntReference cand1, IntReference cand2, float gcode0)
+	private void gbk_presel(float best_gain[], float gcode0)
 	{
 		float INV_COEF = Ld8k.INV_COEF;
 		int NCAN1 = Ld8k.NCAN1;
@@ -180,7 +182,7 @@ class QuaGain
 		float[] thr1 = TabLd8k.thr1;
 		float[] thr2 = TabLd8k.thr2;
 
-		int _cand1 = cand1.value, _cand2 = cand2.value;
+		int _cand1, _cand2;
 
 		float x, y;
 
@@ -225,7 +227,7 @@ class QuaGain
 					break;
 			} while ((_cand2) < (NCODE2 - NCAN2));
 		}
-		cand1.value = _cand1;
-		cand2.value = _cand2;
+		cand1 = _cand1;
+		cand2 = _cand2;
 	}
 }
@@ -42,6 +42,17 @@ class QuaLsp
 	 */
 	private final float[][] freq_prev = new float[Ld8k.MA_NP][Ld8k.M];
 
+	/* Work vectors, allocated once per encoder */
+	private final float[] lsf = new float[Ld8k.M], lsf_q = new float[Ld8k.M];
+	private final float[] wegt = new float[Ld8k.M];
+	private final int[] cand = new int[Ld8k.MODE];
+	private final int[] tindex1 = new int[Ld8k.MODE], tindex2 = new int[Ld8k.MODE];
+	private final float[] tdist = new float[Ld8k.MODE];
+	private final float[] rbuf = new float[Ld8k.M];
+	private final float[] buf = new float[Ld8k.M];
+	private final float[] select_buf = new float[Ld8k.M];
+	private final float[] get_quant_buf = new float[Ld8k.M];
+
 	/**
 	 * previous LSP vector(init)
 	 */
@@ -66,7 +77,7 @@ class QuaLsp
 		int M = Ld8k.M;
 
 		int i;
-		float[] lsf = new float[M], lsf_q = new float[M]; /* domain 0.0<= lsf <PI */
+		float[] lsf = this.lsf, lsf_q = this.lsf_q; /* domain 0.0<= lsf <PI */
 
 		/* Convert LSPs to LSFs */
 
@@ -106,14 +117,13 @@ class QuaLsp
 	 */
 	private void lsp_qua_cs(float[] flsp_in, float[] lspq_out, int[] code)
 	{
-		int M = Ld8k.M;
 		float[][][] fg = TabLd8k.fg;
 		float[][] fg_sum = TabLd8k.fg_sum;
 		float[][] fg_sum_inv = TabLd8k.fg_sum_inv;
 		float[][] lspcb1 = TabLd8k.lspcb1;
 		float[][] lspcb2 = TabLd8k.lspcb2;
 
-		float[] wegt = new float[M]; /* weight coef. */
+		float[] wegt = this.wegt; /* weight coef. */
 
 		get_wegt(flsp_in, wegt);
 
@@ -158,12 +168,12 @@ class QuaLsp
 
 		int mode, j;
 		int index, mode_index;
-		int[] cand = new int[MODE];
+		int[] cand = this.cand;
 		int cand_cur;
-		int[] tindex1 = new int[MODE], tindex2 = new int[MODE];
-		float[] tdist = new float[MODE];
-		float[] rbuf = new float[M];
-		float[] buf = new float[M];
+		int[] tindex1 = this.tindex1, tindex2 = this.tindex2;
+		float[] tdist = this.tdist;
+		float[] rbuf = this.rbuf;
+		float[] buf = this.buf;
 
 		for (mode = 0; mode < MODE; mode++) {
 
@@ -207,7 +217,7 @@ class QuaLsp
 
 		/* reconstruct quantized LSP parameter and check the stabilty */
 		Lspgetq.lsp_get_quant(lspcb1, lspcb2, cand[mode_index], tindex1[mode_index],
-			tindex2[mode_index], fg[mode_index], freq_prev, lspq, fg_sum[mode_index]);
+			tindex2[mode_index], fg[mode_index], freq_prev, lspq, fg_sum[mode_index], get_quant_buf);
 	}
 
 	/**
@@ -263,12 +273,11 @@ class QuaLsp
 	private int lsp_select_1(float rbuf[], float lspcb1[], float wegt[], float lspcb2[][/* M */])
 	{
 		float FLT_MAX_G729 = Ld8k.FLT_MAX_G729;
-		int M = Ld8k.M;
 		int NC = Ld8k.NC;
 		int NC1 = Ld8k.NC1;
 
 		int j, k1;
-		float[] buf = new float[M];
+		float[] buf = select_buf;
 		float dist, dmin, tmp;
 
 		for (j = 0; j < NC; j++)
@@ -313,7 +322,7 @@ class QuaLsp
 		int NC1 = Ld8k.NC1;
 
 		int j, k1;
-		float[] buf = new float[M];
+		float[] buf = select_buf;
 		float dist, dmin, tmp;
 
 		for (j = NC; j < M; j++)
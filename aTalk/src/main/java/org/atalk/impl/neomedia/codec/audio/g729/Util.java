@@ -134,21 +134,6 @@ class Util
 			y[y_offset + i] = x[x_offset + i];
 	}
 
-	/* Random generator */
-	private static short seed = 21845;
-
-	/**
-	 * Return random short.
-	 *
-	 * @return random short
-	 */
-	static short random_g729()
-	{
-		seed = (short) (seed * 31821L + 13849L);
-
-		return (seed);
-	}
-
 	/**
 	 * Write {@code data}  in {@code fp}
 	 *
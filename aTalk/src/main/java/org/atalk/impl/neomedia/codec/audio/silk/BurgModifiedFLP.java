@@ -5,6 +5,8 @@
  */
 package org.atalk.impl.neomedia.codec.audio.silk;
 
+import java.util.Arrays;
+
 /**
  * Calculates the reflection coefficients from the input vector Input vector contains nb_subfr sub
  * vectors of length L_sub + D
@@ -34,6 +36,8 @@ public class BurgModifiedFLP
 	 *        fraction added to zero-lag autocorrelation.
 	 * @param D
 	 *        order.
+	 * @param psScratch
+	 *        scratch memory of the analysis.
 	 * @return
 	 */
 	static float SKP_Silk_burg_modified_FLP( /* O returns residual energy */
@@ -45,21 +49,23 @@ public class BurgModifiedFLP
 											 */
 		final int nb_subfr, /* I number of subframes stacked in x */
 		final float WhiteNoiseFrac, /* I fraction added to zero-lag autocorrelation */
-		final int D /* I order */
+		final int D, /* I order */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I scratch memory */
 	)
 	{
 		int k, n, s;
 		double C0, num, nrg_f, nrg_b, rc, Atmp, tmp1, tmp2;
 		float[] x_ptr;
 		int x_ptr_offset;
-		double C_first_row[] = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC], C_last_row[] = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
-		double CAf[] = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1], CAb[] = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1];
-		double Af[] = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+		double C_first_row[] = psScratch.burg_C_first_row, C_last_row[] = psScratch.burg_C_last_row;
+		double CAf[] = psScratch.burg_CAf, CAb[] = psScratch.burg_CAb;
+		double Af[] = psScratch.burg_Af;
 
 		assert (subfr_length * nb_subfr <= MAX_FRAME_SIZE);
 		assert (nb_subfr <= MAX_NB_SUBFR);
 
 		/* Compute autocorrelations, added over subframes */
+		Arrays.fill(C_first_row, 0);
 		C0 = EnergyFLP.SKP_Silk_energy_FLP(x, x_offset, nb_subfr * subfr_length);
 		for (s = 0; s < nb_subfr; s++) {
 			x_ptr = x;
@@ -108,8 +108,8 @@ public class CNG
 	{
 		int i, subfr;
 		int tmp_32, Gain_Q26, max_Gain_Q16;
-		short[] LPC_buf = new short[MAX_LPC_ORDER];
-		short[] CNG_sig = new short[MAX_FRAME_LENGTH];
+		short[] LPC_buf = psDec.CNG_LPC_buf;
+		short[] CNG_sig = psDec.CNG_sig;
 
 		SKP_Silk_CNG_struct psCNG;
 
@@ -154,7 +154,7 @@ public class CNG
 		if (psDec.lossCnt != 0) {// || psDec.vadFlag == NO_VOICE_ACTIVITY ) {
 
 			/* Generate CNG excitation */
-			int[] psCNG_rand_seed_ptr = new int[1];
+			int[] psCNG_rand_seed_ptr = psDec.Ix_ptr;
 			psCNG_rand_seed_ptr[0] = psCNG.rand_seed;
 
 			SKP_Silk_CNG_exc(CNG_sig, 0, psCNG.CNG_exc_buf_Q10, 0, psCNG.CNG_smth_Gain_Q16, length,
@@ -162,7 +162,8 @@ public class CNG
 			psCNG.rand_seed = psCNG_rand_seed_ptr[0];
 
 			/* Convert CNG NLSF to filter representation */
-			NLSF2AStable.SKP_Silk_NLSF2A_stable(LPC_buf, psCNG.CNG_smth_NLSF_Q15, psDec.LPC_order);
+			NLSF2AStable.SKP_Silk_NLSF2A_stable(LPC_buf, psCNG.CNG_smth_NLSF_Q15, psDec.LPC_order,
+				psDec.sNLSF_scratch);
 
 			Gain_Q26 = 1 << 26; /* 1.0 */
 
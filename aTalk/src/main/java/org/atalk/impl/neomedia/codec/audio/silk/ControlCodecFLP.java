@@ -401,7 +401,8 @@ public class ControlCodecFLP
 			psEnc.sCmn.shapingLPCOrder = 12;
 			psEnc.sCmn.nStatesDelayedDecision = 1;
 			// psEnc.NoiseShapingQuantizer = SKP_Silk_NSQ;
-			psEnc.noiseShapingQuantizerCB = new NSQImplNSQ();
+			if (!(psEnc.noiseShapingQuantizerCB instanceof NSQImplNSQ))
+				psEnc.noiseShapingQuantizerCB = new NSQImplNSQ();
 			psEnc.sCmn.useInterpolatedNLSFs = 0;
 			psEnc.sCmn.LTPQuantLowComplexity = 1;
 			psEnc.sCmn.NLSF_MSVQ_Survivors = Define.MAX_NLSF_MSVQ_SURVIVORS_LC_MODE;
@@ -415,7 +416,8 @@ public class ControlCodecFLP
 			psEnc.sCmn.shapingLPCOrder = 16;
 			psEnc.sCmn.nStatesDelayedDecision = 2;
 			// psEnc.NoiseShapingQuantizer = SKP_Silk_NSQ_del_dec;
-			psEnc.noiseShapingQuantizerCB = new NSQImplNSQDelDec();
+			if (!(psEnc.noiseShapingQuantizerCB instanceof NSQImplNSQDelDec))
+				psEnc.noiseShapingQuantizerCB = new NSQImplNSQDelDec();
 			psEnc.sCmn.useInterpolatedNLSFs = 0;
 			psEnc.sCmn.LTPQuantLowComplexity = 0;
 			psEnc.sCmn.NLSF_MSVQ_Survivors = Define.MAX_NLSF_MSVQ_SURVIVORS_MC_MODE;
@@ -429,7 +431,8 @@ public class ControlCodecFLP
 			psEnc.sCmn.shapingLPCOrder = 16;
 			psEnc.sCmn.nStatesDelayedDecision = 4;
 			// psEnc.NoiseShapingQuantizer = SKP_Silk_NSQ_del_dec;
-			psEnc.noiseShapingQuantizerCB = new NSQImplNSQDelDec();
+			if (!(psEnc.noiseShapingQuantizerCB instanceof NSQImplNSQDelDec))
+				psEnc.noiseShapingQuantizerCB = new NSQImplNSQDelDec();
 			psEnc.sCmn.useInterpolatedNLSFs = 1;
 			psEnc.sCmn.LTPQuantLowComplexity = 0;
 			psEnc.sCmn.NLSF_MSVQ_Survivors = Define.MAX_NLSF_MSVQ_SURVIVORS;
@@ -46,9 +46,9 @@ public class DecodeCore
 
 		short[] pxq;
 		int pxq_offset;
-		short[] A_Q12_tmp = new short[MAX_LPC_ORDER];
+		short[] A_Q12_tmp = psDec.core_A_Q12_tmp;
 
-		short[] sLTP = new short[MAX_FRAME_LENGTH];
+		short[] sLTP = psDec.core_sLTP;
 
 		int Gain_Q16;
 		int[] pred_lag_ptr;
@@ -61,9 +61,9 @@ public class DecodeCore
 		int LPC_pred_Q10;
 
 		int rand_seed, offset_Q10, dither;
-		int[] vec_Q10 = new int[MAX_FRAME_LENGTH / NB_SUBFR];
+		int[] vec_Q10 = psDec.core_vec_Q10;
 		int inv_gain_Q16, inv_gain_Q32, gain_adj_Q16;
-		int[] FiltState = new int[MAX_LPC_ORDER];
+		int[] FiltState = psDec.core_FiltState;
 		int j;
 
 		SKP_assert(psDec.prev_inv_gain_Q16 != 0);
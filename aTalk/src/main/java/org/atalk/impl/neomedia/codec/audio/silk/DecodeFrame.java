@@ -48,12 +48,13 @@ public class DecodeFrame
 		int[] decBytes /* O Used bytes to decode this frame */
 	)
 	{
-		SKP_Silk_decoder_control sDecCtrl = new SKP_Silk_decoder_control();
+		/* The scratch memory lives in the decoder state so that decoding a frame does not allocate */
+		SKP_Silk_decoder_control sDecCtrl = psDec.sDecCtrl;
 		int L, fs_Khz_old, LPC_order_old, ret = 0;
-		int[] Pulses = new int[Define.MAX_FRAME_LENGTH];
+		int[] Pulses = psDec.Pulses;
 
 		L = psDec.frame_length;
-		sDecCtrl.LTP_scale_Q14 = 0;
+		sDecCtrl.memZero();
 
 		/* Safety checks */
 		Typedef.SKP_assert(L > 0 && L <= Define.MAX_FRAME_LENGTH);
@@ -33,9 +33,9 @@ public class DetectSWBInput
 		int samplesIn_offset, int nSamplesIn /* (I) length of input */
 	)
 	{
-		int HP_8_kHz_len, i, shift[] = new int[1];
-		short[] in_HP_8_kHz = new short[Define.MAX_FRAME_LENGTH];
-		int[] energy_32 = new int[1];
+		int HP_8_kHz_len, i, shift[] = psSWBdetect.shift;
+		short[] in_HP_8_kHz = psSWBdetect.in_HP_8_kHz;
+		int[] energy_32 = psSWBdetect.energy_32;
 
 		/* High pass filter with cutoff at 8 khz */
 		HP_8_kHz_len = Math.min(nSamplesIn, Define.MAX_FRAME_LENGTH);
@@ -46,22 +46,25 @@ public class EncodeFrameFLP
 		short[] pIn, /* I Input speech frame */
 		int pIn_offset)
 	{
-		SKP_Silk_encoder_control_FLP sEncCtrl = new SKP_Silk_encoder_control_FLP();
-		int k, nBytes[] = new int[1], ret = 0;
+		/* The scratch memory lives in the encoder state so that encoding a frame does not allocate */
+		SKP_Silk_encoder_control_FLP sEncCtrl = psEnc.sEncCtrl;
+		int k, nBytes[] = psEnc.nBytes, ret = 0;
 		float[] x_frame, res_pitch_frame;
 		int x_frame_offset, res_pitch_frame_offset;
-		short[] pIn_HP = new short[Define.MAX_FRAME_LENGTH];
-		short[] pIn_HP_LP = new short[Define.MAX_FRAME_LENGTH];
-		float[] xfw = new float[Define.MAX_FRAME_LENGTH];
-		float[] res_pitch = new float[2 * Define.MAX_FRAME_LENGTH + Define.LA_PITCH_MAX];
+		short[] pIn_HP = psEnc.pIn_HP;
+		short[] pIn_HP_LP = psEnc.pIn_HP_LP;
+		float[] xfw = psEnc.xfw;
+		float[] res_pitch = psEnc.res_pitch;
 		int LBRR_idx, frame_terminator;
 
 		/* Low bitrate redundancy parameters */
-		byte[] LBRRpayload = new byte[Define.MAX_ARITHM_BYTES];
-		short[] nBytesLBRR = new short[1];
+		byte[] LBRRpayload = psEnc.LBRRpayload;
+		short[] nBytesLBRR = psEnc.nBytesLBRR;
 
 		int[] FrameTermination_CDF;
 
+		sEncCtrl.memZero();
+		nBytes[0] = 0;
 		sEncCtrl.sCmn.Seed = psEnc.sCmn.frameCounter++ & 3;
 		/**************************************************************/
 		/* Setup Input Pointers, and insert frame in input buffer */
@@ -595,10 +598,10 @@ public class EncodeFrameFLP
 		float xfw[] /* I Input signal */
 	)
 	{
-		int[] Gains_Q16 = new int[Define.NB_SUBFR];
-		int k, TempGainsIndices[] = new int[Define.NB_SUBFR], frame_terminator;
-		int nBytes[] = new int[1], nFramesInPayloadBuf;
-		float TempGains[] = new float[Define.NB_SUBFR];
+		int[] Gains_Q16 = psEnc.LBRR_Gains_Q16;
+		int k, TempGainsIndices[] = psEnc.LBRR_TempGainsIndices, frame_terminator;
+		int nBytes[] = psEnc.LBRR_nBytes, nFramesInPayloadBuf;
+		float TempGains[] = psEnc.LBRR_TempGains;
 		int typeOffset, LTP_scaleIndex, Rate_only_parameters = 0;
 		/* Control use of inband LBRR */
 		ControlCodecFLP.SKP_Silk_LBRR_ctrl_FLP(psEnc, psEncCtrl.sCmn);
@@ -631,8 +634,7 @@ public class EncodeFrameFLP
 			if (psEnc.sCmn.Complexity > 0 && psEnc.sCmn.TargetRate_bps > Rate_only_parameters) {
 				if (psEnc.sCmn.nFramesInPayloadBuf == 0) {
 					/* First frame in packet copy everything */
-					// TODO:use clone rather than memory copy.
-					psEnc.sNSQ_LBRR = (SKP_Silk_nsq_state) psEnc.sNSQ.clone();
+					psEnc.sNSQ_LBRR.copyFrom(psEnc.sNSQ);
 
 					psEnc.sCmn.LBRRprevLastGainIndex = psEnc.sShape.LastGainIndex;
 					/* Increase Gains to get target LBRR rate */
@@ -641,7 +643,7 @@ public class EncodeFrameFLP
 						psEncCtrl.sCmn.GainsIndices[0], 0, Define.N_LEVELS_QGAIN - 1);
 				}
 				/* Decode to get Gains in sync with decoder */
-				int LBRRprevLastGainIndex_ptr[] = new int[1];
+				int LBRRprevLastGainIndex_ptr[] = psEnc.LBRRprevLastGainIndex;
 				LBRRprevLastGainIndex_ptr[0] = psEnc.sCmn.LBRRprevLastGainIndex;
 				GainQuant.SKP_Silk_gains_dequant(Gains_Q16, psEncCtrl.sCmn.GainsIndices,
 					LBRRprevLastGainIndex_ptr, psEnc.sCmn.nFramesInPayloadBuf);
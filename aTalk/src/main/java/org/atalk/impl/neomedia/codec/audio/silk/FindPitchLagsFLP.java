@@ -35,13 +35,14 @@ public class FindPitchLagsFLP
 		int x_offset)
 	{
 		SKP_Silk_predict_state_FLP psPredSt = psEnc.sPred;
+		SKP_Silk_pitch_analysis_scratch_FLP psScratch = psEnc.sPitchScratch;
 		// const SKP_float *x_buf_ptr, *x_buf;
 		float[] x_buf_ptr, x_buf;
 		int x_buf_ptr_offset, x_buf_offset;
-		float[] auto_corr = new float[Define.FIND_PITCH_LPC_ORDER_MAX + 1];
-		float[] A = new float[Define.FIND_PITCH_LPC_ORDER_MAX];
-		float[] refl_coef = new float[Define.FIND_PITCH_LPC_ORDER_MAX];
-		float[] Wsig = new float[Define.FIND_PITCH_LPC_WIN_MAX];
+		float[] auto_corr = psScratch.auto_corr;
+		float[] A = psScratch.A;
+		float[] refl_coef = psScratch.refl_coef;
+		float[] Wsig = psScratch.Wsig;
 		float thrhld;
 		float[] Wsig_ptr;
 		int Wsig_ptr_offset;
@@ -97,10 +98,11 @@ public class FindPitchLagsFLP
 		auto_corr[0] += auto_corr[0] * DefineFLP.FIND_PITCH_WHITE_NOISE_FRACTION;
 
 		/* Calculate the reflection coefficients using Schur */
-		SchurFLP.SKP_Silk_schur_FLP(refl_coef, 0, auto_corr, 0, psEnc.sCmn.pitchEstimationLPCOrder);
+		SchurFLP.SKP_Silk_schur_FLP(refl_coef, 0, auto_corr, 0, psEnc.sCmn.pitchEstimationLPCOrder,
+			psScratch.schur_C);
 
 		/* Convert reflection coefficients to prediction coefficients */
-		K2aFLP.SKP_Silk_k2a_FLP(A, refl_coef, psEnc.sCmn.pitchEstimationLPCOrder);
+		K2aFLP.SKP_Silk_k2a_FLP(A, refl_coef, psEnc.sCmn.pitchEstimationLPCOrder, psScratch.k2a_Atmp);
 
 		/* Bandwidth expansion */
 		BwexpanderFLP.SKP_Silk_bwexpander_FLP(A, 0, psEnc.sCmn.pitchEstimationLPCOrder,
@@ -125,10 +127,13 @@ public class FindPitchLagsFLP
 		/*****************************************/
 		/* Call Pitch estimator */
 		/*****************************************/
-		int[] lagIndex_djinnaddress = { psEncCtrl.sCmn.lagIndex };
-		int[] contourIndex_djinnaddress = { psEncCtrl.sCmn.contourIndex };
-		float[] LTPCorr_djinnaddress = { psEnc.LTPCorr };
-		psEncCtrl.sCmn.sigtype = PitchAnalysisCoreFLP.SKP_Silk_pitch_analysis_core_FLP(res,
+		int[] lagIndex_djinnaddress = psScratch.lagIndex;
+		int[] contourIndex_djinnaddress = psScratch.contourIndex;
+		float[] LTPCorr_djinnaddress = psScratch.LTPCorr;
+		lagIndex_djinnaddress[0] = psEncCtrl.sCmn.lagIndex;
+		contourIndex_djinnaddress[0] = psEncCtrl.sCmn.contourIndex;
+		LTPCorr_djinnaddress[0] = psEnc.LTPCorr;
+		psEncCtrl.sCmn.sigtype = PitchAnalysisCoreFLP.SKP_Silk_pitch_analysis_core_FLP(psScratch, res,
 			psEncCtrl.sCmn.pitchL, lagIndex_djinnaddress, contourIndex_djinnaddress,
 			LTPCorr_djinnaddress, psEnc.sCmn.prevLag, psEnc.pitchEstimationThreshold, thrhld,
 			psEnc.sCmn.fs_kHz, psEnc.sCmn.pitchEstimationComplexity);
@@ -22,14 +22,16 @@ public class K2aFLP
 	 *        reflection coefficients [order].
 	 * @param order
 	 *        prediction order.
+	 * @param Atmp
+	 *        scratch memory of SKP_Silk_MAX_ORDER_LPC elements.
 	 */
 	static void SKP_Silk_k2a_FLP(float[] A, /* O: prediction coefficients [order] */
 		float[] rc, /* I: reflection coefficients [order] */
-		int order /* I: prediction order */
+		int order, /* I: prediction order */
+		float[] Atmp /* I: scratch [SKP_Silk_MAX_ORDER_LPC] */
 	)
 	{
 		int k, n;
-		float[] Atmp = new float[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
 
 		for (k = 0; k < order; k++) {
 			for (n = 0; n < k; n++) {
@@ -35,10 +35,36 @@ public class LPCInvPredGainFLP
 		float[] A, /* I: prediction coefficients [order] */
 		int A_offset, int order /* I: prediction order */
 	)
+	{
+		return SKP_Silk_LPC_inverse_pred_gain_FLP(invGain, A, A_offset, order,
+			new float[2][SigProcFIX.SKP_Silk_MAX_ORDER_LPC]);
+	}
+
+	/**
+	 * compute inverse of LPC prediction gain, and test if LPC coefficients are stable (all poles
+	 * within unit circle) using caller-provided scratch memory.
+	 * 
+	 * @param invGain
+	 *        inverse prediction gain, energy domain
+	 * @param A
+	 *        prediction coefficients [order]
+	 * @param A_offset
+	 *        offset of valid data.
+	 * @param order
+	 *        prediction order
+	 * @param Atmp
+	 *        scratch memory [2][SKP_Silk_MAX_ORDER_LPC]
+	 * @return returns 1 if unstable, otherwise 0
+	 */
+	static int SKP_Silk_LPC_inverse_pred_gain_FLP( /* O: returns 1 if unstable, otherwise 0 */
+	float[] invGain, /* O: inverse prediction gain, energy domain */
+		float[] A, /* I: prediction coefficients [order] */
+		int A_offset, int order, /* I: prediction order */
+		float[][] Atmp /* I: scratch memory */
+	)
 	{
 		int k, n;
 		double rc, rc_mult1, rc_mult2;
-		float[][] Atmp = new float[2][SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
 		float[] Aold, Anew;
 
 		Anew = Atmp[order & 1];
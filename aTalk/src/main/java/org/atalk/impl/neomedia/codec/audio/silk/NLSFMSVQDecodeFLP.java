@@ -20,11 +20,13 @@ public class NLSFMSVQDecodeFLP
 	 * @param NLSFIndices
 	 * @param NLSFIndices_offset
 	 * @param LPC_order
+	 * @param psScratch
 	 */
 	static void SKP_Silk_NLSF_MSVQ_decode_FLP(float[] pNLSF, /* O Decoded output vector [ LPC_ORDER ] */
 		final SKP_Silk_NLSF_CB_FLP psNLSF_CB_FLP, /* I NLSF codebook struct */
 		final int[] NLSFIndices, /* I NLSF indices [ nStages ] */
-		int NLSFIndices_offset, final int LPC_order /* I LPC order used */
+		int NLSFIndices_offset, final int LPC_order, /* I LPC order used */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		float[] pCB_element;
@@ -82,6 +84,6 @@ public class NLSFMSVQDecodeFLP
 		}
 
 		/* NLSF stabilization */
-		WrappersFLP.SKP_Silk_NLSF_stabilize_FLP(pNLSF, psNLSF_CB_FLP.NDeltaMin, LPC_order);
+		WrappersFLP.SKP_Silk_NLSF_stabilize_FLP(pNLSF, psNLSF_CB_FLP.NDeltaMin, LPC_order, psScratch);
 	}
 }
@@ -39,6 +39,8 @@ public class NLSFMSVQEncodeFLP
 	 *        LPC order
 	 * @param deactivate_fluc_red
 	 *        Deactivate fluctuation reduction
+	 * @param psScratch
+	 *        Scratch memory of the analysis
 	 */
 	@SuppressWarnings("unused")
 	static void SKP_Silk_NLSF_MSVQ_encode_FLP(int[] NLSFIndices, /*
@@ -53,41 +55,23 @@ public class NLSFMSVQEncodeFLP
 		final float NLSF_mu_fluc_red, /* I Fluctuation reduction error weight */
 		final int NLSF_MSVQ_Survivors,/* I Max survivors from each stage */
 		final int LPC_order, /* I LPC order */
-		final int deactivate_fluc_red /* I Deactivate fluctuation reduction */
+		final int deactivate_fluc_red, /* I Deactivate fluctuation reduction */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		int i, s, k, cur_survivors, prev_survivors, input_index, cb_index, bestIndex;
 		float se, wsse, rateDistThreshold, bestRateDist;
-		float pNLSF_in[] = new float[MAX_LPC_ORDER];
-
-		float pRateDist[];
-		float pRate[];
-		float pRate_new[];
-		int pTempIndices[];
-		int pPath[];
-		int pPath_new[];
-		float pRes[];
-		float pRes_new[];
-		if (LOW_COMPLEXITY_ONLY) {
-			pRateDist = new float[NLSF_MSVQ_TREE_SEARCH_MAX_VECTORS_EVALUATED_LC_MODE()];
-			pRate = new float[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE];
-			pRate_new = new float[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE];
-			pTempIndices = new int[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE];
-			pPath = new int[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE * NLSF_MSVQ_MAX_CB_STAGES];
-			pPath_new = new int[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE * NLSF_MSVQ_MAX_CB_STAGES];
-			pRes = new float[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE * MAX_LPC_ORDER];
-			pRes_new = new float[MAX_NLSF_MSVQ_SURVIVORS_LC_MODE * MAX_LPC_ORDER];
-		}
-		else {
-			pRateDist = new float[NLSF_MSVQ_TREE_SEARCH_MAX_VECTORS_EVALUATED()];
-			pRate = new float[MAX_NLSF_MSVQ_SURVIVORS];
-			pRate_new = new float[MAX_NLSF_MSVQ_SURVIVORS];
-			pTempIndices = new int[MAX_NLSF_MSVQ_SURVIVORS];
-			pPath = new int[MAX_NLSF_MSVQ_SURVIVORS * NLSF_MSVQ_MAX_CB_STAGES];
-			pPath_new = new int[MAX_NLSF_MSVQ_SURVIVORS * NLSF_MSVQ_MAX_CB_STAGES];
-			pRes = new float[MAX_NLSF_MSVQ_SURVIVORS * MAX_LPC_ORDER];
-			pRes_new = new float[MAX_NLSF_MSVQ_SURVIVORS * MAX_LPC_ORDER];
-		}
+		float pNLSF_in[] = psScratch.msvq_pNLSF_in;
+
+		/* The scratch is sized for MAX_NLSF_MSVQ_SURVIVORS, which also covers LOW_COMPLEXITY_ONLY */
+		float pRateDist[] = psScratch.msvq_pRateDist;
+		float pRate[] = psScratch.msvq_pRate;
+		float pRate_new[] = psScratch.msvq_pRate_new;
+		int pTempIndices[] = psScratch.msvq_pTempIndices;
+		int pPath[] = psScratch.msvq_pPath;
+		int pPath_new[] = psScratch.msvq_pPath_new;
+		float pRes[] = psScratch.msvq_pRes;
+		float pRes_new[] = psScratch.msvq_pRes_new;
 
 		float[] pConstFloat;
 		int pConstFloat_offset;
@@ -141,7 +125,8 @@ public class NLSFMSVQEncodeFLP
 			}
 			/* Nearest neighbor clustering for multiple input data vectors */
 			NLSFVQRateDistortionFLP.SKP_Silk_NLSF_VQ_rate_distortion_FLP(pRateDist,
-				pCurrentCBStage, pRes, pW, pRate, NLSF_mu, prev_survivors, LPC_order);
+				pCurrentCBStage, pRes, pW, pRate, NLSF_mu, prev_survivors, LPC_order,
+				psScratch.sum_error_Wcpy);
 
 			/* Sort the rate-distortion errors */
 			SortFLP.SKP_Silk_insertion_sort_increasing_FLP(pRateDist, 0, pTempIndices,
@@ -236,7 +221,7 @@ public class NLSFMSVQEncodeFLP
 				for (s = 0; s < cur_survivors; s++) {
 					/* Decode survivor to compare with previous quantized NLSF vector */
 					NLSFMSVQDecodeFLP.SKP_Silk_NLSF_MSVQ_decode_FLP(pNLSF, psNLSF_CB_FLP,
-						pPath_new, s * psNLSF_CB_FLP.nStages, LPC_order);
+						pPath_new, s * psNLSF_CB_FLP.nStages, LPC_order, psScratch);
 
 					/* Compare decoded NLSF vector with the previously quantized vector */
 					wsse = 0;
@@ -268,6 +253,6 @@ public class NLSFMSVQEncodeFLP
 
 		/* Decode and stabilize the best survivor */
 		NLSFMSVQDecodeFLP.SKP_Silk_NLSF_MSVQ_decode_FLP(pNLSF, psNLSF_CB_FLP, NLSFIndices, 0,
-			LPC_order);
+			LPC_order, psScratch);
 	}
 }
@@ -31,6 +31,8 @@ public class NLSFVQRateDistortionFLP
 	 *        Number of input vectors to be quantized
 	 * @param LPC_order
 	 *        LPC order
+	 * @param Wcpy
+	 *        Scratch for the weight vector [ MAX_LPC_ORDER ]
 	 */
 	static void SKP_Silk_NLSF_VQ_rate_distortion_FLP(float[] pRD, /*
 																 * O Rate-distortion values
@@ -42,7 +44,8 @@ public class NLSFVQRateDistortionFLP
 		final float[] rate_acc, /* I Accumulated rates from previous stage */
 		final float mu, /* I Weight between weighted error and rate */
 		final int N, /* I Number of input vectors to be quantized */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		float[] Wcpy /* I Scratch for the weight vector */
 	)
 	{
 		float[] pRD_vec;
@@ -51,7 +54,7 @@ public class NLSFVQRateDistortionFLP
 
 		/* Compute weighted quantization errors for all input vectors over one codebook stage */
 		NLSFVQSumErrorFLP.SKP_Silk_NLSF_VQ_sum_error_FLP(pRD, in, w, psNLSF_CBS_FLP.CB, N,
-			psNLSF_CBS_FLP.nVectors, LPC_order);
+			psNLSF_CBS_FLP.nVectors, LPC_order, Wcpy);
 
 		/* Loop over input vectors */
 		pRD_vec = pRD;
@@ -33,6 +33,8 @@ public class NLSFVQSumErrorFLP
 	 *        Number of codebook vectors
 	 * @param LPC_order
 	 *        pCB
+	 * @param Wcpy
+	 *        Scratch for the weighting vector [ MAX_LPC_ORDER ]
 	 */
 	static void SKP_Silk_NLSF_VQ_sum_error_FLP(float[] err, /*
 															 * O Weighted quantization errors [ N *
@@ -43,12 +45,12 @@ public class NLSFVQSumErrorFLP
 		final float[] pCB, /* I Codebook vectors [ K * LPC_order ] */
 		final int N, /* I Number of input vectors */
 		final int K, /* I Number of codebook vectors */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		float[] Wcpy /* I Scratch for the weighting vector */
 	)
 	{
 		int i, n;
 		float diff, sum_error;
-		float Wcpy[] = new float[MAX_LPC_ORDER];
 		float[] cb_vec;
 		int cb_vec_offset;
 
@@ -289,10 +289,10 @@ public class PLC
 			/* Reduce random noise for unvoiced frames with high LPC gain */
 			if (psDec.prev_sigtype == SIG_TYPE_UNVOICED) {
 				int invGain_Q30, down_scale_Q30;
-				int invGain_Q30_ptr[] = new int[1];
+				int invGain_Q30_ptr[] = psDec.sNLSF_scratch.invGain_Q30;
 
 				LPCInvPredGain.SKP_Silk_LPC_inverse_pred_gain(invGain_Q30_ptr, psPLC.prevLPC_Q12,
-					psDec.LPC_order);
+					psDec.LPC_order, psDec.sNLSF_scratch.Atmp_QA);
 				invGain_Q30 = invGain_Q30_ptr[0];
 
 				down_scale_Q30 = Math.min(((1 << 30) >> LOG2_INV_LPC_GAIN_HIGH_THRES), invGain_Q30);
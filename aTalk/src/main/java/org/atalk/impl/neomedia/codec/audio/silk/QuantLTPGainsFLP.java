@@ -26,13 +26,16 @@ public class QuantLTPGainsFLP
 	 *        Mu value (R/D tradeoff)
 	 * @param lowComplexity
 	 *        Flag for low complexity
+	 * @param psScratch
+	 *        Scratch memory of the analysis
 	 */
 	static void SKP_Silk_quant_LTP_gains_FLP(float B[], /* I/O (Un-)quantized LTP gains */
 		int cbk_index[], /* O Codebook index */
 		int[] periodicity_index, /* O Periodicity index */
 		final float W[], /* I Error weights */
 		final float mu, /* I Mu value (R/D tradeoff) */
-		final int lowComplexity /* I Flag for low complexity */
+		final int lowComplexity, /* I Flag for low complexity */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		// SKP_int j, k, temp_idx[ NB_SUBFR ], cbk_size;
@@ -42,7 +45,7 @@ public class QuantLTPGainsFLP
 		// const SKP_float *b_ptr, *W_ptr;
 		// SKP_float rate_dist_subfr, rate_dist, min_rate_dist;
 		int j, k, cbk_size;
-		int[] temp_idx = new int[Define.NB_SUBFR];
+		int[] temp_idx = psScratch.quant_temp_idx;
 		int[] cdf_ptr;
 		int cdf_ptr_offset;
 		short[] cl_ptr;
@@ -75,7 +78,7 @@ public class QuantLTPGainsFLP
 			rate_dist = 0.0f;
 			for (j = 0; j < Define.NB_SUBFR; j++) {
 
-				float[] rate_dist_subfr_ptr = new float[1];
+				float[] rate_dist_subfr_ptr = psScratch.quant_rate_dist_subfr;
 				rate_dist_subfr_ptr[0] = rate_dist_subfr;
 
 				VQNearestNeighborFLP.SKP_Silk_VQ_WMat_EC_FLP(temp_idx, /*
@@ -423,9 +423,8 @@ public class RangeCoder
 		/* Lower limit of interval, shifted 8 bits to the right */
 		base_Q24 = psRC.base_Q32 >>> 8;
 
-		int[] nBytes_ptr = new int[1];
-		bits_in_stream = SKP_Silk_range_coder_get_length(psRC, nBytes_ptr);
-		nBytes = nBytes_ptr[0];
+		bits_in_stream = SKP_Silk_range_coder_get_length(psRC, psRC.nBytes_ptr);
+		nBytes = psRC.nBytes_ptr[0];
 
 		/* Number of additional bits (1..9) required to be stored to stream */
 		// TODO: bits_to_store = bits_in_stream - psRC.bufferIx << 3 ;
@@ -481,10 +480,9 @@ public class RangeCoder
 	)
 	{
 		int bits_in_stream, nBytes, mask;
-		int nBytes_ptr[] = new int[1];
 
-		bits_in_stream = SKP_Silk_range_coder_get_length(psRC, nBytes_ptr);
-		nBytes = nBytes_ptr[0];
+		bits_in_stream = SKP_Silk_range_coder_get_length(psRC, psRC.nBytes_ptr);
+		nBytes = psRC.nBytes_ptr[0];
 
 		/* Make sure not to read beyond buffer */
 		if (nBytes - 1 >= psRC.bufferLength) {
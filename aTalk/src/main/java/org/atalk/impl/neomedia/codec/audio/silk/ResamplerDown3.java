@@ -38,9 +38,39 @@ public class ResamplerDown3
 		int out_offset, short[] in, /* I: Input signal [ inLen ] */
 		int in_offset, int inLen /* I: Number of input samples */
 	)
+	{
+		SKP_Silk_resampler_down3(S, S_offset, out, out_offset, in, in_offset, inLen,
+			new int[ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN + ORDER_FIR]);
+	}
+
+	/**
+	 * Downsample by a factor 3, low quality.
+	 * 
+	 * @param S
+	 *        State vector [ 8 ]
+	 * @param S_offset
+	 *        offset of valid data.
+	 * @param out
+	 *        Output signal [ floor(inLen/3) ]
+	 * @param out_offset
+	 *        offset of valid data.
+	 * @param in
+	 *        Input signal [ inLen ]
+	 * @param in_offset
+	 *        offset of valid data.
+	 * @param inLen
+	 *        Number of input samples
+	 * @param buf
+	 *        scratch memory of at least RESAMPLER_MAX_BATCH_SIZE_IN + ORDER_FIR elements.
+	 */
+	static void SKP_Silk_resampler_down3(int[] S, /* I/O: State vector [ 8 ] */
+		int S_offset, short[] out, /* O: Output signal [ floor(inLen/3) ] */
+		int out_offset, short[] in, /* I: Input signal [ inLen ] */
+		int in_offset, int inLen, /* I: Number of input samples */
+		int[] buf /* I: Scratch [ RESAMPLER_MAX_BATCH_SIZE_IN + ORDER_FIR ] */
+	)
 	{
 		int nSamplesIn, counter, res_Q6;
-		int[] buf = new int[ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN + ORDER_FIR];
 		int buf_ptr;
 
 		/* Copy buffered samples to start of buffer */
@@ -62,6 +62,13 @@ class SKP_Silk_resampler_state_struct
 	int[] sDownPre = new int[2];
 	int[] sUpPost = new int[2];
 
+	/* Scratch memory of the resampling functions, so that resampling does not allocate */
+	short[] down_FIR_buf1 = new short[ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN / 2];
+	int[] down_FIR_buf2 = new int[ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN
+		+ ResamplerRom.RESAMPLER_DOWN_ORDER_FIR];
+	short[] IIR_FIR_buf = new short[2 * ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN
+		+ ResamplerRom.RESAMPLER_ORDER_FIR_144];
+
 	String down_pre_function;
 	DownPreFP downPreCB;
 
@@ -110,18 +110,21 @@ public class ResidualEnergyFLP
 	 *        Subframe length
 	 * @param LPC_order
 	 *        LPC order
+	 * @param LPC_res
+	 *        Scratch for the LPC residual [( MAX_FRAME_LENGTH + NB_SUBFR * MAX_LPC_ORDER ) / 2]
 	 */
 	static void SKP_Silk_residual_energy_FLP(float nrgs[], /* O Residual energy per subframe */
 		final float x[], /* I Input signal */
 		final float a[][], /* I AR coefs for each frame half */
 		final float gains[], /* I Quantization gains */
 		final int subfr_length, /* I Subframe length */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		float[] LPC_res /* I Scratch for the LPC residual */
 	)
 	{
 		int shift;
 		// SKP_float *LPC_res_ptr, LPC_res[ ( MAX_FRAME_LENGTH + NB_SUBFR * MAX_LPC_ORDER ) / 2 ];
-		float LPC_res_ptr[], LPC_res[] = new float[(MAX_FRAME_LENGTH + NB_SUBFR * MAX_LPC_ORDER) / 2];
+		float LPC_res_ptr[];
 
 		// LPC_res_ptr = LPC_res + LPC_order;
 		LPC_res_ptr = LPC_res;
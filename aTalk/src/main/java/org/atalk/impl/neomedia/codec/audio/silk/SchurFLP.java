@@ -24,14 +24,16 @@ public class SchurFLP
 	 *        offset of valid data.
 	 * @param order
 	 *        order
+	 * @param C
+	 *        scratch memory of SKP_Silk_MAX_ORDER_LPC + 1 pairs of correlations.
 	 */
 	static void SKP_Silk_schur_FLP(float refl_coef[], /* O reflection coefficients (length order) */
 		int ref1_coef_offset, float auto_corr[], /* I autotcorreation sequence (length order+1) */
-		int auto_corr_offset, int order /* I order */
+		int auto_corr_offset, int order, /* I order */
+		float[][] C /* I Scratch [ SKP_Silk_MAX_ORDER_LPC + 1 ][ 2 ] */
 	)
 	{
 		int k, n;
-		float[][] C = new float[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1][2];
 		float Ctmp1, Ctmp2, rc_tmp;
 
 		/* copy correlations */
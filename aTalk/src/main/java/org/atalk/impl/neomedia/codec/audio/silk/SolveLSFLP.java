@@ -25,19 +25,21 @@ public class SolveLSFLP
 	 *        Pointer to x solution vector
 	 * @param x_offset
 	 *        offset of valid data.
+	 * @param psScratch
+	 *        Scratch memory of the analysis.
 	 */
 	static void SKP_Silk_solve_LDL_FLP(float[] A, /* I/O Symmetric square matrix, out: reg. */
 		int A_offset, final int M, /* I Size of matrix */
 		final float[] b, /* I Pointer to b vector */
 		float[] x, /* O Pointer to x solution vector */
-		int x_offset)
+		int x_offset, SKP_Silk_analysis_scratch_FLP psScratch)
 	{
 		int i;
 		// float L[][] = new float[MAX_MATRIX_SIZE][MAX_MATRIX_SIZE];
 		// TODO:change L from two dimension to one dimension.
-		float L_tmp[] = new float[MAX_MATRIX_SIZE * MAX_MATRIX_SIZE];
-		float T[] = new float[MAX_MATRIX_SIZE];
-		float Dinv[] = new float[MAX_MATRIX_SIZE];// inverse diagonal elements of D
+		float L_tmp[] = psScratch.ldl_L;
+		float T[] = psScratch.ldl_T;
+		float Dinv[] = psScratch.ldl_Dinv;// inverse diagonal elements of D
 
 		assert (M <= MAX_MATRIX_SIZE);
 
@@ -46,7 +48,7 @@ public class SolveLSFLP
 		 * diagonal
 		 ****************************************************/
 		// SKP_Silk_LDL_FLP( A, M, &L[ 0 ][ 0 ], Dinv );
-		SKP_Silk_LDL_FLP(A, A_offset, M, L_tmp, Dinv);
+		SKP_Silk_LDL_FLP(A, A_offset, M, L_tmp, Dinv, psScratch.ldl_v, psScratch.ldl_D);
 
 		/****************************************************
 		 * substitute D*(L^T) = T. ie: L*D*(L^T)*x = b => L*T = b <=> T = inv(L)*b
@@ -177,11 +179,16 @@ public class SolveLSFLP
 	 *        Pointer to Square Upper triangular Matrix
 	 * @param Dinv
 	 *        Pointer to vector holding the inverse diagonal elements of D
+	 * @param v
+	 *        Scratch vector [MAX_MATRIX_SIZE]
+	 * @param D
+	 *        Scratch vector [MAX_MATRIX_SIZE]
 	 */
 	static void SKP_Silk_LDL_FLP(float[] A, /* (I/O) Pointer to Symetric Square Matrix */
 		int A_offset, int M, /* (I) Size of Matrix */
 		float[] L, /* (I/O) Pointer to Square Upper triangular Matrix */
-		float[] Dinv /* (I/O) Pointer to vector holding the inverse diagonal elements of D */
+		float[] Dinv, /* (I/O) Pointer to vector holding the inverse diagonal elements of D */
+		float[] v, float[] D /* (I) Scratch vectors [MAX_MATRIX_SIZE] */
 	)
 	{
 		/*
@@ -192,7 +199,6 @@ public class SolveLSFLP
 		float ptr1[], ptr2[];
 		int ptr1_offset, ptr2_offset;
 		double temp, diag_min_value;
-		float v[] = new float[MAX_MATRIX_SIZE], D[] = new float[MAX_MATRIX_SIZE]; // temp arrays
 
 		assert (M <= MAX_MATRIX_SIZE);
 
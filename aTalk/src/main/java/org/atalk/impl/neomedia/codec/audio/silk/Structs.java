@@ -55,6 +55,29 @@ class SKP_Silk_nsq_state implements Cloneable
 		return clone;
 	}
 
+	/**
+	 * Copies all fields of another instance into this instance, the buffers included, as the
+	 * struct assignment of the reference implementation does.
+	 *
+	 * @param other
+	 *        the instance to copy from
+	 */
+	public void copyFrom(SKP_Silk_nsq_state other)
+	{
+		System.arraycopy(other.xq, 0, this.xq, 0, this.xq.length);
+		System.arraycopy(other.sLTP_shp_Q10, 0, this.sLTP_shp_Q10, 0, this.sLTP_shp_Q10.length);
+		System.arraycopy(other.sLPC_Q14, 0, this.sLPC_Q14, 0, this.sLPC_Q14.length);
+		System.arraycopy(other.sAR2_Q14, 0, this.sAR2_Q14, 0, this.sAR2_Q14.length);
+
+		this.sLF_AR_shp_Q12 = other.sLF_AR_shp_Q12;
+		this.lagPrev = other.lagPrev;
+		this.sLTP_buf_idx = other.sLTP_buf_idx;
+		this.sLTP_shp_buf_idx = other.sLTP_shp_buf_idx;
+		this.rand_seed = other.rand_seed;
+		this.prev_inv_gain_Q16 = other.prev_inv_gain_Q16;
+		this.rewhite_flag = other.rewhite_flag;
+	}
+
 	/**
 	 * set all fields of the instance to zero
 	 */
@@ -113,6 +136,12 @@ class SKP_Silk_VAD_state
 	int[] inv_NL = new int[VAD_N_BANDS]; /* Inverse noise energy level in each band */
 	int[] NoiseLevelBias = new int[VAD_N_BANDS]; /* Noise level estimator bias/offset */
 	int counter; /* Frame counter used in the initial phase */
+
+	/* Scratch memory of the analysis, so that it does not allocate */
+	int[] scratch = new int[3 * MAX_FRAME_LENGTH / 2];
+	short[][] X = new short[VAD_N_BANDS][MAX_FRAME_LENGTH / 2];
+	int[] Xnrg = new int[VAD_N_BANDS];
+	int[] NrgToNoiseRatio_Q8 = new int[VAD_N_BANDS];
 }
 
 /**
@@ -129,6 +158,19 @@ class SKP_Silk_range_coder_state
 	long range_Q16;
 	int error;
 	byte[] buffer = new byte[MAX_ARITHM_BYTES];/* Buffer containing payload */
+
+	/* Scratch memory of the coding of the excitation, so that it does not allocate */
+	int[] nBytes_ptr = new int[1]; /* Length of the stream in bytes */
+	int[] data_ptr = new int[1]; /* A single decoded symbol */
+	int[] sign_CDF = new int[3];
+	int[] abs_pulses = new int[MAX_FRAME_LENGTH];
+	int[] sum_pulses = new int[MAX_NB_SHELL_BLOCKS];
+	int[] nShifts = new int[MAX_NB_SHELL_BLOCKS];
+	int[] pulses_comb = new int[8];
+	int[] pulses1 = new int[8];
+	int[] pulses2 = new int[4];
+	int[] pulses3 = new int[2];
+	int[] pulses4 = new int[1];
 }
 
 /**
@@ -144,6 +186,11 @@ class SKP_Silk_detect_SWB_state
 	int ActiveSpeech_ms; /* Accumulated time with active speech */
 	int SWB_detected; /* Flag to indicate SWB input */
 	int WB_detected; /* Flag to indicate WB input */
+
+	/* Scratch memory of the detection, so that it does not allocate */
+	short[] in_HP_8_kHz = new short[MAX_FRAME_LENGTH];
+	int[] energy_32 = new int[1];
+	int[] shift = new int[1];
 }
 
 /**
@@ -236,6 +283,69 @@ class SKP_Silk_NLSF_CB_struct
 	int[] MiddleIx;
 }
 
+/**
+ * Scratch memory of the noise shaping quantization, kept with the encoder state so that the
+ * quantization does not allocate.
+ *
+ * @author Jing Dai
+ * @author Dingxin Xu
+ */
+class SKP_Silk_nsq_scratch
+{
+	int[] sLTP_Q16 = new int[2 * MAX_FRAME_LENGTH];
+	short[] sLTP = new short[2 * MAX_FRAME_LENGTH];
+	int[] FiltState = new int[MAX_LPC_ORDER];
+	int[] x_sc_Q10 = new int[MAX_FRAME_LENGTH / NB_SUBFR];
+
+	/* Delayed decision quantization */
+	NSQDelDecStruct[] psDelDec = new NSQDelDecStruct[DEL_DEC_STATES_MAX];
+	NSQ_sample_struct[][] psSampleState = new NSQ_sample_struct[DEL_DEC_STATES_MAX][2];
+	int[] smpl_buf_idx = new int[1];
+
+	public SKP_Silk_nsq_scratch()
+	{
+		for (int i = 0; i < DEL_DEC_STATES_MAX; i++) {
+			psDelDec[i] = new NSQDelDecStruct();
+			psSampleState[i][0] = new NSQ_sample_struct();
+			psSampleState[i][1] = new NSQ_sample_struct();
+		}
+	}
+
+	/**
+	 * Zeroes the LTP states as allocating them anew would.
+	 */
+	public void clearLTP()
+	{
+		Arrays.fill(this.sLTP_Q16, 0);
+		Arrays.fill(this.sLTP, (short) 0);
+	}
+}
+
+/**
+ * Scratch memory of the fixed-point conversions between NLSFs and LPC coefficients, kept with the
+ * encoder and decoder states so that the conversions do not allocate.
+ *
+ * @author Jing Dai
+ * @author Dingxin Xu
+ */
+class SKP_Silk_NLSF_scratch
+{
+	/* SKP_Silk_NLSF2A */
+	int[] cos_LSF_Q20 = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+	int[] P = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC / 2 + 1];
+	int[] Q = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC / 2 + 1];
+	int[] a_int32 = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+
+	/* SKP_Silk_A2NLSF */
+	int[] A2NLSF_P = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC / 2 + 1];
+	int[] A2NLSF_Q = new int[SigProcFIX.SKP_Silk_MAX_ORDER_LPC / 2 + 1];
+	int[][] A2NLSF_PQ = { A2NLSF_P, A2NLSF_Q };
+
+	/* SKP_Silk_NLSF2A_stable and SKP_Silk_LPC_inverse_pred_gain */
+	int[] invGain_Q30 = new int[1];
+	int[][] Atmp_QA = new int[2][SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+}
+
 /**
  * Encoder state.
  *
@@ -253,6 +363,7 @@ class SKP_Silk_encoder_state
 	int[] In_HP_State = new int[2]; /* High pass filter state */
 	SKP_Silk_LP_state sLP = new SKP_Silk_LP_state(); /* Low pass filter state */
 	SKP_Silk_VAD_state sVAD = new SKP_Silk_VAD_state(); /* Voice activity detector state */
+	SKP_Silk_nsq_scratch sNSQ_scratch = new SKP_Silk_nsq_scratch(); /* Quantization scratch */
 
 	int LBRRprevLastGainIndex;
 	int prev_sigtype;
@@ -362,6 +473,27 @@ class SKP_Silk_encoder_control
 	int[] pitchL = new int[NB_SUBFR];
 
 	int LBRR_usage; /* Low bitrate redundancy usage */
+
+	/**
+	 * set all fields of the instance to zero
+	 */
+	public void memZero()
+	{
+		this.lagIndex = 0;
+		this.contourIndex = 0;
+		this.PERIndex = 0;
+		Arrays.fill(this.LTPIndex, 0);
+		Arrays.fill(this.NLSFIndices, 0);
+		this.NLSFInterpCoef_Q2 = 0;
+		Arrays.fill(this.GainsIndices, 0);
+		this.Seed = 0;
+		this.LTP_scaleIndex = 0;
+		this.RateLevelIndex = 0;
+		this.QuantOffsetType = 0;
+		this.sigtype = 0;
+		Arrays.fill(this.pitchL, 0);
+		this.LBRR_usage = 0;
+	}
 }
 
 /**
@@ -460,6 +592,31 @@ class SKP_Silk_decoder_state
 	SKP_Silk_PLC_struct sPLC = new SKP_Silk_PLC_struct();
 	int lossCnt;
 	int prev_sigtype; /* Previous sigtype */
+
+	/* Scratch memory of the frame decoding, kept with the state so that decoding does not allocate */
+	SKP_Silk_decoder_control sDecCtrl = new SKP_Silk_decoder_control(); /* Decoder control */
+	int[] Pulses = new int[MAX_FRAME_LENGTH]; /* Decoded pulse signal */
+	int[] used_bytes = new int[1]; /* Used bytes to decode a frame */
+	short[] samplesOut_tmp = new short[MAX_API_FS_KHZ * FRAME_LENGTH_MS]; /* Resampler input */
+	SKP_Silk_NLSF_scratch sNLSF_scratch = new SKP_Silk_NLSF_scratch(); /* NLSF conversion scratch */
+
+	/* Scratch memory of the parameter decoding */
+	int[] Ix_ptr = new int[1];
+	int[] Ixs = new int[NB_SUBFR];
+	int[] GainsIndices = new int[NB_SUBFR];
+	int[] NLSFIndices = new int[NLSF_MSVQ_MAX_CB_STAGES];
+	int[] pNLSF_Q15 = new int[MAX_LPC_ORDER];
+	int[] pNLSF0_Q15 = new int[MAX_LPC_ORDER];
+
+	/* Scratch memory of the core decoder */
+	short[] core_A_Q12_tmp = new short[MAX_LPC_ORDER];
+	short[] core_sLTP = new short[MAX_FRAME_LENGTH];
+	int[] core_vec_Q10 = new int[MAX_FRAME_LENGTH / NB_SUBFR];
+	int[] core_FiltState = new int[MAX_LPC_ORDER];
+
+	/* Scratch memory of the comfort noise generation */
+	short[] CNG_LPC_buf = new short[MAX_LPC_ORDER];
+	short[] CNG_sig = new short[MAX_FRAME_LENGTH];
 }
 
 /**
@@ -488,4 +645,24 @@ class SKP_Silk_decoder_control
 	int QuantOffsetType;
 	int sigtype;
 	int NLSFInterpCoef_Q2;
+
+	/**
+	 * set all fields of the instance to zero
+	 */
+	public void memZero()
+	{
+		Arrays.fill(this.pitchL, 0);
+		Arrays.fill(this.Gains_Q16, 0);
+		this.Seed = 0;
+		Arrays.fill(this.dummy_int32PredCoef_Q12, 0);
+		Arrays.fill(this.PredCoef_Q12[0], (short) 0);
+		Arrays.fill(this.PredCoef_Q12[1], (short) 0);
+		Arrays.fill(this.LTPCoef_Q14, (short) 0);
+		this.LTP_scale_Q14 = 0;
+		this.PERIndex = 0;
+		this.RateLevelIndex = 0;
+		this.QuantOffsetType = 0;
+		this.sigtype = 0;
+		this.NLSFInterpCoef_Q2 = 0;
+	}
 }
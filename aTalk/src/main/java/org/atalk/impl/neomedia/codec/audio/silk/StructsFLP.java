@@ -113,6 +113,157 @@ class SKP_Silk_predict_state_FLP
 	}
 }
 
+/**
+ * Scratch memory of the pitch analysis, kept with the encoder state so that the pitch analysis
+ * does not allocate.
+ *
+ * @author Jing Dai
+ * @author Dingxin Xu
+ */
+class SKP_Silk_pitch_analysis_scratch_FLP
+{
+	/* LPC analysis preceding the pitch analysis */
+	float[] auto_corr = new float[FIND_PITCH_LPC_ORDER_MAX + 1];
+	float[] A = new float[FIND_PITCH_LPC_ORDER_MAX];
+	float[] refl_coef = new float[FIND_PITCH_LPC_ORDER_MAX];
+	float[] Wsig = new float[FIND_PITCH_LPC_WIN_MAX];
+	float[][] schur_C = new float[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1][2];
+	float[] k2a_Atmp = new float[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+
+	/* Pitch analysis */
+	float[] signal_8kHz = new float[CommonPitchEstDefines.PITCH_EST_FRAME_LENGTH_MS * 8];
+	float[] signal_4kHz = new float[CommonPitchEstDefines.PITCH_EST_FRAME_LENGTH_MS * 4];
+	float[] scratch_mem = new float[CommonPitchEstDefines.PITCH_EST_MAX_FRAME_LENGTH * 3];
+	float[] filt_state = new float[CommonPitchEstDefines.PITCH_EST_MAX_DECIMATE_STATE_LENGTH];
+	float[][] C = new float[CommonPitchEstDefines.PITCH_EST_NB_SUBFR][(CommonPitchEstDefines.PITCH_EST_MAX_LAG >> 1) + 5];
+	float[] CC = new float[CommonPitchEstDefines.PITCH_EST_NB_CBKS_STAGE2_EXT];
+	int[] d_srch = new int[CommonPitchEstDefines.PITCH_EST_D_SRCH_LENGTH];
+	short[] d_comp = new short[(CommonPitchEstDefines.PITCH_EST_MAX_LAG >> 1) + 5];
+	float[][][] energies_st3 = new float[CommonPitchEstDefines.PITCH_EST_NB_SUBFR][CommonPitchEstDefines.PITCH_EST_NB_CBKS_STAGE3_MAX][CommonPitchEstDefines.PITCH_EST_NB_STAGE3_LAGS];
+	float[][][] cross_corr_st3 = new float[CommonPitchEstDefines.PITCH_EST_NB_SUBFR][CommonPitchEstDefines.PITCH_EST_NB_CBKS_STAGE3_MAX][CommonPitchEstDefines.PITCH_EST_NB_STAGE3_LAGS];
+	float[] scratch_st3 = new float[PitchAnalysisCoreFLP.SCRATCH_SIZE];
+
+	/* Resampling of 12 and 24 kHz input to 8 kHz */
+	short[] signal_fix = new short[CommonPitchEstDefines.PITCH_EST_MAX_FRAME_LENGTH];
+	short[] signal_8 = new short[8 * CommonPitchEstDefines.PITCH_EST_FRAME_LENGTH_MS];
+	int[] filt_state_fix = new int[8];
+	int[] resampler_buf = new int[ResamplerPrivate.RESAMPLER_MAX_BATCH_SIZE_IN + ResamplerDown3.ORDER_FIR];
+
+	/* Outputs of the pitch analysis */
+	int[] lagIndex = new int[1];
+	int[] contourIndex = new int[1];
+	float[] LTPCorr = new float[1];
+}
+
+/**
+ * Scratch memory of the prediction and noise shaping analyses, kept with the encoder state so that
+ * these analyses do not allocate. The fields are named after the functions which use them because
+ * the functions call one another.
+ *
+ * @author Jing Dai
+ * @author Dingxin Xu
+ */
+class SKP_Silk_analysis_scratch_FLP
+{
+	/* SKP_Silk_find_pred_coefs_FLP */
+	float[] WLTP = new float[NB_SUBFR * LTP_ORDER * LTP_ORDER];
+	float[] invGains = new float[NB_SUBFR];
+	float[] Wght = new float[NB_SUBFR];
+	float[] NLSF = new float[MAX_LPC_ORDER];
+	float[] LPC_in_pre = new float[NB_SUBFR * MAX_LPC_ORDER + MAX_FRAME_LENGTH];
+	float[] LTPredCodGain = new float[1];
+	int[] PERIndex = new int[1];
+	int[] NLSFInterpCoef_Q2 = new int[1];
+
+	/* SKP_Silk_find_LTP_FLP */
+	float[] ltp_d = new float[NB_SUBFR];
+	float[] ltp_delta_b = new float[LTP_ORDER];
+	float[] ltp_w = new float[NB_SUBFR];
+	float[] ltp_nrg = new float[NB_SUBFR];
+	float[] ltp_Rr = new float[LTP_ORDER];
+	float[] ltp_rr = new float[NB_SUBFR];
+
+	/* SKP_Silk_solve_LDL_FLP and SKP_Silk_LDL_FLP */
+	float[] ldl_L = new float[MAX_MATRIX_SIZE * MAX_MATRIX_SIZE];
+	float[] ldl_T = new float[MAX_MATRIX_SIZE];
+	float[] ldl_Dinv = new float[MAX_MATRIX_SIZE];
+	float[] ldl_v = new float[MAX_MATRIX_SIZE];
+	float[] ldl_D = new float[MAX_MATRIX_SIZE];
+
+	/* SKP_Silk_quant_LTP_gains_FLP */
+	int[] quant_temp_idx = new int[NB_SUBFR];
+	float[] quant_rate_dist_subfr = new float[1];
+
+	/* SKP_Silk_find_LPC_FLP */
+	float[] lpc_a = new float[MAX_LPC_ORDER];
+	float[] lpc_a_tmp = new float[MAX_LPC_ORDER];
+	float[] lpc_NLSF0 = new float[MAX_LPC_ORDER];
+	float[] lpc_LPC_res = new float[(MAX_FRAME_LENGTH + NB_SUBFR * MAX_LPC_ORDER) / 2];
+
+	/* SKP_Silk_burg_modified_FLP */
+	double[] burg_C_first_row = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+	double[] burg_C_last_row = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+	double[] burg_CAf = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1];
+	double[] burg_CAb = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC + 1];
+	double[] burg_Af = new double[SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+
+	/* SKP_Silk_residual_energy_FLP */
+	float[] resnrg_LPC_res = new float[(MAX_FRAME_LENGTH + NB_SUBFR * MAX_LPC_ORDER) / 2];
+
+	/* SKP_Silk_process_NLSFs_FLP */
+	float[] pNLSFW = new float[MAX_LPC_ORDER];
+	float[] pNLSF0_temp = new float[MAX_LPC_ORDER];
+	float[] pNLSFW0_temp = new float[MAX_LPC_ORDER];
+
+	/* SKP_Silk_NLSF_MSVQ_encode_FLP, sized for the tree search of any complexity */
+	float[] msvq_pNLSF_in = new float[MAX_LPC_ORDER];
+	float[] msvq_pRateDist = new float[NLSF_MSVQ_TREE_SEARCH_MAX_VECTORS_EVALUATED()];
+	float[] msvq_pRate = new float[MAX_NLSF_MSVQ_SURVIVORS];
+	float[] msvq_pRate_new = new float[MAX_NLSF_MSVQ_SURVIVORS];
+	int[] msvq_pTempIndices = new int[MAX_NLSF_MSVQ_SURVIVORS];
+	int[] msvq_pPath = new int[MAX_NLSF_MSVQ_SURVIVORS * NLSF_MSVQ_MAX_CB_STAGES];
+	int[] msvq_pPath_new = new int[MAX_NLSF_MSVQ_SURVIVORS * NLSF_MSVQ_MAX_CB_STAGES];
+	float[] msvq_pRes = new float[MAX_NLSF_MSVQ_SURVIVORS * MAX_LPC_ORDER];
+	float[] msvq_pRes_new = new float[MAX_NLSF_MSVQ_SURVIVORS * MAX_LPC_ORDER];
+
+	/* SKP_Silk_NLSF_VQ_sum_error_FLP */
+	float[] sum_error_Wcpy = new float[MAX_LPC_ORDER];
+
+	/* Fixed-point wrappers of WrappersFLP */
+	SKP_Silk_NLSF_scratch sNLSF = new SKP_Silk_NLSF_scratch();
+	int[] a2nlsf_NLSF_fix = new int[MAX_LPC_ORDER];
+	int[] a2nlsf_a_fix_Q16 = new int[MAX_LPC_ORDER];
+	int[] nlsf2a_NLSF_fix = new int[MAX_LPC_ORDER];
+	short[] nlsf2a_a_fix_Q12 = new short[MAX_LPC_ORDER];
+	int[] stabilize_NLSF_Q15 = new int[MAX_LPC_ORDER];
+	int[] stabilize_ndelta_min_Q15 = new int[MAX_LPC_ORDER + 1];
+	int[] interpolate_x0_int = new int[MAX_LPC_ORDER];
+	int[] interpolate_x1_int = new int[MAX_LPC_ORDER];
+	int[] interpolate_xi_int = new int[MAX_LPC_ORDER];
+
+	/* SKP_Silk_noise_shape_analysis_FLP */
+	float[] x_windowed = new float[SHAPE_LPC_WIN_MAX];
+	float[] auto_corr = new float[SHAPE_LPC_ORDER_MAX + 1];
+	float[] nrg = new float[1];
+	float[] pre_nrg = new float[1];
+	float[] invGain = new float[1];
+	float[][] inv_pred_gain_Atmp = new float[2][SigProcFIX.SKP_Silk_MAX_ORDER_LPC];
+
+	/* SKP_Silk_prefilter_FLP */
+	float[] prefilt_B = new float[2];
+	float[] prefilt_AR1_shp = new float[NB_SUBFR * SHAPE_LPC_ORDER_MAX];
+	float[] prefilt_HarmShapeFIR = new float[3];
+	float[] prefilt_st_res = new float[MAX_FRAME_LENGTH / NB_SUBFR + MAX_LPC_ORDER];
+
+	/* SKP_Silk_process_gains_FLP */
+	int[] pGains_Q16 = new int[NB_SUBFR];
+	int[] LastGainIndex = new int[1];
+
+	/* SKP_Silk_HP_variable_cutoff_FLP */
+	int[] B_Q28 = new int[3];
+	int[] A_Q28 = new int[2];
+}
+
 /*******************************************/
 /* Structure containing NLSF MSVQ codebook */
 /*******************************************/
@@ -256,6 +407,43 @@ class SKP_Silk_encoder_state_FLP
 
 	float inBandFEC_SNR_comp; /* Compensation to SNR_DB when using inband FEC Voiced */
 
+	SKP_Silk_pitch_analysis_scratch_FLP sPitchScratch = new SKP_Silk_pitch_analysis_scratch_FLP(); /* Pitch analysis scratch */
+	SKP_Silk_analysis_scratch_FLP sAnalysisScratch = new SKP_Silk_analysis_scratch_FLP(); /* Prediction and noise shaping analysis scratch */
+
+	/* Scratch memory of the frame encoding, kept with the state so that encoding does not allocate */
+	SKP_Silk_encoder_control_FLP sEncCtrl = new SKP_Silk_encoder_control_FLP(); /* Encoder control */
+	short[] pIn_HP = new short[MAX_FRAME_LENGTH]; /* High-pass filtered input */
+	short[] pIn_HP_LP = new short[MAX_FRAME_LENGTH]; /* Low-pass filtered input */
+	float[] xfw = new float[MAX_FRAME_LENGTH]; /* Prefiltered input */
+	float[] res_pitch = new float[2 * MAX_FRAME_LENGTH + LA_PITCH_MAX]; /* Pitch LPC residual */
+	byte[] LBRRpayload = new byte[MAX_ARITHM_BYTES]; /* Low bitrate redundancy payload */
+	short[] nBytesLBRR = new short[1]; /* Low bitrate redundancy payload bytes */
+	int[] nBytes = new int[1]; /* Payload bytes */
+	short[] MaxBytesOut = new short[1]; /* Maximum payload bytes of a frame */
+
+	/* Scratch memory of the LBRR encoding */
+	int[] LBRR_Gains_Q16 = new int[NB_SUBFR];
+	int[] LBRR_TempGainsIndices = new int[NB_SUBFR];
+	float[] LBRR_TempGains = new float[NB_SUBFR];
+	int[] LBRRprevLastGainIndex = new int[1];
+	int[] LBRR_nBytes = new int[1];
+
+	/* Scratch memory of the VAD wrapper */
+	int[] VAD_SA_Q8 = new int[1];
+	int[] VAD_SNR_dB_Q7 = new int[1];
+	int[] VAD_Tilt_Q15 = new int[1];
+	int[] VAD_Quality_Bands_Q15 = new int[VAD_N_BANDS];
+
+	/* Scratch memory of the NSQ wrapper */
+	short[] NSQ_x_16 = new short[MAX_FRAME_LENGTH];
+	int[] NSQ_Gains_Q16 = new int[NB_SUBFR];
+	short[] NSQ_PredCoef_Q12 = new short[2 * MAX_LPC_ORDER]; /* Both halves, one after the other */
+	short[] NSQ_LTPCoef_Q14 = new short[LTP_ORDER * NB_SUBFR];
+	short[] NSQ_AR2_Q13 = new short[NB_SUBFR * SHAPE_LPC_ORDER_MAX];
+	int[] NSQ_LF_shp_Q14 = new int[NB_SUBFR];
+	int[] NSQ_Tilt_Q14 = new int[NB_SUBFR];
+	int[] NSQ_HarmShapeGain_Q14 = new int[NB_SUBFR];
+
 	SKP_Silk_NLSF_CB_FLP[] psNLSF_CB_FLP = new SKP_Silk_NLSF_CB_FLP[2]; /*
 																		 * Pointers to
 																		 * voiced/unvoiced NLSF
@@ -323,6 +511,54 @@ class SKP_Silk_encoder_control_FLP
 	float[] input_quality_bands = new float[VAD_N_BANDS];
 	float input_tilt;
 	float[] ResNrg = new float[NB_SUBFR]; /* Residual energy per subframe */
+
+	/**
+	 * set all fields of the instance to zero
+	 */
+	public void memZero()
+	{
+		this.sCmn.memZero();
+
+		Arrays.fill(this.Gains, 0);
+		Arrays.fill(this.PredCoef[0], 0);
+		Arrays.fill(this.PredCoef[1], 0);
+		Arrays.fill(this.LTPCoef, 0);
+		this.LTP_scale = 0;
+
+		Arrays.fill(this.Gains_Q16, 0);
+		Arrays.fill(this.dummy_int32PredCoef_Q12, 0);
+		Arrays.fill(this.PredCoef_Q12[0], (short) 0);
+		Arrays.fill(this.PredCoef_Q12[1], (short) 0);
+		Arrays.fill(this.LTPCoef_Q14, (short) 0);
+		this.LTP_scale_Q14 = 0;
+
+		this.dummy_int32AR2_Q13 = 0;
+		Arrays.fill(this.AR2_Q13, (short) 0);
+		Arrays.fill(this.LF_shp_Q14, 0);
+		Arrays.fill(this.Tilt_Q14, 0);
+		Arrays.fill(this.HarmShapeGain_Q14, 0);
+		this.Lambda_Q10 = 0;
+
+		Arrays.fill(this.AR1, 0);
+		Arrays.fill(this.AR2, 0);
+		Arrays.fill(this.LF_MA_shp, 0);
+		Arrays.fill(this.LF_AR_shp, 0);
+		Arrays.fill(this.GainsPre, 0);
+		Arrays.fill(this.HarmBoost, 0);
+		Arrays.fill(this.Tilt, 0);
+		Arrays.fill(this.HarmShapeGain, 0);
+		this.Lambda = 0;
+		this.input_quality = 0;
+		this.coding_quality = 0;
+		this.pitch_freq_low_Hz = 0;
+		this.current_SNR_dB = 0;
+
+		this.sparseness = 0;
+		this.LTPredCodGain = 0;
+		Arrays.fill(this.input_quality_bands, 0);
+		this.input_tilt = 0;
+		Arrays.fill(this.ResNrg, 0);
+	}
 }
 
 interface NoiseShapingQuantizerFP
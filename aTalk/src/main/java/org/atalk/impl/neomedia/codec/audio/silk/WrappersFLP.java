@@ -22,17 +22,18 @@ public class WrappersFLP
 	/* Convert AR filter coefficients to NLSF parameters */
 	static void SKP_Silk_A2NLSF_FLP(float[] pNLSF, /* O NLSF vector [ LPC_order ] */
 		float[] pAR, /* I LPC coefficients [ LPC_order ] */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		int i;
-		int[] NLSF_fix = new int[MAX_LPC_ORDER];
-		int[] a_fix_Q16 = new int[MAX_LPC_ORDER];
+		int[] NLSF_fix = psScratch.a2nlsf_NLSF_fix;
+		int[] a_fix_Q16 = psScratch.a2nlsf_a_fix_Q16;
 
 		for (i = 0; i < LPC_order; i++) {
 			a_fix_Q16[i] = SigProcFLP.SKP_float2int(pAR[i] * 65536.0f);
 		}
-		A2NLSF.SKP_Silk_A2NLSF(NLSF_fix, a_fix_Q16, LPC_order);
+		A2NLSF.SKP_Silk_A2NLSF(NLSF_fix, a_fix_Q16, LPC_order, psScratch.sNLSF);
 
 		for (i = 0; i < LPC_order; i++) {
 			pNLSF[i] = NLSF_fix[i] * (1.0f / 32768.0f);
@@ -42,18 +43,19 @@ public class WrappersFLP
 	/* Convert LSF parameters to AR prediction filter coefficients */
 	static void SKP_Silk_NLSF2A_stable_FLP(float[] pAR, /* O LPC coefficients [ LPC_order ] */
 		float[] pNLSF, /* I NLSF vector [ LPC_order ] */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		int i;
-		int[] NLSF_fix = new int[MAX_LPC_ORDER];
-		short[] a_fix_Q12 = new short[MAX_LPC_ORDER];
+		int[] NLSF_fix = psScratch.nlsf2a_NLSF_fix;
+		short[] a_fix_Q12 = psScratch.nlsf2a_a_fix_Q12;
 
 		for (i = 0; i < LPC_order; i++) {
 			NLSF_fix[i] = SigProcFLP.SKP_float2int(pNLSF[i] * 32768.0f);
 		}
 
-		NLSF2AStable.SKP_Silk_NLSF2A_stable(a_fix_Q12, NLSF_fix, LPC_order);
+		NLSF2AStable.SKP_Silk_NLSF2A_stable(a_fix_Q12, NLSF_fix, LPC_order, psScratch.sNLSF);
 
 		for (i = 0; i < LPC_order; i++) {
 			pAR[i] = a_fix_Q12[i] / 4096.0f;
@@ -66,11 +68,12 @@ public class WrappersFLP
 															 * LPC_order ]
 															 */
 		float[] pNDelta_min, /* I Normalized delta min vector[LPC_order+1] */
-		final int LPC_order /* I LPC order */
+		final int LPC_order, /* I LPC order */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
 		int i;
-		int[] NLSF_Q15 = new int[MAX_LPC_ORDER], ndelta_min_Q15 = new int[MAX_LPC_ORDER + 1];
+		int[] NLSF_Q15 = psScratch.stabilize_NLSF_Q15, ndelta_min_Q15 = psScratch.stabilize_ndelta_min_Q15;
 
 		for (i = 0; i < LPC_order; i++) {
 			NLSF_Q15[i] = SigProcFLP.SKP_float2int(pNLSF[i] * 32768.0f);
@@ -91,10 +94,12 @@ public class WrappersFLP
 		float x0[], /* I First vector */
 		float x1[], /* I Second vector */
 		final float ifact, /* I Interp. factor, weight on second vector */
-		final int d /* I Number of parameters */
+		final int d, /* I Number of parameters */
+		SKP_Silk_analysis_scratch_FLP psScratch /* I Scratch memory */
 	)
 	{
-		int[] x0_int = new int[MAX_LPC_ORDER], x1_int = new int[MAX_LPC_ORDER], xi_int = new int[MAX_LPC_ORDER];
+		int[] x0_int = psScratch.interpolate_x0_int, x1_int = psScratch.interpolate_x1_int;
+		int[] xi_int = psScratch.interpolate_xi_int;
 		int ifact_Q2 = (int) (ifact * 4.0f);
 		int i;
 
@@ -122,8 +127,8 @@ public class WrappersFLP
 		int pIn_offset)
 	{
 		int i, ret;
-		int[] SA_Q8 = new int[1], SNR_dB_Q7 = new int[1], Tilt_Q15 = new int[1];
-		int[] Quality_Bands_Q15 = new int[VAD_N_BANDS];
+		int[] SA_Q8 = psEnc.VAD_SA_Q8, SNR_dB_Q7 = psEnc.VAD_SNR_dB_Q7, Tilt_Q15 = psEnc.VAD_Tilt_Q15;
+		int[] Quality_Bands_Q15 = psEnc.VAD_Quality_Bands_Q15;
 
 		ret = VAD.SKP_Silk_VAD_GetSA_Q8(psEnc.sCmn.sVAD, SA_Q8, SNR_dB_Q7, Quality_Bands_Q15,
 			Tilt_Q15, pIn, pIn_offset, psEnc.sCmn.frame_length);
@@ -149,20 +154,21 @@ public class WrappersFLP
 	{
 		int i, j;
 		float tmp_float;
-		short[] x_16 = new short[MAX_FRAME_LENGTH];
+		/* The scratch memory lives in the encoder state so that the wrapper does not allocate */
+		short[] x_16 = psEnc.NSQ_x_16;
 		/* Prediction and coding parameters */
-		int[] Gains_Q16 = new int[NB_SUBFR];
-		short[][] PredCoef_Q12 = new short[2][MAX_LPC_ORDER];
-		short[] LTPCoef_Q14 = new short[LTP_ORDER * NB_SUBFR];
+		int[] Gains_Q16 = psEnc.NSQ_Gains_Q16;
+		short[] PredCoef_Q12 = psEnc.NSQ_PredCoef_Q12; /* [ 2 ][ MAX_LPC_ORDER ], flattened */
+		short[] LTPCoef_Q14 = psEnc.NSQ_LTPCoef_Q14;
 		int LTP_scale_Q14;
 
 		/* Noise shaping parameters */
 		/* Testing */
-		short[] AR2_Q13 = new short[NB_SUBFR * SHAPE_LPC_ORDER_MAX];
-		int[] LF_shp_Q14 = new int[NB_SUBFR]; /* Packs two int16 coefficients per int32 value */
+		short[] AR2_Q13 = psEnc.NSQ_AR2_Q13;
+		int[] LF_shp_Q14 = psEnc.NSQ_LF_shp_Q14; /* Packs two int16 coefficients per int32 value */
 		int Lambda_Q10;
-		int[] Tilt_Q14 = new int[NB_SUBFR];
-		int[] HarmShapeGain_Q14 = new int[NB_SUBFR];
+		int[] Tilt_Q14 = psEnc.NSQ_Tilt_Q14;
+		int[] HarmShapeGain_Q14 = psEnc.NSQ_HarmShapeGain_Q14;
 
 		/* Convert control struct to fix control struct */
 		/* Noise shape parameters */
@@ -325,7 +331,7 @@ public class WrappersFLP
 
 		for (j = 0; j < NB_SUBFR >> 1; j++) {
 			for (i = 0; i < MAX_LPC_ORDER; i++) {
-				PredCoef_Q12[j][i] = (short) SigProcFLP
+				PredCoef_Q12[j * MAX_LPC_ORDER + i] = (short) SigProcFLP
 					.SKP_float2int(psEncCtrl.PredCoef[j][i] * 4096.0f);
 			}
 		}
@@ -484,19 +490,12 @@ public class WrappersFLP
 		/* TEST END*********************************************************************** */
 
 		/* Call NSQ */
-		short[] PredCoef_Q12_dim1_tmp = new short[PredCoef_Q12.length * PredCoef_Q12[0].length];
-		int PredCoef_Q12_offset = 0;
-		for (int PredCoef_Q12_i = 0; PredCoef_Q12_i < PredCoef_Q12.length; PredCoef_Q12_i++) {
-			System.arraycopy(PredCoef_Q12[PredCoef_Q12_i], 0, PredCoef_Q12_dim1_tmp,
-				PredCoef_Q12_offset, PredCoef_Q12[PredCoef_Q12_i].length);
-			PredCoef_Q12_offset += PredCoef_Q12[PredCoef_Q12_i].length;
-		}
 		if (useLBRR != 0) {
 			// psEnc.NoiseShapingQuantizer( psEnc.sCmn, psEncCtrl.sCmn, psEnc.sNSQ_LBRR,
 			// x_16, q, psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12[ 0 ], LTPCoef_Q14, AR2_Q13,
 			// HarmShapeGain_Q14, Tilt_Q14, LF_shp_Q14, Gains_Q16, Lambda_Q10, LTP_scale_Q14 );\
 			psEnc.NoiseShapingQuantizer(psEnc.sCmn, psEncCtrl.sCmn, psEnc.sNSQ_LBRR, x_16, q,
-				psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12_dim1_tmp, LTPCoef_Q14, AR2_Q13,
+				psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12, LTPCoef_Q14, AR2_Q13,
 				HarmShapeGain_Q14, Tilt_Q14, LF_shp_Q14, Gains_Q16, Lambda_Q10, LTP_scale_Q14);
 			// psEnc.NoiseShapingQuantizer( &psEnc->sCmn, &psEncCtrl->sCmn, &psEnc->sNSQ_LBRR,
 			// x_16, q, psEncCtrl->sCmn.NLSFInterpCoef_Q2, PredCoef_Q12[ 0 ], LTPCoef_Q14, AR2_Q13,
@@ -507,7 +506,7 @@ public class WrappersFLP
 			// x_16, q, psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12[ 0 ], LTPCoef_Q14, AR2_Q13,
 			// HarmShapeGain_Q14, Tilt_Q14, LF_shp_Q14, Gains_Q16, Lambda_Q10, LTP_scale_Q14 );
 			psEnc.NoiseShapingQuantizer(psEnc.sCmn, psEncCtrl.sCmn, psEnc.sNSQ, x_16, q,
-				psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12_dim1_tmp, LTPCoef_Q14, AR2_Q13,
+				psEncCtrl.sCmn.NLSFInterpCoef_Q2, PredCoef_Q12, LTPCoef_Q14, AR2_Q13,
 				HarmShapeGain_Q14, Tilt_Q14, LF_shp_Q14, Gains_Q16, Lambda_Q10, LTP_scale_Q14);
 			// psEnc.NoiseShapingQuantizer( &psEnc->sCmn, &psEncCtrl->sCmn, &psEnc->sNSQ,
 			// x_16, q, psEncCtrl->sCmn.NLSFInterpCoef_Q2, PredCoef_Q12[ 0 ], LTPCoef_Q14, AR2_Q13,
@@ -16,6 +16,10 @@ public class JavaDecoder extends com.ibm.media.codec.audio.AudioCodec
 
 	static private final byte[] lutTableL = new byte[256];
 
+	static {
+		initTables();
+	}
+
 	public JavaDecoder()
 	{
 		supportedInputFormats = new AudioFormat[] { new AudioFormat(AudioFormat.ULAW) };
@@ -44,7 +48,7 @@ public class JavaDecoder extends com.ibm.media.codec.audio.AudioCodec
 		return supportedOutputFormats;
 	}
 
-	private void initTables()
+	private static void initTables()
 	{
 		for (int i = 0; i < 256; i++) {
 			int input = ~i;
@@ -66,7 +70,31 @@ public class JavaDecoder extends com.ibm.media.codec.audio.AudioCodec
 	@Override
 	public void open()
 	{
-		initTables();
+	}
+
+	/**
+	 * Decodes mu-law bytes into 16-bit little endian pcm samples.
+	 *
+	 * @param inData
+	 *        the mu-law bytes to decode
+	 * @param inOffset
+	 *        the offset in <tt>inData</tt> of the first mu-law byte
+	 * @param inLength
+	 *        the number of mu-law bytes to decode
+	 * @param outData
+	 *        the array to receive the pcm samples, at least <tt>2 * inLength</tt> bytes long
+	 *        starting at <tt>outOffset</tt>
+	 * @param outOffset
+	 *        the offset in <tt>outData</tt> of the first pcm sample
+	 */
+	public static void uLawDecode(byte[] inData, int inOffset, int inLength, byte[] outData,
+		int outOffset)
+	{
+		for (int i = 0; i < inLength; i++) {
+			int temp = inData[inOffset + i] & 0xff;
+			outData[outOffset + 2 * i] = lutTableL[temp];
+			outData[outOffset + 2 * i + 1] = lutTableH[temp];
+		}
 	}
 
 	/** Decodes the buffer */
@@ -85,13 +113,7 @@ public class JavaDecoder extends com.ibm.media.codec.audio.AudioCodec
 		int inpLength = inputBuffer.getLength();
 		int outLength = 2 * inpLength;
 
-		int inOffset = inputBuffer.getOffset();
-		int outOffset = outputBuffer.getOffset();
-		for (int i = 0; i < inpLength; i++) {
-			int temp = inData[inOffset++] & 0xff;
-			outData[outOffset++] = lutTableL[temp];
-			outData[outOffset++] = lutTableH[temp];
-		}
+		uLawDecode(inData, inputBuffer.getOffset(), inpLength, outData, outputBuffer.getOffset());
 
 		updateOutput(outputBuffer, outputFormat, outLength, outputBuffer.getOffset());
 
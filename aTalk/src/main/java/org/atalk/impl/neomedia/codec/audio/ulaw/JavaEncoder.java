@@ -10,6 +10,17 @@ import javax.media.format.*;
 
 public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 {
+	/**
+	 * An array where the index is the 16-bit PCM input, and the value is the mu-law result.
+	 */
+	private static final byte[] pcmToULawMap;
+
+	static {
+		pcmToULawMap = new byte[65536];
+		for (int i = Short.MIN_VALUE; i <= Short.MAX_VALUE; i++)
+			pcmToULawMap[i & 0xffff] = encode(i);
+	}
+
 	private boolean downmix = false;
 
 	private int inputBias;
@@ -65,7 +76,7 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 	private void convert(byte[] input, int inputOffset, int inputLength, byte[] outData,
 		int outputOffset)
 	{
-		int sample, signBit, inputSample;
+		int inputSample;
 		int i;
 
 		for (i = inputOffset + msbOffset; i < (inputLength + inputOffset);) {
@@ -87,29 +98,52 @@ public class JavaEncoder extends com.ibm.media.codec.audio.AudioCodec
 				}
 			}
 
-			sample = ((short) (inputSample + inputBias));
+			outData[outputOffset++] = uLawEncode(inputSample + inputBias);
+		}
+	}
 
-			if (sample >= 0) {
-				signBit = 0x80; // sign bit
-			}
-			else {
-				sample = -sample;
-				signBit = 0x00;
-			}
+	/**
+	 * Encode a pcm value into a mu-law byte
+	 *
+	 * @param pcm
+	 *        A 16-bit pcm value; the bits above the lower 16 are ignored
+	 * @return A mu-law encoded byte
+	 */
+	public static byte uLawEncode(int pcm)
+	{
+		return pcmToULawMap[pcm & 0xffff];
+	}
+
+	/**
+	 * Encode one mu-law byte from a 16-bit signed integer. Internal use only.
+	 *
+	 * @param sample
+	 *        A 16-bit signed pcm value
+	 * @return A mu-law encoded byte
+	 */
+	private static byte encode(int sample)
+	{
+		int signBit;
 
-			sample = (132 + sample) >> 3; // bias
-
-			outData[outputOffset++] = (byte) ((sample < 0x0020) ? (signBit | (7 << 4) | (31 - (sample >> 0)))
-				: (sample < 0x0040) ? (signBit | (6 << 4) | (31 - (sample >> 1)))
-					: (sample < 0x0080) ? (signBit | (5 << 4) | (31 - (sample >> 2)))
-						: (sample < 0x0100) ? (signBit | (4 << 4) | (31 - (sample >> 3)))
-							: (sample < 0x0200) ? (signBit | (3 << 4) | (31 - (sample >> 4)))
-								: (sample < 0x0400) ? (signBit | (2 << 4) | (31 - (sample >> 5)))
-									: (sample < 0x0800) ? (signBit | (1 << 4) | (31 - (sample >> 6)))
-										: (sample < 0x1000) ? (signBit | (0 << 4) | (31 - (sample >> 7)))
-											: (signBit | (0 << 4) | (31 - (0xfff >> 7))));
+		if (sample >= 0) {
+			signBit = 0x80; // sign bit
+		}
+		else {
+			sample = -sample;
+			signBit = 0x00;
 		}
 
+		sample = (132 + sample) >> 3; // bias
+
+		return (byte) ((sample < 0x0020) ? (signBit | (7 << 4) | (31 - (sample >> 0)))
+			: (sample < 0x0040) ? (signBit | (6 << 4) | (31 - (sample >> 1)))
+				: (sample < 0x0080) ? (signBit | (5 << 4) | (31 - (sample >> 2)))
+					: (sample < 0x0100) ? (signBit | (4 << 4) | (31 - (sample >> 3)))
+						: (sample < 0x0200) ? (signBit | (3 << 4) | (31 - (sample >> 4)))
+							: (sample < 0x0400) ? (signBit | (2 << 4) | (31 - (sample >> 5)))
+								: (sample < 0x0800) ? (signBit | (1 << 4) | (31 - (sample >> 6)))
+									: (sample < 0x1000) ? (signBit | (0 << 4) | (31 - (sample >> 7)))
+										: (signBit | (0 << 4) | (31 - (0xfff >> 7))));
 	}
 
 	@Override
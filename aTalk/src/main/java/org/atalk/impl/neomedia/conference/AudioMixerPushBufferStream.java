@@ -79,6 +79,12 @@ class AudioMixerPushBufferStream extends ControlsAdapter implements PushBufferSt
      */
     private final List<AudioMixingPushBufferStream> outStreams = new ArrayList<>();
 
+    /**
+     * The <tt>OutStreamBatchEncoder</tt> which pushes the input audio samples of a tick to
+     * {@link #outStreams} in parallel.
+     */
+    private final OutStreamBatchEncoder outStreamBatchEncoder = new OutStreamBatchEncoder(this);
+
     /**
      * The number of times that {@link #outStreams} has been modified via
      * {@link #addOutStream(AudioMixingPushBufferStream)} and
@@ -730,7 +736,7 @@ class AudioMixerPushBufferStream extends ControlsAdapter implements PushBufferSt
      * @param inSampleDesc the set of audio samples to be pushed to <tt>outStream</tt> for audio mixing
      * @param maxInSampleCount the maximum number of audio samples available in <tt>inSamples</tt>
      */
-    private void setInSamples(AudioMixingPushBufferStream outStream, InSampleDesc inSampleDesc,
+    void setInSamples(AudioMixingPushBufferStream outStream, InSampleDesc inSampleDesc,
             int maxInSampleCount)
     {
         short[][] inSamples = inSampleDesc.inSamples;
@@ -945,8 +951,7 @@ class AudioMixerPushBufferStream extends ControlsAdapter implements PushBufferSt
                         .toArray(new AudioMixingPushBufferStream[this.outStreams.size()]);
             }
         }
-        for (AudioMixingPushBufferStream outStream : outStreams)
-            setInSamples(outStream, inSampleDesc, maxInSampleCount);
+        outStreamBatchEncoder.encode(outStreams, inSampleDesc, maxInSampleCount);
 
         /*
          * The input samples have already been delivered to the output streams and are no longer
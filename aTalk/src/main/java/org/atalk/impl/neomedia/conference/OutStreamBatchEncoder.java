@@ -0,0 +1,190 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.conference;
+
+import org.atalk.service.configuration.ConfigurationService;
+import org.atalk.service.libjitsi.LibJitsi;
+import org.atalk.util.ConfigUtils;
+import org.atalk.util.ExecutorUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the input audio samples read by an <tt>AudioMixerPushBufferStream</tt> in one tick to
+ * all of its output <tt>AudioMixingPushBufferStream</tt>s in parallel. Each push mixes the audio
+ * of one participant and runs the encoder and the packetizer of its <tt>MediaStream</tt>, so
+ * pushing the mixes one after another on the capture thread makes the latency of a tick grow
+ * linearly with the number of participants.
+ *
+ * The pushes of a tick are shared by the capture thread and up to {@link #PARALLELISM} - 1
+ * threads of a pool, and a tick completes only when all of them have. An output stream is thus
+ * pushed to by a single thread at a time and in the order of the ticks, so the state of its
+ * encoder stays with it as before.
+ *
+ * @author Eng Chong Meng
+ */
+class OutStreamBatchEncoder
+{
+    /**
+     * The name of the property which specifies the value of {@link #PARALLELISM}.
+     */
+    private static final String PARALLELISM_PNAME = OutStreamBatchEncoder.class.getName() + ".PARALLELISM";
+
+    /**
+     * The maximum number of threads, including the capture thread, which push the input audio
+     * samples of a tick to the output streams; by default, one per processor. A value of
+     * <tt>1</tt> pushes them on the capture thread only.
+     */
+    private static final int PARALLELISM;
+
+    /**
+     * The pool of threads which help the capture threads of all <tt>AudioMixer</tt>s.
+     */
+    private static final ExecutorService threadPool
+            = ExecutorUtils.newCachedThreadPool(true, OutStreamBatchEncoder.class.getName() + "-");
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+
+        int parallelism = ConfigUtils.getInt(cfg, PARALLELISM_PNAME, -1);
+        PARALLELISM = (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The <tt>AudioMixerPushBufferStream</tt> the output streams of which are pushed to.
+     */
+    private final AudioMixerPushBufferStream audioMixerStream;
+
+    /**
+     * Initializes a new <tt>OutStreamBatchEncoder</tt> for a specific
+     * <tt>AudioMixerPushBufferStream</tt>.
+     *
+     * @param audioMixerStream the <tt>AudioMixerPushBufferStream</tt> the output streams of which are to be pushed to
+     */
+    OutStreamBatchEncoder(AudioMixerPushBufferStream audioMixerStream)
+    {
+        this.audioMixerStream = audioMixerStream;
+    }
+
+    /**
+     * Pushes a specific set of input audio samples to specific output streams and waits for all
+     * of the pushes to complete.
+     *
+     * @param outStreams the <tt>AudioMixingPushBufferStream</tt>s to push <tt>inSampleDesc</tt> to
+     * @param inSampleDesc the set of audio samples to be pushed to <tt>outStreams</tt> for audio mixing
+     * @param maxInSampleCount the maximum number of audio samples available in <tt>inSampleDesc</tt>
+     * @throws RuntimeException the first exception thrown by a push, rethrown after all of the
+     * pushes have completed
+     */
+    void encode(AudioMixingPushBufferStream[] outStreams, InSampleDesc inSampleDesc,
+            int maxInSampleCount)
+    {
+        int helperCount = Math.min(PARALLELISM, outStreams.length) - 1;
+
+        if (helperCount <= 0) {
+            for (AudioMixingPushBufferStream outStream : outStreams)
+                audioMixerStream.setInSamples(outStream, inSampleDesc, maxInSampleCount);
+            return;
+        }
+
+        /*
+         * A Batch per tick so that a helper which is scheduled late, after the tick it was
+         * submitted for has completed, finds nothing left to push instead of interfering with
+         * the next tick.
+         */
+        Batch batch = new Batch(outStreams, inSampleDesc, maxInSampleCount);
+
+        for (int i = 0; i < helperCount; i++)
+            threadPool.execute(batch);
+        batch.run();
+        batch.await();
+    }
+
+    /**
+     * The pushes of a single tick.
+     */
+    private class Batch implements Runnable
+    {
+        /**
+         * The first exception thrown by a push; guarded by <tt>this</tt>.
+         */
+        private RuntimeException failure;
+
+        private final InSampleDesc inSampleDesc;
+
+        private final int maxInSampleCount;
+
+        /**
+         * The index in {@link #outStreams} of the output stream to be pushed to next.
+         */
+        private final AtomicInteger nextOutStream = new AtomicInteger();
+
+        private final AudioMixingPushBufferStream[] outStreams;
+
+        /**
+         * The number of pushes which have not completed yet; guarded by <tt>this</tt>.
+         */
+        private int pending;
+
+        Batch(AudioMixingPushBufferStream[] outStreams, InSampleDesc inSampleDesc,
+                int maxInSampleCount)
+        {
+            this.outStreams = outStreams;
+            this.inSampleDesc = inSampleDesc;
+            this.maxInSampleCount = maxInSampleCount;
+            pending = outStreams.length;
+        }
+
+        /**
+         * Waits for all of the pushes of this tick to complete.
+         *
+         * @throws RuntimeException the first exception thrown by a push
+         */
+        synchronized void await()
+        {
+            boolean interrupted = false;
+
+            while (pending > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            if (failure != null)
+                throw failure;
+        }
+
+        /**
+         * Pushes to the output streams of this tick which have not been claimed by another
+         * thread yet.
+         */
+        @Override
+        public void run()
+        {
+            int i;
+
+            while ((i = nextOutStream.getAndIncrement()) < outStreams.length) {
+                RuntimeException failure = null;
+
+                try {
+                    audioMixerStream.setInSamples(outStreams[i], inSampleDesc, maxInSampleCount);
+                } catch (RuntimeException re) {
+                    failure = re;
+                }
+                synchronized (this) {
+                    if ((failure != null) && (this.failure == null))
+                        this.failure = failure;
+                    if (--pending == 0)
+                        notifyAll();
+                }
+            }
+        }
+    }
+}
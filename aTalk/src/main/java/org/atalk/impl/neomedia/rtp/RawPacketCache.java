@@ -24,6 +24,7 @@ import org.atalk.util.Logger;
 import org.atalk.util.concurrent.MonotonicAtomicLong;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -56,6 +57,12 @@ public class RawPacketCache implements AutoCloseable
     public final static String NACK_CACHE_SIZE_PACKETS
             = "neomedia.transform.CachingTransformer.CACHE_SIZE_PACKETS";
 
+    /**
+     * Configuration property for the number of bytes to cache for each stream.
+     */
+    public final static String NACK_CACHE_SIZE_BYTES
+            = "neomedia.transform.CachingTransformer.CACHE_SIZE_BYTES";
+
     /**
      * Configuration property for nack cache size in milliseconds.
      */
@@ -84,7 +91,20 @@ public class RawPacketCache implements AutoCloseable
     private static int MAX_SIZE_PACKETS = cfg.getInt(NACK_CACHE_SIZE_PACKETS, 500);
 
     /**
-     * The size of {@link #pool} and {@link #containersPool}.
+     * The maximum number of bytes cached for each SSRC i.e. {@link #MAX_SIZE_PACKETS} full size
+     * packets by default.
+     */
+    private static int MAX_SIZE_BYTES = cfg.getInt(NACK_CACHE_SIZE_BYTES, MAX_SIZE_PACKETS * 1500);
+
+    /**
+     * The number of slots of the ring of each {@link Cache}: the smallest power of two which is
+     * not less than {@link #MAX_SIZE_PACKETS}, so that a packet index maps to its slot with a mask.
+     */
+    private static final int RING_SIZE
+            = Math.max(2, Integer.highestOneBit(Math.max(1, MAX_SIZE_PACKETS) * 2 - 1));
+
+    /**
+     * The size of {@link #containersPool}.
      */
     private static int POOL_SIZE = 100;
 
@@ -95,12 +115,8 @@ public class RawPacketCache implements AutoCloseable
     private static int SSRC_TIMEOUT_MILLIS = SIZE_MILLIS + 50;
 
     /**
-     * The pool of <tt>RawPacket</tt>s which we use to avoid allocation and GC.
-     */
-    private final Queue<RawPacket> pool = new LinkedBlockingQueue<>(POOL_SIZE);
-
-    /**
-     * A cache of unused {@link Container} instances.
+     * A cache of unused {@link Container} instances, together with their packet buffers, which
+     * we use to avoid allocation and GC.
      */
     private final Queue<Container> containersPool = new LinkedBlockingQueue<>(POOL_SIZE);
 
@@ -143,15 +159,22 @@ public class RawPacketCache implements AutoCloseable
      */
     private AtomicInteger totalMisses = new AtomicInteger(0);
 
+    /**
+     * Counts the number of packets dropped from the cache because of its time, packet or byte
+     * bounds.
+     */
+    private AtomicInteger totalEvictions = new AtomicInteger(0);
+
     /**
      * Counts the total number of packets added to this cache.
      */
     private AtomicInteger totalPacketsAdded = new AtomicInteger(0);
 
     /**
-     * Contains a <tt>Cache</tt> instance for each SSRC.
+     * Contains a <tt>Cache</tt> instance for each SSRC. Looked up without locking; caches are
+     * created and removed with the monitor of the map held.
      */
-    private final Map<Long, Cache> caches = new HashMap<>();
+    private final Map<Long, Cache> caches = new ConcurrentHashMap<>();
 
     /**
      * The age in milliseconds of the oldest packet retrieved from any of the
@@ -182,14 +205,15 @@ public class RawPacketCache implements AutoCloseable
             throws Exception
     {
         if (totalPacketsAdded.get() > 0) {
-            Timber.i("%s closed,stream=%d max_size_bytes=%s,max_size_packets=%s,total_hits=%d, total_misses=%d, total_packets=%d, oldest_hit_ms=%s",
+            Timber.i("%s closed,stream=%d max_size_bytes=%s,max_size_packets=%s,total_hits=%d, total_misses=%d, total_evictions=%d, total_packets=%d, oldest_hit_ms=%s",
                     Logger.Category.STATISTICS, streamId, maxSizeInBytes, maxSizeInPackets, totalHits.get(),
-                    totalMisses.get(), totalPacketsAdded.get(), oldestHit);
+                    totalMisses.get(), totalEvictions.get(), totalPacketsAdded.get(), oldestHit);
         }
         synchronized (caches) {
+            for (Cache cache : caches.values())
+                cache.empty();
             caches.clear();
         }
-        pool.clear();
         containersPool.clear();
     }
 
@@ -197,6 +221,10 @@ public class RawPacketCache implements AutoCloseable
      * Gets the packet, encapsulated in a {@link Container} with the given SSRC
      * and RTP sequence number from the cache. If no such packet is found, returns <tt>null</tt>.
      *
+     * The returned <tt>Container</tt> is not a copy: it holds a reference to the cached packet
+     * which must be given back with {@link Container#release()} once the caller is done with it.
+     * The packet must not be modified.
+     *
      * @param ssrc The SSRC of the packet.
      * @param seq the RTP sequence number of the packet.
      * @return the packet, encapsulated in a {@link Container} with the given
@@ -222,7 +250,7 @@ public class RawPacketCache implements AutoCloseable
     }
 
     /**
-     * Gets the packet with the given SSRC and RTP sequence number from the
+     * Gets a copy of the packet with the given SSRC and RTP sequence number from the
      * cache. If no such packet is found, returns <tt>null</tt>.
      *
      * @param ssrc The SSRC of the packet.
@@ -233,7 +261,19 @@ public class RawPacketCache implements AutoCloseable
     public RawPacket get(long ssrc, int seq)
     {
         Container container = getContainer(ssrc, seq);
-        return container == null ? null : container.pkt;
+        if (container == null)
+            return null;
+
+        try {
+            RawPacket pkt = container.pkt;
+            int len = pkt.getLength();
+            byte[] buf = new byte[len];
+
+            System.arraycopy(pkt.getBuffer(), pkt.getOffset(), buf, 0, len);
+            return new RawPacket(buf, 0, len);
+        } finally {
+            container.release();
+        }
     }
 
     /**
@@ -247,9 +287,13 @@ public class RawPacketCache implements AutoCloseable
      */
     private Cache getCache(long ssrc, boolean create)
     {
+        Cache cache = caches.get(ssrc);
+        if (cache != null || !create)
+            return cache;
+
         synchronized (caches) {
-            Cache cache = caches.get(ssrc);
-            if (cache == null && create) {
+            cache = caches.get(ssrc);
+            if (cache == null) {
                 if (caches.size() < MAX_SSRC_COUNT) {
                     cache = new Cache();
                     caches.put(ssrc, cache);
@@ -273,41 +317,32 @@ public class RawPacketCache implements AutoCloseable
         if (cache != null) {
             Timber.log(TimberLog.FINER, "Caching a packet.SSRC = %s seq = %s",
                     pkt.getSSRCAsLong(), pkt.getSequenceNumber());
-            cache.insert(pkt);
-            totalPacketsAdded.incrementAndGet();
+            if (cache.insert(pkt))
+                totalPacketsAdded.incrementAndGet();
         }
     }
 
     /**
-     * Gets an unused <tt>RawPacket</tt> with at least <tt>len</tt> bytes of
+     * Gets an unused {@link Container} instance with a packet of at least <tt>len</tt> bytes of
      * buffer space.
      *
      * @param len the minimum available length
-     * @return An unused <tt>RawPacket</tt> with at least <tt>len</tt> bytes of
-     * buffer space.
-     */
-    private RawPacket getFreePacket(int len)
-    {
-        RawPacket pkt = pool.poll();
-        if (pkt == null)
-            pkt = new RawPacket(new byte[len], 0, 0);
-
-        if (pkt.getBuffer() == null || pkt.getBuffer().length < len)
-            pkt.setBuffer(new byte[len]);
-        pkt.setOffset(0);
-        pkt.setLength(0);
-        return pkt;
-    }
-
-    /**
      * @return an unused {@link Container} instance.
      */
-    private Container getFreeContainer()
+    private Container getFreeContainer(int len)
     {
         Container container = containersPool.poll();
         if (container == null) {
             container = new Container();
         }
+
+        RawPacket pkt = container.pkt;
+        if (pkt == null)
+            container.pkt = pkt = new RawPacket(new byte[len], 0, 0);
+        else if (pkt.getBuffer() == null || pkt.getBuffer().length < len)
+            pkt.setBuffer(new byte[len]);
+        pkt.setOffset(0);
+        pkt.setLength(0);
         return container;
     }
 
@@ -334,26 +369,22 @@ public class RawPacketCache implements AutoCloseable
     }
 
     /**
-     * Returns a {@link Container} and its {@link RawPacket} to the list of free containers (and
-     * packets).
+     * Returns a {@link Container} and its {@link RawPacket} to the list of free containers
+     * once nobody references it anymore.
      *
      * @param container the container to return.
      */
     private void returnContainer(Container container)
     {
-        if (container != null) {
-            if (container.pkt != null) {
-                pool.offer(container.pkt);
-            }
-            container.pkt = null;
-            containersPool.offer(container);
-        }
+        container.timeAdded = -1;
+        containersPool.offer(container);
     }
 
     /**
      * Gets the most recent packets from the cache that pertains to the SSRC
      * that is specified as an argument, not exceeding the number of bytes
-     * specified as an argument.
+     * specified as an argument. Each of the returned containers must be given back with
+     * {@link Container#release()}.
      *
      * @param ssrc the SSRC whose most recent packets to retrieve.
      * @param bytes the maximum total size of the packets to retrieve.
@@ -367,6 +398,36 @@ public class RawPacketCache implements AutoCloseable
         return cache == null ? null : cache.getMany(bytes);
     }
 
+    /**
+     * Gets the number of requests which the cache was able to answer.
+     *
+     * @return the number of requests which the cache was able to answer.
+     */
+    public int getTotalHits()
+    {
+        return totalHits.get();
+    }
+
+    /**
+     * Gets the number of requests which the cache was not able to answer.
+     *
+     * @return the number of requests which the cache was not able to answer.
+     */
+    public int getTotalMisses()
+    {
+        return totalMisses.get();
+    }
+
+    /**
+     * Gets the number of packets dropped from the cache because of its bounds.
+     *
+     * @return the number of packets dropped from the cache because of its bounds.
+     */
+    public int getTotalEvictions()
+    {
+        return totalEvictions.get();
+    }
+
     /**
      * Updates the timestamp of the packet in the cache with SSRC {@code ssrc}
      * and sequence number {@code seq}, if such a packet exists in the cache,
@@ -390,16 +451,44 @@ public class RawPacketCache implements AutoCloseable
     }
 
     /**
-     * Implements a cache for the packets of a specific SSRC.
+     * Implements a cache for the packets of a specific SSRC. The packets are kept in a fixed
+     * size ring in which a packet occupies the slot <tt>index & mask</tt> of its packet index, so
+     * that neither the insertion nor the lookup allocate. The packets are evicted oldest first
+     * when the ring wraps or the time, packet or byte bounds are exceeded.
      */
     private class Cache
     {
         /**
-         * The underlying container. It maps a packet index (based on its RTP
-         * sequence number, in the same way as used in SRTP (RFC3711)) to the
-         * <tt>RawPacket</tt> with the packet contents.
+         * The slots of the ring. A slot holds the packet with the highest packet index (based on
+         * its RTP sequence number, in the same way as used in SRTP (RFC3711)) which maps to it.
          */
-        private TreeMap<Integer, Container> cache = new TreeMap<>();
+        private final Container[] ring = new Container[RING_SIZE];
+
+        /**
+         * The mask which maps a packet index to its slot in {@link #ring}.
+         */
+        private final int mask = RING_SIZE - 1;
+
+        /**
+         * The highest packet index inserted in this cache or <tt>-1</tt>.
+         */
+        private int headIndex = -1;
+
+        /**
+         * The lowest packet index which may still be in this cache. The cache is empty if it is
+         * greater than {@link #headIndex}.
+         */
+        private int tailIndex = 0;
+
+        /**
+         * The number of packets in this cache.
+         */
+        private int packets = 0;
+
+        /**
+         * The number of bytes of the packets in this cache.
+         */
+        private int bytes = 0;
 
         /**
          * Last system time of insertion of a packet in this cache.
@@ -420,42 +509,73 @@ public class RawPacketCache implements AutoCloseable
          * Inserts a packet into this <tt>Cache</tt>.
          *
          * @param pkt the packet to insert.
+         * @return <tt>true</tt> if the packet was inserted; <tt>false</tt> if it is too old
          */
-        private synchronized void insert(RawPacket pkt)
+        private synchronized boolean insert(RawPacket pkt)
         {
-            int len = pkt.getLength();
-            RawPacket cachePacket = getFreePacket(len);
-            System.arraycopy(pkt.getBuffer(), pkt.getOffset(), cachePacket.getBuffer(), 0, len);
-            cachePacket.setLength(len);
-
             int index = calculateIndex(pkt.getSequenceNumber());
-            Container container = getFreeContainer();
-            container.pkt = cachePacket;
-            container.timeAdded = System.currentTimeMillis();
 
+            if (headIndex == -1) {
+                headIndex = tailIndex = index;
+            }
+            else if (index > headIndex) {
+                // Evict the packets whose slots the new head will reuse.
+                int minIndex = index - RING_SIZE + 1;
+                if (tailIndex < minIndex) {
+                    if (minIndex - tailIndex > RING_SIZE) {
+                        empty();
+                        tailIndex = minIndex;
+                    }
+                    else {
+                        while (tailIndex < minIndex)
+                            evictTail();
+                    }
+                }
+                headIndex = index;
+            }
+            else if (headIndex - index >= RING_SIZE) {
+                // Too old to have a slot of its own.
+                return false;
+            }
+            else if (index < tailIndex) {
+                tailIndex = index;
+            }
+
+            int slot = index & mask;
             // If the packet is already in the cache, we want to update the
             // timeAdded field for retransmission purposes. This is implemented
             // by simply replacing the old packet.
-            Container oldContainer = cache.put(index, container);
+            if (ring[slot] != null)
+                remove(slot);
+
+            int len = pkt.getLength();
+            Container container = getFreeContainer(len);
+            RawPacket cachePacket = container.pkt;
+            System.arraycopy(pkt.getBuffer(), pkt.getOffset(), cachePacket.getBuffer(), 0, len);
+            cachePacket.setLength(len);
+
+            long now = System.currentTimeMillis();
+            container.index = index;
+            container.timeAdded = now;
+            // The reference of this cache.
+            container.references.set(1);
+            ring[slot] = container;
+            packets++;
+            bytes += len;
 
             synchronized (sizesSyncRoot) {
                 sizeInPackets++;
                 sizeInBytes += len;
-                if (oldContainer != null) {
-                    sizeInPackets--;
-                    sizeInBytes -= oldContainer.pkt.getLength();
-                }
                 if (sizeInPackets > maxSizeInPackets)
                     maxSizeInPackets = sizeInPackets;
                 if (sizeInBytes > maxSizeInBytes)
                     maxSizeInBytes = sizeInBytes;
             }
-            returnContainer(oldContainer);
-            lastInsertTime = System.currentTimeMillis();
-            clean();
+            lastInsertTime = now;
+            clean(now);
+            return true;
         }
 
-
         /**
          * Calculates the index of an RTP packet based on its RTP sequence
          * number and updates the <tt>s_l</tt> and <tt>ROC</tt> fields. Based
@@ -473,11 +593,13 @@ public class RawPacketCache implements AutoCloseable
             }
 
             int v = ROC;
-            if (s_l < 0x8000)
+            if (s_l < 0x8000) {
                 if (seq - s_l > 0x8000)
                     v = (int) ((ROC - 1) & 0xffff_ffffL);
-                else if (s_l - 0x1_0000 > seq)
-                    v = (int) ((ROC + 1) & 0xffff_ffffL);
+            }
+            else if (s_l - 0x8000 > seq) {
+                v = (int) ((ROC + 1) & 0xffff_ffffL);
+            }
 
             if (v == ROC && seq > s_l)
                 s_l = seq;
@@ -489,25 +611,21 @@ public class RawPacketCache implements AutoCloseable
         }
 
         /**
-         * Returns a copy of the RTP packet with sequence number {@code seq}
-         * from the cache, or {@code null} if the cache does not contain a
-         * packet with this sequence number.
+         * Returns the RTP packet with sequence number {@code seq} from the cache with an
+         * additional reference, or {@code null} if the cache does not contain a packet with this
+         * sequence number.
          *
          * @param seq the RTP sequence number of the packet to get.
-         * @return a copy of the RTP packet with sequence number {@code seq}
+         * @return the RTP packet with sequence number {@code seq}
          * from the cache, or {@code null} if the cache does not contain a
          * packet with this sequence number.
          */
         private synchronized Container get(int seq)
         {
             Container container = doGet(seq);
-
-            return container == null
-                    ? null
-                    : new Container(new RawPacket(container.pkt.getBuffer().clone(),
-                    container.pkt.getOffset(),
-                    container.pkt.getLength()),
-                    container.timeAdded);
+            if (container != null)
+                container.references.incrementAndGet();
+            return container;
         }
 
         /**
@@ -525,11 +643,11 @@ public class RawPacketCache implements AutoCloseable
             // Since sequence numbers wrap at 2^16, we can't know with absolute
             // certainty which packet the request refers to. We assume that it
             // is for the latest packet (i.e. the one with the highest index).
-            Container container = cache.get(seq + ROC * 0x1_0000);
+            Container container = doGetByIndex(seq + ROC * 0x1_0000);
 
             // Maybe the ROC was just bumped recently.
             if (container == null && ROC > 0)
-                container = cache.get(seq + (ROC - 1) * 0x1_0000);
+                container = doGetByIndex(seq + (ROC - 1) * 0x1_0000);
 
             // Since the cache only stores <tt>SIZE_MILLIS</tt> milliseconds of
             // packets, we assume that it doesn't contain packets spanning
@@ -537,60 +655,92 @@ public class RawPacketCache implements AutoCloseable
             return container;
         }
 
+        /**
+         * Returns the RTP packet with a specific packet index from the cache or <tt>null</tt>.
+         * Must be called with the monitor of this instance held.
+         *
+         * @param index the packet index.
+         * @return the RTP packet with packet index <tt>index</tt> or <tt>null</tt>
+         */
+        private Container doGetByIndex(int index)
+        {
+            if (index < tailIndex || index > headIndex)
+                return null;
+
+            Container container = ring[index & mask];
+            return (container != null && container.index == index) ? container : null;
+        }
+
         /**
          * Drops the oldest packets from the cache until:
-         * 1. The cache contains at most {@link #MAX_SIZE_PACKETS} packets, and
+         * 1. The cache contains at most {@link #MAX_SIZE_PACKETS} packets and
+         * {@link #MAX_SIZE_BYTES} bytes, and
          * 2. The cache only contains packets at most {@link #SIZE_MILLIS}
          * milliseconds older than the newest packet in the cache.
+         *
+         * @param now the current time in milliseconds.
          */
-        private synchronized void clean()
+        private synchronized void clean(long now)
         {
-            int size = cache.size();
-            if (size <= 0)
-                return;
-
-            long cleanBefore = System.currentTimeMillis() - SIZE_MILLIS;
-            Iterator<Map.Entry<Integer, Container>> iter = cache.entrySet().iterator();
-            int removedPackets = 0;
-            int removedBytes = 0;
-            while (iter.hasNext()) {
-                Container container = iter.next().getValue();
-                RawPacket pkt = container.pkt;
+            long cleanBefore = now - SIZE_MILLIS;
 
-                if (size > MAX_SIZE_PACKETS) {
-                    // Remove until we go under the max size, regardless of the timestamps.
-                    size--;
-                }
-                else if (container.timeAdded >= 0
-                        && container.timeAdded > cleanBefore) {
+            while (tailIndex <= headIndex) {
+                Container container = ring[tailIndex & mask];
+
+                if (container != null && container.index == tailIndex
+                        && packets <= MAX_SIZE_PACKETS && bytes <= MAX_SIZE_BYTES
+                        && container.timeAdded >= 0 && container.timeAdded > cleanBefore) {
                     // We reached a packet with a timestamp after 'cleanBefore'.
                     // The rest of the packets are even more recent.
                     break;
                 }
+                evictTail();
+            }
+        }
 
-                iter.remove();
-                removedBytes += pkt.getLength();
-                removedPackets++;
-                returnContainer(container);
+        /**
+         * Drops the packet at {@link #tailIndex}, if any, and advances the tail.
+         */
+        private void evictTail()
+        {
+            int slot = tailIndex & mask;
+            Container container = ring[slot];
+
+            if (container != null && container.index == tailIndex) {
+                remove(slot);
+                totalEvictions.incrementAndGet();
             }
+            tailIndex++;
+        }
+
+        /**
+         * Removes the packet in a specific slot of the ring and gives up the reference of this
+         * cache to it.
+         *
+         * @param slot the slot of the ring.
+         */
+        private void remove(int slot)
+        {
+            Container container = ring[slot];
+            int len = container.pkt.getLength();
+
+            ring[slot] = null;
+            packets--;
+            bytes -= len;
             synchronized (sizesSyncRoot) {
-                sizeInBytes -= removedBytes;
-                sizeInPackets -= removedPackets;
+                sizeInPackets--;
+                sizeInBytes -= len;
             }
+            container.release();
         }
 
         synchronized private void empty()
         {
-            int removedBytes = 0;
-            for (Container container : cache.values()) {
-                removedBytes += container.pkt.getBuffer().length;
-                returnContainer(container);
-            }
-            synchronized (sizesSyncRoot) {
-                sizeInPackets -= cache.size();
-                sizeInBytes -= removedBytes;
+            for (int slot = 0; slot < ring.length; slot++) {
+                if (ring[slot] != null)
+                    remove(slot);
             }
-            cache.clear();
+            tailIndex = headIndex + 1;
         }
 
         /**
@@ -604,20 +754,16 @@ public class RawPacketCache implements AutoCloseable
          */
         public synchronized Set<Container> getMany(int bytes)
         {
-            if (cache.isEmpty() || bytes < 1) {
+            if (packets == 0 || bytes < 1) {
                 return null;
             }
 
-            // XXX(gp) This is effectively Copy-on-Read and is inefficient. We
-            // should implement a Copy-on-Write method or something else that is
-            // more efficient than this..
             Set<Container> set = new HashSet<>();
 
-            Iterator<Map.Entry<Integer, Container>> it
-                    = cache.descendingMap().entrySet().iterator();
-            while (it.hasNext() && bytes > 0) {
-                Container container = it.next().getValue();
-                if (container != null && container.pkt != null) {
+            for (int index = headIndex; index >= tailIndex && bytes > 0; index--) {
+                Container container = doGetByIndex(index);
+                if (container != null) {
+                    container.references.incrementAndGet();
                     set.add(container);
                     bytes -= container.pkt.getLength();
                 }
@@ -627,7 +773,8 @@ public class RawPacketCache implements AutoCloseable
     }
 
     /**
-     * A container for packets in the cache.
+     * A reference counted container for packets in the cache. The packet of a container obtained
+     * from the cache remains valid until {@link #release()} is called.
      */
     public class Container
     {
@@ -642,6 +789,17 @@ public class RawPacketCache implements AutoCloseable
          */
         public long timeAdded;
 
+        /**
+         * The packet index (RFC3711) of {@link #pkt}.
+         */
+        private int index;
+
+        /**
+         * The number of references to this container: one held by the cache while the packet is
+         * cached and one for each container obtained from the cache and not yet released.
+         */
+        private final AtomicInteger references = new AtomicInteger();
+
         /**
          * Initializes a new empty {@link Container} instance.
          */
@@ -661,5 +819,15 @@ public class RawPacketCache implements AutoCloseable
             this.pkt = pkt;
             this.timeAdded = timeAdded;
         }
+
+        /**
+         * Gives up a reference to this container obtained from the cache. The container and its
+         * packet are recycled when the last reference is given up.
+         */
+        public void release()
+        {
+            if (references.decrementAndGet() == 0)
+                returnContainer(this);
+        }
     }
 }
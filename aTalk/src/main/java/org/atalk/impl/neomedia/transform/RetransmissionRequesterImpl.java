@@ -73,7 +73,8 @@ public class RetransmissionRequesterImpl extends SinglePacketTransformerAdapter
         this.stream = stream;
         retransmissionRequesterDelegate = new RetransmissionRequesterDelegate(stream, new TimeProvider());
         recurringRunnableExecutor.registerRecurringRunnable(retransmissionRequesterDelegate);
-        retransmissionRequesterDelegate.setWorkReadyCallback(() -> recurringRunnableExecutor.startOrNotifyThread());
+        retransmissionRequesterDelegate.setWorkReadyCallback(
+                () -> recurringRunnableExecutor.reschedule(retransmissionRequesterDelegate));
     }
 
     /**
@@ -198,6 +198,7 @@ public class RtxTransformer implements TransformEngine
     /**
      * Retransmits a packet to {@link #mediaStream}. If the destination supports the RTX format,
      * the packet will be encapsulated in RTX, otherwise, the packet will be retransmitted as-is.
+     * {@code pkt} itself is never modified, as it is shared with the packet cache.
      *
      * @param pkt the packet to retransmit.
      * @param rtxPt the RTX payload type to use for the re-transmitted packet.
@@ -229,8 +230,12 @@ public class RtxTransformer implements TransformEngine
 
         if (retransmitPlain) {
             if (mediaStream != null) {
+                // The transform chain (e.g. SRTP) works in place, so inject a copy.
+                int len = pkt.getLength();
+                byte[] buf = new byte[len];
+                System.arraycopy(pkt.getBuffer(), pkt.getOffset(), buf, 0, len);
                 try {
-                    mediaStream.injectPacket(pkt, /* data */ true, after);
+                    mediaStream.injectPacket(new RawPacket(buf, 0, len), /* data */ true, after);
                 } catch (TransmissionFailedException tfe) {
                     Timber.w("Failed to retransmit a packet.");
                     return false;
@@ -396,28 +401,31 @@ public class RtxTransformer implements TransformEngine
                 MediaStreamStats2Impl stats = mediaStream.getMediaStreamStats();
                 if (container != null) {
                     // Cache hit.
-                    long delay = now - container.timeAdded;
-                    boolean send = (rtt == -1) || (delay >= Math.min(rtt * 0.9, rtt - 5));
-
-                    Timber.d("%s retransmitting stream = %d, ssrc = %s,seq = %d,send = %s",
-                            Logger.Category.STATISTICS, mediaStream.hashCode(), mediaSSRC, seq, send);
-
-                    Byte rtxPt = apt2rtx.get(container.pkt.getPayloadType());
-                    if (send && retransmit(container.pkt, rtxPt, after)) {
-                        stats.rtpPacketRetransmitted(mediaSSRC, container.pkt.getLength());
-
-                        // We just retransmitted the packet. Update its
-                        // timestamp in the cache so that we use the new
-                        // timestamp when we handle subsequent NACKs.
-                        cache.updateTimestamp(mediaSSRC, seq, now);
-                        i.remove();
-                    }
-
-                    if (!send) {
-                        stats.rtpPacketNotRetransmitted(mediaSSRC, container.pkt.getLength());
-                        i.remove();
+                    try {
+                        long delay = now - container.timeAdded;
+                        boolean send = (rtt == -1) || (delay >= Math.min(rtt * 0.9, rtt - 5));
+
+                        Timber.d("%s retransmitting stream = %d, ssrc = %s,seq = %d,send = %s",
+                                Logger.Category.STATISTICS, mediaStream.hashCode(), mediaSSRC, seq, send);
+
+                        Byte rtxPt = apt2rtx.get(container.pkt.getPayloadType());
+                        if (send && retransmit(container.pkt, rtxPt, after)) {
+                            stats.rtpPacketRetransmitted(mediaSSRC, container.pkt.getLength());
+
+                            // We just retransmitted the packet. Update its
+                            // timestamp in the cache so that we use the new
+                            // timestamp when we handle subsequent NACKs.
+                            cache.updateTimestamp(mediaSSRC, seq, now);
+                            i.remove();
+                        }
+
+                        if (!send) {
+                            stats.rtpPacketNotRetransmitted(mediaSSRC, container.pkt.getLength());
+                            i.remove();
+                        }
+                    } finally {
+                        container.release();
                     }
-
                 }
                 else {
                     stats.rtpPacketCacheMiss(mediaSSRC);
@@ -484,34 +492,38 @@ public class RtxTransformer implements TransformEngine
         // XXX this constant is not great, however the final place of the stream
         // protection strategy is not clear at this point so I expect the code
         // will change before taking its final form.
-        for (int i = 0; i < 2; i++) {
-            Iterator<RawPacketCache.Container> it = lastNPackets.iterator();
-
-            while (it.hasNext()) {
-                RawPacketCache.Container container = it.next();
-                RawPacket pkt = container.pkt;
-                // Containers are recycled/reused, so we must check if the
-                // packet is still there.
-                if (pkt != null) {
-                    int len = container.pkt.getLength();
-                    Byte apt = rtx2apt.get(container.pkt.getPayloadType());
-
-                    // XXX if the client doesn't support RTX, then we can not
-                    // effectively ramp-up bwe using duplicates because they
-                    // would be dropped too early in the SRTP layer. So we are
-                    // forced to use the bridge's SSRC and thus increase the
-                    // probability of losses.
-
-                    if (bytes - len > 0 && apt != null) {
-                        retransmit(container.pkt, apt, this);
-                        bytes -= len;
-                    }
-                    else {
-                        // Don't break as we might be able to squeeze in the
-                        // next packet.
+        try {
+            for (int i = 0; i < 2; i++) {
+                Iterator<RawPacketCache.Container> it = lastNPackets.iterator();
+
+                while (it.hasNext()) {
+                    RawPacketCache.Container container = it.next();
+                    RawPacket pkt = container.pkt;
+                    // The containers are referenced until released below.
+                    if (pkt != null) {
+                        int len = container.pkt.getLength();
+                        Byte apt = rtx2apt.get(container.pkt.getPayloadType());
+
+                        // XXX if the client doesn't support RTX, then we can not
+                        // effectively ramp-up bwe using duplicates because they
+                        // would be dropped too early in the SRTP layer. So we are
+                        // forced to use the bridge's SSRC and thus increase the
+                        // probability of losses.
+
+                        if (bytes - len > 0 && apt != null) {
+                            retransmit(container.pkt, apt, this);
+                            bytes -= len;
+                        }
+                        else {
+                            // Don't break as we might be able to squeeze in the
+                            // next packet.
+                        }
                     }
                 }
             }
+        } finally {
+            for (RawPacketCache.Container container : lastNPackets)
+                container.release();
         }
         return bytes;
     }
@@ -24,11 +24,6 @@ public class TransformEngineChain implements TransformEngine
 	 */
 	protected TransformEngine[] engineChain;
 
-	/**
-	 * The view of {@link #engineChain} as a {@code List}.
-	 */
-	private List<TransformEngine> engineChainAsList;
-
 	/**
 	 * The sequence of <tt>PacketTransformer</tt>s that this engine chain will be applying to RTCP
 	 * packets.
@@ -256,7 +251,6 @@ public class TransformEngineChain implements TransformEngine
 	private void setEngineChain(TransformEngine[] engineChain)
 	{
 		this.engineChain = engineChain;
-		this.engineChainAsList = Arrays.asList(engineChain);
 	}
 
 	/**
@@ -273,6 +267,12 @@ public class TransformEngineChain implements TransformEngine
 		 */
 		private final boolean rtp;
 
+		/**
+		 * The <tt>PacketTransformer</tt>s of {@link #engineChain} resolved by
+		 * {@link #getStages()}.
+		 */
+		private volatile Stages stages;
+
 		/**
 		 * Creates an instance of this packet transformer and prepares it to deal with RTP or RTCP
 		 * according to the <tt>isRtp</tt> argument.
@@ -306,6 +306,24 @@ public class TransformEngineChain implements TransformEngine
 			}
 		}
 
+		/**
+		 * Gets the {@link Stages} of this transformer for the current {@link #engineChain},
+		 * resolving them anew if the engine chain has changed since they were last resolved.
+		 *
+		 * @return the <tt>Stages</tt> of this transformer for the current <tt>engineChain</tt>
+		 */
+		private Stages getStages()
+		{
+			TransformEngine[] engineChain = TransformEngineChain.this.engineChain;
+			Stages stages = this.stages;
+
+			if (stages == null || stages.engineChain != engineChain) {
+				stages = new Stages(engineChain, rtp);
+				this.stages = stages;
+			}
+			return stages;
+		}
+
 		/**
 		 * {@inheritDoc}
 		 *
@@ -315,16 +333,14 @@ public class TransformEngineChain implements TransformEngine
 		@Override
 		public RawPacket[] reverseTransform(RawPacket pkts[])
 		{
-			TransformEngine[] engineChain = TransformEngineChain.this.engineChain;
+			Stages stages = getStages();
+			PacketTransformer[] transformers = stages.transformers;
 
-			for (int i = engineChain.length - 1; i >= 0; i--) {
-				TransformEngine engine = engineChain[i];
-				PacketTransformer pTransformer
-						= rtp ? engine.getRTPTransformer() : engine.getRTCPTransformer();
+			for (int i = transformers.length - 1; i >= 0; i--) {
+				PacketTransformer pTransformer = transformers[i];
 
-				// the packet transformer may be null if for example the engine
-				// only does RTP transformations and this is an RTCP
-				// transformer.
+				if (pTransformer == null)
+					pTransformer = stages.getTransformer(i, rtp);
 				if (pTransformer != null)
 					pkts = pTransformer.reverseTransform(pkts);
 			}
@@ -358,28 +374,123 @@ public class TransformEngineChain implements TransformEngine
 		 */
 		public RawPacket[] transform(RawPacket[] pkts, TransformEngine after)
 		{
+			Stages stages = getStages();
+			PacketTransformer[] transformers = stages.transformers;
+
 			// If the specified after is in the transformation chain, the
 			// transformation is to start after it.
-			boolean lookForAfter = after != null && engineChainAsList.contains(after);
+			for (int i = (after == null) ? 0 : stages.indexAfter(after); i < transformers.length; i++) {
+				PacketTransformer transformer = transformers[i];
 
-			for (TransformEngine engine : engineChain) {
-				// Start the transformation after the specified TransformEngine.
-				if (lookForAfter) {
-					if (engine.equals(after)) {
-						lookForAfter = false;
-					}
-					continue;
-				}
-				// Transform.
-				PacketTransformer transformer
-						= rtp ? engine.getRTPTransformer() : engine.getRTCPTransformer();
-
-				// The transformer may be null if for example the engine does
-				// RTP transformations only and this is an RTCP transformer.
+				if (transformer == null)
+					transformer = stages.getTransformer(i, rtp);
 				if (transformer != null)
 					pkts = transformer.transform(pkts);
 			}
 			return pkts;
 		}
 	}
+
+	/**
+	 * The <tt>PacketTransformer</tt>s of a specific engine chain for either RTP or RTCP, resolved
+	 * once so that the transformation of a packet does not have to ask every
+	 * <tt>TransformEngine</tt> for its <tt>PacketTransformer</tt>.
+	 *
+	 * An engine which is itself the <tt>PacketTransformer</tt> it returns is resolved to itself,
+	 * and one which is a <tt>PacketTransformer</tt> but returns <tt>null</tt> does not transform
+	 * that kind of packets and is left out. Any other engine may initialize or swap its
+	 * <tt>PacketTransformer</tt> at any time (e.g. <tt>TransformEngineWrapper</tt> or the SRTP
+	 * engines) and is still asked for it on every transformation.
+	 */
+	private static class Stages
+	{
+		/**
+		 * The engine chain these <tt>Stages</tt> have been resolved from.
+		 */
+		final TransformEngine[] engineChain;
+
+		/**
+		 * The <tt>TransformEngine</tt> of each stage.
+		 */
+		final TransformEngine[] engines;
+
+		/**
+		 * The index in {@link #engineChain} of the engine of each stage.
+		 */
+		final int[] positions;
+
+		/**
+		 * The resolved <tt>PacketTransformer</tt> of each stage; <tt>null</tt> if it is to be
+		 * retrieved from the engine on every transformation.
+		 */
+		final PacketTransformer[] transformers;
+
+		/**
+		 * Resolves the <tt>PacketTransformer</tt>s of a specific engine chain.
+		 *
+		 * @param engineChain the engine chain to resolve the <tt>PacketTransformer</tt>s of
+		 * @param rtp <tt>true</tt> to resolve the RTP transformers; <tt>false</tt> for the RTCP ones
+		 */
+		Stages(TransformEngine[] engineChain, boolean rtp)
+		{
+			int count = 0;
+			TransformEngine[] engines = new TransformEngine[engineChain.length];
+			int[] positions = new int[engineChain.length];
+			PacketTransformer[] transformers = new PacketTransformer[engineChain.length];
+
+			for (int i = 0; i < engineChain.length; i++) {
+				TransformEngine engine = engineChain[i];
+				PacketTransformer transformer
+						= rtp ? engine.getRTPTransformer() : engine.getRTCPTransformer();
+
+				if (transformer == null && engine instanceof PacketTransformer)
+					continue;
+
+				engines[count] = engine;
+				positions[count] = i;
+				transformers[count] = (transformer == engine) ? transformer : null;
+				count++;
+			}
+
+			this.engineChain = engineChain;
+			this.engines = Arrays.copyOf(engines, count);
+			this.positions = Arrays.copyOf(positions, count);
+			this.transformers = Arrays.copyOf(transformers, count);
+		}
+
+		/**
+		 * Retrieves the current <tt>PacketTransformer</tt> of the engine of a specific stage.
+		 *
+		 * @param stage the index of the stage
+		 * @param rtp <tt>true</tt> for the RTP transformer; <tt>false</tt> for the RTCP one
+		 * @return the current <tt>PacketTransformer</tt> of the engine of <tt>stage</tt>; may be
+		 * <tt>null</tt>
+		 */
+		PacketTransformer getTransformer(int stage, boolean rtp)
+		{
+			TransformEngine engine = engines[stage];
+			return rtp ? engine.getRTPTransformer() : engine.getRTCPTransformer();
+		}
+
+		/**
+		 * Gets the index of the first stage after a specific <tt>TransformEngine</tt>.
+		 *
+		 * @param after the <tt>TransformEngine</tt> after which the transformation is to begin
+		 * @return the index of the first stage after <tt>after</tt> or <tt>0</tt> if
+		 * <tt>after</tt> is not in {@link #engineChain}
+		 */
+		int indexAfter(TransformEngine after)
+		{
+			for (int i = 0; i < engineChain.length; i++) {
+				if (after.equals(engineChain[i])) {
+					int stage = 0;
+
+					while (stage < positions.length && positions[stage] <= i)
+						stage++;
+					return stage;
+				}
+			}
+			return 0;
+		}
+	}
 }
@@ -134,6 +134,8 @@ public class DtlsControlImpl extends AbstractSrtpControl<DtlsTransformEngine> im
      * The <tt>SRTPProtectionProfile</tt>s supported by <tt>DtlsControlImpl</tt>.
      */
     static final int[] SRTP_PROTECTION_PROFILES = {
+            SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM,
+            SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM,
             SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80,
             SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32
     };
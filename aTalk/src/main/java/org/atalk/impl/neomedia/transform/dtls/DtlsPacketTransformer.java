@@ -534,23 +534,21 @@ public class DtlsPacketTransformer implements PacketTransformer, PropertyChangeL
              * not located in the authentication tag field provided by SRTP/SRTCP.
              */
             case SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM:
-                Timber.w("Unsupported RFC-7714 SRTP profile: %s", SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM);
-                cipher = SRTPPolicy.AESCM_ENCRYPTION;
+                cipher = SRTPPolicy.AESGCM_ENCRYPTION;
                 cipher_key_length = 128 / 8;
                 cipher_salt_length = 96 / 8;
                 aead_auth_tag_length = 16; // 16 octets
-                auth_function = SRTPPolicy.NULL_ENCRYPTION;
+                auth_function = SRTPPolicy.NULL_AUTHENTICATION;
                 auth_key_length = 0;        // NA
                 RTP_auth_tag_length = 0;    // NA
                 RTCP_auth_tag_length = 0;   // NA
                 break;
             case SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM:
-                Timber.w("Unsupported RFC-7714 SRTP profile: %s", SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM);
-                cipher = SRTPPolicy.AESCM_ENCRYPTION;
+                cipher = SRTPPolicy.AESGCM_ENCRYPTION;
                 cipher_key_length = 256 / 8;
                 cipher_salt_length = 96 / 8;
                 aead_auth_tag_length = 16; // 16 octets
-                auth_function = SRTPPolicy.NULL_ENCRYPTION;
+                auth_function = SRTPPolicy.NULL_AUTHENTICATION;
                 auth_key_length = 0;        // NA
                 RTP_auth_tag_length = 0;    // NA
                 RTCP_auth_tag_length = 0;   // NA
@@ -0,0 +1,202 @@
+/*
+ * Copyright @ 2015 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.rtcp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the per-SSRC counters of the RTCP reports sent by a {@link StatisticsEngine} in an
+ * open-addressing table keyed by the primitive SSRC.
+ *
+ * Looking up the {@link Slot} of a known SSRC neither locks nor allocates and the counters of a
+ * slot are updated atomically, so threads sending and receiving on different SSRCs do not
+ * contend. Only the first report of a new SSRC takes the lock of the table. The totals are
+ * computed from a snapshot of the slots without blocking the writers.
+ *
+ * @author Eng Chong Meng
+ */
+class RTCPReportStatsTable
+{
+    /**
+     * The initial capacity of the table; a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The slots of the table, indexed by the hash of their SSRC with linear probing. Replaced as
+     * a whole when the table grows so that readers never see a partially rehashed table.
+     */
+    private volatile Slot[] slots = new Slot[INITIAL_CAPACITY];
+
+    /**
+     * The number of slots in {@link #slots}; guarded by <tt>this</tt>.
+     */
+    private int size = 0;
+
+    /**
+     * Looks up the slot of a specific SSRC in a specific table.
+     *
+     * @param slots the table to look the SSRC up in
+     * @param ssrc the SSRC to look up
+     * @return the <tt>Slot</tt> of <tt>ssrc</tt> or <tt>null</tt> if not (yet visibly) present
+     */
+    private static Slot find(Slot[] slots, long ssrc)
+    {
+        int mask = slots.length - 1;
+
+        for (int i = hash(ssrc) & mask; ; i = (i + 1) & mask) {
+            Slot slot = slots[i];
+            if (slot == null || slot.ssrc == ssrc)
+                return slot;
+        }
+    }
+
+    /**
+     * Spreads the bits of a specific SSRC over the index of a slot.
+     *
+     * @param ssrc the SSRC to hash
+     * @return the hash of <tt>ssrc</tt>
+     */
+    private static int hash(long ssrc)
+    {
+        int h = (int) (ssrc ^ (ssrc >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Inserts a specific slot into a specific table which has a free slot.
+     *
+     * @param slots the table to insert into
+     * @param slot the <tt>Slot</tt> to insert
+     */
+    private static void insert(Slot[] slots, Slot slot)
+    {
+        int mask = slots.length - 1;
+        int i = hash(slot.ssrc) & mask;
+
+        while (slots[i] != null)
+            i = (i + 1) & mask;
+        slots[i] = slot;
+    }
+
+    /**
+     * Gets the slot of a specific SSRC, adding it if necessary.
+     *
+     * @param ssrc the SSRC to get the slot of
+     * @return the <tt>Slot</tt> of <tt>ssrc</tt>
+     */
+    Slot getSlot(long ssrc)
+    {
+        Slot slot = find(slots, ssrc);
+
+        if (slot == null) {
+            synchronized (this) {
+                Slot[] slots = this.slots;
+
+                slot = find(slots, ssrc);
+                if (slot == null) {
+                    slot = new Slot(ssrc);
+                    if (2 * (size + 1) > slots.length) {
+                        Slot[] newSlots = new Slot[2 * slots.length];
+
+                        for (Slot s : slots) {
+                            if (s != null)
+                                insert(newSlots, s);
+                        }
+                        insert(newSlots, slot);
+                        this.slots = newSlots;
+                    }
+                    else {
+                        // The fields of a Slot are final so it is safely published.
+                        insert(slots, slot);
+                    }
+                    size++;
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of RTCP reports sent for a specific SSRC.
+     *
+     * @param ssrc the SSRC
+     * @return the number of RTCP reports sent for <tt>ssrc</tt>
+     */
+    long getNumberOfReports(long ssrc)
+    {
+        Slot slot = find(slots, ssrc);
+        return (slot == null) ? 0 : slot.numberOfReports.get();
+    }
+
+    /**
+     * Gets the number of RTCP reports sent for all SSRCs.
+     *
+     * @return the number of RTCP reports sent for all SSRCs
+     */
+    long getTotalNumberOfReports()
+    {
+        long total = 0;
+
+        for (Slot slot : slots) {
+            if (slot != null)
+                total += slot.numberOfReports.get();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the sum of the jitter values reported for all SSRCs.
+     *
+     * @return the sum of the jitter values reported for all SSRCs, in RTP timestamp units
+     */
+    long getTotalJitterSum()
+    {
+        long total = 0;
+
+        for (Slot slot : slots) {
+            if (slot != null)
+                total += slot.jitterSum.get();
+        }
+        return total;
+    }
+
+    /**
+     * The counters of a single SSRC.
+     */
+    static class Slot
+    {
+        /**
+         * The SSRC the counters of which are kept by this slot.
+         */
+        final long ssrc;
+
+        /**
+         * The number of RTCP sender reports (SR) and/or receiver reports (RR) sent.
+         */
+        final AtomicLong numberOfReports = new AtomicLong();
+
+        /**
+         * The sum of the jitter values reported, in RTP timestamp units.
+         */
+        final AtomicLong jitterSum = new AtomicLong();
+
+        Slot(long ssrc)
+        {
+            this.ssrc = ssrc;
+        }
+    }
+}
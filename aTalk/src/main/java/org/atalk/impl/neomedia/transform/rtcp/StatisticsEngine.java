@@ -88,7 +88,7 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
     /**
      * The minimum inter arrival jitter value we have reported, in RTP timestamp units.
      */
-    private long maxInterArrivalJitter = 0;
+    private volatile long maxInterArrivalJitter = 0;
 
     /**
      * The stream created us.
@@ -103,17 +103,13 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
     /**
      * The minimum inter arrival jitter value we have reported, in RTP timestamp units.
      */
-    private long minInterArrivalJitter = -1;
+    private volatile long minInterArrivalJitter = -1;
 
     /**
-     * The number of RTCP sender reports (SR) and/or receiver reports (RR) sent. Mapped per ssrc.
+     * The number of RTCP sender reports (SR) and/or receiver reports (RR) sent and the sum of the
+     * jitter values we have reported in them, in RTP timestamp units. Kept per ssrc.
      */
-    private final Map<Long, Long> numberOfRTCPReportsMap = new HashMap<>();
-
-    /**
-     * The sum of the jitter values we have reported in RTCP reports, in RTP timestamp units.
-     */
-    private final Map<Long, Long> jitterSumMap = new HashMap<>();
+    private final RTCPReportStatsTable rtcpReportStats = new RTCPReportStatsTable();
 
     /**
      * The {@link RTCPPacketParserEx} which this instance will use to parse RTCP packets.
@@ -613,8 +609,8 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
      */
     public double getAvgInterArrivalJitter()
     {
-        long numberOfRTCPReports = getCumulativeValue(numberOfRTCPReportsMap);
-        long jitterSum = getCumulativeValue(jitterSumMap);
+        long numberOfRTCPReports = rtcpReportStats.getTotalNumberOfReports();
+        long jitterSum = rtcpReportStats.getTotalJitterSum();
 
         return numberOfRTCPReports == 0 ? 0 : ((double) jitterSum) / numberOfRTCPReports;
     }
@@ -889,7 +885,8 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
                 long ssrc = feedback.getSSRC();
                 long jitter = feedback.getJitter();
 
-                incrementSSRCCounter(numberOfRTCPReportsMap, ssrc, 1);
+                RTCPReportStatsTable.Slot stats = rtcpReportStats.getSlot(ssrc);
+                long numberOfRTCPReports = stats.numberOfReports.incrementAndGet();
 
                 if (jitter < getMinInterArrivalJitter()
                         || getMinInterArrivalJitter() == -1) {
@@ -898,10 +895,9 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
                 if (getMaxInterArrivalJitter() < jitter)
                     maxInterArrivalJitter = jitter;
 
-                incrementSSRCCounter(jitterSumMap, ssrc, jitter);
+                stats.jitterSum.addAndGet(jitter);
 
                 if (TimberLog.isTraceEnable) {
-                    long numberOfRTCPReports = getMapValue(numberOfRTCPReportsMap, ssrc);
                     // As sender reports are sent on every 5 seconds, print
                     // every 4th packet, on every 20 seconds.
                     if (numberOfRTCPReports % 4 == 1) {
@@ -933,60 +929,6 @@ public class StatisticsEngine extends SinglePacketTransformer implements Transfo
         }
     }
 
-    /**
-     * Computes the sum of the values of a specific {@code Map} with {@code Long} values.
-     *
-     * @param map the {@code Map} with {@code Long} values to sum up. Note that
-     * we synchronize on this object!
-     * @return the sum of the values of the specified {@code map}
-     */
-    private static long getCumulativeValue(Map<?, Long> map)
-    {
-        long cumulativeValue = 0;
-
-        synchronized (map) {
-            for (Long value : map.values()) {
-                if (value == null)
-                    continue;
-                cumulativeValue += value;
-            }
-        }
-        return cumulativeValue;
-    }
-
-    /**
-     * Utility method to return a value from a map and perform unboxing only if
-     * the result value is not null.
-     *
-     * @param map the map to get the value. Note that we synchronize on that object!
-     * @param ssrc the key
-     * @return the result value or 0 if nothing is found.
-     */
-    private static long getMapValue(Map<?, Long> map, long ssrc)
-    {
-        synchronized (map) {
-            // there can be no entry, or the value can be null
-            Long res = map.get(ssrc);
-            return res == null ? 0 : res;
-        }
-    }
-
-    /**
-     * Utility method to increment map value with specified step. If entry is missing add it.
-     *
-     * @param map the map holding the values. Note that we synchronize on that
-     * object!
-     * @param ssrc the key of the value to increment
-     * @param step increment step value
-     */
-    private static void incrementSSRCCounter(Map<Long, Long> map, long ssrc, long step)
-    {
-        synchronized (map) {
-            Long count = map.get(ssrc);
-            map.put(ssrc, (count == null) ? step : (count + step));
-        }
-    }
-
     private class RTPPacketTransformer extends SinglePacketTransformerAdapter
     {
         private RTPPacketTransformer()
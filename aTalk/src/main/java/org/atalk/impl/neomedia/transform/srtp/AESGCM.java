@@ -0,0 +1,198 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.atalk.service.configuration.ConfigurationService;
+import org.atalk.service.libjitsi.LibJitsi;
+import org.atalk.util.ConfigUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import timber.log.Timber;
+
+/**
+ * Implements a factory for the {@link SRTPCipherGCM} used by the RFC 7714 AEAD crypto contexts.
+ *
+ * The BouncyCastle and the <tt>javax.crypto.Cipher</tt> implementations are benchmarked once on
+ * first use and the fastest one, which has also proven to produce the same output as the other,
+ * is elected for all subsequent crypto contexts.
+ *
+ * @author Eng Chong Meng
+ */
+public class AESGCM
+{
+    /**
+     * The name of the <tt>ConfigurationService</tt> and/or <tt>System</tt> property which specifies
+     * the <tt>SRTPCipherGCM</tt> implementation to be used i.e. <tt>Java</tt> or <tt>Provider</tt>,
+     * overriding the benchmark.
+     */
+    private static final String IMPLEMENTATION_PNAME = AESGCM.class.getName() + ".implementation";
+
+    /**
+     * The <tt>SRTPCipherGCM</tt> implementation specified by {@link #IMPLEMENTATION_PNAME}.
+     */
+    private static final String IMPLEMENTATION;
+
+    /**
+     * The number of packets encrypted by each implementation during the benchmark.
+     */
+    private static final int BENCHMARK_PACKETS = 256;
+
+    /**
+     * The payload length of the packets encrypted during the benchmark i.e. a typical video RTP
+     * payload.
+     */
+    private static final int BENCHMARK_PAYLOAD_LEN = 1200;
+
+    /**
+     * The length of the additional authenticated data i.e. a fixed RTP header.
+     */
+    private static final int BENCHMARK_AAD_LEN = 12;
+
+    /**
+     * The indicator which determines whether the <tt>javax.crypto.Cipher</tt> implementation has
+     * been elected; <tt>null</tt> until the benchmark has been run.
+     */
+    private static Boolean useProvider;
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+
+        IMPLEMENTATION = ConfigUtils.getString(cfg, IMPLEMENTATION_PNAME, null);
+    }
+
+    /**
+     * Initializes a new <tt>SRTPCipherGCM</tt> instance for a specific key size.
+     *
+     * @param keySize the AES key size in bytes (16 or 32)
+     * @return a new <tt>SRTPCipherGCM</tt> instance
+     */
+    public static SRTPCipherGCM createCipher(int keySize)
+    {
+        boolean useProvider;
+
+        synchronized (AESGCM.class) {
+            if (AESGCM.useProvider == null) {
+                if ("Provider".equalsIgnoreCase(IMPLEMENTATION))
+                    AESGCM.useProvider = createProviderCipher() != null;
+                else if ("Java".equalsIgnoreCase(IMPLEMENTATION))
+                    AESGCM.useProvider = false;
+                else
+                    AESGCM.useProvider = benchmark(keySize);
+
+                Timber.i("Will employ AES-GCM implemented by %s",
+                        AESGCM.useProvider ? "Provider" : "Java");
+            }
+            useProvider = AESGCM.useProvider;
+        }
+
+        if (useProvider) {
+            SRTPCipherGCM cipher = createProviderCipher();
+            if (cipher != null)
+                return cipher;
+        }
+        return new SRTPCipherGCMJava(keySize);
+    }
+
+    /**
+     * Initializes a new <tt>SRTPCipherGCMProvider</tt> instance.
+     *
+     * @return a new <tt>SRTPCipherGCMProvider</tt> instance or <tt>null</tt> if no installed
+     * <tt>java.security.Provider</tt> implements AES-GCM
+     */
+    private static SRTPCipherGCM createProviderCipher()
+    {
+        try {
+            return new SRTPCipherGCMProvider();
+        } catch (Throwable t) {
+            if (t instanceof ThreadDeath)
+                throw (ThreadDeath) t;
+            Timber.w("Failed to initialize AES-GCM of a security provider: %s", t.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Benchmarks the <tt>SRTPCipherGCM</tt> implementations.
+     *
+     * @param keySize the AES key size in bytes to benchmark with
+     * @return <tt>true</tt> if the <tt>javax.crypto.Cipher</tt> implementation is functional and
+     * faster than the BouncyCastle one; otherwise, <tt>false</tt>
+     */
+    private static boolean benchmark(int keySize)
+    {
+        SRTPCipherGCM provider = createProviderCipher();
+        if (provider == null)
+            return false;
+
+        Random random = new Random();
+        byte[] key = new byte[keySize];
+        byte[] iv = new byte[SRTPCipherGCM.IV_LEN];
+        byte[] in = new byte[BENCHMARK_AAD_LEN + BENCHMARK_PAYLOAD_LEN];
+        byte[] javaOut = new byte[in.length + SRTPCipherGCM.TAG_LEN];
+        byte[] providerOut = new byte[javaOut.length];
+
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(in);
+
+        try {
+            SRTPCipherGCM java = new SRTPCipherGCMJava(keySize);
+            java.init(key);
+            provider.init(key);
+
+            // Both implementations must agree before the faster one may be elected.
+            encrypt(java, iv, in, javaOut);
+            encrypt(provider, iv, in, providerOut);
+            if (!Arrays.equals(javaOut, providerOut)) {
+                Timber.w("AES-GCM of a security provider produced an unexpected output");
+                return false;
+            }
+
+            long javaTime = benchmark(java, iv, in, javaOut);
+            long providerTime = benchmark(provider, iv, in, providerOut);
+
+            Timber.i("AES-GCM benchmark (of execution times expressed in nanoseconds): Java %d, Provider %d",
+                    javaTime, providerTime);
+            return providerTime < javaTime;
+        } catch (Throwable t) {
+            if (t instanceof ThreadDeath)
+                throw (ThreadDeath) t;
+            Timber.w("Failed to benchmark AES-GCM: %s", t.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Encrypts {@link #BENCHMARK_PACKETS} packets using a specific <tt>SRTPCipherGCM</tt>.
+     *
+     * @return the execution time in nanoseconds
+     */
+    private static long benchmark(SRTPCipherGCM cipher, byte[] iv, byte[] in, byte[] out)
+    {
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < BENCHMARK_PACKETS; i++) {
+            // A GCM nonce must never be reused with the same key.
+            if (++iv[11] == 0)
+                ++iv[10];
+            encrypt(cipher, iv, in, out);
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Encrypts a single packet, the first {@link #BENCHMARK_AAD_LEN} bytes of which are the header.
+     */
+    private static void encrypt(SRTPCipherGCM cipher, byte[] iv, byte[] in, byte[] out)
+    {
+        cipher.start(true, iv);
+        cipher.updateAAD(in, 0, BENCHMARK_AAD_LEN);
+        if (cipher.doFinal(in, BENCHMARK_AAD_LEN, in.length - BENCHMARK_AAD_LEN, out, 0) < 0)
+            throw new IllegalStateException("doFinal");
+    }
+}
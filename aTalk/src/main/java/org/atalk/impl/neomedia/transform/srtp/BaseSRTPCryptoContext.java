@@ -24,10 +24,13 @@
 package org.atalk.impl.neomedia.transform.srtp;
 
 import org.atalk.bccontrib.macs.SkeinMac;
+import org.atalk.bccontrib.params.ParametersForSkein;
 import org.atalk.service.neomedia.ByteArrayBuffer;
 import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bouncycastle.crypto.params.KeyParameter;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 
 /**
@@ -47,6 +50,12 @@ import java.util.Arrays;
  * assigned manually, or can be assigned automatically using some key management protocol, such as
  * MIKEY (RFC3830), SDES (RFC4568) or Phil Zimmermann's ZRTP protocol (RFC6189).
  *
+ * The derived session keys are held in an immutable {@link SessionKeys} instance which is
+ * published atomically once derived. The ciphers, the MAC and the scratch buffers used to protect
+ * packets are held by one thread at a time (see {@link CipherState}), taken out of a pool of this
+ * context for the duration of a packet or a batch, so that the send, receive and retransmission
+ * threads do not contend on a shared monitor while encrypting. The pool is cleared on close.
+ *
  * @author Bing SU (nova.su@gmail.com)
  * @author Lyubomir Marinov
  * @author Eng Chong Meng
@@ -59,34 +68,166 @@ public class BaseSRTPCryptoContext
 	protected static final long REPLAY_WINDOW_SIZE = 64;
 
 	/**
-	 * Derived session authentication key
+	 * The session keys derived from the master keys, immutable once published.
 	 */
-	protected final byte[] authKey;
+	protected static class SessionKeys
+	{
+		/**
+		 * Derived session authentication key
+		 */
+		final byte[] authKey;
+
+		/**
+		 * Derived session encryption key
+		 */
+		final byte[] encKey;
+
+		/**
+		 * Derived session salting key
+		 */
+		final byte[] saltKey;
+
+		SessionKeys(byte[] encKey, byte[] authKey, byte[] saltKey)
+		{
+			this.encKey = encKey;
+			this.authKey = authKey;
+			this.saltKey = saltKey;
+		}
 
-	/**
-	 * implements the counter cipher mode for RTP according to RFC 3711
-	 */
-    protected final SRTPCipherCTR cipherCtr;
+		/**
+		 * Deletes the key data.
+		 */
+		void clear()
+		{
+			if (encKey != null)
+				Arrays.fill(encKey, (byte) 0);
+			if (authKey != null)
+				Arrays.fill(authKey, (byte) 0);
+			if (saltKey != null)
+				Arrays.fill(saltKey, (byte) 0);
+		}
+	}
 
 	/**
-     * F8 mode cipher
+	 * The ciphers, the MAC and the scratch buffers used by a single thread at a time to protect
+	 * packets.
 	 */
-    protected final SRTPCipherF8 cipherF8;
+	protected static class CipherState
+	{
+		/**
+		 * implements the counter cipher mode for RTP according to RFC 3711
+		 */
+		final SRTPCipherCTR cipherCtr;
+
+		/**
+		 * F8 mode cipher
+		 */
+		final SRTPCipherF8 cipherF8;
+
+		/**
+		 * Galois/Counter mode AEAD cipher, RFC 7714
+		 */
+		final SRTPCipherGCM cipherGcm;
+
+		/**
+		 * The buffers of the packets of a batch handed to the counter mode cipher at once.
+		 */
+		byte[][] batchBufs = new byte[0][];
+
+		/**
+		 * The initialization vectors of the packets of a batch, 16 bytes each.
+		 */
+		byte[] batchIvs = new byte[0];
+
+		/**
+		 * The lengths of the encrypted portions of the packets of a batch.
+		 */
+		int[] batchLens = new int[0];
+
+		/**
+		 * The offsets of the encrypted portions of the packets of a batch.
+		 */
+		int[] batchOffs = new int[0];
+
+		/**
+		 * The ROCs of the packets of a batch.
+		 */
+		int[] batchRocs = new int[0];
+
+		/**
+		 * Temp store of the RFC 7714 initialization vector.
+		 */
+		final byte[] gcmIv = new byte[SRTPCipherGCM.IV_LEN];
+
+		/**
+		 * Temp store.
+		 */
+		final byte[] ivStore = new byte[16];
+
+		/**
+		 * The session keys the ciphers and the MAC have been initialized with.
+		 */
+		SessionKeys keys;
+
+		/**
+		 * The HMAC object we used to do packet authentication
+		 */
+		final Mac mac;
+
+		/**
+		 * Temp store.
+		 */
+		final byte[] rbStore = new byte[4];
+
+		/**
+		 * Temp store.
+		 */
+		final byte[] tagStore;
+
+		/**
+		 * this is a working store, used by some methods to avoid new operations the methods must
+		 * use this only to store results for immediate processing
+		 */
+		final byte[] tempStore = new byte[100];
+
+		CipherState(SRTPCipherCTR cipherCtr, SRTPCipherF8 cipherF8, SRTPCipherGCM cipherGcm,
+				Mac mac, byte[] tagStore)
+		{
+			this.cipherCtr = cipherCtr;
+			this.cipherF8 = cipherF8;
+			this.cipherGcm = cipherGcm;
+			this.mac = mac;
+			this.tagStore = tagStore;
+		}
 
-	/**
-	 * Derived session encryption key
-	 */
-	protected final byte[] encKey;
+		/**
+		 * Makes sure that the batch scratch buffers can hold a specific number of packets.
+		 *
+		 * @param count the number of packets in the batch
+		 */
+		void ensureBatchCapacity(int count)
+		{
+			if (batchRocs.length < count) {
+				batchBufs = new byte[count][];
+				batchIvs = new byte[count * SRTPCipherCTR.BLKLEN];
+				batchLens = new int[count];
+				batchOffs = new int[count];
+				batchRocs = new int[count];
+			}
+		}
+	}
 
 	/**
-	 * Temp store.
+	 * The <tt>CipherState</tt>s which are not used by any thread at this time. Also guards
+	 * {@link #closed}.
 	 */
-	protected final byte[] ivStore = new byte[16];
+	private final ArrayDeque<CipherState> idleCipherStates = new ArrayDeque<>();
 
 	/**
-	 * The HMAC object we used to do packet authentication
+	 * Whether this context has been closed, i.e. the <tt>CipherState</tt>s handed back are to be
+	 * cleared rather than pooled.
 	 */
-	protected final Mac mac; // used for various HMAC computations
+	private boolean closed = false;
 
 	/**
 	 * Master encryption key
@@ -108,54 +249,31 @@ public class BaseSRTPCryptoContext
 	 */
 	protected final SRTPPolicy policy;
 
-	/**
-	 * Temp store.
-	 */
-	protected final byte[] rbStore = new byte[4];
-
 	/**
 	 * Bit mask for replay check
 	 */
 	protected long replayWindow;
 
 	/**
-	 * Derived session salting key
+	 * The session keys derived from the master keys or <tt>null</tt> if they have not been
+	 * derived yet or this context has been closed.
 	 */
-	protected final byte[] saltKey;
+	protected volatile SessionKeys sessionKeys;
 
 	/**
 	 * RTP/RTCP SSRC of this cryptographic context
 	 */
 	protected final int ssrc;
 
-	/**
-	 * Temp store.
-	 */
-	protected final byte[] tagStore;
-
-	/**
-	 * this is a working store, used by some methods to avoid new operations the methods must use
-	 * this only to store results for immediate processing
-	 */
-	protected final byte[] tempStore = new byte[100];
-
 	protected BaseSRTPCryptoContext(int ssrc)
 	{
 		this.ssrc = ssrc;
 
-		authKey = null;
-        cipherCtr = null;
-		cipherF8 = null;
-		encKey = null;
-		mac = null;
 		masterKey = null;
 		masterSalt = null;
 		policy = null;
-		saltKey = null;
-		tagStore = null;
 	}
 
-	@SuppressWarnings("fallthrough")
 	protected BaseSRTPCryptoContext(int ssrc, byte[] masterK, byte[] masterS, SRTPPolicy policy)
 	{
 		this.ssrc = ssrc;
@@ -170,105 +288,238 @@ public class BaseSRTPCryptoContext
 
 		masterSalt = new byte[saltKeyLength];
 		System.arraycopy(masterS, 0, masterSalt, 0, saltKeyLength);
+	}
 
-        SRTPCipherCTR cipherCtr = null;
-        SRTPCipherF8 cipherF8 = null;
-		byte[] encKey = null;
-		byte[] saltKey = null;
+	/**
+	 * Authenticates a packet. Calculated authentication tag is returned/stored in
+	 * {@link CipherState#tagStore}.
+	 *
+	 * @param cs
+	 *        the <tt>CipherState</tt> of the current thread
+	 * @param pkt
+	 *        the RTP packet to be authenticated
+	 * @param rocIn
+	 *        Roll-Over-Counter
+	 */
+	protected static void authenticatePacketHMAC(CipherState cs, ByteArrayBuffer pkt, int rocIn)
+	{
+		Mac mac = cs.mac;
+		byte[] rbStore = cs.rbStore;
+
+		mac.update(pkt.getBuffer(), pkt.getOffset(), pkt.getLength());
+		rbStore[0] = (byte) (rocIn >> 24);
+		rbStore[1] = (byte) (rocIn >> 16);
+		rbStore[2] = (byte) (rocIn >> 8);
+		rbStore[3] = (byte) rocIn;
+		mac.update(rbStore, 0, rbStore.length);
+		mac.doFinal(cs.tagStore, 0);
+	}
+
+	/**
+	 * Closes this crypto context. The close functions deletes key data and performs a cleanup of
+	 * this crypto context. Clean up key data, maybe this is the second time. However, sometimes we
+	 * cannot know if the CryptoContext was used and the application called deriveSrtpKeys(...).
+	 */
+	synchronized public void close()
+	{
+		Arrays.fill(masterKey, (byte) 0);
+		Arrays.fill(masterSalt, (byte) 0);
+
+		SessionKeys sessionKeys = this.sessionKeys;
+		if (sessionKeys != null) {
+			this.sessionKeys = null;
+			sessionKeys.clear();
+		}
+
+		synchronized (idleCipherStates) {
+			closed = true;
+			for (CipherState cs : idleCipherStates)
+				clearCipherState(cs);
+			idleCipherStates.clear();
+		}
+	}
+
+	/**
+	 * Initializes a new counter mode cipher as specified by the policy of this context. The
+	 * counter mode cipher is also the pseudo-random function of the session keys derivation.
+	 *
+	 * @return a new <tt>SRTPCipherCTR</tt> or <tt>null</tt> for <tt>NULL_ENCRYPTION</tt>
+	 */
+	protected SRTPCipherCTR createCipherCTR()
+	{
+		int encKeyLength = policy.getEncKeyLength();
 
 		switch (policy.getEncType()) {
+			case SRTPPolicy.AESF8_ENCRYPTION:
+			case SRTPPolicy.AESGCM_ENCRYPTION:
+			case SRTPPolicy.AESCM_ENCRYPTION:
+				// use OpenSSL if available and AES128 is in use
+				if (OpenSSLWrapperLoader.isLoaded() && encKeyLength == 16) {
+					return new SRTPCipherCTROpenSSL();
+				}
+				else {
+					return new SRTPCipherCTRJava(AES.createBlockCipher(encKeyLength));
+				}
+
+			case SRTPPolicy.TWOFISHF8_ENCRYPTION:
+			case SRTPPolicy.TWOFISH_ENCRYPTION:
+				return new SRTPCipherCTRJava(new TwofishEngine());
+
 			case SRTPPolicy.NULL_ENCRYPTION:
-				break;
+			default:
+				return null;
+		}
+	}
 
-			case SRTPPolicy.AESF8_ENCRYPTION:
-            	cipherF8 = new SRTPCipherF8(AES.createBlockCipher(encKeyLength));
-				//$FALL-THROUGH$
+	/**
+	 * Initializes a new <tt>CipherState</tt> with the ciphers and the MAC specified by the policy
+	 * of this context.
+	 *
+	 * @return a new <tt>CipherState</tt>
+	 */
+	private CipherState createCipherState()
+	{
+		SRTPCipherF8 cipherF8 = null;
+		SRTPCipherGCM cipherGcm = null;
 
-			case SRTPPolicy.AESCM_ENCRYPTION:
-	            // use OpenSSL if available and AES128 is in use
-	            if (OpenSSLWrapperLoader.isLoaded() && encKeyLength == 16) {
-	                cipherCtr = new SRTPCipherCTROpenSSL();
-	            }
-	            else {
-	                cipherCtr = new SRTPCipherCTRJava(AES.createBlockCipher(encKeyLength));
-	            }
-				encKey = new byte[encKeyLength];
-				saltKey = new byte[saltKeyLength];
+		switch (policy.getEncType()) {
+			case SRTPPolicy.AESF8_ENCRYPTION:
+				cipherF8 = new SRTPCipherF8(AES.createBlockCipher(policy.getEncKeyLength()));
 				break;
 
 			case SRTPPolicy.TWOFISHF8_ENCRYPTION:
- 	           cipherF8 = new SRTPCipherF8(new TwofishEngine());
-				//$FALL-THROUGH$
+				cipherF8 = new SRTPCipherF8(new TwofishEngine());
+				break;
 
-			case SRTPPolicy.TWOFISH_ENCRYPTION:
-            	cipherCtr = new SRTPCipherCTRJava(new TwofishEngine());
-				encKey = new byte[encKeyLength];
-				saltKey = new byte[saltKeyLength];
+			case SRTPPolicy.AESGCM_ENCRYPTION:
+				cipherGcm = AESGCM.createCipher(policy.getEncKeyLength());
 				break;
 		}
-        this.cipherCtr = cipherCtr;
-		this.cipherF8 = cipherF8;
-		this.encKey = encKey;
-		this.saltKey = saltKey;
 
-		byte[] authKey;
 		Mac mac;
 		byte[] tagStore;
 
 		switch (policy.getAuthType()) {
 			case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-				authKey = new byte[policy.getAuthKeyLength()];
 				mac = HMACSHA1.createMac();
 				tagStore = new byte[mac.getMacSize()];
 				break;
 
 			case SRTPPolicy.SKEIN_AUTHENTICATION:
-				authKey = new byte[policy.getAuthKeyLength()];
 				mac = new SkeinMac();
 				tagStore = new byte[policy.getAuthTagLength()];
 				break;
 
 			case SRTPPolicy.NULL_AUTHENTICATION:
 			default:
-				authKey = null;
 				mac = null;
 				tagStore = null;
 				break;
 		}
-		this.authKey = authKey;
-		this.mac = mac;
-		this.tagStore = tagStore;
+		return new CipherState(createCipherCTR(), cipherF8, cipherGcm, mac, tagStore);
 	}
 
 	/**
-	 * Authenticates a packet. Calculated authentication tag is returned/stored in {@link #tagStore}
-	 * .
+	 * Takes a <tt>CipherState</tt> initialized with the current session keys of this context out of
+	 * the pool of this context; it is used by the current thread only until it is handed back with
+	 * {@link #releaseCipherState(CipherState)}.
 	 *
-	 * @param pkt
-	 *        the RTP packet to be authenticated
-	 * @param rocIn
-	 *        Roll-Over-Counter
+	 * @return a <tt>CipherState</tt> or <tt>null</tt> if the session keys of this context have not
+	 * been derived yet or this context has been closed
 	 */
-	synchronized protected void authenticatePacketHMAC(ByteArrayBuffer pkt, int rocIn)
+	protected CipherState acquireCipherState()
 	{
-		mac.update(pkt.getBuffer(), pkt.getOffset(), pkt.getLength());
-		rbStore[0] = (byte) (rocIn >> 24);
-		rbStore[1] = (byte) (rocIn >> 16);
-		rbStore[2] = (byte) (rocIn >> 8);
-		rbStore[3] = (byte) rocIn;
-		mac.update(rbStore, 0, rbStore.length);
-		mac.doFinal(tagStore, 0);
+		SessionKeys keys = sessionKeys;
+		if (keys == null)
+			return null;
+
+		CipherState cs;
+		synchronized (idleCipherStates) {
+			cs = idleCipherStates.pollLast();
+		}
+		if (cs == null)
+			cs = createCipherState();
+		if (cs.keys != keys)
+			initCipherState(cs, keys);
+		return cs;
 	}
 
 	/**
-	 * Closes this crypto context. The close functions deletes key data and performs a cleanup of
-	 * this crypto context. Clean up key data, maybe this is the second time. However, sometimes we
-	 * cannot know if the CryptoContext was used and the application called deriveSrtpKeys(...).
+	 * Hands a <tt>CipherState</tt> taken with {@link #acquireCipherState()} back to the pool of this
+	 * context or, if this context has been closed meanwhile, clears it.
+	 *
+	 * @param cs
+	 *        the <tt>CipherState</tt> to hand back
 	 */
-	synchronized public void close()
+	protected void releaseCipherState(CipherState cs)
 	{
-		Arrays.fill(masterKey, (byte) 0);
-		Arrays.fill(masterSalt, (byte) 0);
+		synchronized (idleCipherStates) {
+			if (!closed) {
+				idleCipherStates.addLast(cs);
+				return;
+			}
+		}
+		clearCipherState(cs);
+	}
+
+	/**
+	 * Initializes the ciphers and the MAC of a <tt>CipherState</tt> with specific session keys.
+	 *
+	 * @param cs
+	 *        the <tt>CipherState</tt> to initialize
+	 * @param keys
+	 *        the session keys to initialize <tt>cs</tt> with
+	 */
+	private void initCipherState(CipherState cs, SessionKeys keys)
+	{
+		if (cs.cipherCtr != null)
+			cs.cipherCtr.init(keys.encKey);
+		if (cs.cipherF8 != null)
+			cs.cipherF8.init(keys.encKey, keys.saltKey);
+		if (cs.cipherGcm != null)
+			cs.cipherGcm.init(keys.encKey);
+
+		switch (policy.getAuthType()) {
+			case SRTPPolicy.HMACSHA1_AUTHENTICATION:
+				cs.mac.init(new KeyParameter(keys.authKey));
+				break;
+
+			case SRTPPolicy.SKEIN_AUTHENTICATION:
+				// Skein MAC uses number of bits as MAC size, not just bytes
+				cs.mac.init(new ParametersForSkein(new KeyParameter(keys.authKey),
+						ParametersForSkein.Skein512, cs.tagStore.length * 8));
+				break;
+		}
+		cs.keys = keys;
+	}
+
+	/**
+	 * Overwrites the key schedules of the ciphers and the MAC of a <tt>CipherState</tt> by
+	 * initializing them with all-zero keys, and its scratch buffers.
+	 *
+	 * @param cs
+	 *        the <tt>CipherState</tt> to clear
+	 */
+	private void clearCipherState(CipherState cs)
+	{
+		SessionKeys keys = cs.keys;
+		if (keys != null) {
+			initCipherState(cs, new SessionKeys(zeroCopy(keys.encKey), zeroCopy(keys.authKey),
+					zeroCopy(keys.saltKey)));
+			cs.keys = null;
+		}
+		Arrays.fill(cs.tempStore, (byte) 0);
+		Arrays.fill(cs.ivStore, (byte) 0);
+		Arrays.fill(cs.gcmIv, (byte) 0);
+		Arrays.fill(cs.batchIvs, (byte) 0);
+		Arrays.fill(cs.batchBufs, null);
+		if (cs.tagStore != null)
+			Arrays.fill(cs.tagStore, (byte) 0);
+	}
+
+	private static byte[] zeroCopy(byte[] key)
+	{
+		return (key == null) ? null : new byte[key.length];
 	}
 
 	/**
@@ -300,4 +551,38 @@ public class BaseSRTPCryptoContext
 	{
 		return ssrc;
 	}
+
+	/**
+	 * Derives the session keys from the master keys and publishes them. The pseudo-random
+	 * function of RFC 3711 4.3.3 is AES in counter mode keyed with the master key.
+	 *
+	 * @param encIv the initialization vector which derives the session encryption key
+	 * @param authIv the initialization vector which derives the session authentication key
+	 * @param saltIv the initialization vector which derives the session salting key
+	 */
+	protected void setSessionKeys(byte[] encIv, byte[] authIv, byte[] saltIv)
+	{
+		SRTPCipherCTR prf = createCipherCTR();
+		prf.init(masterKey);
+		Arrays.fill(masterKey, (byte) 0);
+
+		byte[] encKey = new byte[policy.getEncKeyLength()];
+		prf.process(encKey, 0, encKey.length, encIv);
+
+		byte[] authKey = null;
+		if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
+			authKey = new byte[policy.getAuthKeyLength()];
+			prf.process(authKey, 0, authKey.length, authIv);
+		}
+
+		byte[] saltKey = new byte[policy.getSaltKeyLength()];
+		prf.process(saltKey, 0, saltKey.length, saltIv);
+		Arrays.fill(masterSalt, (byte) 0);
+		// overwrite the key schedule of the master key
+		prf.init(masterKey);
+
+		// As last step: publish the derived keys; each CipherState is (re)initialized lazily.
+		// Replaced keys are not cleared as another thread may still be initializing with them.
+		sessionKeys = new SessionKeys(encKey, authKey, saltKey);
+	}
 }
@@ -23,12 +23,8 @@
  */
 package org.atalk.impl.neomedia.transform.srtp;
 
-import org.atalk.bccontrib.params.ParametersForSkein;
 import org.atalk.service.neomedia.ByteArrayBuffer;
 import org.atalk.service.neomedia.RawPacket;
-import org.bouncycastle.crypto.params.KeyParameter;
-
-import java.util.Arrays;
 
 /**
  * SRTPCryptoContext class is the core class of SRTP implementation. There can be multiple SRTP
@@ -86,7 +82,6 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
      * @param policy SRTP policy for this SRTP cryptographic context, defined the encryption algorithm, the
      * authentication algorithm, etc
      */
-    @SuppressWarnings("fallthrough")
     public SRTCPCryptoContext(int ssrc, byte[] masterKey, byte[] masterSalt, SRTPPolicy policy)
     {
         super(ssrc, masterKey, masterSalt, policy);
@@ -95,7 +90,8 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
     /**
      * Checks if a packet is a replayed on based on its sequence number. The method supports a 64
      * packet history relative to the given sequence number. Sequence Number is guaranteed to be
-     * real (not faked) through authentication.
+     * real (not faked) through authentication. Must be called with the monitor of this instance
+     * held.
      *
      * @param index index number of the SRTCP packet
      * @return true if this sequence number indicates the packet is not a replayed one, false if not
@@ -120,14 +116,18 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
      * Computes the initialization vector, used later by encryption algorithms, based on the label.
      *
      * @param label label specified for each type of iv
+     * @return the initialization vector
      */
-    private void computeIv(byte label)
+    private byte[] computeIv(byte label)
     {
+        // RFC 7714 AEAD policies have a 96-bit master salt which is zero padded to 112 bits.
+        byte[] iv = new byte[16];
         for (int i = 0; i < 14; i++) {
-            ivStore[i] = masterSalt[i];
+            iv[i] = (i < masterSalt.length) ? masterSalt[i] : 0;
         }
-        ivStore[7] ^= label;
-        ivStore[14] = ivStore[15] = 0;
+        iv[7] ^= label;
+        iv[14] = iv[15] = 0;
+        return iv;
     }
 
     /**
@@ -146,60 +146,26 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
     }
 
     /**
-     * Derives the srtcp session keys from the master key.
+     * Derives the srtcp session keys from the master key. The derived keys are published
+     * atomically.
      */
-    synchronized public void deriveSrtcpKeys()
+    public void deriveSrtcpKeys()
     {
-        // compute the session encryption key
-        computeIv((byte) 3);
-
-        cipherCtr.init(masterKey);
-        Arrays.fill(masterKey, (byte) 0);
-
-        Arrays.fill(encKey, (byte) 0);
-        cipherCtr.process(encKey, 0, policy.getEncKeyLength(), ivStore);
-
-        if (authKey != null) {
-            computeIv((byte) 4);
-            Arrays.fill(authKey, (byte) 0);
-            cipherCtr.process(authKey, 0, policy.getAuthKeyLength(), ivStore);
-
-            switch (policy.getAuthType()) {
-                case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-                    mac.init(new KeyParameter(authKey));
-                    break;
-
-                case SRTPPolicy.SKEIN_AUTHENTICATION:
-                    // Skein MAC uses number of bits as MAC size, not just bytes
-                    mac.init(new ParametersForSkein(new KeyParameter(authKey),
-                            ParametersForSkein.Skein512, tagStore.length * 8));
-                    break;
-            }
-
-            Arrays.fill(authKey, (byte) 0);
-        }
-
-        // compute the session salt
-        computeIv((byte) 5);
-        Arrays.fill(saltKey, (byte) 0);
-        cipherCtr.process(saltKey, 0, policy.getSaltKeyLength(), ivStore);
-        Arrays.fill(masterSalt, (byte) 0);
-
-        // As last step: initialize cipher with derived encryption key.
-        if (cipherF8 != null)
-            cipherF8.init(encKey, saltKey);
-        cipherCtr.init(encKey);
-        Arrays.fill(encKey, (byte) 0);
+        setSessionKeys(computeIv((byte) 3), computeIv((byte) 4), computeIv((byte) 5));
     }
 
     /**
      * Performs Counter Mode AES encryption/decryption
      *
+     * @param cs the <tt>CipherState</tt> of the current thread
      * @param pkt the RTP packet to be encrypted/decrypted
+     * @param index the SRTCP index of <tt>pkt</tt>
      */
-    public void processPacketAESCM(ByteArrayBuffer pkt, int index)
+    private void processPacketAESCM(CipherState cs, ByteArrayBuffer pkt, int index)
     {
         int ssrc = (int) RawPacket.getRTCPSSRC(pkt);
+        byte[] ivStore = cs.ivStore;
+        byte[] saltKey = cs.keys.saltKey;
 
         /*
          * Compute the CM IV (refer to chapter 4.1.1 in RFC 3711):
@@ -235,16 +201,20 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
         // Encrypted part excludes fixed header (8 bytes)
         int payloadOffset = 8;
         int payloadLength = pkt.getLength() - payloadOffset;
-        cipherCtr.process(pkt.getBuffer(), pkt.getOffset() + payloadOffset, payloadLength, ivStore);
+        cs.cipherCtr.process(pkt.getBuffer(), pkt.getOffset() + payloadOffset, payloadLength, ivStore);
     }
 
     /**
      * Performs F8 Mode AES encryption/decryption
      *
+     * @param cs the <tt>CipherState</tt> of the current thread
      * @param pkt the RTP packet to be encrypted/decrypted
+     * @param index the SRTCP index of <tt>pkt</tt>
      */
-    public void processPacketAESF8(ByteArrayBuffer pkt, int index)
+    private void processPacketAESF8(CipherState cs, ByteArrayBuffer pkt, int index)
     {
+        byte[] ivStore = cs.ivStore;
+
         // 4 bytes of the iv are zero
         // the first byte of the RTP header is not used.
         ivStore[0] = 0;
@@ -268,40 +238,29 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
         // authentication tag (variable according to policy)
         int payloadOffset = 8;
         int payloadLength = pkt.getLength() - (4 + policy.getAuthTagLength());
-        cipherF8.process(pkt.getBuffer(), pkt.getOffset() + payloadOffset, payloadLength, ivStore);
+        cs.cipherF8.process(pkt.getBuffer(), pkt.getOffset() + payloadOffset, payloadLength, ivStore);
     }
 
     /**
-     * Transform a SRTCP packet into a RTCP packet. The method is called when an SRTCP packet was
-     * received. Operations done by the method include: authentication check, packet replay check
-     * and decryption. Both encryption and authentication functionality can be turned off as long as
-     * the SRTPPolicy used in this SRTPCryptoContext requires no encryption and no authentication.
-     * Then the packet will be sent out untouched. However, this is not encouraged. If no SRTCP
-     * feature is enabled, then we shall not use SRTP TransformConnector. We should use the original
-     * method (RTPManager managed transportation) instead.
+     * Authenticates and decrypts a received SRTCP packet which has passed the replay check. The
+     * authentication tag and the E-flag/SRTCP index word are removed from the packet.
      *
-     * @param pkt the received RTCP packet
-     * @return <tt>true</tt> if the packet can be accepted or <tt>false</tt> if authentication or
-     * replay check failed
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the received SRTCP packet
+     * @param indexEflag the E-flag and SRTCP index word of <tt>pkt</tt>
+     * @return <tt>true</tt> if the packet was successfully authenticated; otherwise, <tt>false</tt>
      */
-    synchronized public boolean reverseTransformPacket(ByteArrayBuffer pkt)
+    protected boolean decryptPacket(CipherState cs, ByteArrayBuffer pkt, int indexEflag)
     {
-        boolean decrypt = false;
         int tagLength = policy.getAuthTagLength();
-        int indexEflag = RawPacket.getSRTCPIndex(pkt, tagLength);
-
-        if ((indexEflag & 0x80000000) == 0x80000000)
-            decrypt = true;
-
+        boolean decrypt = (indexEflag & 0x80000000) == 0x80000000;
         int index = indexEflag & ~0x80000000;
 
-        /* Replay control */
-        if (!checkReplay(index)) {
-            return false;
-        }
-
         /* Authenticate the packet */
         if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
+            byte[] tempStore = cs.tempStore;
+            byte[] tagStore = cs.tagStore;
+
             // get original authentication data and store in tempStore
             pkt.readRegionToBuff(pkt.getLength() - tagLength, tagLength, tempStore);
 
@@ -310,7 +269,7 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
             pkt.shrink(tagLength + 4);
 
             // compute, then save authentication in tagStore
-            authenticatePacketHMAC(pkt, indexEflag);
+            authenticatePacketHMAC(cs, pkt, indexEflag);
 
             int nonEqual = 0;
             for (int i = 0; i < tagLength; i++) {
@@ -324,45 +283,40 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
             /* Decrypt the packet using Counter Mode encryption */
             if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION
                     || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
-                processPacketAESCM(pkt, index);
+                processPacketAESCM(cs, pkt, index);
             }
 
             /* Decrypt the packet using F8 Mode encryption */
             else if (policy.getEncType() == SRTPPolicy.AESF8_ENCRYPTION
                     || policy.getEncType() == SRTPPolicy.TWOFISHF8_ENCRYPTION) {
-                processPacketAESF8(pkt, index);
+                processPacketAESF8(cs, pkt, index);
             }
         }
-        update(index);
         return true;
     }
 
     /**
-     * Transform a RTP packet into a SRTP packet. The method is called when a normal RTP packet
-     * ready to be sent. Operations done by the transformation may include: encryption, using either
-     * Counter Mode encryption, or F8 Mode encryption, adding authentication tag, currently HMC SHA1
-     * method. Both encryption and authentication functionality can be turned off as long as the
-     * SRTPPolicy used in this SRTPCryptoContext is requires no encryption and no authentication.
-     * Then the packet will be sent out untouched. However, this is not encouraged. If no SRTP
-     * feature is enabled, then we shall not use SRTP TransformConnector. We should use the original
-     * method (RTPManager managed transportation) instead.
+     * Encrypts and authenticates an RTCP packet which is to be sent, appending the E-flag/SRTCP
+     * index word and the authentication tag.
      *
-     * @param pkt the RTP packet that is going to be sent out
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTCP packet that is going to be sent out
+     * @param sentIndex the SRTCP index allocated to <tt>pkt</tt>
      */
-    synchronized public void transformPacket(ByteArrayBuffer pkt)
+    protected void encryptPacket(CipherState cs, ByteArrayBuffer pkt, int sentIndex)
     {
         boolean encrypt = false;
         /* Encrypt the packet using Counter Mode encryption */
         if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION
                 || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
-            processPacketAESCM(pkt, sentIndex);
+            processPacketAESCM(cs, pkt, sentIndex);
             encrypt = true;
         }
 
         /* Encrypt the packet using F8 Mode encryption */
         else if (policy.getEncType() == SRTPPolicy.AESF8_ENCRYPTION
                 || policy.getEncType() == SRTPPolicy.TWOFISHF8_ENCRYPTION) {
-            processPacketAESF8(pkt, sentIndex);
+            processPacketAESF8(cs, pkt, sentIndex);
             encrypt = true;
         }
         int index = 0;
@@ -376,16 +330,158 @@ public class SRTCPCryptoContext extends BaseSRTPCryptoContext
         // The authenticate method gets the index via parameter and stores
         // it in network order in rbStore variable.
         if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
-            authenticatePacketHMAC(pkt, index);
-            pkt.append(rbStore, 4);
-            pkt.append(tagStore, policy.getAuthTagLength());
+            authenticatePacketHMAC(cs, pkt, index);
+            pkt.append(cs.rbStore, 4);
+            pkt.append(cs.tagStore, policy.getAuthTagLength());
+        }
+    }
+
+    /**
+     * Transform a SRTCP packet into a RTCP packet. The method is called when an SRTCP packet was
+     * received. Operations done by the method include: authentication check, packet replay check
+     * and decryption. Both encryption and authentication functionality can be turned off as long as
+     * the SRTPPolicy used in this SRTPCryptoContext requires no encryption and no authentication.
+     * Then the packet will be sent out untouched. However, this is not encouraged. If no SRTCP
+     * feature is enabled, then we shall not use SRTP TransformConnector. We should use the original
+     * method (RTPManager managed transportation) instead.
+     *
+     * @param pkt the received RTCP packet
+     * @return <tt>true</tt> if the packet can be accepted or <tt>false</tt> if authentication or
+     * replay check failed
+     */
+    public boolean reverseTransformPacket(ByteArrayBuffer pkt)
+    {
+        CipherState cs = acquireCipherState();
+        if (cs == null)
+            return false;
+
+        try {
+            return reverseTransformPacket(cs, pkt);
+        } finally {
+            releaseCipherState(cs);
+        }
+    }
+
+    /**
+     * Implements {@link #reverseTransformPacket(ByteArrayBuffer)} with a specific
+     * <tt>CipherState</tt>.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the received RTCP packet
+     * @return <tt>true</tt> if the packet can be accepted or <tt>false</tt> if authentication or
+     * replay check failed
+     */
+    private boolean reverseTransformPacket(CipherState cs, ByteArrayBuffer pkt)
+    {
+        int tagLength = policy.getAuthTagLength();
+        if (pkt.getLength() < 8 + 4 + tagLength)
+            return false;
+
+        int indexEflag = RawPacket.getSRTCPIndex(pkt, tagLength);
+        int index = indexEflag & ~0x80000000;
+
+        /* Replay control */
+        synchronized (this) {
+            if (!checkReplay(index)) {
+                return false;
+            }
+        }
+
+        // Authenticate and decrypt the packet outside of the monitor.
+        if (!decryptPacket(cs, pkt, indexEflag))
+            return false;
+
+        synchronized (this) {
+            // Another thread may have accepted the same packet in the meantime.
+            if (!checkReplay(index))
+                return false;
+            update(index);
+        }
+        return true;
+    }
+
+    /**
+     * Transform a RTP packet into a SRTP packet. The method is called when a normal RTP packet
+     * ready to be sent. Operations done by the transformation may include: encryption, using either
+     * Counter Mode encryption, or F8 Mode encryption, adding authentication tag, currently HMC SHA1
+     * method. Both encryption and authentication functionality can be turned off as long as the
+     * SRTPPolicy used in this SRTPCryptoContext is requires no encryption and no authentication.
+     * Then the packet will be sent out untouched. However, this is not encouraged. If no SRTP
+     * feature is enabled, then we shall not use SRTP TransformConnector. We should use the original
+     * method (RTPManager managed transportation) instead.
+     *
+     * @param pkt the RTP packet that is going to be sent out
+     * @return <tt>true</tt> if the packet was transformed; <tt>false</tt> if the session keys of
+     * this context are not available
+     */
+    public boolean transformPacket(ByteArrayBuffer pkt)
+    {
+        CipherState cs = acquireCipherState();
+        if (cs == null)
+            return false;
+
+        int index;
+        synchronized (this) {
+            index = sentIndex;
+            sentIndex++;
+            sentIndex &= ~0x80000000; // clear possible overflow
+        }
+
+        try {
+            encryptPacket(cs, pkt, index);
+        } finally {
+            releaseCipherState(cs);
+        }
+        return true;
+    }
+
+    /**
+     * Transforms a batch of RTCP packets of the SSRC of this context into SRTCP packets. The
+     * SRTCP indexes of the whole batch are allocated with a single acquisition of the monitor of
+     * this instance.
+     *
+     * @param pkts the RTCP packets that are going to be sent out; if the session keys of this
+     * context are not available, the elements of the batch are set to <tt>null</tt>
+     * @param from the index of the first packet of the batch in <tt>pkts</tt>
+     * @param to the index after the last packet of the batch in <tt>pkts</tt>
+     */
+    public void transformPackets(RawPacket[] pkts, int from, int to)
+    {
+        CipherState cs = acquireCipherState();
+        if (cs == null) {
+            for (int i = from; i < to; i++)
+                pkts[i] = null;
+            return;
+        }
+
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (pkts[i] != null)
+                count++;
+        }
+
+        int index;
+        synchronized (this) {
+            index = sentIndex;
+            sentIndex += count;
+            sentIndex &= ~0x80000000; // clear possible overflow
+        }
+
+        try {
+            for (int i = from; i < to; i++) {
+                if (pkts[i] != null) {
+                    encryptPacket(cs, pkts[i], index);
+                    index = (index + 1) & ~0x80000000;
+                }
+            }
+        } finally {
+            releaseCipherState(cs);
         }
-        sentIndex++;
-        sentIndex &= ~0x80000000; // clear possible overflow
     }
 
     /**
-     * Updates the SRTP packet index. The method is called after all checks were successful.
+     * Updates the SRTP packet index. The method is called after all checks were successful. Must
+     * be called with the monitor of this instance held.
      *
      * @param index index number of the accepted packet
      */
@@ -0,0 +1,179 @@
+/*
+ * Copyright @ 2015 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.atalk.service.neomedia.ByteArrayBuffer;
+import org.atalk.service.neomedia.RawPacket;
+
+/**
+ * SRTCPGCMCryptoContext implements the AEAD_AES_128_GCM and AEAD_AES_256_GCM SRTCP transforms of
+ * RFC 7714. An SRTCP packet protected by AES-GCM has the layout:
+ *
+ * <pre>
+ * RTCP header (8 octets) || encrypted payload || AEAD tag (16 octets) || E || SRTCP index
+ * </pre>
+ *
+ * The RTCP header and the E-flag/SRTCP index word form the additional authenticated data. There
+ * is no separate SRTCP authentication tag.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTCPGCMCryptoContext extends SRTCPCryptoContext
+{
+    /**
+     * The length of the fixed RTCP header which is authenticated but not encrypted.
+     */
+    private static final int RTCP_HEADER_LEN = 8;
+
+    /**
+     * The length of the trailing E-flag and SRTCP index word.
+     */
+    private static final int SRTCP_INDEX_LEN = 4;
+
+    /**
+     * Construct a normal SRTCPGCMCryptoContext based on the given parameters.
+     *
+     * @param ssrc the RTP SSRC that this SRTCP cryptographic context protects.
+     * @param masterKey byte array holding the master key for this SRTCP cryptographic context.
+     * @param masterSalt byte array holding the 96-bit master salt for this SRTCP cryptographic context.
+     * @param policy SRTCP policy for this SRTCP cryptographic context, with
+     * {@link SRTPPolicy#AESGCM_ENCRYPTION} encryption.
+     */
+    public SRTCPGCMCryptoContext(int ssrc, byte[] masterKey, byte[] masterSalt, SRTPPolicy policy)
+    {
+        super(ssrc, masterKey, masterSalt, policy);
+    }
+
+    /**
+     * Computes the initialization vector of a specific packet, RFC 7714 9.1:
+     *
+     * <pre>
+     * IV = (0x0000 || SSRC || 0x0000 || 0 || SRTCP index) XOR session salt
+     * </pre>
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTCP packet for which the initialization vector is to be computed
+     * @param index the 31-bit SRTCP index of the packet
+     */
+    private static void computeGcmIv(CipherState cs, ByteArrayBuffer pkt, int index)
+    {
+        int ssrc = (int) RawPacket.getRTCPSSRC(pkt);
+        byte[] gcmIv = cs.gcmIv;
+        byte[] saltKey = cs.keys.saltKey;
+
+        gcmIv[0] = saltKey[0];
+        gcmIv[1] = saltKey[1];
+        gcmIv[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        gcmIv[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        gcmIv[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        gcmIv[5] = (byte) (ssrc ^ saltKey[5]);
+        gcmIv[6] = saltKey[6];
+        gcmIv[7] = saltKey[7];
+        gcmIv[8] = (byte) (((index >> 24) & 0x7f) ^ saltKey[8]);
+        gcmIv[9] = (byte) ((index >> 16) ^ saltKey[9]);
+        gcmIv[10] = (byte) ((index >> 8) ^ saltKey[10]);
+        gcmIv[11] = (byte) (index ^ saltKey[11]);
+    }
+
+    /**
+     * Derives a new SRTCPGCMCryptoContext for use with a new SSRC.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public SRTCPCryptoContext deriveContext(int ssrc)
+    {
+        return new SRTCPGCMCryptoContext(ssrc, masterKey, masterSalt, policy);
+    }
+
+    /**
+     * Authenticates and decrypts a received SRTCP packet in a single pass.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean decryptPacket(CipherState cs, ByteArrayBuffer pkt, int indexEflag)
+    {
+        int len = pkt.getLength();
+        if (len < RTCP_HEADER_LEN + SRTPCipherGCM.TAG_LEN + SRTCP_INDEX_LEN)
+            return false;
+
+        boolean decrypt = (indexEflag & 0x80000000) == 0x80000000;
+        int index = indexEflag & ~0x80000000;
+        byte[] rbStore = cs.rbStore;
+
+        // The E-flag and SRTCP index word is part of the authenticated data.
+        pkt.readRegionToBuff(len - SRTCP_INDEX_LEN, SRTCP_INDEX_LEN, rbStore);
+        pkt.shrink(SRTCP_INDEX_LEN);
+        len -= SRTCP_INDEX_LEN;
+
+        byte[] buf = pkt.getBuffer();
+        int off = pkt.getOffset();
+
+        // Without the E-flag the whole RTCP packet is authenticated only, RFC 7714 9.2.
+        int aadLength = decrypt ? RTCP_HEADER_LEN : (len - SRTPCipherGCM.TAG_LEN);
+
+        SRTPCipherGCM cipherGcm = cs.cipherGcm;
+        computeGcmIv(cs, pkt, index);
+        cipherGcm.start(false, cs.gcmIv);
+        cipherGcm.updateAAD(buf, off, aadLength);
+        cipherGcm.updateAAD(rbStore, 0, SRTCP_INDEX_LEN);
+
+        int payloadLength
+                = cipherGcm.doFinal(buf, off + aadLength, len - aadLength, buf, off + aadLength);
+        if (payloadLength < 0)
+            return false;
+
+        pkt.setLength(aadLength + payloadLength);
+        return true;
+    }
+
+    /**
+     * Encrypts an RTCP packet and appends the AES-GCM authentication tag and the SRTCP index in
+     * a single pass.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected void encryptPacket(CipherState cs, ByteArrayBuffer pkt, int sentIndex)
+    {
+        // Grow packet storage in one step; this may change the buffer of the packet.
+        pkt.grow(SRTPCipherGCM.TAG_LEN + SRTCP_INDEX_LEN);
+
+        byte[] buf = pkt.getBuffer();
+        int off = pkt.getOffset();
+        int len = pkt.getLength();
+        int index = sentIndex | 0x80000000;
+        byte[] rbStore = cs.rbStore;
+
+        rbStore[0] = (byte) (index >> 24);
+        rbStore[1] = (byte) (index >> 16);
+        rbStore[2] = (byte) (index >> 8);
+        rbStore[3] = (byte) index;
+
+        SRTPCipherGCM cipherGcm = cs.cipherGcm;
+        computeGcmIv(cs, pkt, sentIndex);
+        cipherGcm.start(true, cs.gcmIv);
+        cipherGcm.updateAAD(buf, off, RTCP_HEADER_LEN);
+        cipherGcm.updateAAD(rbStore, 0, SRTCP_INDEX_LEN);
+
+        int payloadLength = cipherGcm.doFinal(buf, off + RTCP_HEADER_LEN,
+                len - RTCP_HEADER_LEN, buf, off + RTCP_HEADER_LEN);
+
+        pkt.setLength(RTCP_HEADER_LEN + payloadLength);
+        pkt.append(rbStore, SRTCP_INDEX_LEN);
+    }
+}
@@ -8,7 +8,11 @@ package org.atalk.impl.neomedia.transform.srtp;
 import org.atalk.impl.neomedia.transform.SinglePacketTransformer;
 import org.atalk.service.neomedia.RawPacket;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SRTCPTransformer implements PacketTransformer. It encapsulate the encryption / decryption logic
@@ -24,10 +28,16 @@ public class SRTCPTransformer extends SinglePacketTransformer
 	private SRTPContextFactory reverseFactory;
 
 	/**
-	 * All the known SSRC's corresponding SRTCPCryptoContexts
+	 * All the known SSRC's corresponding SRTCPCryptoContexts. Looked up without locking on the
+	 * packet path; new contexts are derived and added with the monitor of the map held.
 	 */
 	private final Map<Integer, SRTCPCryptoContext> contexts;
 
+	/**
+	 * The number of exceptions caught in {@link #transform(RawPacket[])}.
+	 */
+	private final AtomicLong exceptionsInTransform = new AtomicLong();
+
 	/**
 	 * Constructs an <tt>SRTCPTransformer</tt>, sharing its <tt>SRTPContextFactory</tt> instances
 	 * with a given <tt>SRTPTransformer</tt>.
@@ -64,7 +74,7 @@ public class SRTCPTransformer extends SinglePacketTransformer
 	{
 		this.forwardFactory = forwardFactory;
 		this.reverseFactory = reverseFactory;
-		this.contexts = new HashMap<Integer, SRTCPCryptoContext>();
+		this.contexts = new ConcurrentHashMap<>();
 	}
 
 	/**
@@ -119,7 +129,10 @@ public class SRTCPTransformer extends SinglePacketTransformer
 	private SRTCPCryptoContext getContext(RawPacket pkt, SRTPContextFactory engine)
 	{
 		int ssrc = (int) pkt.getRTCPSSRC();
-		SRTCPCryptoContext context;
+		SRTCPCryptoContext context = contexts.get(ssrc);
+
+		if (context != null)
+			return context;
 
 		synchronized (contexts) {
 			context = contexts.get(ssrc);
@@ -161,13 +174,52 @@ public class SRTCPTransformer extends SinglePacketTransformer
 	{
 		SRTCPCryptoContext context = getContext(pkt, forwardFactory);
 
-		if (context != null) {
-			context.transformPacket(pkt);
-			return pkt;
-		}
-		else {
-			// The packet cannot be encrypted. Thus, do not send it.
+		// If the packet cannot be encrypted, do not send it.
+		return ((context != null) && context.transformPacket(pkt)) ? pkt : null;
+	}
+
+	/**
+	 * Transforms an array of packets. Each run of packets of the same SSRC (e.g. a compound RTCP
+	 * packet split by the RTCP termination) is protected as a single batch by its crypto context.
+	 * A batch which fails with an exception is dropped as a whole, and the exception counted and
+	 * logged as <tt>SinglePacketTransformer</tt> does.
+	 *
+	 * @param pkts
+	 *        plain SRTCP packets to be encrypted
+	 * @return encrypted SRTCP packets
+	 */
+	@Override
+	public RawPacket[] transform(RawPacket[] pkts)
+	{
+		if (pkts == null)
 			return null;
+
+		for (int i = 0; i < pkts.length; ) {
+			RawPacket pkt = pkts[i];
+			if (pkt == null) {
+				i++;
+				continue;
+			}
+
+			long ssrc = pkt.getRTCPSSRC();
+			int end = i + 1;
+			while (end < pkts.length && (pkts[end] == null || pkts[end].getRTCPSSRC() == ssrc))
+				end++;
+
+			try {
+				SRTCPCryptoContext context = getContext(pkt, forwardFactory);
+				if (context == null) {
+					// The packets cannot be encrypted. Thus, do not send them.
+					Arrays.fill(pkts, i, end, null);
+				}
+				else
+					context.transformPackets(pkts, i, end);
+			} catch (RuntimeException e) {
+				Arrays.fill(pkts, i, end, null);
+				SRTPTransformer.logException(exceptionsInTransform, e, "transform");
+			}
+			i = end;
 		}
+		return pkts;
 	}
 }
@@ -29,6 +29,11 @@ abstract class SRTPCipherCTR
 {
     protected static final int BLKLEN = 16;
 
+    /**
+     * The counter of the packet of a batch being processed by the default batch implementation.
+     */
+    private final byte[] batchIv = new byte[BLKLEN];
+
     /**
      * (Re)Initialize the cipher with key
      *
@@ -48,6 +53,25 @@ abstract class SRTPCipherCTR
      */
     public abstract void process(byte[] data, int off, int len, byte[] iv);
 
+    /**
+     * Process (encrypt/decrypt) a batch of packets in one call. The default implementation
+     * processes the packets one after the other; implementations which pay a fixed cost per call
+     * (e.g. a JNI crossing) should process the whole batch at once.
+     *
+     * @param data the byte arrays to be processed
+     * @param off the offsets in <tt>data</tt>
+     * @param len the lengths of the regions of <tt>data</tt> to be processed
+     * @param ivs the initial values of the counters, <tt>BLKLEN</tt> bytes for each packet
+     * @param count the number of packets in the batch
+     */
+    public void process(byte[][] data, int[] off, int[] len, byte[] ivs, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(ivs, i * BLKLEN, batchIv, 0, BLKLEN);
+            process(data[i], off[i], len[i], batchIv);
+        }
+    }
+
     /**
      * Check the validity of process function arguments
      */
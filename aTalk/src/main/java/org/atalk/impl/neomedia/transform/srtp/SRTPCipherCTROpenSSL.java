@@ -30,6 +30,9 @@ public class SRTPCipherCTROpenSSL extends SRTPCipherCTR
     private static native boolean AES128CTR_CTX_process(long ctx, byte[] iv,
             byte[] inOut, int offset, int len);
 
+    private static native boolean AES128CTR_CTX_processBatch(long ctx, byte[] ivs,
+            byte[][] inOuts, int[] offsets, int[] lens, int count);
+
     /**
      * the OpenSSL AES128CTR context
      */
@@ -87,4 +90,25 @@ public class SRTPCipherCTROpenSSL extends SRTPCipherCTR
         if (!AES128CTR_CTX_process(ctx, iv, data, off, len))
             throw new RuntimeException("AES128CTR_CTX_process");
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Processes the whole batch with a single JNI crossing.
+     */
+    @Override
+    public void process(byte[][] data, int[] off, int[] len, byte[] ivs, int count)
+    {
+        if (ivs.length < count * BLKLEN)
+            throw new IllegalArgumentException("ivs.length < count * BLKLEN");
+        for (int i = 0; i < count; i++) {
+            byte[] d = data[i];
+
+            if (off[i] < 0 || len[i] < 0 || off[i] + len[i] > d.length || d.length > 1048576)
+                throw new IllegalArgumentException("data[" + i + "]");
+        }
+
+        if (!AES128CTR_CTX_processBatch(ctx, ivs, data, off, len, count))
+            throw new RuntimeException("AES128CTR_CTX_processBatch");
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright @ 2016 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+/**
+ * SRTPCipherGCM implementations implement the AEAD_AES_128_GCM and AEAD_AES_256_GCM
+ * authenticated encryption of SRTP and SRTCP packets.
+ *
+ * Unlike the SRTP Counter Mode, the authentication tag is computed by the cipher itself and is
+ * appended to the encrypted payload. A packet is thus processed in a single pass and no separate
+ * HMAC is required.
+ *
+ * SRTP AES-GCM Authenticated Encryption is defined in RFC 7714.
+ *
+ * @author Eng Chong Meng
+ */
+abstract class SRTPCipherGCM
+{
+    /**
+     * The length in bytes of the initialization vector (nonce) of SRTP AES-GCM, RFC 7714 8.1.
+     */
+    public static final int IV_LEN = 12;
+
+    /**
+     * The length in bytes of the authentication tag of SRTP AES-GCM, RFC 7714 14.2.
+     */
+    public static final int TAG_LEN = 16;
+
+    /**
+     * (Re)Initialize the cipher with key
+     *
+     * @param key the session encryption key. key.length == 16 or 32
+     */
+    public abstract void init(byte[] key);
+
+    /**
+     * Starts the processing of a new packet. Any additional authenticated data supplied by
+     * {@link #updateAAD(byte[], int, int)} and the data processed by
+     * {@link #doFinal(byte[], int, int, byte[], int)} refer to the packet started by this call.
+     *
+     * @param encrypt <tt>true</tt> to encrypt and append the authentication tag; <tt>false</tt>
+     * to verify the authentication tag and decrypt.
+     * @param iv the initialization vector of the packet. iv.length == IV_LEN
+     */
+    public abstract void start(boolean encrypt, byte[] iv);
+
+    /**
+     * Supplies additional authenticated data i.e. data which is authenticated but not encrypted
+     * e.g. the RTP header.
+     *
+     * @param data byte array holding the additional authenticated data
+     * @param off the offset
+     * @param len the length
+     */
+    public abstract void updateAAD(byte[] data, int off, int len);
+
+    /**
+     * Encrypts or decrypts the packet payload in a single pass. Encryption writes
+     * <tt>len + TAG_LEN</tt> bytes to <tt>out</tt>; decryption verifies the trailing
+     * <tt>TAG_LEN</tt> bytes of the input and writes <tt>len - TAG_LEN</tt> bytes to <tt>out</tt>.
+     * The input and output regions may be the same i.e. in-place processing is supported.
+     *
+     * @param in byte array holding the payload to be processed
+     * @param inOff the offset of the payload
+     * @param len the length of the payload
+     * @param out byte array to receive the processed payload
+     * @param outOff the offset at which the processed payload is to be written
+     * @return the number of bytes written to <tt>out</tt> or <tt>-1</tt> if the authentication
+     * tag of a decrypted packet does not match
+     */
+    public abstract int doFinal(byte[] in, int inOff, int len, byte[] out, int outOff);
+
+    /**
+     * Check the validity of the key supplied to the <tt>init</tt> function
+     */
+    protected static void checkKey(byte[] key)
+    {
+        if (key.length != 16 && key.length != 32)
+            throw new IllegalArgumentException("Not an AES-GCM key length");
+    }
+}
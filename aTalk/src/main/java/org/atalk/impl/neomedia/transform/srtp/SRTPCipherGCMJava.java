@@ -0,0 +1,84 @@
+/*
+ * Copyright @ 2016 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * @see SRTPCipherGCM
+ * SRTPCipherGCM implementation using BouncyCastle <tt>GCMBlockCipher</tt> on top of the AES
+ * <tt>BlockCipher</tt> elected by {@link AES}.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTPCipherGCMJava extends SRTPCipherGCM
+{
+    private final GCMBlockCipher cipher;
+
+    /**
+     * The key supplied to {@link #init(byte[])} which is yet to be handed over to {@link #cipher}.
+     * The GHASH multiplier tables are computed on key change only, so subsequent packets reuse them
+     * by initializing {@link #cipher} with a <tt>null</tt> key.
+     */
+    private KeyParameter key;
+
+    public SRTPCipherGCMJava(int keySize)
+    {
+        cipher = new GCMBlockCipher(AES.createBlockCipher(keySize));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void init(byte[] key)
+    {
+        checkKey(key);
+        this.key = new KeyParameter(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start(boolean encrypt, byte[] iv)
+    {
+        cipher.init(encrypt, new AEADParameters(key, TAG_LEN * 8, iv));
+        key = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void updateAAD(byte[] data, int off, int len)
+    {
+        cipher.processAADBytes(data, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int doFinal(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        try {
+            int outLen = cipher.processBytes(in, inOff, len, out, outOff);
+            return outLen + cipher.doFinal(out, outOff + outLen);
+        } catch (InvalidCipherTextException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright @ 2016 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * @see SRTPCipherGCM
+ * SRTPCipherGCM implementation using a <tt>javax.crypto.Cipher</tt> "AES/GCM/NoPadding" i.e. the
+ * implementation of a <tt>java.security.Provider</tt>. On Android the default provider is backed
+ * by the native BoringSSL of the platform.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTPCipherGCMProvider extends SRTPCipherGCM
+{
+    /**
+     * The name of the transformation.
+     */
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final Cipher cipher;
+
+    private SecretKeySpec key;
+
+    /**
+     * Initializes a new <tt>SRTPCipherGCMProvider</tt> using the most preferred
+     * <tt>java.security.Provider</tt> which implements AES-GCM.
+     *
+     * @throws GeneralSecurityException if no installed provider implements AES-GCM
+     */
+    public SRTPCipherGCMProvider()
+            throws GeneralSecurityException
+    {
+        this(null);
+    }
+
+    /**
+     * Initializes a new <tt>SRTPCipherGCMProvider</tt> using a specific
+     * <tt>java.security.Provider</tt>.
+     *
+     * @param provider the <tt>java.security.Provider</tt> which implements AES-GCM or <tt>null</tt>
+     * to use the most preferred one
+     * @throws GeneralSecurityException if <tt>provider</tt> does not implement AES-GCM
+     */
+    public SRTPCipherGCMProvider(Provider provider)
+            throws GeneralSecurityException
+    {
+        cipher = (provider == null)
+                ? Cipher.getInstance(TRANSFORMATION) : Cipher.getInstance(TRANSFORMATION, provider);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void init(byte[] key)
+    {
+        checkKey(key);
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start(boolean encrypt, byte[] iv)
+    {
+        try {
+            cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, key,
+                    new GCMParameterSpec(TAG_LEN * 8, iv));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void updateAAD(byte[] data, int off, int len)
+    {
+        cipher.updateAAD(data, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int doFinal(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        try {
+            return cipher.doFinal(in, inOff, len, out, outOff);
+        } catch (AEADBadTagException e) {
+            return -1;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
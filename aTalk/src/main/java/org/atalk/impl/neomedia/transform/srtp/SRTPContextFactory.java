@@ -56,17 +56,37 @@ public class SRTPContextFactory
             SRTPPolicy srtpPolicy,
             SRTPPolicy srtcpPolicy)
 	{
-        defaultContext
-            = new SRTPCryptoContext(
-                    sender,
-                    0,
-                    0,
-                    0,
-                    masterKey,
-                    masterSalt,
-                    srtpPolicy);
-        defaultContextControl
-            = new SRTCPCryptoContext(0, masterKey, masterSalt, srtcpPolicy);
+        // RFC 7714 AEAD policies are served by dedicated crypto contexts.
+        if (srtpPolicy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            defaultContext
+                = new SRTPGCMCryptoContext(
+                        sender,
+                        0,
+                        0,
+                        0,
+                        masterKey,
+                        masterSalt,
+                        srtpPolicy);
+        }
+        else {
+            defaultContext
+                = new SRTPCryptoContext(
+                        sender,
+                        0,
+                        0,
+                        0,
+                        masterKey,
+                        masterSalt,
+                        srtpPolicy);
+        }
+        if (srtcpPolicy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            defaultContextControl
+                = new SRTCPGCMCryptoContext(0, masterKey, masterSalt, srtcpPolicy);
+        }
+        else {
+            defaultContextControl
+                = new SRTCPCryptoContext(0, masterKey, masterSalt, srtcpPolicy);
+        }
 	}
 
 	/**
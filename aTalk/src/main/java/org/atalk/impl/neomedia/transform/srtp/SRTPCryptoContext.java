@@ -33,13 +33,10 @@
  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307 USA
  */
 package org.atalk.impl.neomedia.transform.srtp;
-
-import org.atalk.bccontrib.params.ParametersForSkein;
 import org.atalk.service.configuration.ConfigurationService;
 import org.atalk.service.libjitsi.LibJitsi;
 import org.atalk.service.neomedia.ByteArrayBuffer;
 import org.atalk.service.neomedia.RawPacket;
-import org.bouncycastle.crypto.params.KeyParameter;
 
 import java.util.Arrays;
 
@@ -62,6 +59,11 @@ import timber.log.Timber;
  * assigned manually, or can be assigned automatically using some key management protocol, such as
  * MIKEY (RFC3830), SDES (RFC4568) or Phil Zimmermann's ZRTP protocol (RFC6189).
  *
+ * Only the SRTP index bookkeeping (ROC, highest sequence number and replay window) is guarded by
+ * the monitor of this instance and only for the few instructions it takes; the encryption and the
+ * authentication of a packet are performed outside of it with the ciphers of
+ * {@link BaseSRTPCryptoContext#acquireCipherState()}, held by the current thread only.
+ *
  * @author Bing SU (nova.su@gmail.com)
  * @author Lyubomir Marinov
  * @author Eng Chong Meng
@@ -104,13 +106,6 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
             checkReplay = cfg.getBoolean(CHECK_REPLAY_PNAME, checkReplay);
     }
 
-    /**
-     * For the receiver only, the rollover counter guessed from the sequence number of the received
-     * packet that is currently being processed (i.e. the value is valid during the execution of
-     * {@link #reverseTransformPacket(RawPacket)} only.) RFC 3711 refers to it by the name <tt>v</tt>.
-     */
-    private int guessedROC;
-
     /**
      * Key Derivation Rate, used to derive session keys from master keys
      */
@@ -135,7 +130,7 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
      * The indicator which determines whether this instance is used by an SRTP sender (<tt>true</tt>)
      * or receiver ( <tt>false</tt>).
      */
-    private final boolean sender;
+    protected final boolean sender;
 
     /**
      * The indicator which determines whether {@link #s_l} has seen set i.e. appropriately initialized.
@@ -190,22 +185,26 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
      * Authenticates a specific <tt>RawPacket</tt> if the <tt>policy</tt> of this
      * <tt>SRTPCryptoContext</tt> specifies that authentication is to be performed.
      *
+     * @param cs the <tt>CipherState</tt> of the current thread
      * @param pkt the <tt>RawPacket</tt> to authenticate
+     * @param guessedROC the guessed ROC of <tt>pkt</tt>
      * @return <tt>true</tt> if the <tt>policy</tt> of this <tt>SRTPCryptoContext</tt> specifies
      * that authentication is to not be performed or <tt>pkt</tt> was successfully
      * authenticated; otherwise, <tt>false</tt>
      */
-    private boolean authenticatePacket(ByteArrayBuffer pkt)
+    private boolean authenticatePacket(CipherState cs, ByteArrayBuffer pkt, int guessedROC)
     {
         if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
             int tagLength = policy.getAuthTagLength();
+            byte[] tempStore = cs.tempStore;
+            byte[] tagStore = cs.tagStore;
 
             // get original authentication and store in tempStore
             pkt.readRegionToBuff((pkt.getLength() - tagLength), tagLength, tempStore);
 
             pkt.shrink(tagLength);
             // save computed authentication in tagStore
-            authenticatePacketHMAC(pkt, guessedROC);
+            authenticatePacketHMAC(cs, pkt, guessedROC);
 
             // compare authentication tags using constant time comparison
             int nonEqual = 0;
@@ -221,10 +220,11 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
     /**
      * Checks if a packet is a replayed based on its sequence number. The method supports a 64
      * packet history relative the the specified sequence number. The sequence number is guaranteed
-     * to be real (i.e. not faked) through authentication.
+     * to be real (i.e. not faked) through authentication. Must be called with the monitor of this
+     * instance held.
      *
      * @param seqNo sequence number of the packet
-     * @param guessedIndex guessed ROC
+     * @param guessedIndex guessed SRTP index of the packet
      * @return <tt>true</tt> if the specified sequence number indicates that the packet is not a
      * replayed one; <tt>false</tt>, otherwise
      */
@@ -245,14 +245,14 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
         else if (-delta > REPLAY_WINDOW_SIZE) {
             if (sender) {
                 Timber.e("Discarding RTP packet with sequence number %d, SSRC %d because it is outside the replay window! (roc %d, s_l %d), guessedROC %d",
-                        seqNo, (0xFFFFFFFFL & ssrc), roc, s_l, guessedROC);
+                        seqNo, (0xFFFFFFFFL & ssrc), roc, s_l, guessedIndex >> 16);
             }
             return false; // Packet too old.
         }
         else if (((replayWindow >> (-delta)) & 0x1) != 0) {
             if (sender) {
                 Timber.e("Discarding RTP packet with sequence number %d, SSRC %d because it has been received already! (roc %d, s_l %d), guessedROC %d",
-                        seqNo, (0xFFFFFFFFL & ssrc), roc, s_l, guessedROC);
+                        seqNo, (0xFFFFFFFFL & ssrc), roc, s_l, guessedIndex >> 16);
             }
             return false; // Packet received already!
         }
@@ -265,8 +265,9 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
      *
      * @param label label specified for each type of iv
      * @param index 48bit RTP packet index
+     * @return the initialization vector
      */
-    private void computeIv(long label, long index)
+    private byte[] computeIv(long label, long index)
     {
         long key_id;
         if (keyDerivationRate == 0) {
@@ -276,11 +277,15 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
             key_id = ((label << 48) | (index / keyDerivationRate));
         }
 
-        System.arraycopy(masterSalt, 0, ivStore, 0, 7);
+        // RFC 7714 AEAD policies have a 96-bit master salt which is zero padded to 112 bits.
+        byte[] iv = new byte[16];
+        System.arraycopy(masterSalt, 0, iv, 0, 7);
         for (int i = 7; i < 14; i++) {
-            ivStore[i] = (byte) ((byte) (0xFF & (key_id >> (8 * (13 - i)))) ^ masterSalt[i]);
+            byte salt = (i < masterSalt.length) ? masterSalt[i] : 0;
+            iv[i] = (byte) ((byte) (0xFF & (key_id >> (8 * (13 - i)))) ^ salt);
         }
-        ivStore[14] = ivStore[15] = 0;
+        iv[14] = iv[15] = 0;
+        return iv;
     }
 
     /**
@@ -301,63 +306,30 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
     }
 
     /**
-     * Derives the srtp session keys from the master key
+     * Derives the srtp session keys from the master key. The derived keys are published
+     * atomically, so that the packets being processed concurrently use either the old or the new
+     * keys but never a mix of both.
      *
      * @param index the 48 bit SRTP packet index
      */
-    synchronized public void deriveSrtpKeys(long index)
+    public void deriveSrtpKeys(long index)
     {
-        // compute the session encryption key
-        computeIv(0x00, index);
-
-        cipherCtr.init(masterKey);
-        Arrays.fill(masterKey, (byte) 0);
-
-        Arrays.fill(encKey, (byte) 0);
-        cipherCtr.process(encKey, 0, policy.getEncKeyLength(), ivStore);
-
-        // compute the session authentication key
-        if (authKey != null) {
-            computeIv(0x01, index);
-            Arrays.fill(authKey, (byte) 0);
-            cipherCtr.process(authKey, 0, policy.getAuthKeyLength(), ivStore);
-
-            switch (policy.getAuthType()) {
-                case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-                    mac.init(new KeyParameter(authKey));
-                    break;
-
-                case SRTPPolicy.SKEIN_AUTHENTICATION:
-                    // Skein MAC uses number of bits as MAC size, not just bytes
-                    mac.init(new ParametersForSkein(new KeyParameter(authKey),
-                            ParametersForSkein.Skein512, tagStore.length * 8));
-                    break;
-            }
-            Arrays.fill(authKey, (byte) 0);
-        }
-
-        // compute the session salt
-        computeIv(0x02, index);
-        Arrays.fill(saltKey, (byte) 0);
-        cipherCtr.process(saltKey, 0, policy.getSaltKeyLength(), ivStore);
-        Arrays.fill(masterSalt, (byte) 0);
-
-        // As last step: initialize cipher with derived encryption key.
-        if (cipherF8 != null)
-            cipherF8.init(encKey, saltKey);
-        cipherCtr.init(encKey);
-        Arrays.fill(encKey, (byte) 0);
+        setSessionKeys(computeIv(0x00, index), computeIv(0x01, index), computeIv(0x02, index));
     }
 
     /**
      * For the receiver only, determines/guesses the SRTP index of a received SRTP packet with a
-     * specific sequence number. @see RFC3711 Appendix A
+     * specific sequence number. Must be called with the monitor of this instance held.
+     * @see RFC3711 Appendix A
      *
      * @param seqNo the sequence number of the received SRTP packet
-     * @return the SRTP index of the received SRTP packet with the specified <tt>seqNo</tt>
+     * @return the SRTP index of the received SRTP packet with the specified <tt>seqNo</tt>; the
+     * guessed ROC (RFC 3711 refers to it by the name <tt>v</tt>) is <tt>index &gt;&gt; 16</tt>.
      */
     private long guessIndex(int seqNo)
     {
+        int guessedROC;
+
         if (s_l < 32768) {
             if (seqNo - s_l > 32768)
                 guessedROC = roc - 1;
@@ -374,33 +346,49 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
     }
 
     /**
-     * Performs Counter Mode AES encryption/decryption
+     * Computes the Counter Mode initialization vector of a packet, RFC 3711 4.1.1.
      *
-     * @param pkt the RTP packet to be encrypted/decrypted
+     * @param iv the byte array to receive the initialization vector
+     * @param ivOff the offset in <tt>iv</tt> at which the 16 bytes are to be written
+     * @param saltKey the session salting key
+     * @param ssrc the SSRC of the packet
+     * @param index the 48 bit SRTP index of the packet
      */
-    public void processPacketAESCM(ByteArrayBuffer pkt)
+    private static void computeIvAESCM(byte[] iv, int ivOff, byte[] saltKey, int ssrc, long index)
     {
-        int ssrc = RawPacket.getSSRC(pkt);
-        int seqNo = RawPacket.getSequenceNumber(pkt);
-        long index = (((long) guessedROC) << 16) | seqNo;
-
-        // byte[] iv = new byte[16];
-        ivStore[0] = saltKey[0];
-        ivStore[1] = saltKey[1];
-        ivStore[2] = saltKey[2];
-        ivStore[3] = saltKey[3];
+        iv[ivOff] = saltKey[0];
+        iv[ivOff + 1] = saltKey[1];
+        iv[ivOff + 2] = saltKey[2];
+        iv[ivOff + 3] = saltKey[3];
 
         int i;
         for (i = 4; i < 8; i++) {
-            ivStore[i] = (byte) ((0xFF & (ssrc >> ((7 - i) * 8))) ^ saltKey[i]);
+            iv[ivOff + i] = (byte) ((0xFF & (ssrc >> ((7 - i) * 8))) ^ saltKey[i]);
         }
         for (i = 8; i < 14; i++) {
-            ivStore[i] = (byte) ((0xFF & (byte) (index >> ((13 - i) * 8))) ^ saltKey[i]);
+            iv[ivOff + i] = (byte) ((0xFF & (byte) (index >> ((13 - i) * 8))) ^ saltKey[i]);
         }
-        ivStore[14] = ivStore[15] = 0;
+        iv[ivOff + 14] = iv[ivOff + 15] = 0;
+    }
+
+    /**
+     * Performs Counter Mode AES encryption/decryption
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTP packet to be encrypted/decrypted
+     * @param guessedROC the guessed ROC of <tt>pkt</tt>
+     */
+    private void processPacketAESCM(CipherState cs, ByteArrayBuffer pkt, int guessedROC)
+    {
+        int ssrc = RawPacket.getSSRC(pkt);
+        int seqNo = RawPacket.getSequenceNumber(pkt);
+        long index = (((long) guessedROC) << 16) | seqNo;
+        byte[] ivStore = cs.ivStore;
+
+        computeIvAESCM(ivStore, 0, cs.keys.saltKey, ssrc, index);
 
         int rtpHeaderLength = RawPacket.getHeaderLength(pkt.getBuffer(), pkt.getOffset(), pkt.getLength());
-        cipherCtr.process(
+        cs.cipherCtr.process(
                 pkt.getBuffer(),
                 pkt.getOffset() + rtpHeaderLength,
                 pkt.getLength() - rtpHeaderLength,
@@ -410,31 +398,162 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
     /**
      * Performs F8 Mode AES encryption/decryption
      *
+     * @param cs the <tt>CipherState</tt> of the current thread
      * @param pkt the RTP packet to be encrypted/decrypted
+     * @param roc the guessed ROC of <tt>pkt</tt>
      */
-    public void processPacketAESF8(ByteArrayBuffer pkt)
+    private void processPacketAESF8(CipherState cs, ByteArrayBuffer pkt, int roc)
     {
+        byte[] ivStore = cs.ivStore;
+
         // 11 bytes of the RTP header are the 11 bytes of the iv
         // the first byte of the RTP header is not used.
         System.arraycopy(pkt.getBuffer(), pkt.getOffset(), ivStore, 0, 12);
         ivStore[0] = 0;
 
         // set the ROC in network order into IV
-        int roc = guessedROC;
-
         ivStore[12] = (byte) (roc >> 24);
         ivStore[13] = (byte) (roc >> 16);
         ivStore[14] = (byte) (roc >> 8);
         ivStore[15] = (byte) roc;
 
         int rtpHeaderLength = RawPacket.getHeaderLength(pkt.getBuffer(), pkt.getOffset(), pkt.getLength());
-        cipherF8.process(
+        cs.cipherF8.process(
                 pkt.getBuffer(),
                 pkt.getOffset() + rtpHeaderLength,
                 pkt.getLength() - rtpHeaderLength,
                 ivStore);
     }
 
+    /**
+     * Authenticates and decrypts a received SRTP packet which has passed the replay check.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the SRTP packet to be authenticated and decrypted
+     * @param guessedROC the guessed ROC of <tt>pkt</tt>
+     * @param skipDecryption if {@code true}, the packet is authenticated only.
+     * @return <tt>true</tt> if the packet was successfully authenticated; otherwise, <tt>false</tt>
+     */
+    protected boolean decryptPacket(
+            CipherState cs, ByteArrayBuffer pkt, int guessedROC, boolean skipDecryption)
+    {
+        if (!authenticatePacket(cs, pkt, guessedROC))
+            return false;
+
+        if (!skipDecryption) {
+            switch (policy.getEncType()) {
+                // Decrypt the packet using Counter Mode encryption.
+                case SRTPPolicy.AESCM_ENCRYPTION:
+                case SRTPPolicy.TWOFISH_ENCRYPTION:
+                    processPacketAESCM(cs, pkt, guessedROC);
+                    break;
+
+                // Decrypt the packet using F8 Mode encryption.
+                case SRTPPolicy.AESF8_ENCRYPTION:
+                case SRTPPolicy.TWOFISHF8_ENCRYPTION:
+                    processPacketAESF8(cs, pkt, guessedROC);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encrypts and authenticates an RTP packet which is to be sent.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTP packet to be encrypted and authenticated
+     * @param guessedROC the guessed ROC of <tt>pkt</tt>
+     */
+    protected void encryptPacket(CipherState cs, ByteArrayBuffer pkt, int guessedROC)
+    {
+        switch (policy.getEncType()) {
+            // Encrypt the packet using Counter Mode encryption.
+            case SRTPPolicy.AESCM_ENCRYPTION:
+            case SRTPPolicy.TWOFISH_ENCRYPTION:
+                processPacketAESCM(cs, pkt, guessedROC);
+                break;
+
+            // Encrypt the packet using F8 Mode encryption.
+            case SRTPPolicy.AESF8_ENCRYPTION:
+            case SRTPPolicy.TWOFISHF8_ENCRYPTION:
+                processPacketAESF8(cs, pkt, guessedROC);
+                break;
+        }
+
+        /* Authenticate the packet. */
+        if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
+            authenticatePacketHMAC(cs, pkt, guessedROC);
+            pkt.append(cs.tagStore, policy.getAuthTagLength());
+        }
+    }
+
+    /**
+     * Encrypts and authenticates a batch of RTP packets which are to be sent. The counter mode
+     * keystreams of all packets are generated by a single call to the cipher; the other
+     * transforms protect the packets one after the other.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread with the ROCs of the packets in
+     * <tt>batchRocs</tt>
+     * @param pkts the packets, <tt>null</tt> elements are skipped
+     * @param from the index of the first packet of the batch in <tt>pkts</tt>
+     * @param to the index after the last packet of the batch in <tt>pkts</tt>
+     */
+    protected void encryptPackets(CipherState cs, RawPacket[] pkts, int from, int to)
+    {
+        int[] rocs = cs.batchRocs;
+        int encType = policy.getEncType();
+
+        if (encType != SRTPPolicy.AESCM_ENCRYPTION && encType != SRTPPolicy.TWOFISH_ENCRYPTION) {
+            for (int i = from; i < to; i++) {
+                if (pkts[i] != null)
+                    encryptPacket(cs, pkts[i], rocs[i - from]);
+            }
+            return;
+        }
+
+        byte[][] bufs = cs.batchBufs;
+        byte[] ivs = cs.batchIvs;
+        int[] offs = cs.batchOffs;
+        int[] lens = cs.batchLens;
+        byte[] saltKey = cs.keys.saltKey;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            RawPacket pkt = pkts[i];
+            if (pkt == null)
+                continue;
+
+            byte[] buf = pkt.getBuffer();
+            int off = pkt.getOffset();
+            int len = pkt.getLength();
+            int rtpHeaderLength = RawPacket.getHeaderLength(buf, off, len);
+            long index = (((long) rocs[i - from]) << 16) | RawPacket.getSequenceNumber(pkt);
+
+            computeIvAESCM(ivs, count * 16, saltKey, RawPacket.getSSRC(pkt), index);
+            bufs[count] = buf;
+            offs[count] = off + rtpHeaderLength;
+            lens[count] = len - rtpHeaderLength;
+            count++;
+        }
+        cs.cipherCtr.process(bufs, offs, lens, ivs, count);
+        // Do not keep the packet buffers reachable from the thread.
+        Arrays.fill(bufs, 0, count, null);
+
+        /* Authenticate the packets. */
+        if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
+            int tagLength = policy.getAuthTagLength();
+
+            for (int i = from; i < to; i++) {
+                RawPacket pkt = pkts[i];
+                if (pkt != null) {
+                    authenticatePacketHMAC(cs, pkt, rocs[i - from]);
+                    pkt.append(cs.tagStore, tagLength);
+                }
+            }
+        }
+    }
+
     /**
      * Transforms an SRTP packet into an RTP packet. The method is called when
      * an SRTP packet is received. Operations done by the this operation
@@ -452,60 +571,78 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
      * @return <tt>true</tt> if the packet can be accepted; <tt>false</tt> if
      * the packet failed authentication or failed replay check
      */
-    synchronized public boolean reverseTransformPacket(ByteArrayBuffer pkt, boolean skipDecryption)
+    public boolean reverseTransformPacket(ByteArrayBuffer pkt, boolean skipDecryption)
+    {
+        CipherState cs = acquireCipherState();
+        if (cs == null)
+            return false;
+
+        try {
+            return reverseTransformPacket(cs, pkt, skipDecryption);
+        } finally {
+            releaseCipherState(cs);
+        }
+    }
+
+    /**
+     * Implements {@link #reverseTransformPacket(ByteArrayBuffer, boolean)} with a specific
+     * <tt>CipherState</tt>.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTP packet that is just received
+     * @param skipDecryption if {@code true}, the decryption of the packet will not be performed
+     * @return <tt>true</tt> if the packet can be accepted; <tt>false</tt> if
+     * the packet failed authentication or failed replay check
+     */
+    private boolean reverseTransformPacket(CipherState cs, ByteArrayBuffer pkt, boolean skipDecryption)
     {
         int seqNo = RawPacket.getSequenceNumber(pkt);
 
-        // Timber.d("Reverse transform for SSRC %s SeqNo = %s s_l = %s seqNumSet = %s roc = %s guessedROC = %s",
-        // this.ssrc, pkt.getSequenceNumber(), s_l, seqNumSet,  guessedROC, roc);
+        // Timber.d("Reverse transform for SSRC %s SeqNo = %s s_l = %s seqNumSet = %s roc = %s",
+        // this.ssrc, pkt.getSequenceNumber(), s_l, seqNumSet, roc);
 
         // Whether s_l was initialized while processing this packet.
         boolean seqNumWasJustSet = false;
-        if (!seqNumSet) {
-            seqNumSet = true;
-            s_l = seqNo;
-            seqNumWasJustSet = true;
+        long guessedIndex;
+        boolean b;
+
+        synchronized (this) {
+            if (!seqNumSet) {
+                seqNumSet = true;
+                s_l = seqNo;
+                seqNumWasJustSet = true;
+            }
+
+            // Guess the SRTP index (48 bit), see RFC 3711, 3.3.1
+            guessedIndex = guessIndex(seqNo);
+
+            // Replay control
+            b = checkReplay(seqNo, guessedIndex);
         }
 
-        // Guess the SRTP index (48 bit), see RFC 3711, 3.3.1
-        // Stores the guessed rollover counter (ROC) in this.guessedROC.
-        long guessedIndex = guessIndex(seqNo);
-        boolean b = false;
-
-        // Replay control
-        if (checkReplay(seqNo, guessedIndex)) {
-            // Authenticate the packet.
-            if (authenticatePacket(pkt)) {
-                if (!skipDecryption) {
-                    switch (policy.getEncType()) {
-                        // Decrypt the packet using Counter Mode encryption.
-                        case SRTPPolicy.AESCM_ENCRYPTION:
-                        case SRTPPolicy.TWOFISH_ENCRYPTION:
-                            processPacketAESCM(pkt);
-                            break;
-
-                        // Decrypt the packet using F8 Mode encryption.
-                        case SRTPPolicy.AESF8_ENCRYPTION:
-                        case SRTPPolicy.TWOFISHF8_ENCRYPTION:
-                            processPacketAESF8(pkt);
-                            break;
-                    }
-                }
-                // Update the rollover counter and highest sequence number if necessary.
-                update(seqNo, guessedIndex);
-                b = true;
-            }
-            else {
+        // Authenticate and decrypt the packet outside of the monitor.
+        if (b) {
+            b = decryptPacket(cs, pkt, (int) (guessedIndex >> 16), skipDecryption);
+            if (!b)
                 Timber.w("SRTP auth failed for SSRC %s", ssrc);
-            }
         }
 
-        if (!b && seqNumWasJustSet) {
-            // We set the initial value of s_l as a result of processing this
-            // packet, but the packet failed to authenticate. We shouldn't
-            // update our state based on an untrusted packet, so we revert seqNumSet.
-            seqNumSet = false;
-            s_l = 0;
+        synchronized (this) {
+            if (b) {
+                // Another thread may have accepted the same packet in the meantime.
+                b = checkReplay(seqNo, guessedIndex);
+                // Update the rollover counter and highest sequence number if necessary.
+                if (b)
+                    update(seqNo, guessedIndex);
+            }
+            else if (seqNumWasJustSet && (replayWindow == 0)) {
+                // We set the initial value of s_l as a result of processing this
+                // packet, but the packet failed to authenticate. We shouldn't
+                // update our state based on an untrusted packet, so we revert seqNumSet
+                // unless another packet has been accepted since.
+                seqNumSet = false;
+                s_l = 0;
+            }
         }
         return b;
     }
@@ -522,65 +659,140 @@ public class SRTPCryptoContext extends BaseSRTPCryptoContext
      *
      * @param pkt the RTP packet that is going to be sent out
      */
-    synchronized public boolean transformPacket(ByteArrayBuffer pkt)
+    public boolean transformPacket(ByteArrayBuffer pkt)
     {
-        int seqNo = RawPacket.getSequenceNumber(pkt);
-        if (!seqNumSet) {
-            seqNumSet = true;
-            s_l = seqNo;
+        CipherState cs = acquireCipherState();
+        if (cs == null)
+            return false;
+
+        try {
+            return transformPacket(cs, pkt);
+        } finally {
+            releaseCipherState(cs);
         }
+    }
+
+    /**
+     * Implements {@link #transformPacket(ByteArrayBuffer)} with a specific <tt>CipherState</tt>.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTP packet that is going to be sent out
+     * @return <tt>true</tt> if the packet was transformed
+     */
+    private boolean transformPacket(CipherState cs, ByteArrayBuffer pkt)
+    {
+        int seqNo = RawPacket.getSequenceNumber(pkt);
+        long guessedIndex;
 
-        // Guess the SRTP index (48 bit), see RFC 3711, 3.3.1
-        // Stores the guessed ROC in this.guessedROC
-        long guessedIndex = guessIndex(seqNo);
+        synchronized (this) {
+            if (!seqNumSet) {
+                seqNumSet = true;
+                s_l = seqNo;
+            }
 
-        /*
-         * XXX The invocation of the checkReplay method here is not meant as replay protection but
-         * as a consistency check of our implementation.
-         */
-        if (!checkReplay(seqNo, guessedIndex))
-            return false;
+            // Guess the SRTP index (48 bit), see RFC 3711, 3.3.1
+            guessedIndex = guessIndex(seqNo);
+
+            /*
+             * XXX The invocation of the checkReplay method here is not meant as replay protection but
+             * as a consistency check of our implementation.
+             */
+            if (!checkReplay(seqNo, guessedIndex))
+                return false;
+
+            // Update the ROC if necessary.
+            update(seqNo, guessedIndex);
+        }
 
         // if (seqNo % 500 == 0)
         //    Timber.e("transform checkReply #" + seqNo + ": " + Long.toString(0xFFFFFFFFL & ssrc));
         //    new Exception("transform checkReply #" + seqNo + ": " + Long.toString(0xFFFFFFFFL & ssrc)).printStackTrace();
 
-        switch (policy.getEncType()) {
-            // Encrypt the packet using Counter Mode encryption.
-            case SRTPPolicy.AESCM_ENCRYPTION:
-            case SRTPPolicy.TWOFISH_ENCRYPTION:
-                processPacketAESCM(pkt);
-                break;
+        encryptPacket(cs, pkt, (int) (guessedIndex >> 16));
+        return true;
+    }
 
-            // Encrypt the packet using F8 Mode encryption.
-            case SRTPPolicy.AESF8_ENCRYPTION:
-            case SRTPPolicy.TWOFISHF8_ENCRYPTION:
-                processPacketAESF8(pkt);
-                break;
+    /**
+     * Transforms a batch of RTP packets of the SSRC of this context into SRTP packets. The index
+     * bookkeeping of the whole batch is done with a single acquisition of the monitor of this
+     * instance and the packets are then protected by {@link #encryptPackets}.
+     *
+     * @param pkts the RTP packets that are going to be sent out; the elements of the packets
+     * which cannot be transformed are set to <tt>null</tt>
+     * @param from the index of the first packet of the batch in <tt>pkts</tt>
+     * @param to the index after the last packet of the batch in <tt>pkts</tt>
+     */
+    public void transformPackets(RawPacket[] pkts, int from, int to)
+    {
+        CipherState cs = acquireCipherState();
+        if (cs == null) {
+            Arrays.fill(pkts, from, to, null);
+            return;
         }
 
-        /* Authenticate the packet. */
-        if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
-            authenticatePacketHMAC(pkt, guessedROC);
-            pkt.append(tagStore, policy.getAuthTagLength());
+        try {
+            transformPackets(cs, pkts, from, to);
+        } finally {
+            releaseCipherState(cs);
         }
+    }
 
-        // Update the ROC if necessary.
-        update(seqNo, guessedIndex);
-        return true;
+    /**
+     * Implements {@link #transformPackets(RawPacket[], int, int)} with a specific
+     * <tt>CipherState</tt>.
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkts the RTP packets that are going to be sent out
+     * @param from the index of the first packet of the batch in <tt>pkts</tt>
+     * @param to the index after the last packet of the batch in <tt>pkts</tt>
+     */
+    private void transformPackets(CipherState cs, RawPacket[] pkts, int from, int to)
+    {
+        cs.ensureBatchCapacity(to - from);
+        int[] rocs = cs.batchRocs;
+
+        synchronized (this) {
+            for (int i = from; i < to; i++) {
+                RawPacket pkt = pkts[i];
+                if (pkt == null)
+                    continue;
+
+                int seqNo = pkt.getSequenceNumber();
+                if (!seqNumSet) {
+                    seqNumSet = true;
+                    s_l = seqNo;
+                }
+
+                // Guess the SRTP index (48 bit), see RFC 3711, 3.3.1
+                long guessedIndex = guessIndex(seqNo);
+
+                // A consistency check of our implementation, see transformPacket.
+                if (checkReplay(seqNo, guessedIndex)) {
+                    update(seqNo, guessedIndex);
+                    rocs[i - from] = (int) (guessedIndex >> 16);
+                }
+                else {
+                    pkts[i] = null;
+                }
+            }
+        }
+
+        encryptPackets(cs, pkts, from, to);
     }
 
     /**
      * For the receiver only, updates the rollover counter (i.e. {@link #roc}) and highest sequence
      * number (i.e. {@link #s_l}) in this cryptographic context using the SRTP/packet index
      * calculated by {@link #guessIndex(int)} and updates the replay list (i.e.
-     * {@link #replayWindow}). This method is called after all checks were successful.
+     * {@link #replayWindow}). This method is called after all checks were successful. Must be
+     * called with the monitor of this instance held.
      *
      * @param seqNo the sequence number of the accepted SRTP packet
      * @param guessedIndex the SRTP index of the accepted SRTP packet calculated by <tt>guessIndex(int)</tt>
      */
     private void update(int seqNo, long guessedIndex)
     {
+        int guessedROC = (int) (guessedIndex >> 16);
         long delta = guessedIndex - ((((long) roc) << 16) | s_l);
 
         /* Update the replay bit mask. */
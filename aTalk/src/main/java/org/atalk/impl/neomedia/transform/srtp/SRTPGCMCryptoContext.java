@@ -0,0 +1,158 @@
+/*
+ * Copyright @ 2015 Atlassian Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.atalk.service.neomedia.ByteArrayBuffer;
+import org.atalk.service.neomedia.RawPacket;
+
+/**
+ * SRTPGCMCryptoContext implements the AEAD_AES_128_GCM and AEAD_AES_256_GCM SRTP transforms of
+ * RFC 7714. The sequence number tracking, the ROC handling and the replay protection are those
+ * of {@link SRTPCryptoContext}; only the packet protection itself is different.
+ *
+ * The RTP header (including the CSRCs and the header extension) is the additional authenticated
+ * data, the payload is encrypted and the 16 octets authentication tag of the AEAD algorithm is
+ * appended to the encrypted payload. There is no separate SRTP authentication tag.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTPGCMCryptoContext extends SRTPCryptoContext
+{
+    /**
+     * Constructs a normal SRTPGCMCryptoContext based on the given parameters.
+     *
+     * @param sender <tt>true</tt> if the new instance is to be used by an SRTP sender; <tt>false</tt> if
+     * the new instance is to be used by an SRTP receiver
+     * @param ssrc the RTP SSRC that this SRTP cryptographic context protects.
+     * @param roc the initial Roll-Over-Counter according to RFC 3711.
+     * @param keyDerivationRate the key derivation rate defines when to recompute the SRTP session keys.
+     * @param masterK byte array holding the master key for this SRTP cryptographic context.
+     * @param masterS byte array holding the 96-bit master salt for this SRTP cryptographic context.
+     * @param policy SRTP policy for this SRTP cryptographic context, with
+     * {@link SRTPPolicy#AESGCM_ENCRYPTION} encryption.
+     */
+    public SRTPGCMCryptoContext(
+            boolean sender, int ssrc, int roc, long keyDerivationRate,
+            byte[] masterK, byte[] masterS, SRTPPolicy policy)
+    {
+        super(sender, ssrc, roc, keyDerivationRate, masterK, masterS, policy);
+    }
+
+    /**
+     * Computes the initialization vector of a specific packet, RFC 7714 8.1:
+     *
+     * <pre>
+     * IV = (0x0000 || SSRC || ROC || SEQ) XOR session salt
+     * </pre>
+     *
+     * @param cs the <tt>CipherState</tt> of the current thread
+     * @param pkt the RTP packet for which the initialization vector is to be computed
+     * @param roc the guessed ROC of <tt>pkt</tt>
+     */
+    private static void computeGcmIv(CipherState cs, ByteArrayBuffer pkt, int roc)
+    {
+        int ssrc = RawPacket.getSSRC(pkt);
+        int seqNo = RawPacket.getSequenceNumber(pkt);
+        byte[] gcmIv = cs.gcmIv;
+        byte[] saltKey = cs.keys.saltKey;
+
+        gcmIv[0] = saltKey[0];
+        gcmIv[1] = saltKey[1];
+        gcmIv[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        gcmIv[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        gcmIv[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        gcmIv[5] = (byte) (ssrc ^ saltKey[5]);
+        gcmIv[6] = (byte) ((roc >> 24) ^ saltKey[6]);
+        gcmIv[7] = (byte) ((roc >> 16) ^ saltKey[7]);
+        gcmIv[8] = (byte) ((roc >> 8) ^ saltKey[8]);
+        gcmIv[9] = (byte) (roc ^ saltKey[9]);
+        gcmIv[10] = (byte) ((seqNo >> 8) ^ saltKey[10]);
+        gcmIv[11] = (byte) (seqNo ^ saltKey[11]);
+    }
+
+    /**
+     * Authenticates and decrypts a received SRTP packet in a single pass. AES-GCM authenticates
+     * the packet while it decrypts it, so <tt>skipDecryption</tt> cannot save any work and is
+     * ignored.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean decryptPacket(
+            CipherState cs, ByteArrayBuffer pkt, int guessedROC, boolean skipDecryption)
+    {
+        byte[] buf = pkt.getBuffer();
+        int off = pkt.getOffset();
+        int len = pkt.getLength();
+        int rtpHeaderLength = RawPacket.getHeaderLength(buf, off, len);
+
+        if (len - rtpHeaderLength < SRTPCipherGCM.TAG_LEN)
+            return false;
+
+        SRTPCipherGCM cipherGcm = cs.cipherGcm;
+        computeGcmIv(cs, pkt, guessedROC);
+        cipherGcm.start(false, cs.gcmIv);
+        cipherGcm.updateAAD(buf, off, rtpHeaderLength);
+
+        int payloadOffset = off + rtpHeaderLength;
+        int payloadLength = cipherGcm.doFinal(
+                buf, payloadOffset, len - rtpHeaderLength, buf, payloadOffset);
+
+        if (payloadLength < 0)
+            return false;
+        pkt.setLength(rtpHeaderLength + payloadLength);
+        return true;
+    }
+
+    /**
+     * Derives a new SRTPGCMCryptoContext for use with a new SSRC.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public SRTPCryptoContext deriveContext(int ssrc, int roc, long deriveRate)
+    {
+        return new SRTPGCMCryptoContext(sender, ssrc, roc, deriveRate, masterKey, masterSalt, policy);
+    }
+
+    /**
+     * Encrypts an RTP packet and appends the AES-GCM authentication tag in a single pass.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected void encryptPacket(CipherState cs, ByteArrayBuffer pkt, int guessedROC)
+    {
+        // Make room for the authentication tag; this may change the buffer of the packet.
+        pkt.grow(SRTPCipherGCM.TAG_LEN);
+
+        byte[] buf = pkt.getBuffer();
+        int off = pkt.getOffset();
+        int len = pkt.getLength();
+        int rtpHeaderLength = RawPacket.getHeaderLength(buf, off, len);
+
+        SRTPCipherGCM cipherGcm = cs.cipherGcm;
+        computeGcmIv(cs, pkt, guessedROC);
+        cipherGcm.start(true, cs.gcmIv);
+        cipherGcm.updateAAD(buf, off, rtpHeaderLength);
+
+        int payloadOffset = off + rtpHeaderLength;
+        int payloadLength = cipherGcm.doFinal(
+                buf, payloadOffset, len - rtpHeaderLength, buf, payloadOffset);
+
+        pkt.setLength(rtpHeaderLength + payloadLength);
+    }
+}
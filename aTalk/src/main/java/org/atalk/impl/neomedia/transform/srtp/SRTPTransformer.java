@@ -25,10 +25,16 @@ package org.atalk.impl.neomedia.transform.srtp;
 import org.atalk.impl.neomedia.transform.SinglePacketTransformer;
 import org.atalk.service.neomedia.RawPacket;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.media.Buffer;
 
+import timber.log.Timber;
+
 /**
  * SRTPTransformer implements PacketTransformer and provides implementations for RTP packet to SRTP
  * packet transformation and SRTP packet to RTP packet transformation logic.
@@ -41,14 +47,31 @@ import javax.media.Buffer;
  */
 public class SRTPTransformer extends SinglePacketTransformer
 {
+    /**
+     * The number of exceptions to log with a single call to <tt>Timber</tt>, as in
+     * <tt>SinglePacketTransformer</tt>.
+     */
+    private static final int EXCEPTIONS_TO_LOG = 1000;
+
     SRTPContextFactory forwardFactory;
     SRTPContextFactory reverseFactory;
 
     /**
-     * All the known SSRC's corresponding SRTPCryptoContexts
+     * All the known SSRC's corresponding SRTPCryptoContexts. Looked up without locking on the
+     * packet path; new contexts are derived and added with the monitor of the map held.
      */
     private final Map<Integer, SRTPCryptoContext> contexts;
 
+    /**
+     * The number of exceptions caught in {@link #reverseTransform(RawPacket[])}.
+     */
+    private final AtomicLong exceptionsInReverseTransform = new AtomicLong();
+
+    /**
+     * The number of exceptions caught in {@link #transform(RawPacket[])}.
+     */
+    private final AtomicLong exceptionsInTransform = new AtomicLong();
+
     /**
      * Initializes a new <tt>SRTPTransformer</tt> instance.
      *
@@ -69,7 +92,7 @@ public class SRTPTransformer extends SinglePacketTransformer
     {
         this.forwardFactory = forwardFactory;
         this.reverseFactory = reverseFactory;
-        this.contexts = new HashMap<>();
+        this.contexts = new ConcurrentHashMap<>();
     }
 
     /**
@@ -121,7 +144,10 @@ public class SRTPTransformer extends SinglePacketTransformer
 
     private SRTPCryptoContext getContext(int ssrc, SRTPContextFactory engine, int deriveSrtpKeysIndex)
     {
-        SRTPCryptoContext context;
+        SRTPCryptoContext context = contexts.get(ssrc);
+
+        if (context != null)
+            return context;
 
         synchronized (contexts) {
             context = contexts.get(ssrc);
@@ -172,4 +198,110 @@ public class SRTPTransformer extends SinglePacketTransformer
             return null;
         return context.transformPacket(pkt) ? pkt : null;
     }
+
+    /**
+     * Reverse-transforms an array of packets. The crypto context of a run of packets of the same
+     * SSRC is looked up once for the whole run. A packet which fails with an exception is dropped
+     * and the exception counted and logged as <tt>SinglePacketTransformer</tt> does.
+     *
+     * @param pkts the transformed packets to be restored
+     * @return the restored packets
+     */
+    @Override
+    public RawPacket[] reverseTransform(RawPacket[] pkts)
+    {
+        if (pkts == null)
+            return null;
+
+        SRTPCryptoContext context = null;
+        int contextSSRC = 0;
+
+        for (int i = 0; i < pkts.length; i++) {
+            RawPacket pkt = pkts[i];
+            if (pkt == null)
+                continue;
+
+            // only accept RTP version 2 (SNOM phones send weird packages when on
+            // hold, ignore them with this check (RTP Version must be equal to 2)
+            if ((pkt.readByte(0) & 0xC0) != 0x80) {
+                pkts[i] = null;
+                continue;
+            }
+
+            try {
+                int ssrc = pkt.getSSRC();
+                if (context == null || ssrc != contextSSRC) {
+                    context = getContext(ssrc, reverseFactory, pkt.getSequenceNumber());
+                    contextSSRC = ssrc;
+                }
+
+                boolean skipDecryption = (pkt.getFlags() & (Buffer.FLAG_DISCARD | Buffer.FLAG_SILENCE)) != 0;
+                if ((context == null) || !context.reverseTransformPacket(pkt, skipDecryption))
+                    pkts[i] = null;
+            } catch (RuntimeException e) {
+                pkts[i] = null;
+                logException(exceptionsInReverseTransform, e, "reverse-transform");
+            }
+        }
+        return pkts;
+    }
+
+    /**
+     * Transforms an array of packets. Each run of packets of the same SSRC (e.g. the packets of a
+     * video key frame) is protected as a single batch by its crypto context. The packets of a
+     * batch are protected in place together, so a batch which fails with an exception is dropped
+     * as a whole, and the exception counted and logged as <tt>SinglePacketTransformer</tt> does.
+     *
+     * @param pkts the packets to be transformed
+     * @return the transformed packets
+     */
+    @Override
+    public RawPacket[] transform(RawPacket[] pkts)
+    {
+        if (pkts == null)
+            return null;
+
+        for (int i = 0; i < pkts.length; ) {
+            RawPacket pkt = pkts[i];
+            if (pkt == null) {
+                i++;
+                continue;
+            }
+
+            int end = i + 1;
+            try {
+                // A packet too short to have an SSRC ends the run and fails in a run of its own.
+                int ssrc = pkt.getSSRC();
+                while (end < pkts.length && (pkts[end] == null
+                        || (pkts[end].getLength() >= RawPacket.FIXED_HEADER_SIZE && pkts[end].getSSRC() == ssrc)))
+                    end++;
+
+                SRTPCryptoContext context = getContext(ssrc, forwardFactory, 0);
+                if (context == null)
+                    Arrays.fill(pkts, i, end, null);
+                else
+                    context.transformPackets(pkts, i, end);
+            } catch (RuntimeException e) {
+                Arrays.fill(pkts, i, end, null);
+                logException(exceptionsInTransform, e, "transform");
+            }
+            i = end;
+        }
+        return pkts;
+    }
+
+    /**
+     * Counts an exception caught while (reverse) transforming packets and logs every
+     * {@link #EXCEPTIONS_TO_LOG}th of them, starting with the first.
+     *
+     * @param counter the counter of the exceptions of the transformation
+     * @param e the exception caught
+     * @param operation the name of the transformation for the log
+     */
+    static void logException(AtomicLong counter, RuntimeException e, String operation)
+    {
+        long count = counter.incrementAndGet();
+        if ((count % EXCEPTIONS_TO_LOG) == 0 || count == 1)
+            Timber.e(e, "Failed to %s RawPacket(s)! (%d so far)", operation, count);
+    }
 }
@@ -0,0 +1,427 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.persistance;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.atalk.android.gui.chat.ChatMessage;
+
+import java.util.*;
+
+import timber.log.Timber;
+
+/**
+ * The full-text index of the bodies of the chat messages: an SQLite FTS4 table kept in sync by
+ * triggers on {@link ChatMessage#TABLE_NAME}, so that every insert, update and delete of a message
+ * in the database, whoever makes it, is indexed. The docid of a message in the index is assigned
+ * by {@link #DOCS_TABLE_NAME}, which maps it to the {@link ChatMessage#UUID} of the message: the
+ * implicit rowid of the message table may be renumbered by VACUUM, and making it an INTEGER
+ * PRIMARY KEY would take a copy of the whole table on upgrade.
+ *
+ * The messages which predate the index are indexed by {@link #backfill(SQLiteDatabase)} a batch
+ * at a time, newest first, in the background. Until it completes, a search also scans the
+ * messages which have not been indexed yet.
+ *
+ * The index matches words and word prefixes as the FTS "simple" tokenizer splits them, not
+ * substrings: "hel" finds "Hello" but "ello" does not; see {@link #getSelection}. {@link #rank}
+ * counts the matches the same way.
+ *
+ * @author Eng Chong Meng
+ */
+public class ChatMessageFts
+{
+    /**
+     * The FTS4 table indexing {@link ChatMessage#MSG_BODY}.
+     */
+    public static final String TABLE_NAME = ChatMessage.TABLE_NAME + "_fts";
+
+    /**
+     * The table which assigns the docid in {@link #TABLE_NAME} of each message indexed, by the
+     * UUID of the message.
+     */
+    private static final String DOCS_TABLE_NAME = TABLE_NAME + "_docs";
+
+    private static final String DOC_ID = "docid";
+
+    /**
+     * The table holding the single row with the highest rowid of the messages which have not
+     * been indexed yet; it exists only while the backfill has not completed.
+     */
+    private static final String BACKFILL_TABLE_NAME = TABLE_NAME + "_backfill";
+
+    private static final String PENDING_ROW_ID = "pendingRowId";
+
+    /**
+     * The number of messages indexed per backfill transaction.
+     */
+    private static final int BACKFILL_BATCH = 2000;
+
+    /**
+     * The highest rowid of the messages which have not been indexed yet, <tt>0</tt> once all have
+     * been, or <tt>-1</tt> if not read from the database yet.
+     */
+    private static volatile long pendingRowId = -1;
+
+    /**
+     * Creates the full-text index and the triggers which keep it in sync with the message table.
+     * The index starts empty i.e. the existing messages are not indexed.
+     *
+     * @param db the database to create the index in
+     */
+    public static void createIndex(SQLiteDatabase db)
+    {
+        String msgTable = ChatMessage.TABLE_NAME;
+        String uuid = ChatMessage.UUID;
+        String body = ChatMessage.MSG_BODY;
+
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_NAME + " USING fts4(" + body + ")");
+        db.execSQL("CREATE TABLE " + DOCS_TABLE_NAME + " (" + DOC_ID + " INTEGER PRIMARY KEY, "
+                + uuid + " TEXT UNIQUE ON CONFLICT REPLACE)");
+
+        /*
+         * UNIQUE(uuid) ON CONFLICT REPLACE deletes a replaced message without firing the delete
+         * trigger, so the insert trigger drops its index entry first. Dropping the entry of a
+         * message which is not in the index, e.g. one not backfilled yet, is harmless.
+         */
+        String dropOld = " DELETE FROM " + TABLE_NAME + " WHERE docid IN (SELECT " + DOC_ID + " FROM "
+                + DOCS_TABLE_NAME + " WHERE " + uuid + " = old." + uuid + ");"
+                + " DELETE FROM " + DOCS_TABLE_NAME + " WHERE " + uuid + " = old." + uuid + ";";
+        String addNew = " INSERT INTO " + DOCS_TABLE_NAME + "(" + uuid + ") VALUES (new." + uuid + ");"
+                + " INSERT INTO " + TABLE_NAME + "(docid, " + body + ") SELECT " + DOC_ID + ", new." + body
+                + " FROM " + DOCS_TABLE_NAME + " WHERE " + uuid + " = new." + uuid + ";";
+        String whenNew = " WHEN new." + uuid + " IS NOT NULL BEGIN";
+
+        db.execSQL("CREATE TRIGGER " + TABLE_NAME + "_bi BEFORE INSERT ON " + msgTable + whenNew
+                + dropOld.replace("old.", "new.") + " END");
+        db.execSQL("CREATE TRIGGER " + TABLE_NAME + "_ai AFTER INSERT ON " + msgTable + whenNew
+                + addNew + " END");
+        db.execSQL("CREATE TRIGGER " + TABLE_NAME + "_bd BEFORE DELETE ON " + msgTable + " BEGIN"
+                + dropOld + " END");
+        db.execSQL("CREATE TRIGGER " + TABLE_NAME + "_bu BEFORE UPDATE OF " + body + ", " + uuid
+                + " ON " + msgTable + " BEGIN" + dropOld + " END");
+        db.execSQL("CREATE TRIGGER " + TABLE_NAME + "_au AFTER UPDATE OF " + body + ", " + uuid
+                + " ON " + msgTable + whenNew + addNew + " END");
+    }
+
+    /**
+     * Schedules the messages currently in the message table for indexing by
+     * {@link #backfill(SQLiteDatabase)}; called once after {@link #createIndex(SQLiteDatabase)}
+     * on a database which already has messages.
+     *
+     * @param db the database to backfill the index of
+     */
+    public static void startBackfill(SQLiteDatabase db)
+    {
+        db.execSQL("CREATE TABLE " + BACKFILL_TABLE_NAME + " (" + PENDING_ROW_ID + " INTEGER)");
+        db.execSQL("INSERT INTO " + BACKFILL_TABLE_NAME + " SELECT IFNULL(MAX(rowid), 0) FROM "
+                + ChatMessage.TABLE_NAME);
+        pendingRowId = -1;
+    }
+
+    /**
+     * Indexes the messages which predate the index, {@link #BACKFILL_BATCH} messages per
+     * transaction so that the database is not locked for long, until all of them are indexed or
+     * the current thread is interrupted.
+     *
+     * The messages are walked in ranges of their rowids. VACUUM may renumber the rowids, but in
+     * their order and never upwards, so the messages not indexed yet stay at or below the pending
+     * rowid.
+     *
+     * @param db the database to backfill the index of
+     */
+    public static void backfill(SQLiteDatabase db)
+    {
+        String msgTable = ChatMessage.TABLE_NAME;
+        String uuid = ChatMessage.UUID;
+        long toRowId;
+
+        while (((toRowId = getPendingRowId(db)) > 0) && !Thread.currentThread().isInterrupted()) {
+            long fromRowId = Math.max(0, toRowId - BACKFILL_BATCH);
+            String[] args = {Long.toString(fromRowId), Long.toString(toRowId)};
+
+            db.beginTransaction();
+            try {
+                // the messages inserted or updated since the index was created are indexed already.
+                db.execSQL("INSERT INTO " + DOCS_TABLE_NAME + "(" + uuid + ") SELECT " + uuid + " FROM "
+                        + msgTable + " m WHERE rowid > ?1 AND rowid <= ?2 AND " + uuid + " IS NOT NULL"
+                        + " AND NOT EXISTS (SELECT 1 FROM " + DOCS_TABLE_NAME + " d WHERE d." + uuid
+                        + " = m." + uuid + ")", args);
+                db.execSQL("INSERT INTO " + TABLE_NAME + "(docid, " + ChatMessage.MSG_BODY + ") SELECT d."
+                        + DOC_ID + ", m." + ChatMessage.MSG_BODY + " FROM " + msgTable + " m JOIN "
+                        + DOCS_TABLE_NAME + " d ON d." + uuid + " = m." + uuid
+                        + " WHERE m.rowid > ?1 AND m.rowid <= ?2 AND NOT EXISTS (SELECT 1 FROM "
+                        + TABLE_NAME + " WHERE docid = d." + DOC_ID + ")", args);
+                if (fromRowId > 0)
+                    db.execSQL("UPDATE " + BACKFILL_TABLE_NAME + " SET " + PENDING_ROW_ID + " = ?",
+                            new Object[]{fromRowId});
+                else
+                    db.execSQL("DROP TABLE " + BACKFILL_TABLE_NAME);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            pendingRowId = fromRowId;
+        }
+        if (toRowId == 0)
+            Timber.d("Full-text index of the chat messages is complete");
+    }
+
+    /**
+     * Returns the highest rowid of the messages which have not been indexed yet.
+     *
+     * @param db the database of the index
+     * @return the highest rowid of the messages not indexed yet or <tt>0</tt> if all are
+     */
+    private static long getPendingRowId(SQLiteDatabase db)
+    {
+        long rowId = pendingRowId;
+
+        if (rowId < 0) {
+            rowId = 0;
+            Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?",
+                    new String[]{BACKFILL_TABLE_NAME});
+            try {
+                if (cursor.moveToNext()) {
+                    cursor.close();
+                    cursor = db.rawQuery("SELECT " + PENDING_ROW_ID + " FROM " + BACKFILL_TABLE_NAME, null);
+                    if (cursor.moveToNext())
+                        rowId = cursor.getLong(0);
+                }
+            } finally {
+                cursor.close();
+            }
+            pendingRowId = rowId;
+        }
+        return rowId;
+    }
+
+    /**
+     * Returns the selection, on the message table, of the messages the body of which contains
+     * any of specific keywords, and appends its arguments to <tt>selectionArgs</tt>.
+     *
+     * A keyword is looked up in the full-text index as the words it consists of, the last of them
+     * as a prefix, e.g. "hel" finds "Hello" and "hello wor" finds "hello world". A keyword which
+     * cannot be looked up that way, i.e. one with non-ASCII characters or without any word, makes
+     * the whole search fall back to matching the keywords anywhere in the body.
+     *
+     * @param db the database of the index
+     * @param keywords the keywords to search for
+     * @param selectionArgs the list to append the arguments of the selection to
+     * @return the selection of the messages containing any of <tt>keywords</tt>
+     */
+    public static String getSelection(SQLiteDatabase db, String[] keywords, List<String> selectionArgs)
+    {
+        StringBuilder match = new StringBuilder();
+
+        for (String keyword : keywords) {
+            String term = toMatchTerm(keyword);
+
+            if (term == null)
+                return getLikeSelection(keywords, selectionArgs);
+            if (match.length() > 0)
+                match.append(" OR ");
+            match.append(term);
+        }
+
+        String selection = ChatMessage.UUID + " IN (SELECT " + ChatMessage.UUID + " FROM " + DOCS_TABLE_NAME
+                + " WHERE " + DOC_ID + " IN (SELECT docid FROM " + TABLE_NAME + " WHERE " + TABLE_NAME + " MATCH ?))";
+        selectionArgs.add(match.toString());
+
+        long rowId = getPendingRowId(db);
+        if (rowId > 0) {
+            selectionArgs.add(Long.toString(rowId));
+            selection = "(" + selection + " OR (rowid <= ? AND " + getLikeSelection(keywords, selectionArgs) + "))";
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the FTS query term of a keyword: its words in lower case so that none of them is
+     * taken for an operator, as a phrase if there are several, the last of them as a prefix.
+     *
+     * @param keyword the keyword to convert
+     * @return the FTS query term of <tt>keyword</tt> or <tt>null</tt> if it cannot be looked up
+     * in the index
+     */
+    private static String toMatchTerm(String keyword)
+    {
+        List<String> words = toWords(keyword);
+        if (words == null)
+            return null;
+
+        StringBuilder term = new StringBuilder();
+        for (String w : words) {
+            if (term.length() > 0)
+                term.append(' ');
+            term.append(w);
+        }
+        term.append('*');
+        return (words.size() == 1) ? term.toString() : ("\"" + term + "\"");
+    }
+
+    /**
+     * Returns the words of a keyword as the FTS "simple" tokenizer splits them: the runs of ASCII
+     * letters and digits, in lower case.
+     *
+     * @param keyword the keyword to split
+     * @return the words of <tt>keyword</tt> or <tt>null</tt> if it has non-ASCII characters, which
+     * the tokenizer does not fold, or no word at all
+     */
+    private static List<String> toWords(String keyword)
+    {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0, length = keyword.length(); i <= length; i++) {
+            char c = (i < length) ? keyword.charAt(i) : ' ';
+
+            if (c >= 0x80)
+                return null;
+            if (isTokenChar(c)) {
+                word.append(Character.toLowerCase(c));
+            }
+            else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words.isEmpty() ? null : words;
+    }
+
+    /**
+     * Returns the tokens of a message body as the FTS "simple" tokenizer splits them: the runs of
+     * ASCII letters and digits and of non-ASCII characters, the ASCII letters in lower case.
+     */
+    private static List<String> toTokens(String body)
+    {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+
+        for (int i = 0, length = body.length(); i <= length; i++) {
+            char c = (i < length) ? body.charAt(i) : ' ';
+
+            if (isTokenChar(c)) {
+                token.append((c < 0x80) ? Character.toLowerCase(c) : c);
+            }
+            else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isTokenChar(char c)
+    {
+        return (c >= 0x80) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Returns the selection of the messages the body of which contains any of specific keywords
+     * anywhere, and appends its arguments to <tt>selectionArgs</tt>.
+     */
+    private static String getLikeSelection(String[] keywords, List<String> selectionArgs)
+    {
+        StringBuilder selection = new StringBuilder("(");
+
+        for (String keyword : keywords) {
+            if (selection.length() > 1)
+                selection.append(" OR ");
+            selection.append(ChatMessage.MSG_BODY).append(" LIKE ? ESCAPE '\\'");
+            selectionArgs.add("%" + keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        return selection.append(")").toString();
+    }
+
+    /**
+     * Returns the rank of a message body for specific keywords: the number of distinct keywords
+     * it contains first and then the number of their occurrences. A keyword occurs where the index
+     * matches it, i.e. as its words in a row, the last of them as a prefix; if any of the keywords
+     * cannot be looked up in the index, the search matches substrings and so does the rank.
+     *
+     * @param body the message body
+     * @param keywords the keywords searched for
+     * @return the rank of <tt>body</tt>; the higher the better
+     */
+    public static int rank(String body, String[] keywords)
+    {
+        if (body == null)
+            return 0;
+
+        List<List<String>> keywordWords = new ArrayList<>(keywords.length);
+        for (String keyword : keywords) {
+            List<String> words = toWords(keyword);
+            if (words == null)
+                return rankSubstrings(body, keywords);
+            keywordWords.add(words);
+        }
+
+        List<String> tokens = toTokens(body);
+        int distinct = 0, occurrences = 0;
+
+        for (List<String> words : keywordWords) {
+            int count = 0;
+            for (int i = 0; i + words.size() <= tokens.size(); i++) {
+                if (matches(tokens, i, words))
+                    count++;
+            }
+            if (count > 0)
+                distinct++;
+            occurrences += count;
+        }
+        return distinct * 1000 + Math.min(occurrences, 999);
+    }
+
+    /**
+     * Returns whether the tokens from a specific index on are the words of a keyword, the last of
+     * them as a prefix.
+     */
+    private static boolean matches(List<String> tokens, int index, List<String> words)
+    {
+        int last = words.size() - 1;
+
+        for (int w = 0; w < last; w++) {
+            if (!tokens.get(index + w).equals(words.get(w)))
+                return false;
+        }
+        return tokens.get(index + last).startsWith(words.get(last));
+    }
+
+    /**
+     * Returns the rank of a message body for keywords matched anywhere in it, ignoring case.
+     */
+    private static int rankSubstrings(String body, String[] keywords)
+    {
+        String text = body.toLowerCase(Locale.US);
+        int distinct = 0, occurrences = 0;
+
+        for (String keyword : keywords) {
+            String k = keyword.toLowerCase(Locale.US);
+            if (k.isEmpty())
+                continue;
+
+            int count = 0;
+            for (int i = text.indexOf(k); i >= 0; i = text.indexOf(k, i + k.length()))
+                count++;
+            if (count > 0)
+                distinct++;
+            occurrences += count;
+        }
+        return distinct * 1000 + Math.min(occurrences, 999);
+    }
+}
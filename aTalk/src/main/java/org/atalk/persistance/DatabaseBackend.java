@@ -63,7 +63,7 @@ public class DatabaseBackend extends SQLiteOpenHelper
      * Increment DATABASE_VERSION when there is a change in database records
      */
     public static final String DATABASE_NAME = "dbRecords.db";
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 5;
     private static DatabaseBackend instance = null;
     private ProtocolProviderService mProvider;
 
@@ -323,6 +323,9 @@ public class DatabaseBackend extends SQLiteOpenHelper
                 + ") ON DELETE CASCADE, UNIQUE(" + ChatMessage.UUID
                 + ") ON CONFLICT REPLACE);");
 
+        // Full-text index of the chat / MUC message bodies
+        ChatMessageFts.createIndex(db);
+
         // Call history table
         db.execSQL("CREATE TABLE " + CallHistoryService.TABLE_NAME + " ("
                 + CallHistoryService.UUID + " TEXT PRIMARY KEY, "
@@ -1287,12 +1290,35 @@ public class DatabaseBackend extends SQLiteOpenHelper
     }
 
     public void storeSession(OmemoDevice omemoContact, SessionRecord session)
+    {
+        storeSession(this.getWritableDatabase(), omemoContact, session.serialize());
+    }
+
+    /**
+     * Store the serialized sessions of several devices in one transaction.
+     *
+     * @param sessions map of the devices to their serialized session records
+     */
+    public void storeSessions(Map<OmemoDevice, byte[]> sessions)
     {
         SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Map.Entry<OmemoDevice, byte[]> entry : sessions.entrySet()) {
+                storeSession(db, entry.getKey(), entry.getValue());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void storeSession(SQLiteDatabase db, OmemoDevice omemoContact, byte[] serializedSession)
+    {
         ContentValues values = new ContentValues();
         values.put(SQLiteOmemoStore.BARE_JID, omemoContact.getJid().toString());
         values.put(SQLiteOmemoStore.DEVICE_ID, omemoContact.getDeviceId());
-        values.put(SQLiteOmemoStore.SESSION_KEY, Base64.encodeToString(session.serialize(), Base64.DEFAULT));
+        values.put(SQLiteOmemoStore.SESSION_KEY, Base64.encodeToString(serializedSession, Base64.DEFAULT));
         db.insert(SQLiteOmemoStore.SESSION_TABLE_NAME, null, values);
     }
 
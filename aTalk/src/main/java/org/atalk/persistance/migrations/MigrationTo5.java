@@ -0,0 +1,14 @@
+package org.atalk.persistance.migrations;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.atalk.persistance.ChatMessageFts;
+
+public class MigrationTo5
+{
+    public static void createMessageFtsIndex(SQLiteDatabase db)
+    {
+        ChatMessageFts.createIndex(db);
+        ChatMessageFts.startBackfill(db);
+    }
+}
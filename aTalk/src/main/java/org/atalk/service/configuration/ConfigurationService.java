@@ -365,6 +365,17 @@ public interface ConfigurationService
     void storeConfiguration()
             throws IOException;
 
+    /**
+     * Stores the property changes which have been made but are not stored in the configuration
+     * file yet because the implementation delays and coalesces the storing of changes. Does
+     * nothing if there are no such changes. Is to be called before shutting down so that no
+     * change is lost.
+     *
+     * @throws IOException in case storing the configuration failed.
+     */
+    void flush()
+            throws IOException;
+
     /**
      * Deletes the current configuration and reloads it from the configuration file. The name of
      * the configuration file is queried from the system property net.java.sip.communicator
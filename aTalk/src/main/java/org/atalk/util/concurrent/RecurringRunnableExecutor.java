@@ -15,8 +15,8 @@
  */
 package org.atalk.util.concurrent;
 
+import org.atalk.android.plugin.timberlog.TimberLog;
 import org.atalk.android.util.ApiLib;
-import org.atalk.util.Logger;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -24,9 +24,19 @@ import java.util.concurrent.*;
 import timber.log.Timber;
 
 /**
- * Implements a single-threaded {@link Executor} of {@link RecurringRunnable}s i.e. asynchronous
- * tasks which determine by themselves the intervals (the lengths of which may vary) at which
- * they are to be invoked.
+ * Implements an {@link Executor} of {@link RecurringRunnable}s i.e. asynchronous tasks which
+ * determine by themselves the intervals (the lengths of which may vary) at which they are to be
+ * invoked.
+ * <p>
+ * The registered {@code RecurringRunnable}s are kept in a binary heap ordered by the time at
+ * which they are next due so that the scheduling thread only looks at the one which is due
+ * first and re-keys a {@code RecurringRunnable} in O(log n). The due {@code RecurringRunnable}s
+ * are invoked one at a time on the scheduling thread, as they always have been, unless a pool of
+ * worker threads is asked for so that a slow one does not delay the others; the
+ * {@code RecurringRunnable}s of such an executor must then tolerate being invoked concurrently
+ * with each other. A {@code RecurringRunnable} is never invoked concurrently with itself.
+ * The lateness of each invocation i.e. the time between its due time and its start is tracked
+ * per {@code RecurringRunnable}, see {@link #getStatistics(RecurringRunnable)}.
  * <p>
  * webrtc/modules/utility/interface/process_thread.h
  * webrtc/modules/utility/source/process_thread_impl.cc
@@ -39,15 +49,49 @@ import timber.log.Timber;
 public class RecurringRunnableExecutor implements Executor
 {
 	/**
-	 * The {@code RecurringRunnable}s registered with this instance which are
-	 * to be invoked in {@link #thread}.
+	 * The default number of worker threads which invoke the registered {@code RecurringRunnable}s:
+	 * none i.e. they are invoked on the scheduling thread.
+	 */
+	public static final int DEFAULT_WORKER_COUNT = 0;
+
+	/**
+	 * The maximum time in milliseconds after which a {@code RecurringRunnable} is asked again for
+	 * {@link RecurringRunnable#getTimeUntilNextRun()}, in case its next run has moved earlier
+	 * without {@link #reschedule(RecurringRunnable)} having been called.
+	 */
+	private static final long MAX_WAIT_MILLIS = 100L;
+
+	/**
+	 * The lateness in milliseconds above which an invocation is logged.
+	 */
+	private static final long LATENESS_LOG_THRESHOLD_MILLIS = 50L;
+
+	/**
+	 * The {@code Entry}s of the {@code RecurringRunnable}s registered with this instance.
+	 */
+	private final Map<RecurringRunnable, Entry> entries = new HashMap<>();
+
+	/**
+	 * The {@code Entry}s which are being run, by their {@code RecurringRunnable}s. An
+	 * {@code Entry} stays here until its run completes even if it is de-registered meanwhile.
+	 */
+	private final Map<RecurringRunnable, Entry> running = new HashMap<>();
+
+	/**
+	 * The binary heap of the {@code Entry}s which are waiting to be due, ordered by
+	 * {@link Entry#dueTimeNanos}. An {@code Entry} which is being run is not in the heap.
+	 */
+	private Entry[] heap = new Entry[16];
+
+	/**
+	 * The number of {@code Entry}s in {@link #heap}.
 	 */
-	private final List<RecurringRunnable> recurringRunnables = new LinkedList<>();
+	private int heapSize = 0;
 
 	/**
-	 * The (background) {@code Thread} which invokes {@link RecurringRunnable#run()} on
-	 * {@link #recurringRunnables} (in accord with their respective
-	 * {@link RecurringRunnable#getTimeUntilNextRun()}).
+	 * The (background) {@code Thread} which waits for the registered {@code RecurringRunnable}s
+	 * to be due (in accord with their respective {@link RecurringRunnable#getTimeUntilNextRun()})
+	 * and has them invoked.
 	 */
 	private Thread thread;
 
@@ -57,6 +101,18 @@ public class RecurringRunnableExecutor implements Executor
 	 */
 	private final String name;
 
+	/**
+	 * The number of worker threads which invoke the registered {@code RecurringRunnable}s or
+	 * {@code 0} to invoke them on {@link #thread}.
+	 */
+	private final int workerCount;
+
+	/**
+	 * The pool of worker threads which invoke the registered {@code RecurringRunnable}s, created
+	 * on demand; {@code null} if {@link #workerCount} is {@code 0}.
+	 */
+	private ThreadPoolExecutor workers;
+
 	/**
 	 * Whether this {@link RecurringRunnableExecutor} is closed. When it is
 	 * closed, it should stop its thread(s).
@@ -78,8 +134,24 @@ public class RecurringRunnableExecutor implements Executor
 	 * 		a string to be added to the name of the thread which this instance will start.
 	 */
 	public RecurringRunnableExecutor(String name)
+	{
+		this(name, DEFAULT_WORKER_COUNT);
+	}
+
+	/**
+	 * Initializes a new {@link RecurringRunnableExecutor} instance.
+	 *
+	 * @param name
+	 * 		a string to be added to the names of the threads which this instance will start.
+	 * @param workerCount
+	 * 		the number of worker threads which are to invoke the registered
+	 * 		{@code RecurringRunnable}s concurrently or {@code 0} to invoke them on the scheduling
+	 * 		thread
+	 */
+	public RecurringRunnableExecutor(String name, int workerCount)
 	{
 		this.name = name;
+		this.workerCount = Math.max(workerCount, 0);
 	}
 
 	/**
@@ -98,11 +170,16 @@ public class RecurringRunnableExecutor implements Executor
 			return false;
 		}
 		else {
-			synchronized (recurringRunnables) {
-				boolean removed = recurringRunnables.remove(recurringRunnable);
-				if (removed)
-					startOrNotifyThread();
-				return removed;
+			synchronized (entries) {
+				Entry entry = entries.remove(recurringRunnable);
+				if (entry == null)
+					return false;
+
+				entry.removed = true;
+				if (entry.heapIndex >= 0)
+					heapRemove(entry);
+				entries.notifyAll();
+				return true;
 			}
 		}
 	}
@@ -124,75 +201,108 @@ public class RecurringRunnableExecutor implements Executor
 		registerRecurringRunnable((RecurringRunnable) command);
 	}
 
+	/**
+	 * Gets the statistics of the invocations of a specific {@code RecurringRunnable} by this
+	 * instance.
+	 *
+	 * @param recurringRunnable
+	 * 		the {@code RecurringRunnable} to get the statistics of
+	 * @return the {@code Statistics} of {@code recurringRunnable} or {@code null} if it is not
+	 * registered with this instance
+	 */
+	public Statistics getStatistics(RecurringRunnable recurringRunnable)
+	{
+		synchronized (entries) {
+			Entry entry = entries.get(recurringRunnable);
+			return (entry == null) ? null : new Statistics(entry);
+		}
+	}
+
 	/**
 	 * Executes an iteration of the loop implemented by {@link #runInThread()}.
-	 * Invokes {@link RecurringRunnable#run()} on all {@link #recurringRunnables} which are at or
-	 * after the time at which they want the method in question called.
+	 * Waits for the {@code RecurringRunnable} which is due first and has it invoked.
 	 *
 	 * @return {@code true} to continue with the next iteration of the loop
 	 * implemented by {@link #runInThread()} or {@code false} to break (out of) the loop
 	 */
 	private boolean run()
 	{
-		if (closed || !Thread.currentThread().equals(thread)) {
-			return false;
-		}
-		// Wait for the recurringRunnable that should be called next, but don't block thread
-		// longer than 100 ms.
-		long minTimeToNext = 100L;
+		Entry entry;
 
-		synchronized (recurringRunnables) {
-			if (recurringRunnables.isEmpty()) {
+		synchronized (entries) {
+			if (closed || !Thread.currentThread().equals(thread) || entries.isEmpty()) {
 				return false;
 			}
-			for (RecurringRunnable recurringRunnable : recurringRunnables) {
-				long timeToNext = recurringRunnable.getTimeUntilNextRun();
+			entry = (heapSize == 0) ? null : heap[0];
 
-				if (minTimeToNext > timeToNext)
-					minTimeToNext = timeToNext;
-			}
-		}
+			long now = System.nanoTime();
+			long waitNanos = (entry == null)
+					? TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS) : entry.dueTimeNanos - now;
 
-		if (minTimeToNext > 0L) {
-			synchronized (recurringRunnables) {
-				if (recurringRunnables.isEmpty()) {
-					return false;
-				}
+			if (waitNanos > 0L) {
 				try {
-					recurringRunnables.wait(minTimeToNext);
+					TimeUnit.NANOSECONDS.timedWait(entries, waitNanos);
 				}
 				catch (InterruptedException ie) {
 					Thread.currentThread().interrupt();
 				}
 				return true;
 			}
-		}
-		synchronized (recurringRunnables) {
-			for (RecurringRunnable recurringRunnable : recurringRunnables) {
-				long timeToNext = recurringRunnable.getTimeUntilNextRun();
 
-				if (timeToNext < 1L) {
-					try {
-						recurringRunnable.run();
-					}
-					catch (Throwable t) {
-						if (t instanceof InterruptedException) {
-							Thread.currentThread().interrupt();
-						}
-						else if (t instanceof ThreadDeath) {
-							throw (ThreadDeath) t;
-						}
-						else {
-							Timber.e(t, "The invocation of the method %s.run() threw an exception.",
-                                    recurringRunnable.getClass().getName());
-						}
-					}
-				}
+			// The entry is due as far as the heap is concerned; check with the
+			// recurringRunnable whether it still wants to be invoked now.
+			long timeToNext = entry.recurringRunnable.getTimeUntilNextRun();
+
+			if (timeToNext > 0L) {
+				heapUpdate(entry, now + TimeUnit.MILLISECONDS.toNanos(
+						Math.min(timeToNext, MAX_WAIT_MILLIS)));
+				return true;
+			}
+			heapRemove(entry);
+			running.put(entry.recurringRunnable, entry);
+
+			if (workerCount > 0) {
+				if (workers == null)
+					workers = createWorkers();
+				workers.execute(entry);
+				return true;
 			}
 		}
+		// There are no workers, invoke the recurringRunnable on this thread but
+		// outside the lock so that (de)registrations do not wait for it.
+		entry.run();
 		return true;
 	}
 
+	/**
+	 * Initializes the pool of worker threads which invoke the registered
+	 * {@code RecurringRunnable}s. Idle workers are terminated.
+	 *
+	 * @return the new pool of worker threads
+	 */
+	private ThreadPoolExecutor createWorkers()
+	{
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(workerCount, workerCount,
+				60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+		{
+			private int count = 0;
+
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r);
+
+				thread.setDaemon(true);
+				thread.setName(RecurringRunnableExecutor.class.getName() + ".worker-" + name
+						+ "-" + (count++));
+				return thread;
+			}
+		});
+
+		workers.allowCoreThreadTimeOut(true);
+		return workers;
+	}
+
 	/**
 	 * Registers a {@code RecurringRunnable} with this {@code Executor} so
 	 * that its {@link RecurringRunnable#run()} is invoked (by this instance).
@@ -207,27 +317,59 @@ public class RecurringRunnableExecutor implements Executor
 		// cmeng: Objects not available in API-15 (added in API level 19)
 		ApiLib.requireNonNull(recurringRunnable, "recurringRunnable");
 
-		synchronized (recurringRunnables) {
+		synchronized (entries) {
 			if (closed) {
 				return false;
 			}
 
 			// Only allow recurringRunnable to be registered once.
-			if (recurringRunnables.contains(recurringRunnable)) {
+			if (entries.containsKey(recurringRunnable)) {
 				return false;
 			}
 			else {
-				recurringRunnables.add(0, recurringRunnable);
+				Entry entry = new Entry(recurringRunnable);
+				Entry runningEntry = running.get(recurringRunnable);
 
-				// Wake the thread calling run() to update the waiting time. The waiting time for
-				// the just registered recurringRunnable may be shorter than all other
-				// registered recurringRunnable.
+				entries.put(recurringRunnable, entry);
+				if (runningEntry != null) {
+					// It was de-registered while it is being run; it is scheduled again when that
+					// run completes so that it does not run twice at once.
+					runningEntry.successor = entry;
+				}
+				else {
+					// Have the thread ask the just registered recurringRunnable for its waiting
+					// time right away, it may be shorter than that of all other registered ones.
+					heapAdd(entry, System.nanoTime());
+				}
 				startOrNotifyThread();
 				return true;
 			}
 		}
 	}
 
+	/**
+	 * Notifies this instance that the time until the next run of a specific
+	 * {@code RecurringRunnable} may have changed e.g. because it has work which is ready now.
+	 * Unlike {@link #startOrNotifyThread()}, only the specified {@code RecurringRunnable} is
+	 * re-keyed.
+	 *
+	 * @param recurringRunnable
+	 * 		the {@code RecurringRunnable} to ask for its waiting time again
+	 */
+	public void reschedule(RecurringRunnable recurringRunnable)
+	{
+		synchronized (entries) {
+			Entry entry = entries.get(recurringRunnable);
+
+			// An entry which is being run is asked for its waiting time when it is done.
+			if (entry != null && entry.heapIndex >= 0) {
+				heapUpdate(entry, System.nanoTime());
+				if (entry.heapIndex == 0)
+					entries.notifyAll();
+			}
+		}
+	}
+
 	/**
 	 * Runs in {@link #thread}.
 	 */
@@ -238,7 +380,7 @@ public class RecurringRunnableExecutor implements Executor
 				;
 			}
 		} finally {
-			synchronized (recurringRunnables) {
+			synchronized (entries) {
 				if (!closed && Thread.currentThread().equals(thread)) {
 					thread = null;
 					// If the (current) thread dies in an unexpected way, make
@@ -251,13 +393,15 @@ public class RecurringRunnableExecutor implements Executor
 
 	/**
 	 * Starts or notifies {@link #thread} depending on and in accord with the state of this
-	 * instance.
+	 * instance. All registered {@code RecurringRunnable}s which are not being run are asked for
+	 * their waiting time again; prefer {@link #reschedule(RecurringRunnable)} where the
+	 * {@code RecurringRunnable} is known.
 	 */
     public void startOrNotifyThread()
 	{
-		synchronized (recurringRunnables) {
+		synchronized (entries) {
 			if (!closed && this.thread == null) {
-				if (!recurringRunnables.isEmpty()) {
+				if (!entries.isEmpty()) {
 					Thread thread = new Thread()
 					{
 						@Override
@@ -282,7 +426,12 @@ public class RecurringRunnableExecutor implements Executor
 				}
 			}
 			else {
-				recurringRunnables.notifyAll();
+				long now = System.nanoTime();
+
+				for (int i = heapSize - 1; i >= 0; i--) {
+					heap[i].dueTimeNanos = now;
+				}
+				entries.notifyAll();
 			}
 		}
 	}
@@ -293,10 +442,326 @@ public class RecurringRunnableExecutor implements Executor
 	 */
 	public void close()
 	{
-		synchronized (recurringRunnables) {
+		synchronized (entries) {
 			closed = true;
 			thread = null;
-			recurringRunnables.notifyAll();
+			if (workers != null) {
+				workers.shutdown();
+				workers = null;
+			}
+			entries.notifyAll();
+		}
+	}
+
+	/**
+	 * Invoked (outside the lock) when a specific {@code Entry} has been run. Puts it back into
+	 * {@link #heap} unless it has been de-registered in the meantime, in which case the
+	 * {@code Entry} of a re-registration of its {@code RecurringRunnable}, if any, takes its place.
+	 *
+	 * @param entry
+	 * 		the {@code Entry} which has been run
+	 */
+	private void runCompleted(Entry entry)
+	{
+		long timeToNext = entry.recurringRunnable.getTimeUntilNextRun();
+
+		synchronized (entries) {
+			running.remove(entry.recurringRunnable);
+			if (closed)
+				return;
+
+			long dueTimeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+					Math.min(Math.max(timeToNext, 0L), MAX_WAIT_MILLIS));
+
+			if (entry.removed) {
+				entry = entry.successor;
+				if (entry == null || entry.removed)
+					return;
+			}
+			heapAdd(entry, dueTimeNanos);
+			if (entry.heapIndex == 0)
+				entries.notifyAll();
+		}
+	}
+
+	/**
+	 * Adds a specific {@code Entry} to {@link #heap}.
+	 *
+	 * @param entry
+	 * 		the {@code Entry} to add
+	 * @param dueTimeNanos
+	 * 		the value of {@link System#nanoTime()} at which {@code entry} is due
+	 */
+	private void heapAdd(Entry entry, long dueTimeNanos)
+	{
+		if (heapSize == heap.length)
+			heap = Arrays.copyOf(heap, 2 * heap.length);
+
+		entry.dueTimeNanos = dueTimeNanos;
+		entry.heapIndex = heapSize;
+		heap[heapSize++] = entry;
+		siftUp(entry.heapIndex);
+	}
+
+	/**
+	 * Removes a specific {@code Entry} from {@link #heap}.
+	 *
+	 * @param entry
+	 * 		the {@code Entry} to remove
+	 */
+	private void heapRemove(Entry entry)
+	{
+		int index = entry.heapIndex;
+		Entry last = heap[--heapSize];
+
+		heap[heapSize] = null;
+		entry.heapIndex = -1;
+		if (last != entry) {
+			heap[index] = last;
+			last.heapIndex = index;
+			siftDown(index);
+			siftUp(last.heapIndex);
+		}
+	}
+
+	/**
+	 * Changes the due time of a specific {@code Entry} in {@link #heap}.
+	 *
+	 * @param entry
+	 * 		the {@code Entry} to re-key
+	 * @param dueTimeNanos
+	 * 		the value of {@link System#nanoTime()} at which {@code entry} is due
+	 */
+	private void heapUpdate(Entry entry, long dueTimeNanos)
+	{
+		long oldDueTimeNanos = entry.dueTimeNanos;
+
+		entry.dueTimeNanos = dueTimeNanos;
+		if (dueTimeNanos - oldDueTimeNanos < 0)
+			siftUp(entry.heapIndex);
+		else
+			siftDown(entry.heapIndex);
+	}
+
+	private void siftUp(int index)
+	{
+		Entry entry = heap[index];
+
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			Entry parent = heap[parentIndex];
+
+			if (entry.dueTimeNanos - parent.dueTimeNanos >= 0)
+				break;
+			heap[index] = parent;
+			parent.heapIndex = index;
+			index = parentIndex;
+		}
+		heap[index] = entry;
+		entry.heapIndex = index;
+	}
+
+	private void siftDown(int index)
+	{
+		Entry entry = heap[index];
+
+		while (true) {
+			int childIndex = 2 * index + 1;
+
+			if (childIndex >= heapSize)
+				break;
+			if (childIndex + 1 < heapSize
+					&& heap[childIndex + 1].dueTimeNanos - heap[childIndex].dueTimeNanos < 0)
+				childIndex++;
+
+			Entry child = heap[childIndex];
+
+			if (child.dueTimeNanos - entry.dueTimeNanos >= 0)
+				break;
+			heap[index] = child;
+			child.heapIndex = index;
+			index = childIndex;
+		}
+		heap[index] = entry;
+		entry.heapIndex = index;
+	}
+
+	/**
+	 * The state of a {@code RecurringRunnable} registered with this instance.
+	 */
+	private class Entry implements Runnable
+	{
+		/**
+		 * The registered {@code RecurringRunnable}.
+		 */
+		final RecurringRunnable recurringRunnable;
+
+		/**
+		 * The value of {@link System#nanoTime()} at which {@link #recurringRunnable} is due.
+		 */
+		long dueTimeNanos;
+
+		/**
+		 * The index of this instance in {@link #heap} or {@code -1} if it is being run.
+		 */
+		int heapIndex = -1;
+
+		/**
+		 * Whether {@link #recurringRunnable} has been de-registered.
+		 */
+		boolean removed = false;
+
+		/**
+		 * The {@code Entry} with which {@link #recurringRunnable} has been registered again while
+		 * this de-registered instance is being run; it is not in {@link #heap} until the run
+		 * completes.
+		 */
+		Entry successor;
+
+		/**
+		 * The number of invocations of {@link #recurringRunnable}.
+		 */
+		long runCount = 0;
+
+		/**
+		 * The sum of the lateness of the invocations of {@link #recurringRunnable}, in nanoseconds.
+		 */
+		long totalLatenessNanos = 0;
+
+		/**
+		 * The maximum lateness of an invocation of {@link #recurringRunnable}, in nanoseconds.
+		 */
+		long maxLatenessNanos = 0;
+
+		/**
+		 * The maximum duration of an invocation of {@link #recurringRunnable}, in nanoseconds.
+		 */
+		long maxRunTimeNanos = 0;
+
+		Entry(RecurringRunnable recurringRunnable)
+		{
+			this.recurringRunnable = recurringRunnable;
+		}
+
+		/**
+		 * Invokes {@link #recurringRunnable} and updates the statistics of this instance.
+		 */
+		@Override
+		public void run()
+		{
+			long startNanos = System.nanoTime();
+			long latenessNanos;
+
+			synchronized (entries) {
+				latenessNanos = Math.max(startNanos - dueTimeNanos, 0L);
+				runCount++;
+				totalLatenessNanos += latenessNanos;
+				if (maxLatenessNanos < latenessNanos)
+					maxLatenessNanos = latenessNanos;
+			}
+			if (latenessNanos > TimeUnit.MILLISECONDS.toNanos(LATENESS_LOG_THRESHOLD_MILLIS)) {
+				Timber.log(TimberLog.FINER, "The invocation of %s.run() is late by %d ms.",
+						recurringRunnable.getClass().getName(),
+						TimeUnit.NANOSECONDS.toMillis(latenessNanos));
+			}
+
+			try {
+				recurringRunnable.run();
+			}
+			catch (Throwable t) {
+				if (t instanceof InterruptedException) {
+					Thread.currentThread().interrupt();
+				}
+				else if (t instanceof ThreadDeath) {
+					throw (ThreadDeath) t;
+				}
+				else {
+					Timber.e(t, "The invocation of the method %s.run() threw an exception.",
+							recurringRunnable.getClass().getName());
+				}
+			}
+			finally {
+				long runTimeNanos = System.nanoTime() - startNanos;
+
+				synchronized (entries) {
+					if (maxRunTimeNanos < runTimeNanos)
+						maxRunTimeNanos = runTimeNanos;
+				}
+				runCompleted(this);
+			}
+		}
+	}
+
+	/**
+	 * A snapshot of the statistics of the invocations of a {@code RecurringRunnable} by a
+	 * {@code RecurringRunnableExecutor}. The lateness of an invocation is the time between the
+	 * moment at which the {@code RecurringRunnable} wanted to be invoked and the start of the
+	 * invocation.
+	 */
+	public static class Statistics
+	{
+		private final long runCount;
+
+		private final long totalLatenessNanos;
+
+		private final long maxLatenessNanos;
+
+		private final long maxRunTimeNanos;
+
+		private Statistics(RecurringRunnableExecutor.Entry entry)
+		{
+			runCount = entry.runCount;
+			totalLatenessNanos = entry.totalLatenessNanos;
+			maxLatenessNanos = entry.maxLatenessNanos;
+			maxRunTimeNanos = entry.maxRunTimeNanos;
+		}
+
+		/**
+		 * Gets the number of invocations.
+		 *
+		 * @return the number of invocations
+		 */
+		public long getRunCount()
+		{
+			return runCount;
+		}
+
+		/**
+		 * Gets the average lateness of the invocations in milliseconds.
+		 *
+		 * @return the average lateness of the invocations in milliseconds
+		 */
+		public double getAverageLatenessMillis()
+		{
+			return (runCount == 0) ? 0 : totalLatenessNanos / (1000000d * runCount);
+		}
+
+		/**
+		 * Gets the maximum lateness of an invocation in milliseconds.
+		 *
+		 * @return the maximum lateness of an invocation in milliseconds
+		 */
+		public long getMaxLatenessMillis()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(maxLatenessNanos);
+		}
+
+		/**
+		 * Gets the maximum duration of an invocation in milliseconds.
+		 *
+		 * @return the maximum duration of an invocation in milliseconds
+		 */
+		public long getMaxRunTimeMillis()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(maxRunTimeNanos);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "runs=" + runCount + ", avg_lateness_ms=" + getAverageLatenessMillis()
+					+ ", max_lateness_ms=" + getMaxLatenessMillis()
+					+ ", max_run_time_ms=" + getMaxRunTimeMillis();
 		}
 	}
 }
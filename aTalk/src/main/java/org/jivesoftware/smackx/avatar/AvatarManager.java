@@ -81,7 +81,7 @@ public class AvatarManager extends Manager
     /**
      * Use for the persistent JidToHash Index storage in additional to cacheJidToAvatarId
      */
-    protected static JidToHashCacheFile persistentJidToHashIndex = null;
+    protected static JidToHashCache persistentJidToHashIndex = null;
 
     /**
      * The VCardTempXUpdate Extension class
@@ -180,7 +180,7 @@ public class AvatarManager extends Manager
     public static void setPersistentCache(File storeDir)
     {
         if (storeDir != null) {
-            persistentJidToHashIndex = new JidToHashCacheFile(storeDir);
+            persistentJidToHashIndex = new JidToHashCacheLog(storeDir);
             persistentAvatarCache = new AvatarCacheFile(storeDir);
         }
     }
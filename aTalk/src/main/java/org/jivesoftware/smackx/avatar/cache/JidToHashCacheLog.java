@@ -0,0 +1,499 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jivesoftware.smackx.avatar.cache;
+
+import org.jivesoftware.smack.util.stringencoder.Base32;
+import org.jxmpp.jid.BareJid;
+import org.jxmpp.jid.impl.JidCreate;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * An implementation of an JidToHashCache which stores all the data in a single append-only log
+ * file in the filesystem, with an in-memory index of it.
+ * <p>
+ * The log is read once, memory-mapped, when the cache is created; every change is appended to
+ * it as a record in a single write, so a lookup never touches the filesystem. A record is only
+ * applied to the index once it is in the log, and a failed append is cut off the log again. When
+ * the records which have been superseded outnumber the live ones, the log is compacted i.e.
+ * rewritten with the live records only. A record torn by a crash at the end of the log is dropped.
+ * A log which cannot be read is set aside as {@link #BAD_LOG_FILENAME} rather than overwritten.
+ * <p>
+ * The values may be longer than the 64K of <tt>DataOutput.writeUTF</tt>, e.g. the comma-separated
+ * roster which AvatarManager keeps under <tt>account_roster</tt>, up to {@link #MAX_VALUE_LENGTH}.
+ * <p>
+ * The one-file-per-jid entries of {@link JidToHashCacheFile} found in the store directory are
+ * moved into the log when it is created.
+ *
+ * @author Eng Chong Meng
+ */
+public class JidToHashCacheLog implements JidToHashCache
+{
+	private static final Logger LOGGER = Logger.getLogger(JidToHashCacheLog.class.getName());
+
+	/**
+	 * The name of the log file in the store directory; not a valid image hash nor Base32 name, so
+	 * that it cannot clash with the files of {@link AvatarCacheFile} or {@link JidToHashCacheFile}.
+	 */
+	static final String LOG_FILENAME = "jidToHash.log";
+
+	/**
+	 * The name a log which cannot be read is renamed to, for the next one to start afresh.
+	 */
+	static final String BAD_LOG_FILENAME = LOG_FILENAME + ".bad";
+
+	/**
+	 * The header of the log file, which identifies its format.
+	 */
+	private static final int MAGIC = 0x4a544832; // "JTH2"
+
+	private static final byte RECORD_PUT = 1;
+
+	private static final byte RECORD_REMOVE = 2;
+
+	/**
+	 * The maximum length of a key in bytes; a bareJid is far shorter.
+	 */
+	private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+	/**
+	 * The maximum length of a value in bytes; longer ones are rejected.
+	 */
+	static final int MAX_VALUE_LENGTH = 1024 * 1024;
+
+	/**
+	 * The minimum number of superseded records before the log is compacted.
+	 */
+	static final int COMPACT_THRESHOLD = 1000;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final File mStoreDir;
+
+	private final File mLogFile;
+
+	/**
+	 * The image hash of each bareJid in the log; guarded by <tt>this</tt>.
+	 */
+	private final Map<String, String> mIndex = new HashMap<>();
+
+	/**
+	 * The number of records in the log which have been superseded by later ones; guarded by
+	 * <tt>this</tt>.
+	 */
+	private int mGarbage = 0;
+
+	/**
+	 * Whether the log may end with a torn record which could not be cut off, and must be
+	 * rewritten before anything is appended to it; guarded by <tt>this</tt>.
+	 */
+	private boolean mTorn = false;
+
+	/**
+	 * The stream the records are appended through, opened on first use; guarded by <tt>this</tt>.
+	 */
+	private FileOutputStream mLog;
+
+	/**
+	 * Creates a JidToHashCache in the given directory, loading the existing log and migrating the
+	 * entries of {@link JidToHashCacheFile} in it, if any.
+	 *
+	 * @param storeDir
+	 * 		The directory used to store the data.
+	 */
+	public JidToHashCacheLog(final File storeDir)
+	{
+		if (storeDir.exists() && !storeDir.isDirectory())
+			throw new IllegalArgumentException("The store directory must be a directory");
+		mStoreDir = storeDir;
+		mStoreDir.mkdirs();
+		mLogFile = new File(mStoreDir, LOG_FILENAME);
+
+		synchronized (this) {
+			load();
+			migrateFileEntries();
+		}
+	}
+
+	@Override
+	public synchronized void addHashByJid(BareJid id, String hash)
+	{
+		String key = id.toString();
+		if (hash.equals(mIndex.get(key)))
+			return;
+
+		try {
+			append(toRecord(RECORD_PUT, key, hash));
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "Failed to write imageHash info to log: " + id, e);
+			return;
+		}
+		if (mIndex.put(key, hash) != null)
+			mGarbage++;
+		maybeCompact();
+	}
+
+	@Override
+	public synchronized String getHashForJid(BareJid id)
+	{
+		return mIndex.get(id.toString());
+	}
+
+	@Override
+	public synchronized boolean contains(BareJid id)
+	{
+		return mIndex.containsKey(id.toString());
+	}
+
+	/**
+	 * Purge the obsoleted entry from the log
+	 */
+	@Override
+	public synchronized boolean purgeItemFor(BareJid id)
+	{
+		String key = id.toString();
+		if (!mIndex.containsKey(key))
+			return false;
+
+		try {
+			append(toRecord(RECORD_REMOVE, key, null));
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "Failed to purge imageHash info from log: " + id, e);
+			return false;
+		}
+		mIndex.remove(key);
+		// both the put record and the remove record are garbage
+		mGarbage += 2;
+		maybeCompact();
+		return true;
+	}
+
+	/**
+	 * Empties the log; unlike {@link JidToHashCacheFile#emptyCache()}, leaves the other files in
+	 * the store directory, i.e. the avatars of {@link AvatarCacheFile}, alone.
+	 */
+	@Override
+	public synchronized boolean emptyCache()
+	{
+		mIndex.clear();
+		mGarbage = 0;
+		mTorn = false;
+		closeLog();
+		return !mLogFile.exists() || mLogFile.delete();
+	}
+
+	/**
+	 * Loads the index from the log, memory-mapped, and drops a torn record at its end. A log which
+	 * cannot be read is set aside, with its records, rather than deleted.
+	 */
+	private void load()
+	{
+		if (!mLogFile.exists())
+			return;
+
+		boolean loaded = false;
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(mLogFile, "rw");
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.remaining() >= 4 && buffer.getInt() == MAGIC) {
+				int records = 0;
+				long validLength = buffer.position();
+				try {
+					while (buffer.hasRemaining()) {
+						byte type = buffer.get();
+						String key = readString(buffer, 2);
+
+						if (type == RECORD_PUT) {
+							if (mIndex.put(key, readString(buffer, 4)) != null)
+								mGarbage++;
+						}
+						else if (type == RECORD_REMOVE) {
+							if (mIndex.remove(key) != null)
+								mGarbage++;
+							mGarbage++;
+						}
+						else {
+							break;
+						}
+						records++;
+						validLength = buffer.position();
+					}
+				}
+				catch (BufferUnderflowException e) {
+					// a record torn by a crash
+				}
+				if (validLength < channel.size()) {
+					LOGGER.log(Level.WARNING, "Dropping " + (channel.size() - validLength)
+							+ " bytes of torn records from " + mLogFile);
+					channel.truncate(validLength);
+				}
+				loaded = true;
+				LOGGER.log(Level.FINE, "Loaded " + mIndex.size() + " jids from " + records + " records");
+			}
+			else {
+				LOGGER.log(Level.WARNING, "Ignoring log of unknown format: " + mLogFile);
+			}
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not load imageHash log: " + mLogFile, e);
+		} finally {
+			closeQuietly(raf);
+		}
+
+		if (loaded) {
+			maybeCompact();
+		}
+		else {
+			// unreadable; keep it aside and start afresh
+			mIndex.clear();
+			mGarbage = 0;
+			File badLogFile = new File(mStoreDir, BAD_LOG_FILENAME);
+			badLogFile.delete();
+			if (!mLogFile.renameTo(badLogFile)) {
+				// nothing can be appended to it; it is replaced on the next write
+				LOGGER.log(Level.SEVERE, "Failed to set aside imageHash log: " + mLogFile);
+				mTorn = true;
+			}
+		}
+	}
+
+	/**
+	 * Moves the entries of {@link JidToHashCacheFile} in the store directory into the log: the
+	 * files named after the Base32 encoding of a bareJid which hold just a hash in
+	 * <tt>DataOutput.writeUTF</tt> format. The avatar images are named after their hash in
+	 * lower case hex, which is not valid Base32.
+	 */
+	private void migrateFileEntries()
+	{
+		File[] files = mStoreDir.listFiles();
+		if (files == null)
+			return;
+
+		List<File> migrated = new ArrayList<>();
+		for (File file : files) {
+			String jid = Base32.decode(file.getName());
+			if ((jid == null) || !file.isFile() || (file.length() > 0xFFFF + 2))
+				continue;
+
+			DataInputStream dis = null;
+			try {
+				BareJid bareJid = JidCreate.bareFrom(jid);
+				dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				String hash = dis.readUTF();
+				if (dis.read() != -1)
+					continue;
+
+				mIndex.put(bareJid.toString(), hash);
+				migrated.add(file);
+			}
+			catch (IOException e) {
+				// not an entry of JidToHashCacheFile, e.g. XmppStringprepException
+			} finally {
+				closeQuietly(dis);
+			}
+		}
+		if (migrated.isEmpty())
+			return;
+
+		// the entries are only deleted once the log holding them is safely on disk
+		try {
+			compact();
+			for (File file : migrated)
+				file.delete();
+			LOGGER.log(Level.INFO, "Migrated " + migrated.size() + " imageHash files to " + mLogFile);
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "Failed to migrate imageHash files to " + mLogFile, e);
+		}
+	}
+
+	/**
+	 * Appends a record to the log in a single write. A failed write is cut off the log again, or
+	 * else the log is rewritten before the next append, so that a torn record is never followed
+	 * by another one.
+	 */
+	private void append(byte[] record)
+			throws IOException
+	{
+		FileOutputStream log = getLog();
+		FileChannel channel = log.getChannel();
+		long length = channel.size();
+
+		try {
+			log.write(record);
+		}
+		catch (IOException e) {
+			try {
+				channel.truncate(length);
+			}
+			catch (IOException te) {
+				LOGGER.log(Level.WARNING, "Failed to drop torn record from " + mLogFile, te);
+				mTorn = true;
+				closeLog();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Compacts the log if the superseded records outnumber the live ones.
+	 */
+	private void maybeCompact()
+	{
+		if ((mGarbage < COMPACT_THRESHOLD) || (mGarbage < mIndex.size()))
+			return;
+		try {
+			compact();
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Failed to compact imageHash log: " + mLogFile, e);
+		}
+	}
+
+	/**
+	 * Rewrites the log with the live records only, i.e. one per entry of the index, and replaces
+	 * the current one with it once it is synced to disk.
+	 */
+	private void compact()
+			throws IOException
+	{
+		closeLog();
+
+		File tmpFile = new File(mStoreDir, LOG_FILENAME + ".tmp");
+		FileOutputStream fos = new FileOutputStream(tmpFile);
+		boolean written = false;
+		try {
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos));
+			dos.writeInt(MAGIC);
+			for (Map.Entry<String, String> entry : mIndex.entrySet())
+				writeRecord(dos, RECORD_PUT, entry.getKey(), entry.getValue());
+			dos.flush();
+			fos.getFD().sync();
+			written = true;
+		} finally {
+			closeQuietly(fos);
+		}
+		if (!written || !tmpFile.renameTo(mLogFile)) {
+			tmpFile.delete();
+			throw new IOException("Failed to rename " + tmpFile + " to " + mLogFile);
+		}
+		mGarbage = 0;
+		mTorn = false;
+	}
+
+	/**
+	 * Returns the stream to append records through, (re)creating the log from the index if it
+	 * does not exist, e.g. after {@link AvatarCacheFile#emptyCache()} has deleted it, or may end
+	 * with a torn record.
+	 */
+	private FileOutputStream getLog()
+			throws IOException
+	{
+		if (mTorn || !mLogFile.exists())
+			compact();
+		if (mLog == null)
+			mLog = new FileOutputStream(mLogFile, true);
+		return mLog;
+	}
+
+	private void closeLog()
+	{
+		closeQuietly(mLog);
+		mLog = null;
+	}
+
+	/**
+	 * Serializes a record, validating it before anything is written.
+	 *
+	 * @param value the value of a put record, <tt>null</tt> for a remove record
+	 * @throws UTFDataFormatException if the key or the value is too long
+	 */
+	private static byte[] toRecord(byte type, String key, String value)
+			throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writeRecord(new DataOutputStream(bytes), type, key, value);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a record: its type, the length of the key in 2 bytes and the key, and for a put
+	 * record the length of the value in 4 bytes and the value, all in UTF-8.
+	 */
+	private static void writeRecord(DataOutput out, byte type, String key, String value)
+			throws IOException
+	{
+		byte[] keyBytes = toBytes(key, MAX_KEY_LENGTH);
+		byte[] valueBytes = (value == null) ? null : toBytes(value, MAX_VALUE_LENGTH);
+
+		out.writeByte(type);
+		out.writeShort(keyBytes.length);
+		out.write(keyBytes);
+		if (valueBytes != null) {
+			out.writeInt(valueBytes.length);
+			out.write(valueBytes);
+		}
+	}
+
+	private static byte[] toBytes(String value, int maxLength)
+			throws UTFDataFormatException
+	{
+		byte[] bytes = value.getBytes(UTF_8);
+		if (bytes.length > maxLength)
+			throw new UTFDataFormatException("String too long: " + bytes.length + " bytes");
+		return bytes;
+	}
+
+	/**
+	 * Reads a string preceded by its length in <tt>lengthSize</tt> bytes.
+	 *
+	 * @throws BufferUnderflowException if the string is cut off at the end of the buffer
+	 */
+	private static String readString(MappedByteBuffer buffer, int lengthSize)
+	{
+		int length = (lengthSize == 2) ? (buffer.getShort() & 0xFFFF) : buffer.getInt();
+		if ((length < 0) || (length > buffer.remaining()))
+			throw new BufferUnderflowException();
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static void closeQuietly(Closeable closeable)
+	{
+		try {
+			if (closeable != null)
+				closeable.close();
+		}
+		catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Error while closing stream", e);
+		}
+	}
+}
@@ -135,6 +135,12 @@ public final class InBandBytestreamManager extends Manager implements Bytestream
      */
     public static final int MAXIMUM_BLOCK_SIZE = 65535;
 
+    /**
+     * Maximum number of IQ data packets an In-Band Bytestream may have awaiting their
+     * acknowledgement; also the number of packets received ahead of sequence that are held back.
+     */
+    public static final int MAXIMUM_IN_FLIGHT_BLOCKS = 64;
+
     /* prefix used to generate session IDs */
     private static final String SESSION_ID_PREFIX = "jibb_";
 
@@ -171,6 +177,9 @@ public final class InBandBytestreamManager extends Manager implements Bytestream
     /* maximum block size allowed for this connection */
     private int maximumBlockSize = MAXIMUM_BLOCK_SIZE;
 
+    /* number of IQ data packets sent ahead of their acknowledgement by new In-Band Bytestreams */
+    private int inFlightBlocks = 4;
+
     /* the stanza used to send data packets */
     private StanzaType stanza = StanzaType.IQ;
 
@@ -374,6 +383,35 @@ public final class InBandBytestreamManager extends Manager implements Bytestream
         this.maximumBlockSize = maximumBlockSize;
     }
 
+    /**
+     * Returns the number of IQ data packets an outgoing In-Band Bytestream sends without waiting
+     * for their acknowledgement, i.e. the number of blocks in flight per server round trip.
+     * <p>
+     * The default is 4.
+     *
+     * @return the number of IQ data packets in flight
+     */
+    public int getInFlightBlocks() {
+        return inFlightBlocks;
+    }
+
+    /**
+     * Sets the number of IQ data packets an outgoing In-Band Bytestream sends without waiting for
+     * their acknowledgement. A value of 1 sends the next data packet only after the previous one
+     * has been acknowledged. Applies to the In-Band Bytestreams created afterwards.
+     * <p>
+     * The number must be between 1 and 64.
+     *
+     * @param inFlightBlocks the number of IQ data packets in flight to set
+     */
+    public void setInFlightBlocks(int inFlightBlocks) {
+        if (inFlightBlocks <= 0 || inFlightBlocks > MAXIMUM_IN_FLIGHT_BLOCKS) {
+            throw new IllegalArgumentException("In-flight blocks must be between 1 and "
+                            + MAXIMUM_IN_FLIGHT_BLOCKS);
+        }
+        this.inFlightBlocks = inFlightBlocks;
+    }
+
     /**
      * Returns the stanza used to send data packets.
      * <p>
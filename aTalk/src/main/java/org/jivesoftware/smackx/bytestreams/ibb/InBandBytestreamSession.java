@@ -20,6 +20,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +39,8 @@ import org.jivesoftware.smack.packet.IQ;
 import org.jivesoftware.smack.packet.Message;
 import org.jivesoftware.smack.packet.Stanza;
 import org.jivesoftware.smack.packet.StanzaError;
+import org.jivesoftware.smack.util.ExceptionCallback;
+import org.jivesoftware.smack.util.SuccessCallback;
 import org.jivesoftware.smack.util.stringencoder.Base64;
 
 import org.jivesoftware.smackx.bytestreams.BytestreamSession;
@@ -85,6 +91,9 @@ public class InBandBytestreamSession implements BytestreamSession {
     /* flag to indicate if session is closed */
     private boolean isClosed = false;
 
+    /* number of IQ data packets the output stream sends ahead of their acknowledgement */
+    private final int inFlightBlocks;
+
     /**
      * Constructor.
      *
@@ -94,9 +103,24 @@ public class InBandBytestreamSession implements BytestreamSession {
      */
     protected InBandBytestreamSession(XMPPConnection connection, Open byteStreamRequest,
                     Jid remoteJID) {
+        this(connection, byteStreamRequest, remoteJID,
+                        InBandBytestreamManager.getByteStreamManager(connection).getInFlightBlocks());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connection the XMPP connection
+     * @param byteStreamRequest the In-Band Bytestream open request for this session
+     * @param remoteJID JID of the remote peer
+     * @param inFlightBlocks number of IQ data packets to send ahead of their acknowledgement
+     */
+    InBandBytestreamSession(XMPPConnection connection, Open byteStreamRequest, Jid remoteJID,
+                    int inFlightBlocks) {
         this.connection = connection;
         this.byteStreamRequest = byteStreamRequest;
         this.remoteJID = remoteJID;
+        this.inFlightBlocks = inFlightBlocks;
 
         // initialize streams dependent to the uses stanza type
         switch (byteStreamRequest.getStanza()) {
@@ -390,9 +414,10 @@ public class InBandBytestreamSession implements BytestreamSession {
                 this.seq = -1;
             }
 
-            // check if data packets sequence is successor of last seen sequence
+            // check if data packets sequence is successor of last seen sequence; a legacy sender
+            // wraps from 65534 to 0, skipping 65535
             long seq = data.getSeq();
-            if (seq - 1 != this.seq) {
+            if (seq - 1 != this.seq && !(seq == 0 && this.seq == 65534)) {
                 // packets out of order; close stream/session
                 InBandBytestreamSession.this.close();
                 throw new IOException("Packets out of sequence");
@@ -467,7 +492,17 @@ public class InBandBytestreamSession implements BytestreamSession {
         protected StanzaListener getDataPacketListener() {
             return new StanzaListener() {
 
-                private long lastSequence = -1;
+                /* sequence of the next data packet to add to the data queue */
+                private long nextSequence = 0;
+
+                /*
+                 * data packets received ahead of sequence, by sequence; a sender with several IQ data
+                 * packets in flight may have them delivered out of order
+                 */
+                private final Map<Long, DataPacketExtension> heldBack = new HashMap<Long, DataPacketExtension>();
+
+                /* whether a data packet has been received ahead of sequence */
+                private boolean reordered = false;
 
                 @Override
                 public void processStanza(Stanza packet) throws NotConnectedException, InterruptedException {
@@ -475,9 +510,22 @@ public class InBandBytestreamSession implements BytestreamSession {
                     DataPacketExtension data = ((Data) packet).getDataPacketExtension();
 
                     /*
-                     * check if sequence was not used already (see XEP-0047 Section 2.2)
+                     * a legacy sender wraps the sequence from 65534 to 0, skipping 65535. It sends one
+                     * data packet at a time and XMPP delivers them in order, so 0 in place of 65535 is
+                     * taken for its wrap unless data packets have been received out of order, i.e. from
+                     * a sender with several in flight, whose 65535 is still to come.
+                     */
+                    if (this.nextSequence == 65535 && data.getSeq() == 0 && !this.reordered) {
+                        this.nextSequence = 0;
+                    }
+
+                    /*
+                     * check if sequence was not used already (see XEP-0047 Section 2.2); the sequence
+                     * wraps from 65535 to 0
                      */
-                    if (data.getSeq() <= this.lastSequence) {
+                    long distance = (data.getSeq() - this.nextSequence + 65536) % 65536;
+                    if (distance >= InBandBytestreamManager.MAXIMUM_IN_FLIGHT_BLOCKS
+                                    || this.heldBack.containsKey(data.getSeq())) {
                         IQ unexpectedRequest = IQ.createErrorResponse((IQ) packet,
                                         StanzaError.Condition.unexpected_request);
                         connection.sendStanza(unexpectedRequest);
@@ -494,19 +542,20 @@ public class InBandBytestreamSession implements BytestreamSession {
                         return;
                     }
 
-                    // data is valid; add to data queue
-                    dataQueue.offer(data);
+                    // data is valid; add it and the held back packets following it to data queue
+                    if (data.getSeq() != this.nextSequence) {
+                        this.reordered = true;
+                    }
+                    this.heldBack.put(data.getSeq(), data);
+                    while ((data = this.heldBack.remove(this.nextSequence)) != null) {
+                        dataQueue.offer(data);
+                        this.nextSequence = (this.nextSequence + 1) % 65536;
+                    }
 
                     // confirm IQ
                     IQ confirmData = IQ.createResultIQ((IQ) packet);
                     connection.sendStanza(confirmData);
 
-                    // set last seen sequence
-                    this.lastSequence = data.getSeq();
-                    if (this.lastSequence == 65535) {
-                        this.lastSequence = -1;
-                    }
-
                 }
 
             };
@@ -644,6 +693,16 @@ public class InBandBytestreamSession implements BytestreamSession {
          */
         protected abstract void writeToXML(DataPacketExtension data) throws IOException, NotConnectedException, InterruptedException;
 
+        /**
+         * Blocks until all the data packets written to the XMPP stream have been acknowledged by
+         * the remote peer, if the stanza type acknowledges them.
+         *
+         * @throws IOException if a data packet was not acknowledged
+         * @throws InterruptedException if the calling thread was interrupted.
+         */
+        protected void awaitAcknowledgements() throws IOException, InterruptedException {
+        }
+
         @Override
         public synchronized void write(int b) throws IOException {
             if (this.isClosed) {
@@ -732,6 +791,14 @@ public class InBandBytestreamSession implements BytestreamSession {
                 throw new IOException("Stream is closed");
             }
             flushBuffer();
+            try {
+                awaitAcknowledgements();
+            }
+            catch (InterruptedException e) {
+                IOException ioException = new IOException();
+                ioException.initCause(e);
+                throw ioException;
+            }
         }
 
         private synchronized void flushBuffer() throws IOException {
@@ -759,8 +826,8 @@ public class InBandBytestreamSession implements BytestreamSession {
             // reset buffer pointer
             bufferPointer = 0;
 
-            // increment sequence, considering sequence overflow
-            this.seq = this.seq + 1 == 65535 ? 0 : this.seq + 1;
+            // increment sequence, considering sequence overflow (see XEP-0047 Section 2.2)
+            this.seq = this.seq == 65535 ? 0 : this.seq + 1;
 
         }
 
@@ -786,6 +853,8 @@ public class InBandBytestreamSession implements BytestreamSession {
             try {
                 if (flush) {
                     flushBuffer();
+                    // the close request must not overtake the data packets in flight
+                    awaitAcknowledgements();
                 }
             }
             catch (IOException e) {
@@ -794,6 +863,10 @@ public class InBandBytestreamSession implements BytestreamSession {
                  * closed
                  */
             }
+            catch (InterruptedException e) {
+                // Restore the interrupted status
+                Thread.currentThread().interrupt();
+            }
         }
 
     }
@@ -804,27 +877,94 @@ public class InBandBytestreamSession implements BytestreamSession {
      */
     private class IQIBBOutputStream extends IBBOutputStream {
 
+        /* sequences of the data packets sent and not acknowledged yet, in the order sent */
+        private final Set<Long> inFlight = new LinkedHashSet<Long>();
+
+        /* the first failure to acknowledge a data packet; guarded by inFlight */
+        private Exception failure;
+
         @Override
-        protected synchronized void writeToXML(DataPacketExtension data) throws IOException {
+        protected synchronized void writeToXML(DataPacketExtension data) throws IOException, InterruptedException {
             // create IQ stanza containing data packet
             IQ iq = new Data(data);
             iq.setTo(remoteJID);
 
+            final Long seq = data.getSeq();
             try {
-                connection.createStanzaCollectorAndSend(iq).nextResultOrThrow();
+                synchronized (inFlight) {
+                    // wait for a free slot in the window of packets in flight
+                    while (failure == null && inFlight.size() >= inFlightBlocks) {
+                        inFlight.wait();
+                    }
+                    checkFailure();
+                    inFlight.add(seq);
+                }
+
+                // acknowledgements may arrive in any order; the reply timeout fails a packet
+                connection.sendIqRequestAsync(iq).onSuccess(new SuccessCallback<IQ>() {
+                    @Override
+                    public void onSuccess(IQ result) {
+                        synchronized (inFlight) {
+                            inFlight.remove(seq);
+                            inFlight.notifyAll();
+                        }
+                    }
+                }).onError(new ExceptionCallback<Exception>() {
+                    @Override
+                    public void processException(Exception exception) {
+                        synchronized (inFlight) {
+                            inFlight.remove(seq);
+                            if (failure == null) {
+                                failure = exception;
+                            }
+                            inFlight.notifyAll();
+                        }
+                    }
+                });
             }
-            catch (Exception e) {
-                // close session unless it is already closed
-                if (!this.isClosed) {
-                    InBandBytestreamSession.this.close();
-                    // Sadly we are unable to use the IOException(Throwable) constructor because this
-                    // constructor is only supported from Android API 9 on.
-                    IOException ioException = new IOException();
-                    ioException.initCause(e);
-                    throw ioException;
+            catch (IOException e) {
+                closeOnFailure(e.getCause());
+            }
+        }
+
+        @Override
+        protected void awaitAcknowledgements() throws IOException, InterruptedException {
+            try {
+                synchronized (inFlight) {
+                    while (failure == null && !inFlight.isEmpty()) {
+                        inFlight.wait();
+                    }
+                    checkFailure();
                 }
             }
+            catch (IOException e) {
+                closeOnFailure(e.getCause());
+            }
+        }
 
+        /**
+         * Throws an IOException if a data packet was not acknowledged.
+         */
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                // Sadly we are unable to use the IOException(Throwable) constructor because this
+                // constructor is only supported from Android API 9 on.
+                IOException ioException = new IOException();
+                ioException.initCause(failure);
+                throw ioException;
+            }
+        }
+
+        /**
+         * Closes the session on the failure of a data packet unless it is already closed.
+         */
+        private void closeOnFailure(Throwable cause) throws IOException {
+            if (!this.isClosed) {
+                InBandBytestreamSession.this.close();
+                IOException ioException = new IOException();
+                ioException.initCause(cause);
+                throw ioException;
+            }
         }
 
     }
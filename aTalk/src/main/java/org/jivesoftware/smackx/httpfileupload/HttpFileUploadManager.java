@@ -16,7 +16,6 @@
  */
 package org.jivesoftware.smackx.httpfileupload;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -25,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -35,7 +35,6 @@ import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
 import javax.crypto.NoSuchPaddingException;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -90,6 +89,21 @@ public final class HttpFileUploadManager extends Manager {
 
     private static final Logger LOGGER = Logger.getLogger(HttpFileUploadManager.class.getName());
 
+    /**
+     * The size of the buffer a file is uploaded through.
+     */
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of attempts of an upload which fails in transfer.
+     */
+    private static final int MAX_UPLOAD_ATTEMPTS = 3;
+
+    /**
+     * The delay before the first retry of an upload, in milliseconds; it grows with each attempt.
+     */
+    private static final long RETRY_DELAY = 1000;
+
     static {
         XMPPConnectionRegistry.addConnectionCreationListener(new ConnectionCreationListener() {
             @Override
@@ -330,16 +344,13 @@ public final class HttpFileUploadManager extends Manager {
         final Slot slot = requestSlot(file.getName(), cipherFileLength, "application/octet-stream");
         URL slotUrl = slot.getGetUrl();
 
-        // fresh AES key + iv
+        // fresh AES key + iv; check that they make a cipher before uploading
         byte[] key = OmemoMediaSharingUtils.generateRandomKey();
         byte[] iv = OmemoMediaSharingUtils.generateRandomIV();
-        Cipher cipher = OmemoMediaSharingUtils.encryptionCipherFrom(key, iv);
+        OmemoMediaSharingUtils.encryptionCipherFrom(key, iv);
 
-        FileInputStream fis = new FileInputStream(file);
         // encrypt the file on the fly - encryption actually happens below in uploadFile()
-        CipherInputStream cis = new CipherInputStream(fis, cipher);
-
-        uploadFile(cis, cipherFileLength, slot, listener);
+        uploadFile(file, key, iv, cipherFileLength, slot, tlsSocketFactory, listener);
 
         return new AesgcmUrl(slotUrl, key, iv);
     }
@@ -463,93 +474,223 @@ public final class HttpFileUploadManager extends Manager {
         setTlsContext(sslContext);
     }
 
-    private void uploadFile(final File file, final Slot slot, UploadProgressListener listener) throws IOException {
-        final long fileSize = file.length();
-        // TODO Remove once Smack's minimum Android API level is 19 or higher. See also comment below.
-        if (fileSize >= Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("File size " + fileSize + " must be less than " + Integer.MAX_VALUE);
-        }
-
-        // Construct the FileInputStream first to make sure we can actually read the file.
-        final FileInputStream fis = new FileInputStream(file);
-        uploadFile(fis, fileSize, slot, listener);
+    private void uploadFile(final File file, final Slot slot, UploadProgressListener listener)
+            throws IOException, InterruptedException {
+        uploadFile(file, null, null, file.length(), slot, tlsSocketFactory, listener);
     }
 
-    private void uploadFile(final InputStream fis, long fileSize, final Slot slot, UploadProgressListener listener) throws IOException {
-
-        final URL putUrl = slot.getPutUrl();
-
-        final HttpURLConnection urlConnection = (HttpURLConnection) putUrl.openConnection();
+    /**
+     * Upload a file, encrypted with a given AES key and IV if any, to the PUT URL of a slot.
+     *
+     * The file is streamed through a {@link #UPLOAD_BUFFER_SIZE} buffer. An upload which fails
+     * in transfer is retried up to {@link #MAX_UPLOAD_ATTEMPTS} times in all, from the start as
+     * a PUT request replaces the whole content. The failed attempt may have completed the upload
+     * nevertheless, e.g. if only its response was lost; a retry is skipped if the server answers
+     * a HEAD request on the PUT URL with the full content length, and a 409 Conflict response to
+     * a retry is taken as success. An error response from the server is not retried.
+     *
+     * @param file the file to upload
+     * @param key the AES key to encrypt the file with, or null to upload it as is
+     * @param iv the IV to encrypt the file with, or null to upload it as is
+     * @param contentLength the number of bytes to upload i.e. the size of the (encrypted) file
+     * @param slot the slot to upload the file to
+     * @param tlsSocketFactory the TLS socket factory for HTTPS PUT URLs or null for the default one
+     * @param listener progress listener or null
+     * @throws IOException if the upload failed
+     * @throws InterruptedException if the calling thread was interrupted between attempts.
+     */
+    static void uploadFile(final File file, byte[] key, byte[] iv, final long contentLength, final Slot slot,
+            SSLSocketFactory tlsSocketFactory, UploadProgressListener listener)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                putFile(file, key, iv, contentLength, slot, tlsSocketFactory, listener, attempt > 1);
+                return;
+            }
+            catch (UploadResponseException e) {
+                throw e;
+            }
+            catch (IOException e) {
+                if (attempt >= MAX_UPLOAD_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.log(Level.WARNING, "Upload attempt " + attempt + " of " + slot.getPutUrl() + " failed", e);
+            }
 
-        urlConnection.setRequestMethod("PUT");
-        urlConnection.setUseCaches(false);
-        urlConnection.setDoOutput(true);
-        // TODO Change to using fileSize once Smack's minimum Android API level is 19 or higher.
-        urlConnection.setFixedLengthStreamingMode((int) fileSize);
-        urlConnection.setRequestProperty("Content-Type", "application/octet-stream");
-        for (Entry<String, String> header : slot.getHeaders().entrySet()) {
-            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+            Thread.sleep(attempt * RETRY_DELAY);
+            if (isUploaded(slot, contentLength, tlsSocketFactory)) {
+                LOGGER.log(Level.INFO, "Upload to " + slot.getPutUrl() + " completed by the failed attempt");
+                return;
+            }
         }
+    }
 
-        final SSLSocketFactory tlsSocketFactory = this.tlsSocketFactory;
-        if (tlsSocketFactory != null && urlConnection instanceof HttpsURLConnection) {
-            HttpsURLConnection httpsUrlConnection = (HttpsURLConnection) urlConnection;
-            httpsUrlConnection.setSSLSocketFactory(tlsSocketFactory);
-        }
+    /**
+     * Send one PUT request of an upload.
+     *
+     * @param retry whether an earlier attempt of the upload failed; a 409 Conflict response means
+     * that it has completed the upload nevertheless
+     */
+    private static void putFile(File file, byte[] key, byte[] iv, long contentLength, Slot slot,
+            SSLSocketFactory tlsSocketFactory, UploadProgressListener listener, boolean retry) throws IOException {
+        // Construct the FileInputStream first to make sure we can actually read the file.
+        try (FileInputStream fis = new FileInputStream(file)) {
+            Cipher cipher = null;
+            if (key != null) {
+                try {
+                    cipher = OmemoMediaSharingUtils.encryptionCipherFrom(key, iv);
+                }
+                catch (GeneralSecurityException e) {
+                    throw toIOException(e);
+                }
+            }
 
-        try {
-            OutputStream outputStream = urlConnection.getOutputStream();
+            final URL putUrl = slot.getPutUrl();
+            final HttpURLConnection urlConnection = openConnection(putUrl, slot, tlsSocketFactory);
+            try {
+                urlConnection.setRequestMethod("PUT");
+                urlConnection.setDoOutput(true);
+                urlConnection.setFixedLengthStreamingMode(contentLength);
 
-            long bytesSend = 0;
+                OutputStream outputStream = urlConnection.getOutputStream();
 
-            if (listener != null) {
-                listener.onUploadProgress(0, fileSize);
-            }
+                long bytesSend = 0;
+
+                if (listener != null) {
+                    listener.onUploadProgress(bytesSend, contentLength);
+                }
 
-            BufferedInputStream inputStream = new BufferedInputStream(fis);
+                byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+                byte[] cipherBuffer = (cipher == null) ? null : new byte[cipher.getOutputSize(UPLOAD_BUFFER_SIZE)];
+                int bytesRead;
+                try {
+                    while ((bytesRead = fis.read(buffer)) != -1) {
+                        byte[] output = buffer;
+                        int length = bytesRead;
+
+                        if (cipher != null) {
+                            // Encrypt the whole buffer at once rather than a small chunk at a time.
+                            output = cipherBuffer;
+                            length = cipher.update(buffer, 0, bytesRead, cipherBuffer);
+                        }
+
+                        outputStream.write(output, 0, length);
+                        bytesSend += length;
+
+                        if (listener != null) {
+                            listener.onUploadProgress(bytesSend, contentLength);
+                        }
+                    }
 
-            // TODO Factor in extra static method (and re-use e.g. in bytestream code).
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            try {
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                    bytesSend += bytesRead;
+                    if (cipher != null) {
+                        // The final block and the AEAD MAC.
+                        int length = cipher.doFinal(cipherBuffer, 0);
+                        outputStream.write(cipherBuffer, 0, length);
+                        bytesSend += length;
 
-                    if (listener != null) {
-                        listener.onUploadProgress(bytesSend, fileSize);
+                        if (listener != null) {
+                            listener.onUploadProgress(bytesSend, contentLength);
+                        }
                     }
                 }
-            }
-            finally {
-                try {
-                    inputStream.close();
-                }
-                catch (IllegalStateException | IOException e) {
-                    LOGGER.log(Level.WARNING, "Exception while closing input stream", e);
+                catch (GeneralSecurityException e) {
+                    throw toIOException(e);
                 }
-                try {
-                    outputStream.close();
+                finally {
+                    try {
+                        outputStream.close();
+                    }
+                    catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Exception while closing output stream", e);
+                    }
                 }
-                catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Exception while closing output stream", e);
+
+                int status = urlConnection.getResponseCode();
+                switch (status) {
+                case HttpURLConnection.HTTP_OK:
+                case HttpURLConnection.HTTP_CREATED:
+                case HttpURLConnection.HTTP_NO_CONTENT:
+                    break;
+                case HttpURLConnection.HTTP_CONFLICT:
+                    if (retry) {
+                        LOGGER.log(Level.INFO, "Upload to " + putUrl + " completed by a failed attempt");
+                        break;
+                    }
+                    // fall through
+                default:
+                    throw new UploadResponseException("Error response " + status + " from server during file upload: "
+                                    + urlConnection.getResponseMessage() + ", file size: " + contentLength + ", put URL: "
+                                    + putUrl);
                 }
             }
+            finally {
+                urlConnection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Ask the server, with a HEAD request on the PUT URL of a slot, whether it holds the whole
+     * content of an upload which failed.
+     *
+     * @return true if the server holds content of the full length at the PUT URL, false otherwise
+     */
+    private static boolean isUploaded(Slot slot, long contentLength, SSLSocketFactory tlsSocketFactory) {
+        HttpURLConnection urlConnection = null;
+        try {
+            urlConnection = openConnection(slot.getPutUrl(), slot, tlsSocketFactory);
+            urlConnection.setRequestMethod("HEAD");
 
             int status = urlConnection.getResponseCode();
-            switch (status) {
-            case HttpURLConnection.HTTP_OK:
-            case HttpURLConnection.HTTP_CREATED:
-            case HttpURLConnection.HTTP_NO_CONTENT:
-                break;
-            default:
-                throw new IOException("Error response " + status + " from server during file upload: "
-                                + urlConnection.getResponseMessage() + ", file size: " + fileSize + ", put URL: "
-                                + putUrl);
+            if (status < HttpURLConnection.HTTP_OK || status >= HttpURLConnection.HTTP_MULT_CHOICE) {
+                return false;
             }
+            String length = urlConnection.getHeaderField("Content-Length");
+            return (length != null) && (Long.parseLong(length.trim()) == contentLength);
+        }
+        catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Cannot check upload to " + slot.getPutUrl(), e);
+            return false;
         }
         finally {
-            urlConnection.disconnect();
+            if (urlConnection != null) {
+                urlConnection.disconnect();
+            }
+        }
+    }
+
+    private static HttpURLConnection openConnection(URL url, Slot slot, SSLSocketFactory tlsSocketFactory)
+            throws IOException {
+        final HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+
+        urlConnection.setUseCaches(false);
+        urlConnection.setRequestProperty("Content-Type", "application/octet-stream");
+        for (Entry<String, String> header : slot.getHeaders().entrySet()) {
+            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        if (tlsSocketFactory != null && urlConnection instanceof HttpsURLConnection) {
+            HttpsURLConnection httpsUrlConnection = (HttpsURLConnection) urlConnection;
+            httpsUrlConnection.setSSLSocketFactory(tlsSocketFactory);
+        }
+        return urlConnection;
+    }
+
+    private static IOException toIOException(Exception e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        return new IOException(e);
+    }
+
+    /**
+     * An error response of the server to an upload, which is not worth a retry.
+     */
+    private static final class UploadResponseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private UploadResponseException(String message) {
+            super(message);
         }
     }
 
@@ -110,7 +110,7 @@ public class OmemoMediaSharingUtils {
         SecretKey secretKey = new SecretKeySpec(key, KEYTYPE);
         IvParameterSpec ivSpec = new IvParameterSpec(iv);
         Cipher cipher = Cipher.getInstance(CIPHERMODE);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivSpec);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, ivSpec);
         return cipher;
     }
 }
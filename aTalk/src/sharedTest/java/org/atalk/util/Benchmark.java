@@ -0,0 +1,196 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.util;
+
+import org.junit.Assume;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Measures the time and the memory allocated per operation for the benchmarks of the test source
+ * sets, and reports the results through the log.
+ *
+ * The benchmarks take long and are skipped unless the tests are run with the
+ * <tt>atalk.benchmark</tt> system property set to <tt>true</tt>, e.g. with
+ * <tt>gradlew test -Patalk.benchmark</tt>, or the instrumented tests with the
+ * <tt>atalk.benchmark</tt> instrumentation argument set to <tt>true</tt>, e.g. with
+ * <tt>gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.atalk.benchmark=true</tt>.
+ * The memory allocated is only reported on a Java runtime
+ * which implements <tt>com.sun.management.ThreadMXBean</tt>.
+ *
+ * @author Eng Chong Meng
+ */
+public final class Benchmark
+{
+    /**
+     * The name of the system property which enables the benchmarks.
+     */
+    public static final String ENABLED_PNAME = "atalk.benchmark";
+
+    /**
+     * The logger the results are reported to.
+     */
+    private static final Logger logger = Logger.getLogger(Benchmark.class);
+
+    /**
+     * Skips the current test unless the benchmarks are enabled by {@link #ENABLED_PNAME}.
+     */
+    public static void assumeEnabled()
+    {
+        Assume.assumeTrue("Benchmarks are enabled with -D" + ENABLED_PNAME + "=true",
+                Boolean.getBoolean(ENABLED_PNAME) || Boolean.parseBoolean(getInstrumentationArgument()));
+    }
+
+    /**
+     * Gets the value of the {@link #ENABLED_PNAME} instrumentation argument of the instrumented
+     * tests; the unit tests do not have the Android test classes.
+     *
+     * @return the value of the <tt>ENABLED_PNAME</tt> instrumentation argument or <tt>null</tt>
+     * if there is none
+     */
+    private static String getInstrumentationArgument()
+    {
+        try {
+            Object arguments = Class.forName("androidx.test.platform.app.InstrumentationRegistry")
+                    .getMethod("getArguments").invoke(null);
+
+            return (String) arguments.getClass().getMethod("getString", String.class)
+                    .invoke(arguments, ENABLED_PNAME);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return the number of bytes allocated by the current thread or <tt>-1</tt> if the Java
+     * runtime does not tell
+     */
+    public static long getAllocatedBytes()
+    {
+        try {
+            Object threadMXBean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Method getThreadAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+
+            return (Long) getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Runs a specific operation a specific number of times to warm up and then as many times
+     * measuring the time and the memory allocated per operation, and reports the result.
+     *
+     * @param name the name of the benchmark to report the result under
+     * @param operations the number of operations to measure
+     * @param operation the operation to benchmark, passed the index of each run: from <tt>0</tt>
+     * to <tt>operations - 1</tt> while warming up, then from <tt>operations</tt> to
+     * <tt>2 * operations - 1</tt>
+     * @return the result of the measured runs
+     * @throws Exception if the operation fails
+     */
+    public static Result measure(String name, int operations, Operation operation)
+            throws Exception
+    {
+        for (int i = 0; i < operations; i++)
+            operation.run(i);
+
+        long startBytes = getAllocatedBytes();
+        long startTime = System.nanoTime();
+
+        for (int i = operations; i < 2 * operations; i++)
+            operation.run(i);
+
+        long time = System.nanoTime() - startTime;
+        long bytes = (startBytes < 0) ? -1 : getAllocatedBytes() - startBytes;
+        Result result = new Result(name, operations, time, bytes);
+
+        report(result.toString());
+        return result;
+    }
+
+    /**
+     * Reports a line of benchmark output.
+     *
+     * @param format the format of the line as of {@link String#format(String, Object...)}
+     * @param args the arguments of <tt>format</tt>
+     */
+    public static void report(String format, Object... args)
+    {
+        logger.info(String.format(Locale.US, format, args));
+    }
+
+    private Benchmark()
+    {
+    }
+
+    /**
+     * An operation to benchmark.
+     */
+    public interface Operation
+    {
+        /**
+         * Runs the operation once.
+         *
+         * @param i the index of the run
+         * @throws Exception if the operation fails
+         */
+        void run(int i)
+                throws Exception;
+    }
+
+    /**
+     * The time and the memory allocated by the measured runs of an {@link Operation}.
+     */
+    public static final class Result
+    {
+        public final String name;
+
+        public final int operations;
+
+        public final long nanos;
+
+        /**
+         * The number of bytes allocated or <tt>-1</tt> if the Java runtime does not tell.
+         */
+        public final long bytes;
+
+        Result(String name, int operations, long nanos, long bytes)
+        {
+            this.name = name;
+            this.operations = operations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public double nanosPerOperation()
+        {
+            return nanos / (double) operations;
+        }
+
+        /**
+         * @return the number of bytes allocated per operation or <tt>NaN</tt> if the Java runtime
+         * does not tell
+         */
+        public double bytesPerOperation()
+        {
+            return (bytes < 0) ? Double.NaN : bytes / (double) operations;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + ": " + String.format(Locale.US, "%.1f", nanosPerOperation()) + " ns/op, "
+                    + ((bytes < 0) ? "n/a" : String.format(Locale.US, "%.1f", bytesPerOperation()))
+                    + " bytes/op.";
+        }
+    }
+}
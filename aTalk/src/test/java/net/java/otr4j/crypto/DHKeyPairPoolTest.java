@@ -0,0 +1,70 @@
+/*
+ * otr4j, the open source java otr library.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.otr4j.crypto;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.interfaces.DHPublicKey;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks <tt>DHKeyPairPool</tt> to hand out each D-H key pair once only, from the pool once it
+ * has been refilled in the background and generated on the calling thread when the pool is
+ * empty, and to count each key pair it hands out as either a hit or a miss.
+ *
+ * The pool is a singleton which the other tests may use too, so only the changes of its counters
+ * are checked.
+ *
+ * @author Eng Chong Meng
+ */
+public class DHKeyPairPoolTest
+{
+	private final DHKeyPairPool pool = DHKeyPairPool.getInstance();
+
+	@Test
+	public void takeKeyPairs()
+			throws Exception
+	{
+		long hits = pool.getHitCount();
+		long misses = pool.getMissCount();
+		Set<BigInteger> publicKeys = new HashSet<>();
+		int taken = 0;
+
+		// Take faster than the pool is refilled, so that it runs empty.
+		for (; taken < 10; taken++)
+			assertTrue(publicKeys.add(takePublicKey()));
+		assertEquals(taken, (pool.getHitCount() - hits) + (pool.getMissCount() - misses));
+		assertTrue(pool.getMissCount() > misses);
+
+		// The refill scheduled by the takes fills the pool in the background.
+		long deadline = System.currentTimeMillis() + 30000;
+		long hitsBefore = pool.getHitCount();
+		while (pool.getHitCount() == hitsBefore) {
+			assertTrue("no key pair from the pool", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+			assertTrue(publicKeys.add(takePublicKey()));
+			taken++;
+		}
+		assertEquals(taken, (pool.getHitCount() - hits) + (pool.getMissCount() - misses));
+	}
+
+	private BigInteger takePublicKey()
+			throws OtrCryptoException
+	{
+		KeyPair keyPair = pool.takeKeyPair();
+		DHPublicKey publicKey = (DHPublicKey) keyPair.getPublic();
+
+		assertEquals(OtrCryptoEngine.MODULUS, publicKey.getParams().getP());
+		assertEquals(OtrCryptoEngine.GENERATOR, publicKey.getParams().getG());
+		return publicKey.getY();
+	}
+}
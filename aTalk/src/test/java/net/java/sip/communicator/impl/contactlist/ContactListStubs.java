@@ -0,0 +1,214 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.protocol.*;
+
+import java.lang.reflect.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The stub protocol providers, groups and contacts of the contact list tests. They are
+ * <tt>java.lang.reflect.Proxy</tt> instances which compare and hash by identity and only answer
+ * what the contact list asks of them; the display name and the presence status of a contact can
+ * be changed, as the protocol would.
+ *
+ * @author Eng Chong Meng
+ */
+final class ContactListStubs
+{
+    static final PresenceStatus OFFLINE = new PresenceStatus(PresenceStatus.OFFLINE, "Offline")
+    {
+    };
+
+    static final PresenceStatus ONLINE = new PresenceStatus(PresenceStatus.AVAILABLE_THRESHOLD, "Online")
+    {
+    };
+
+    private ContactListStubs()
+    {
+    }
+
+    /**
+     * Creates a stub protocol provider of an account with a specific unique ID, which supports no
+     * operation sets.
+     */
+    static ProtocolProviderService newProvider(String accountUID)
+    {
+        Map<String, String> accountProperties = new HashMap<>();
+        accountProperties.put(ProtocolProviderFactory.ACCOUNT_UID, accountUID);
+
+        final AccountID accountID = new AccountID("user@example.org", accountProperties,
+                ProtocolNames.JABBER, "example.org")
+        {
+        };
+
+        return newStub(ProtocolProviderService.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                return "getAccountID".equals(method.getName()) ? accountID : null;
+            }
+        });
+    }
+
+    /**
+     * Creates a stub protocol group of a specific provider.
+     *
+     * @param parentGroup the parent protocol group or <tt>null</tt> for a top level group
+     */
+    static ContactGroup newGroup(final String groupName, final ProtocolProviderService provider,
+            final ContactGroup parentGroup)
+    {
+        return newStub(ContactGroup.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                switch (method.getName()) {
+                    case "getGroupName":
+                    case "getUID":
+                    case "toString":
+                        return groupName;
+                    case "getProtocolProvider":
+                        return provider;
+                    case "getParentContactGroup":
+                        return parentGroup;
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates an offline stub protocol contact with a specific address and display name.
+     *
+     * @param parentGroup the protocol group of the contact or <tt>null</tt>
+     */
+    static Contact newContact(String address, String displayName, ProtocolProviderService provider,
+            ContactGroup parentGroup)
+    {
+        return newStub(Contact.class, new ContactHandler(address, displayName, provider, parentGroup));
+    }
+
+    /**
+     * Changes the display name of a stub contact.
+     */
+    static void setDisplayName(Contact contact, String displayName)
+    {
+        getContactHandler(contact).displayName = displayName;
+    }
+
+    /**
+     * Changes the presence status of a stub contact.
+     */
+    static void setPresenceStatus(Contact contact, PresenceStatus presenceStatus)
+    {
+        getContactHandler(contact).presenceStatus = presenceStatus;
+    }
+
+    private static ContactHandler getContactHandler(Contact contact)
+    {
+        return (ContactHandler) ((StubHandler) Proxy.getInvocationHandler(contact)).handler;
+    }
+
+    /**
+     * Creates a <tt>java.lang.reflect.Proxy</tt> of a specific interface.
+     */
+    private static <T> T newStub(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StubHandler(handler)));
+    }
+
+    /**
+     * Answers the methods of a <tt>Contact</tt> stub.
+     */
+    private static class ContactHandler implements InvocationHandler
+    {
+        private final String address;
+
+        private final ProtocolProviderService provider;
+
+        private final ContactGroup parentGroup;
+
+        volatile String displayName;
+
+        volatile PresenceStatus presenceStatus = OFFLINE;
+
+        ContactHandler(String address, String displayName, ProtocolProviderService provider,
+                ContactGroup parentGroup)
+        {
+            this.address = address;
+            this.displayName = displayName;
+            this.provider = provider;
+            this.parentGroup = parentGroup;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            switch (method.getName()) {
+                case "getAddress":
+                case "getPersistableAddress":
+                    return address;
+                case "getDisplayName":
+                case "toString":
+                    return displayName;
+                case "getProtocolProvider":
+                    return provider;
+                case "getParentContactGroup":
+                    return parentGroup;
+                case "getPresenceStatus":
+                    return presenceStatus;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Compares and hashes the stubs by identity, and answers the other methods through a specific
+     * handler or with the default value of their return types.
+     */
+    private static class StubHandler implements InvocationHandler
+    {
+        final InvocationHandler handler;
+
+        StubHandler(InvocationHandler handler)
+        {
+            this.handler = handler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable
+        {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+            }
+
+            Object result = handler.invoke(proxy, method, args);
+            Class<?> returnType = method.getReturnType();
+
+            if ((result == null) && returnType.isPrimitive()) {
+                if (returnType == boolean.class)
+                    return false;
+                if (returnType == long.class)
+                    return 0L;
+                if (returnType != void.class)
+                    return 0;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.contactlist.MetaContactGroup;
+import net.java.sip.communicator.service.protocol.*;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.java.sip.communicator.impl.contactlist.ContactListStubs.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the snapshots of the child contacts and the subgroups of <tt>MetaContactGroupImpl</tt>
+ * to follow the additions, removals and reorderings in their order, and the iterators taken from
+ * them to keep iterating the contacts and groups of the time they were taken, also while other
+ * threads change the group.
+ *
+ * @author Eng Chong Meng
+ */
+public class MetaContactGroupImplTest
+{
+    private final ProtocolProviderService provider = newProvider("jabber:user@example.org@example.org");
+
+    private final MetaContactListServiceImpl mclServiceImpl = new MetaContactListServiceImpl("Contacts");
+
+    private final MetaContactGroupImpl group = new MetaContactGroupImpl(mclServiceImpl, "Friends");
+
+    @Test
+    public void childContacts()
+    {
+        MetaContactImpl erin = addMetaContact("erin");
+        MetaContactImpl bob = addMetaContact("Bob");
+        MetaContactImpl alice = addMetaContact("alice");
+        Iterator<MetaContact> before = group.getChildContacts();
+
+        MetaContactImpl carol = addMetaContact("Carol");
+        assertChildContacts(alice, bob, carol, erin);
+        group.removeMetaContact(bob);
+        assertChildContacts(alice, carol, erin);
+        assertFalse(group.contains(bob));
+
+        // an online contact comes first
+        setPresenceStatus(erin.getDefaultContact(), ONLINE);
+        assertEquals(0, erin.reevalContact());
+        assertChildContacts(erin, alice, carol);
+
+        // an iterator taken before keeps to the contacts of the time
+        assertEquals(Arrays.<MetaContact>asList(alice, bob, erin), toList(before));
+        Iterator<MetaContact> it = group.getChildContacts();
+        it.next();
+        try {
+            it.remove();
+            fail("removed through the iterator");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(3, group.countChildContacts());
+    }
+
+    @Test
+    public void subgroups()
+    {
+        MetaContactGroupImpl work = addSubgroup("work");
+        MetaContactGroupImpl family = addSubgroup("Family");
+        Iterator<MetaContactGroup> before = group.getSubgroups();
+        MetaContactGroupImpl clubs = addSubgroup("clubs");
+
+        assertSubgroups(clubs, family, work);
+        assertSame(family, group.getMetaContactSubgroup("Family"));
+
+        assertTrue(group.removeSubgroup(family));
+        assertFalse(group.removeSubgroup(family));
+        assertNull(family.getParentMetaContactGroup());
+        assertSubgroups(clubs, work);
+
+        assertSame(work, group.removeSubgroup(1));
+        assertSubgroups(clubs);
+
+        assertEquals(Arrays.<MetaContactGroup>asList(family, work), toList(before));
+    }
+
+    /**
+     * Readers which iterate the child contacts while another thread adds and removes contacts
+     * always see a complete snapshot, in order, and never fail.
+     */
+    @Test
+    public void concurrentReaders()
+            throws Exception
+    {
+        final List<MetaContactImpl> metaContacts = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            metaContacts.add(addMetaContact(String.format("contact%02d", i)));
+
+        final AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<Integer>> readers = new ArrayList<>();
+
+        try {
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call()
+                    {
+                        int snapshots = 0;
+                        while (!done.get()) {
+                            List<MetaContact> snapshot = toList(group.getChildContacts());
+                            List<MetaContact> sorted = new ArrayList<>(snapshot);
+
+                            Collections.sort(sorted);
+                            assertEquals(sorted, snapshot);
+                            assertEquals(snapshot.size(), new HashSet<>(snapshot).size());
+                            assertTrue(snapshot.size() >= 10);
+                            snapshots++;
+                        }
+                        return snapshots;
+                    }
+                }));
+            }
+
+            // the first ten contacts are never removed
+            Random random = new Random(0);
+            for (int i = 0; i < 20000; i++) {
+                MetaContactImpl metaContact = metaContacts.get(10 + random.nextInt(10));
+                if (group.contains(metaContact))
+                    group.removeMetaContact(metaContact);
+                else
+                    group.addMetaContact(metaContact);
+            }
+            done.set(true);
+            for (Future<Integer> reader : readers)
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private MetaContactImpl addMetaContact(String name)
+    {
+        MetaContactImpl metaContact = new MetaContactImpl();
+
+        metaContact.addProtoContact(newContact(name + "@example.org", name, provider, null));
+        group.addMetaContact(metaContact);
+        return metaContact;
+    }
+
+    private MetaContactGroupImpl addSubgroup(String name)
+    {
+        MetaContactGroupImpl subgroup = new MetaContactGroupImpl(mclServiceImpl, name);
+
+        group.addSubgroup(subgroup);
+        assertSame(group, subgroup.getParentMetaContactGroup());
+        return subgroup;
+    }
+
+    private void assertChildContacts(MetaContact... expected)
+    {
+        assertEquals(Arrays.asList(expected), toList(group.getChildContacts()));
+        assertEquals(expected.length, group.countChildContacts());
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], group.getMetaContact(i));
+            assertEquals(i, group.indexOf(expected[i]));
+            assertTrue(group.contains(expected[i]));
+        }
+    }
+
+    private void assertSubgroups(MetaContactGroup... expected)
+    {
+        assertEquals(Arrays.asList(expected), toList(group.getSubgroups()));
+        assertEquals(expected.length, group.countSubgroups());
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], group.getMetaContactSubgroup(i));
+            assertEquals(i, group.indexOf(expected[i]));
+            assertTrue(group.contains(expected[i]));
+        }
+    }
+
+    private static <T> List<T> toList(Iterator<T> it)
+    {
+        List<T> list = new ArrayList<>();
+
+        while (it.hasNext())
+            list.add(it.next());
+        return list;
+    }
+}
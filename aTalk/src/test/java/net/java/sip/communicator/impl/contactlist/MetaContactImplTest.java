@@ -0,0 +1,116 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.protocol.*;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static net.java.sip.communicator.impl.contactlist.ContactListStubs.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the snapshot of the protocol contacts of <tt>MetaContactImpl</tt> to follow the
+ * additions and removals of its contacts in the lookups which are served from it, and the
+ * iterators taken from it to keep iterating the contacts of the time they were taken.
+ *
+ * @author Eng Chong Meng
+ */
+public class MetaContactImplTest
+{
+    private final ProtocolProviderService provider1 = newProvider("jabber:user1@example.org@example.org");
+
+    private final ProtocolProviderService provider2 = newProvider("jabber:user2@example.org@example.org");
+
+    private final ContactGroup group1 = newGroup("Friends", provider1, null);
+
+    private final ContactGroup group2 = newGroup("Friends", provider2, null);
+
+    private final MetaContactImpl metaContact = new MetaContactImpl();
+
+    @Test
+    public void protoContacts()
+    {
+        Contact dave1 = newContact("dave@example.org", "Dave", provider1, group1);
+        Contact dave2 = newContact("dave@example.org", "David", provider2, group2);
+        Contact daveWork = newContact("dave.work@example.org", "Dave", provider2, group2);
+
+        assertFalse(metaContact.getContacts().hasNext());
+        metaContact.addProtoContact(dave1);
+        Iterator<Contact> before = metaContact.getContacts();
+        metaContact.addProtoContact(dave2);
+        metaContact.addProtoContact(daveWork);
+
+        assertEquals(Arrays.asList(dave1, dave2, daveWork), toList(metaContact.getContacts()));
+        assertEquals(3, metaContact.getContactCount());
+        assertEquals("Dave", metaContact.getDisplayName());
+        assertSame(dave2, metaContact.getContact("dave@example.org", provider2));
+        assertSame(daveWork, metaContact.getContact("dave.work@example.org",
+                provider2.getAccountID().getAccountUniqueID()));
+        assertEquals(Arrays.asList(dave2, daveWork), toList(metaContact.getContactsForProvider(provider2)));
+        assertEquals(Collections.singletonList(dave1), toList(metaContact.getContactsForContactGroup(group1)));
+
+        metaContact.removeProtoContact(dave1);
+        assertEquals(Arrays.asList(dave2, daveWork), toList(metaContact.getContacts()));
+        assertFalse(metaContact.containsContact(dave1));
+        assertNull(metaContact.getContact("dave@example.org", provider1));
+
+        assertTrue(metaContact.removeContactsForProvider(provider2));
+        assertFalse(metaContact.getContacts().hasNext());
+        assertEquals(0, metaContact.getContactCount());
+
+        // an iterator taken before keeps to the contacts of the time
+        assertEquals(Collections.singletonList(dave1), toList(before));
+    }
+
+    @Test
+    public void unmodifiableIterator()
+    {
+        metaContact.addProtoContact(newContact("erin@example.org", "Erin", provider1, group1));
+        Iterator<Contact> it = metaContact.getContacts();
+
+        it.next();
+        try {
+            it.remove();
+            fail("removed through the iterator");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1, metaContact.getContactCount());
+    }
+
+    /**
+     * The default contact is the most available one, also after the presence changes.
+     */
+    @Test
+    public void defaultContact()
+    {
+        Contact frank1 = newContact("frank@example.org", "Frank", provider1, group1);
+        Contact frank2 = newContact("frank@example.org", "Frank", provider2, group2);
+
+        metaContact.addProtoContact(frank1);
+        metaContact.addProtoContact(frank2);
+        setPresenceStatus(frank2, ONLINE);
+        metaContact.reevalContact();
+        assertSame(frank2, metaContact.getDefaultContact());
+
+        setPresenceStatus(frank2, OFFLINE);
+        setPresenceStatus(frank1, ONLINE);
+        metaContact.reevalContact();
+        assertSame(frank1, metaContact.getDefaultContact());
+    }
+
+    private static <T> List<T> toList(Iterator<T> it)
+    {
+        List<T> list = new ArrayList<>();
+
+        while (it.hasNext())
+            list.add(it.next());
+        return list;
+    }
+}
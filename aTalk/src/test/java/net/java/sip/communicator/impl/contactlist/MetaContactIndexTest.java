@@ -0,0 +1,288 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.contactlist.MetaContactGroup;
+import net.java.sip.communicator.service.protocol.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static net.java.sip.communicator.impl.contactlist.ContactListStubs.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the lookups of <tt>MetaContactListServiceImpl</tt> through its <tt>MetaContactIndex</tt>
+ * to find what a walk of the whole contact list finds, after each change of the contact list:
+ * renames, the removal of the groups of a provider and moves of contacts and groups.
+ *
+ * The contact list has two providers, each with a protocol group per meta group:
+ * <pre>
+ * root:    carol (provider1)
+ * friends: dave (provider1, provider2), erin (provider2)
+ *   work:  frank (provider1, frank.work on provider2),
+ *          grace (provider2, with the display name "carol@example.org")
+ * </pre>
+ *
+ * @author Eng Chong Meng
+ */
+public class MetaContactIndexTest
+{
+    private final ProtocolProviderService provider1 = newProvider("jabber:user1@example.org@example.org");
+
+    private final ProtocolProviderService provider2 = newProvider("jabber:user2@example.org@example.org");
+
+    private final ProtocolProviderService[] providers = {provider1, provider2};
+
+    /**
+     * All protocol contacts ever created, including those since removed from the contact list.
+     */
+    private final List<Contact> contacts = new ArrayList<>();
+
+    /**
+     * All meta contacts ever created, including those since removed from the contact list.
+     */
+    private final Set<MetaContact> metaContacts = new LinkedHashSet<>();
+
+    private MetaContactListServiceImpl mclServiceImpl;
+
+    private MetaContactGroupImpl friends;
+
+    private MetaContactGroupImpl work;
+
+    private MetaContactImpl carol, dave, erin, frank, grace;
+
+    @Before
+    public void setUp()
+    {
+        mclServiceImpl = new MetaContactListServiceImpl("Contacts");
+        MetaContactGroupImpl root = mclServiceImpl.rootMetaGroup;
+        friends = new MetaContactGroupImpl(mclServiceImpl, "Friends");
+        work = new MetaContactGroupImpl(mclServiceImpl, "Work");
+
+        for (ProtocolProviderService provider : providers) {
+            ContactGroup rootGroup = newGroup("Contacts", provider, null);
+            ContactGroup friendsGroup = newGroup("Friends", provider, null);
+
+            root.addProtoGroup(rootGroup);
+            friends.addProtoGroup(friendsGroup);
+            work.addProtoGroup(newGroup("Work", provider, friendsGroup));
+        }
+        root.addSubgroup(friends);
+        friends.addSubgroup(work);
+
+        carol = addMetaContact(root, contact("carol", "Carol", provider1, root));
+        dave = addMetaContact(friends, contact("dave", "Dave", provider1, friends),
+                contact("dave", "David", provider2, friends));
+        erin = addMetaContact(friends, contact("erin", "Erin", provider2, friends));
+        frank = addMetaContact(work, contact("frank", "Frank", provider1, work),
+                contact("frank.work", "Frank", provider2, work));
+        grace = addMetaContact(work, contact("grace", "carol@example.org", provider2, work));
+        assertIndexMatchesWalk();
+    }
+
+    /**
+     * Meta contacts are looked up by the addresses of their protocol contacts only, not by their
+     * display names, also after a rename.
+     */
+    @Test
+    public void rename()
+    {
+        assertEquals(Collections.<MetaContact>singleton(carol), findAllForAddress("carol@example.org"));
+        assertTrue(findAllForAddress("Dave").isEmpty());
+
+        setDisplayName(dave.getContact("dave@example.org", provider2), "erin@example.org");
+        mclServiceImpl.renameMetaContact(dave, "Dave Smith");
+        mclServiceImpl.renameMetaContact(carol, "frank@example.org");
+        assertIndexMatchesWalk();
+        assertEquals(Collections.<MetaContact>singleton(erin), findAllForAddress("erin@example.org"));
+        assertTrue(findAllForAddress("Dave Smith").isEmpty());
+    }
+
+    /**
+     * The removal of the groups of a provider, as when the provider is unregistered, removes its
+     * contacts but those in the root group, which stay in the contact list.
+     */
+    @Test
+    public void removeProviderGroups()
+    {
+        MetaContactImpl henry = addMetaContact(mclServiceImpl.rootMetaGroup,
+                contact("henry", "Henry", provider2, mclServiceImpl.rootMetaGroup));
+        ContactGroup friendsGroup = friends.getContactGroupsForProvider(provider2).next();
+
+        mclServiceImpl.removeContactGroupFromMetaContactGroup(friends, friendsGroup, provider2);
+        assertIndexMatchesWalk();
+        assertNull(mclServiceImpl.findMetaContactByMetaUID(erin.getMetaUID()));
+        assertNull(mclServiceImpl.findMetaContactByMetaUID(grace.getMetaUID()));
+        assertSame(dave, mclServiceImpl.findMetaContactByContact("dave@example.org",
+                provider1.getAccountID().getAccountUniqueID()));
+        assertEquals(Collections.<MetaContact>singleton(henry), findAllForProvider(provider2));
+        assertTrue(findAllForAddress("frank.work@example.org").isEmpty());
+    }
+
+    @Test
+    public void moveMetaContacts()
+    {
+        mclServiceImpl.moveMetaContact(dave, work);
+        assertIndexMatchesWalk();
+        mclServiceImpl.moveMetaContact(frank, mclServiceImpl.getRoot());
+        assertIndexMatchesWalk();
+
+        // a meta contact which is removed from a group it is no longer in stays in the list
+        friends.removeMetaContact(dave);
+        assertIndexMatchesWalk();
+        assertSame(dave, mclServiceImpl.findMetaContactByMetaUID(dave.getMetaUID()));
+
+        work.removeMetaContact(dave);
+        assertIndexMatchesWalk();
+        assertNull(mclServiceImpl.findMetaContactByMetaUID(dave.getMetaUID()));
+    }
+
+    @Test
+    public void moveContacts()
+    {
+        Contact dave2 = dave.getContact("dave@example.org", provider2);
+
+        // into a new meta contact of a group, and then into an existing meta contact
+        mclServiceImpl.moveContact(dave2, work);
+        assertIndexMatchesWalk();
+        MetaContact newDave = mclServiceImpl.findMetaContactByContact(dave2);
+        assertNotSame(dave, newDave);
+        metaContacts.add(newDave);
+
+        mclServiceImpl.moveContact(dave2, (MetaContact) frank);
+        assertIndexMatchesWalk();
+        assertSame(frank, mclServiceImpl.findMetaContactByContact(dave2));
+
+        // the last contact of a meta contact removes the meta contact
+        mclServiceImpl.moveContact(erin.getContact("erin@example.org", provider2), (MetaContact) carol);
+        assertIndexMatchesWalk();
+        assertNull(mclServiceImpl.findMetaContactByMetaUID(erin.getMetaUID()));
+    }
+
+    @Test
+    public void moveGroups()
+    {
+        friends.removeSubgroup(work);
+        assertIndexMatchesWalk();
+        assertNull(mclServiceImpl.findMetaContactByMetaUID(frank.getMetaUID()));
+
+        // changes to a group which is not in the contact list are not indexed
+        MetaContactImpl henry = addMetaContact(work, contact("henry", "Henry", provider1, work));
+        grace.addProtoContact(contact("grace", "Grace", provider1, work));
+        assertIndexMatchesWalk();
+
+        mclServiceImpl.rootMetaGroup.addSubgroup(work);
+        assertIndexMatchesWalk();
+        assertSame(henry, mclServiceImpl.findMetaContactByMetaUID(henry.getMetaUID()));
+
+        mclServiceImpl.rootMetaGroup.removeSubgroup(friends);
+        assertIndexMatchesWalk();
+    }
+
+    private Contact contact(String name, String displayName, ProtocolProviderService provider,
+            MetaContactGroupImpl metaGroup)
+    {
+        Contact contact = newContact(name + "@example.org", displayName, provider,
+                metaGroup.getContactGroupsForProvider(provider).next());
+
+        contacts.add(contact);
+        return contact;
+    }
+
+    private MetaContactImpl addMetaContact(MetaContactGroupImpl metaGroup, Contact... protoContacts)
+    {
+        MetaContactImpl metaContact = new MetaContactImpl();
+
+        for (Contact protoContact : protoContacts)
+            metaContact.addProtoContact(protoContact);
+        metaGroup.addMetaContact(metaContact);
+        metaContacts.add(metaContact);
+        return metaContact;
+    }
+
+    private Set<MetaContact> findAllForAddress(String contactAddress)
+    {
+        return toSet(mclServiceImpl.findAllMetaContactsForAddress(contactAddress));
+    }
+
+    private Set<MetaContact> findAllForProvider(ProtocolProviderService provider)
+    {
+        return toSet(mclServiceImpl.findAllMetaContactsForProvider(provider));
+    }
+
+    private static Set<MetaContact> toSet(Iterator<MetaContact> metaContacts)
+    {
+        Set<MetaContact> set = new HashSet<>();
+
+        while (metaContacts.hasNext())
+            assertTrue("duplicate", set.add(metaContacts.next()));
+        return set;
+    }
+
+    /**
+     * Walks the contact list from its root group, and checks every lookup of every contact, address,
+     * display name, provider and meta UID ever used to find what the walk finds.
+     */
+    private void assertIndexMatchesWalk()
+    {
+        List<MetaContact> walk = new ArrayList<>();
+        walk(mclServiceImpl.rootMetaGroup, walk);
+
+        for (Contact contact : contacts) {
+            MetaContact expected = null;
+            String accountID = contact.getProtocolProvider().getAccountID().getAccountUniqueID();
+
+            for (MetaContact metaContact : walk) {
+                if (metaContact.containsContact(contact))
+                    expected = metaContact;
+            }
+            assertSame(contact.getAddress(), expected, mclServiceImpl.findMetaContactByContact(contact));
+            assertSame(contact.getAddress(), expected,
+                    mclServiceImpl.findMetaContactByContact(contact.getAddress(), accountID));
+
+            for (String key : new String[]{contact.getAddress(), contact.getDisplayName()}) {
+                Set<MetaContact> expectedAll = new HashSet<>();
+                for (MetaContact metaContact : walk) {
+                    Iterator<Contact> protoContacts = metaContact.getContacts();
+                    while (protoContacts.hasNext()) {
+                        if (protoContacts.next().getAddress().equals(key))
+                            expectedAll.add(metaContact);
+                    }
+                }
+                assertEquals(key, expectedAll, findAllForAddress(key));
+            }
+        }
+
+        for (ProtocolProviderService provider : providers) {
+            Set<MetaContact> expected = new HashSet<>();
+            for (MetaContact metaContact : walk) {
+                if (metaContact.getContactsForProvider(provider).hasNext())
+                    expected.add(metaContact);
+            }
+            assertEquals(expected, findAllForProvider(provider));
+        }
+
+        for (MetaContact metaContact : metaContacts) {
+            assertSame(metaContact.getDisplayName(), walk.contains(metaContact) ? metaContact : null,
+                    mclServiceImpl.findMetaContactByMetaUID(metaContact.getMetaUID()));
+        }
+    }
+
+    private static void walk(MetaContactGroup metaGroup, List<MetaContact> walk)
+    {
+        Iterator<MetaContact> childContacts = metaGroup.getChildContacts();
+        while (childContacts.hasNext())
+            walk.add(childContacts.next());
+
+        Iterator<MetaContactGroup> subgroups = metaGroup.getSubgroups();
+        while (subgroups.hasNext())
+            walk(subgroups.next(), walk);
+    }
+}
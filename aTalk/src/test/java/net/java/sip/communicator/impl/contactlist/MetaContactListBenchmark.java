@@ -0,0 +1,134 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.protocol.*;
+
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the lookups of a presence storm on a roster of {@link #CONTACTS} contacts in
+ * {@link #GROUPS} groups: every presence event of a protocol contact looks up its meta contact
+ * as <tt>MetaContactListServiceImpl.contactPresenceStatusChanged</tt> does. Each lookup is done
+ * both through a <tt>MetaContactIndex</tt> and by walking the groups and asking every meta
+ * contact for the protocol contact as <tt>MetaContactGroupImpl.findMetaContactByContact</tt>
+ * does, and both are checked to find the same meta contacts. The measurements run with the other
+ * benchmarks, see {@link Benchmark}.
+ *
+ * The protocol contacts and providers are the stubs of {@link ContactListStubs}.
+ *
+ * @author Eng Chong Meng
+ */
+public class MetaContactListBenchmark
+{
+    /**
+     * The number of protocol contacts in the roster, one per meta contact.
+     */
+    private static final int CONTACTS = 5000;
+
+    /**
+     * The number of groups the meta contacts are spread over.
+     */
+    private static final int GROUPS = 50;
+
+    /**
+     * The number of presence events of a storm, measured after as many warm-up events.
+     */
+    private static final int EVENTS = 100000;
+
+    private final ProtocolProviderService provider
+            = ContactListStubs.newProvider("jabber:user@example.org@example.org");
+
+    private final List<List<MetaContactImpl>> groups = new ArrayList<>();
+
+    private final Contact[] contacts = new Contact[CONTACTS];
+
+    private final MetaContactIndex index = new MetaContactIndex();
+
+    @Before
+    public void setUp()
+    {
+        for (int i = 0; i < GROUPS; i++)
+            groups.add(new ArrayList<MetaContactImpl>());
+        for (int i = 0; i < CONTACTS; i++) {
+            MetaContactImpl metaContact = new MetaContactImpl();
+
+            contacts[i] = ContactListStubs.newContact(
+                    "contact" + i + "@example.org", "Contact " + i, provider, null);
+            metaContact.addProtoContact(contacts[i]);
+            groups.get(i % GROUPS).add(metaContact);
+            index.addMetaContact(metaContact);
+        }
+    }
+
+    @Test
+    public void indexMatchesWalk()
+    {
+        for (Contact contact : contacts) {
+            assertSame(contact.getAddress(), findMetaContactByContact(groups, contact),
+                    index.findMetaContactByContact(contact.getAddress(), contact.getProtocolProvider()));
+        }
+        assertEquals(CONTACTS, index.findAllMetaContactsForProvider(provider).size());
+    }
+
+    @Test
+    public void removeMetaContacts()
+    {
+        String accountID = provider.getAccountID().getAccountUniqueID();
+
+        for (List<MetaContactImpl> group : groups) {
+            for (MetaContactImpl metaContact : group)
+                index.removeMetaContact(metaContact);
+        }
+        for (Contact contact : contacts) {
+            assertNull(index.findMetaContactByContact(contact.getAddress(), provider));
+            assertNull(index.findMetaContactByContact(contact.getAddress(), accountID));
+            assertTrue(index.findAllMetaContactsForAddress(contact.getAddress()).isEmpty());
+        }
+        assertTrue(index.findAllMetaContactsForProvider(provider).isEmpty());
+    }
+
+    @Test
+    public void presenceStorm()
+            throws Exception
+    {
+        Benchmark.assumeEnabled();
+
+        /* The contacts of the storm, the same for both lookups. */
+        Random random = new Random(0);
+        final Contact[] events = new Contact[EVENTS];
+        for (int i = 0; i < EVENTS; i++)
+            events[i] = contacts[random.nextInt(CONTACTS)];
+
+        Benchmark.measure("Presence storm on " + CONTACTS + " contacts, walk", EVENTS, i ->
+                assertNotNull(findMetaContactByContact(groups, events[i % EVENTS])));
+        Benchmark.measure("Presence storm on " + CONTACTS + " contacts, index", EVENTS, i -> {
+            Contact contact = events[i % EVENTS];
+            assertNotNull(index.findMetaContactByContact(contact.getAddress(), contact.getProtocolProvider()));
+        });
+    }
+
+    /**
+     * Finds the meta contact of a protocol contact by walking groups of meta contacts.
+     */
+    private static MetaContactImpl findMetaContactByContact(List<List<MetaContactImpl>> groups,
+            Contact contact)
+    {
+        for (List<MetaContactImpl> group : groups) {
+            for (MetaContactImpl metaContact : group) {
+                if (metaContact.getContact(contact.getAddress(), contact.getProtocolProvider()) != null)
+                    return metaContact;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package net.java.sip.communicator.impl.contactlist;
+
+import net.java.sip.communicator.service.contactlist.MetaContact;
+import net.java.sip.communicator.service.contactlist.MetaContactGroup;
+import net.java.sip.communicator.service.contactlist.event.*;
+import net.java.sip.communicator.service.protocol.*;
+import net.java.sip.communicator.service.protocol.event.ContactPresenceStatusChangeEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static net.java.sip.communicator.impl.contactlist.ContactListStubs.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks <tt>PresenceEventCoalescer</tt> to deliver the presence changes of a window of 250 ms
+ * after the first of them as one <tt>MetaContactPresenceEvent</tt>, each meta contact and group
+ * once, and to discard them when it is disposed; and
+ * <tt>MetaContactListServiceImpl.contactPresenceStatusChanged</tt> to tell the other listeners
+ * of the reordered groups right away, but the <tt>MetaContactListBulkListener</tt>s only through
+ * the <tt>MetaContactPresenceEvent</tt>s.
+ *
+ * @author Eng Chong Meng
+ */
+public class PresenceEventCoalescerTest
+{
+    /**
+     * The default window of <tt>PresenceEventCoalescer</tt> in milliseconds.
+     */
+    private static final long WINDOW = 250;
+
+    private final ProtocolProviderService provider = newProvider("jabber:user@example.org@example.org");
+
+    private final BulkListener bulkListener = new BulkListener();
+
+    private final ReorderListener reorderListener = new ReorderListener();
+
+    private MetaContactListServiceImpl mclServiceImpl;
+
+    private PresenceEventCoalescer coalescer;
+
+    private MetaContactGroupImpl friends;
+
+    private MetaContactImpl alice, bob;
+
+    @Before
+    public void setUp()
+    {
+        mclServiceImpl = new MetaContactListServiceImpl("Contacts");
+        friends = new MetaContactGroupImpl(mclServiceImpl, "Friends");
+        mclServiceImpl.rootMetaGroup.addSubgroup(friends);
+        alice = addMetaContact("alice", "Alice");
+        bob = addMetaContact("bob", "Bob");
+
+        mclServiceImpl.addMetaContactListListener(reorderListener);
+        coalescer = new PresenceEventCoalescer(mclServiceImpl);
+    }
+
+    @After
+    public void tearDown()
+    {
+        coalescer.dispose();
+    }
+
+    /**
+     * The changes of a window are delivered once the window has passed, in the order of their
+     * first change and each meta contact and group once.
+     */
+    @Test
+    public void window()
+            throws Exception
+    {
+        mclServiceImpl.addMetaContactListListener(bulkListener);
+        long start = System.nanoTime();
+
+        coalescer.add(alice, null);
+        coalescer.add(bob, friends);
+        coalescer.add(alice, friends);
+        assertNull(bulkListener.events.poll(WINDOW / 2, TimeUnit.MILLISECONDS));
+        coalescer.add(bob, null);
+
+        MetaContactPresenceEvent evt = bulkListener.events.poll(5, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNotNull(evt);
+        // java.util.Timer schedules by the coarser wall clock
+        assertTrue("delivered after " + elapsed + " ms", elapsed >= WINDOW - 20);
+        assertSame(mclServiceImpl, evt.getSource());
+        assertEquals(Arrays.<MetaContact>asList(alice, bob), new ArrayList<>(evt.getMetaContacts()));
+        assertEquals(Collections.<MetaContactGroup>singletonList(friends),
+                new ArrayList<>(evt.getReorderedGroups()));
+        assertNull(bulkListener.events.poll(2 * WINDOW, TimeUnit.MILLISECONDS));
+
+        // a later change opens a new window
+        coalescer.add(bob, null);
+        evt = bulkListener.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evt);
+        assertEquals(Collections.<MetaContact>singletonList(bob), new ArrayList<>(evt.getMetaContacts()));
+        assertTrue(evt.getReorderedGroups().isEmpty());
+
+        // the coalescer does not fire the reorderings itself
+        assertTrue(reorderListener.events.isEmpty());
+    }
+
+    @Test
+    public void dispose()
+            throws Exception
+    {
+        mclServiceImpl.addMetaContactListListener(bulkListener);
+
+        coalescer.add(alice, friends);
+        coalescer.dispose();
+        assertNull(bulkListener.events.poll(2 * WINDOW, TimeUnit.MILLISECONDS));
+
+        // nothing is left of the discarded window
+        coalescer.add(bob, null);
+        MetaContactPresenceEvent evt = bulkListener.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evt);
+        assertEquals(Collections.<MetaContact>singletonList(bob), new ArrayList<>(evt.getMetaContacts()));
+        assertTrue(evt.getReorderedGroups().isEmpty());
+    }
+
+    /**
+     * Without a bulk listener, a reordering presence change is only told right away.
+     */
+    @Test
+    public void presenceChangedWithoutBulkListener()
+            throws Exception
+    {
+        changePresence(bob, ONLINE);
+        assertEquals(Collections.singletonList(friends), reorderListener.events);
+        assertNull(bulkListener.events.poll(2 * WINDOW, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * With a bulk listener, the other listeners are told of a reordering right away, but the bulk
+     * listener only by the presence event of the window.
+     */
+    @Test
+    public void presenceChangedWithBulkListener()
+            throws Exception
+    {
+        mclServiceImpl.addMetaContactListListener(bulkListener);
+
+        changePresence(bob, ONLINE);
+        changePresence(alice, ONLINE);
+        changePresence(alice, OFFLINE);
+        assertEquals(Arrays.asList(friends, friends, friends), reorderListener.events);
+        assertTrue(bulkListener.reorderings.isEmpty());
+
+        MetaContactPresenceEvent evt = bulkListener.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evt);
+        assertEquals(Arrays.<MetaContact>asList(bob, alice), new ArrayList<>(evt.getMetaContacts()));
+        assertEquals(Collections.<MetaContactGroup>singletonList(friends),
+                new ArrayList<>(evt.getReorderedGroups()));
+        assertTrue(bulkListener.reorderings.isEmpty());
+
+        // a change which does not reorder the group
+        changePresence(alice, OFFLINE);
+        evt = bulkListener.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evt);
+        assertEquals(Collections.<MetaContact>singletonList(alice), new ArrayList<>(evt.getMetaContacts()));
+        assertTrue(evt.getReorderedGroups().isEmpty());
+        assertEquals(3, reorderListener.events.size());
+    }
+
+    private MetaContactImpl addMetaContact(String name, String displayName)
+    {
+        MetaContactImpl metaContact = new MetaContactImpl();
+
+        metaContact.addProtoContact(newContact(name + "@example.org", displayName, provider, null));
+        friends.addMetaContact(metaContact);
+        return metaContact;
+    }
+
+    private void changePresence(MetaContactImpl metaContact, PresenceStatus presenceStatus)
+    {
+        Contact contact = metaContact.getDefaultContact();
+        PresenceStatus oldStatus = contact.getPresenceStatus();
+
+        setPresenceStatus(contact, presenceStatus);
+        mclServiceImpl.contactPresenceStatusChanged(new ContactPresenceStatusChangeEvent(contact,
+                provider, null, oldStatus, presenceStatus));
+    }
+
+    /**
+     * Records the <tt>CHILD_CONTACTS_REORDERED</tt> events of a <tt>MetaContactListListener</tt>.
+     */
+    private static class ReorderListener extends MetaContactListAdapter
+    {
+        final List<MetaContactGroup> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void childContactsReordered(MetaContactGroupEvent evt)
+        {
+            events.add(evt.getSourceMetaContactGroup());
+        }
+    }
+
+    /**
+     * Records the events of a <tt>MetaContactListBulkListener</tt>.
+     */
+    private static class BulkListener extends MetaContactListAdapter
+            implements MetaContactListBulkListener
+    {
+        final BlockingQueue<MetaContactPresenceEvent> events = new LinkedBlockingQueue<>();
+
+        final List<MetaContactGroup> reorderings = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void childContactsReordered(MetaContactGroupEvent evt)
+        {
+            reorderings.add(evt.getSourceMetaContactGroup());
+        }
+
+        @Override
+        public void metaContactsPresenceChanged(MetaContactPresenceEvent evt)
+        {
+            events.add(evt);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ * 
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.configuration;
+
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the prefix queries which account, encoding and notification code issue against the
+ * <tt>ConfigurationStore</tt> during startup, on a <tt>PropertyConfigurationStore</tt> holding
+ * {@link #PROPERTIES} properties. Each query is answered both through
+ * {@link ConfigurationStore#getPropertyNamesByPrefix(String, boolean, Set)} and by scanning all
+ * of {@link ConfigurationStore#getPropertyNames(String)} as <tt>ConfigurationServiceImpl</tt> used
+ * to, and both are checked to give the same names. The measurements run with the other
+ * benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class ConfigurationStoreBenchmark
+{
+	/**
+	 * The number of properties in the store.
+	 */
+	private static final int PROPERTIES = 10000;
+
+	/**
+	 * The number of distinct property prefixes, each with <tt>PROPERTIES / PREFIXES</tt> names.
+	 */
+	private static final int PREFIXES = 500;
+
+	/**
+	 * The number of rounds of queries for all prefixes, measured after as many warm-up rounds.
+	 */
+	private static final int ROUNDS = 20;
+
+	private final ConfigurationStore store = new PropertyConfigurationStore();
+
+	private final String[] prefixes = new String[PREFIXES];
+
+	@Before
+	public void setUp()
+	{
+		for (int i = 0; i < PREFIXES; i++) {
+			prefixes[i] = "net.java.sip.communicator.impl.protocol.jabber.acc" + (1000000 + i);
+		}
+		for (int i = 0; i < PROPERTIES; i++) {
+			String prefix = prefixes[i % PREFIXES];
+
+			store.setNonSystemProperty(
+				((i / PREFIXES) % 2 == 0) ? (prefix + ".PROP" + i) : (prefix + ".sub.PROP" + i),
+				Integer.toString(i));
+		}
+	}
+
+	@Test
+	public void indexMatchesScan()
+	{
+		for (String prefix : prefixes) {
+			for (boolean exactPrefixMatch : new boolean[] { false, true }) {
+				assertEquals(prefix, queryScan(store, prefix, exactPrefixMatch),
+					queryIndex(store, prefix, exactPrefixMatch));
+			}
+		}
+	}
+
+	@Test
+	public void getPropertyNamesByPrefix()
+		throws Exception
+	{
+		Benchmark.assumeEnabled();
+
+		final int[] names = new int[1];
+
+		Benchmark.measure("getPropertyNamesByPrefix over " + PROPERTIES + " properties, scan",
+			ROUNDS * PREFIXES, i -> names[0] += queryScan(store, prefixes[i % PREFIXES], false).size());
+		Benchmark.measure("getPropertyNamesByPrefix over " + PROPERTIES + " properties, index",
+			ROUNDS * PREFIXES, i -> names[0] += queryIndex(store, prefixes[i % PREFIXES], false).size());
+		assertEquals(4 * ROUNDS * PROPERTIES, names[0]);
+	}
+
+	/**
+	 * Gets the property names with a specific prefix through the index of a specific store.
+	 */
+	private static Set<String> queryIndex(ConfigurationStore store, String prefix,
+		boolean exactPrefixMatch)
+	{
+		Set<String> resultSet = new HashSet<>();
+
+		store.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultSet);
+		return resultSet;
+	}
+
+	/**
+	 * Gets the property names with a specific prefix by scanning all names of a specific store.
+	 */
+	private static Set<String> queryScan(ConfigurationStore store, String prefix,
+		boolean exactPrefixMatch)
+	{
+		Set<String> resultSet = new HashSet<>();
+
+		for (String name : store.getPropertyNames(prefix)) {
+			int ix = name.lastIndexOf('.');
+
+			if (ix != -1) {
+				String namePrefix = name.substring(0, ix);
+
+				if (exactPrefixMatch ? prefix.equals(namePrefix) : namePrefix.startsWith(prefix))
+					resultSet.add(name);
+			}
+		}
+		return resultSet;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.configuration;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the prefix queries of <tt>PropertyNameIndex</tt> to find the property names which a scan
+ * of all names with {@link PropertyNameIndex#addIfMatches(String, String, boolean, Collection)}
+ * finds, on names which sort right before, in and right after the run of names of a prefix, and
+ * to follow the additions to and removals from the index.
+ *
+ * @author Eng Chong Meng
+ */
+public class PropertyNameIndexTest
+{
+	private static final String[] NAMES = {
+		"net.java.sip",
+		"net.java.sip.PROP",
+		"net.java.sip.acc1",
+		"net.java.sip.acc1.PROP",
+		"net.java.sip.acc1.sub.PROP",
+		"net.java.sip.acc10.PROP",
+		"net.java.sip.acc1-x.PROP",
+		"net.java.sip.acc1/PROP",
+		"net.java.sip.acc",
+		"net.java.sipx.PROP",
+		"net.java.si.PROP",
+		"NOPREFIX",
+		""
+	};
+
+	private static final String[] PREFIXES = {
+		"net.java.sip",
+		"net.java.sip.acc1",
+		"net.java.sip.acc1.",
+		"net.java.sip.acc",
+		"net.java",
+		"net.java.sipx",
+		"NOPREFIX",
+		"",
+		"zzz"
+	};
+
+	private final PropertyNameIndex index = new PropertyNameIndex();
+
+	@Test
+	public void indexMatchesScan()
+	{
+		index.addAll(Arrays.asList(NAMES));
+		assertIndexMatchesScan(NAMES);
+
+		// Unless the match is to be exact, a name only has to start with the prefix.
+		assertEquals(Arrays.asList("net.java.sip.acc1-x.PROP", "net.java.sip.acc1.PROP",
+			"net.java.sip.acc1.sub.PROP", "net.java.sip.acc10.PROP"),
+			query("net.java.sip.acc1", false));
+		assertEquals(Collections.singletonList("net.java.sip.acc1.PROP"),
+			query("net.java.sip.acc1", true));
+	}
+
+	@Test
+	public void addAndRemove()
+	{
+		List<String> names = new ArrayList<>();
+
+		for (String name : NAMES) {
+			index.add(name);
+			names.add(name);
+			assertIndexMatchesScan(names.toArray(new String[0]));
+		}
+
+		// A name added twice is only indexed once.
+		index.add(NAMES[1]);
+		assertEquals(NAMES.length, index.toArray().length);
+
+		for (String name : NAMES) {
+			index.remove(name);
+			names.remove(name);
+			assertIndexMatchesScan(names.toArray(new String[0]));
+		}
+		assertEquals(0, index.toArray().length);
+
+		index.addAll(Arrays.asList(NAMES));
+		index.clear();
+		assertEquals(0, index.toArray().length);
+		assertTrue(query("net.java.sip", false).isEmpty());
+	}
+
+	@Test
+	public void addAllSkipsNonStrings()
+	{
+		index.addAll(Arrays.<Object>asList("net.java.sip.PROP", 1, null, "net.java.sip.acc1.PROP"));
+		assertArrayEquals(new String[] {"net.java.sip.PROP", "net.java.sip.acc1.PROP"},
+			index.toArray());
+	}
+
+	/**
+	 * Checks every query of {@link #PREFIXES} to find what a scan of specific names finds, in
+	 * ascending order, and the index to hold exactly these names.
+	 */
+	private void assertIndexMatchesScan(String[] names)
+	{
+		String[] sorted = new TreeSet<>(Arrays.asList(names)).toArray(new String[0]);
+
+		assertArrayEquals(sorted, index.toArray());
+		for (String prefix : PREFIXES) {
+			for (boolean exactPrefixMatch : new boolean[] {false, true}) {
+				List<String> expected = new ArrayList<>();
+
+				for (String name : sorted)
+					PropertyNameIndex.addIfMatches(name, prefix, exactPrefixMatch, expected);
+				assertEquals(prefix + " " + exactPrefixMatch, expected,
+					query(prefix, exactPrefixMatch));
+			}
+		}
+	}
+
+	private List<String> query(String prefix, boolean exactPrefixMatch)
+	{
+		List<String> resultSet = new ArrayList<>();
+
+		index.getPropertyNamesByPrefix(prefix, exactPrefixMatch, resultSet);
+		return resultSet;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia;
+
+import org.atalk.impl.neomedia.codec.REDBlock;
+import org.atalk.impl.neomedia.codec.REDBlockIterator;
+import org.atalk.impl.neomedia.rtp.RawPacketCache;
+import org.atalk.impl.neomedia.rtp.remotebitrateestimator.RemoteBitrateEstimatorAbsSendTime;
+import org.atalk.impl.neomedia.transform.fec.FlexFec03Receiver;
+import org.atalk.impl.neomedia.transform.srtp.*;
+import org.atalk.service.libjitsi.LibJitsiStubs;
+import org.atalk.service.neomedia.RawPacket;
+import org.atalk.util.Benchmark;
+import org.atalk.util.DiagnosticContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Benchmarks the classes of the neomedia packet pipeline in isolation on synthetic traffic and
+ * reports the time and the memory allocated per operation, so that a regression shows as a
+ * number rather than as a feeling. Runs with the other benchmarks, see {@link Benchmark}.
+ *
+ * <tt>StatisticsEngine</tt> and <tt>AudioMixerPushBufferStream</tt> cannot be initialized
+ * without a <tt>MediaStreamImpl</tt> and a <tt>CaptureDevice</tt> respectively and are not
+ * covered.
+ *
+ * @author Eng Chong Meng
+ */
+public class PacketPipelineBenchmark
+{
+    /**
+     * The number of operations of a benchmark, measured after as many warm-up operations.
+     */
+    private static final int OPERATIONS = 200000;
+
+    /**
+     * The ID of the abs-send-time RTP header extension of the synthetic packets.
+     */
+    private static final int ABS_SEND_TIME_ID = 3;
+
+    /**
+     * The payload type of the synthetic media packets.
+     */
+    private static final int MEDIA_PT = 100;
+
+    /**
+     * The SSRC of the synthetic media packets.
+     */
+    private static final int SSRC = 0x12345678;
+
+    @Before
+    public void setUp()
+    {
+        Benchmark.assumeEnabled();
+        LibJitsiStubs.start();
+    }
+
+    @Test
+    public void rawPacket()
+            throws Exception
+    {
+        final TrafficGenerator traffic = new TrafficGenerator(1200);
+        final RawPacket pkt = traffic.next(new RawPacket());
+        final long[] sink = new long[1];
+
+        Benchmark.measure("RawPacket header parsing", OPERATIONS, i -> sink[0]
+                += pkt.getSSRCAsLong() + pkt.getSequenceNumber() + pkt.getTimestamp()
+                + pkt.getPayloadType() + pkt.getHeaderLength() + pkt.getPayloadLength());
+        Benchmark.measure("RawPacket extension lookup", OPERATIONS, i ->
+                assertNotNull(pkt.getHeaderExtension((byte) ABS_SEND_TIME_ID)));
+    }
+
+    @Test
+    public void srtp()
+            throws Exception
+    {
+        Random random = new Random();
+        byte[] masterKey = new byte[16];
+        byte[] masterSalt = new byte[14];
+
+        random.nextBytes(masterKey);
+        random.nextBytes(masterSalt);
+
+        SRTPPolicy policy = new SRTPPolicy(SRTPPolicy.AESCM_ENCRYPTION, 16,
+                SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+        final SRTPTransformer sender = new SRTPTransformer(
+                new SRTPContextFactory(true, masterKey, masterSalt, policy, policy));
+        final SRTPTransformer receiver = new SRTPTransformer(
+                new SRTPContextFactory(false, masterKey, masterSalt, policy, policy));
+        final TrafficGenerator traffic = new TrafficGenerator(1200);
+        final RawPacket pkt = new RawPacket();
+
+        Benchmark.measure("SRTPCryptoContext protect+unprotect", OPERATIONS, i -> {
+            traffic.next(pkt);
+            assertNotNull(sender.transform(pkt));
+            assertNotNull(receiver.reverseTransform(pkt));
+        });
+        sender.close();
+        receiver.close();
+    }
+
+    @Test
+    public void rawPacketCache()
+            throws Exception
+    {
+        final RawPacketCache cache = new RawPacketCache(0);
+        final TrafficGenerator traffic = new TrafficGenerator(1200);
+        final RawPacket pkt = new RawPacket();
+
+        Benchmark.measure("RawPacketCache cache+lookup", OPERATIONS, i -> {
+            traffic.next(pkt);
+            cache.cachePacket(pkt);
+
+            // A NACK for a recent packet.
+            RawPacketCache.Container container
+                    = cache.getContainer(SSRC & 0xffffffffL, (pkt.getSequenceNumber() - 50) & 0xffff);
+            if (container != null)
+                container.release();
+        });
+        cache.close();
+    }
+
+    @Test
+    public void red()
+            throws Exception
+    {
+        // A RED payload of a redundant block of 100 bytes followed by a primary block of 1000.
+        final byte[] red = new byte[4 + 1 + 100 + 1000];
+        red[0] = (byte) (0x80 | MEDIA_PT);
+        red[2] = 0;
+        red[3] = 100;
+        red[4] = MEDIA_PT;
+        final int[] sink = new int[1];
+
+        Benchmark.measure("REDBlockIterator", OPERATIONS, i -> {
+            REDBlockIterator it = new REDBlockIterator(red, 0, red.length);
+            while (it.hasNext()) {
+                REDBlock block = it.next();
+                sink[0] += block.getLength();
+            }
+            sink[0] += REDBlockIterator.getPrimaryBlock(red, 0, red.length).getLength();
+        });
+    }
+
+    @Test
+    public void flexFec()
+            throws Exception
+    {
+        final FlexFec03Receiver receiver = new FlexFec03Receiver(SSRC & 0xffffffffL, (byte) 110);
+        final TrafficGenerator traffic = new TrafficGenerator(1200);
+        final RawPacket[] pkts = new RawPacket[1];
+
+        Benchmark.measure("FlexFec03Receiver media", OPERATIONS, i -> {
+            pkts[0] = traffic.next(new RawPacket());
+            receiver.reverseTransform(pkts);
+        });
+        receiver.close();
+    }
+
+    @Test
+    public void absSendTime()
+            throws Exception
+    {
+        final RemoteBitrateEstimatorAbsSendTime estimator = new RemoteBitrateEstimatorAbsSendTime(
+                (ssrcs, bitrate) -> {
+                }, new DiagnosticContext());
+
+        // 30 packets per 33 ms frame with a slowly growing delay.
+        Benchmark.measure("RemoteBitrateEstimatorAbsSendTime", OPERATIONS, i -> {
+            long sendTimeMs = i * 33L / 30;
+            long arrivalTimeMs = sendTimeMs + 20 + (i % 300) / 30;
+            estimator.incomingPacketInfo(arrivalTimeMs,
+                    RemoteBitrateEstimatorAbsSendTime.convertMsTo24Bits(sendTimeMs), 1200, SSRC);
+        });
+    }
+
+    /**
+     * Generates a synthetic video RTP stream i.e. consecutive packets of the same SSRC, 30 per
+     * frame, with an abs-send-time header extension and a random payload.
+     */
+    static class TrafficGenerator
+    {
+        /**
+         * The length of the RTP header of the generated packets, including the one-byte header
+         * extension which carries abs-send-time.
+         */
+        private static final int HEADER_LENGTH = 12 + 8;
+
+        /**
+         * The payload of the generated packets.
+         */
+        private final byte[] payload;
+
+        /**
+         * The sequence number of the next packet.
+         */
+        private int seq = 0;
+
+        /**
+         * Initializes a new generator of packets with a specific payload length.
+         *
+         * @param payloadLength the payload length of the packets to generate
+         */
+        TrafficGenerator(int payloadLength)
+        {
+            payload = new byte[payloadLength];
+            new Random().nextBytes(payload);
+        }
+
+        /**
+         * Fills a specific <tt>RawPacket</tt> with the next packet of the stream. The buffer of
+         * the packet is reused if it is large enough for the packet and an SRTP trailer.
+         *
+         * @param pkt the <tt>RawPacket</tt> to fill
+         * @return <tt>pkt</tt>
+         */
+        RawPacket next(RawPacket pkt)
+        {
+            int length = HEADER_LENGTH + payload.length;
+            byte[] buf = pkt.getBuffer();
+
+            if (buf == null || buf.length < length + 16)
+                buf = new byte[length + 16];
+
+            buf[0] = (byte) 0x90; // V=2, X=1
+            buf[1] = (byte) (((seq % 30) == 29 ? 0x80 : 0) | MEDIA_PT);
+            buf[12] = (byte) 0xBE;
+            buf[13] = (byte) 0xDE;
+            buf[14] = 0;
+            buf[15] = 1;
+            buf[16] = (byte) ((ABS_SEND_TIME_ID << 4) | 2);
+            System.arraycopy(payload, 0, buf, HEADER_LENGTH, payload.length);
+
+            pkt.setBuffer(buf);
+            pkt.setOffset(0);
+            pkt.setLength(length);
+            pkt.setFlags(0);
+            pkt.setSequenceNumber(seq & 0xffff);
+            pkt.setTimestamp((seq / 30) * 3000L);
+            pkt.setSSRC(SSRC);
+            seq++;
+            return pkt;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.codec.audio;
+
+import org.atalk.impl.neomedia.audiolevel.AudioLevelCalculator;
+import org.atalk.util.ArrayIOUtils;
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the table driven G.711 encoders and decoder and the integer <tt>AudioLevelCalculator</tt>
+ * with the per-sample arithmetic they replace, on 20 ms frames of 8 kHz audio: checks that their
+ * results are the same and measures the time and the memory allocated per frame. The measurements
+ * run with the other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class G711Benchmark
+{
+    /**
+     * The number of frames of a benchmark, measured after as many warm-up frames.
+     */
+    private static final int FRAMES = 200000;
+
+    /**
+     * The number of samples of a frame.
+     */
+    private static final int SAMPLES_PER_FRAME = 160;
+
+    /**
+     * One second of a 440 Hz tone rising in volume every 100 ms.
+     */
+    private final short[] samples = new short[8000];
+
+    /**
+     * {@link #samples} as 16-bit little endian pcm.
+     */
+    private final byte[] pcm = new byte[2 * samples.length];
+
+    private final int frameCount = samples.length / SAMPLES_PER_FRAME;
+
+    @Before
+    public void setUp()
+    {
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (20000 * Math.sin(2 * Math.PI * 440 * i / 8000.0) * ((i % 800) / 800.0));
+            ArrayIOUtils.writeShort(samples[i], pcm, 2 * i);
+        }
+    }
+
+    @Test
+    public void uLawEncodeMatchesArithmetic()
+    {
+        for (int i = Short.MIN_VALUE; i <= Short.MAX_VALUE; i++) {
+            assertEquals("mu-law " + i, uLawEncodeArithmetic(i),
+                    org.atalk.impl.neomedia.codec.audio.ulaw.JavaEncoder.uLawEncode(i));
+        }
+    }
+
+    @Test
+    public void audioLevelMatchesDouble()
+    {
+        for (int frame = 0; frame < frameCount; frame++) {
+            int offset = 2 * SAMPLES_PER_FRAME * frame;
+            byte expected = calculateAudioLevelDouble(pcm, offset, 2 * SAMPLES_PER_FRAME);
+
+            assertEquals("audio level " + frame, expected,
+                    AudioLevelCalculator.calculateAudioLevel(pcm, offset, 2 * SAMPLES_PER_FRAME));
+            assertEquals("audio level " + frame, expected,
+                    AudioLevelCalculator.calculateAudioLevel(samples, offset / 2, SAMPLES_PER_FRAME));
+        }
+    }
+
+    @Test
+    public void encodeDecode()
+            throws Exception
+    {
+        Benchmark.assumeEnabled();
+
+        final byte[] g711 = new byte[SAMPLES_PER_FRAME];
+        final byte[] decoded = new byte[2 * SAMPLES_PER_FRAME];
+
+        Benchmark.measure("mu-law encode, arithmetic", FRAMES, frame -> {
+            int offset = 2 * SAMPLES_PER_FRAME * (frame % frameCount);
+            for (int i = 0; i < SAMPLES_PER_FRAME; i++)
+                g711[i] = uLawEncodeArithmetic(ArrayIOUtils.readShort(pcm, offset + 2 * i));
+        });
+        Benchmark.measure("mu-law encode, table", FRAMES, frame -> {
+            int offset = 2 * SAMPLES_PER_FRAME * (frame % frameCount);
+            for (int i = 0; i < SAMPLES_PER_FRAME; i++)
+                g711[i] = org.atalk.impl.neomedia.codec.audio.ulaw.JavaEncoder.uLawEncode(
+                        ArrayIOUtils.readInt16(pcm, offset + 2 * i));
+        });
+        Benchmark.measure("a-law encode, table", FRAMES, frame ->
+                org.atalk.impl.neomedia.codec.audio.alaw.JavaEncoder.aLawEncodeLittleEndian(pcm,
+                        2 * SAMPLES_PER_FRAME * (frame % frameCount), 2 * SAMPLES_PER_FRAME, g711));
+        Benchmark.measure("mu-law decode, table", FRAMES, frame ->
+                org.atalk.impl.neomedia.codec.audio.ulaw.JavaDecoder.uLawDecode(g711, 0,
+                        SAMPLES_PER_FRAME, decoded, 0));
+    }
+
+    @Test
+    public void audioLevel()
+            throws Exception
+    {
+        Benchmark.assumeEnabled();
+
+        final int[] sink = new int[1];
+
+        Benchmark.measure("audio level, double", FRAMES, frame -> sink[0] += calculateAudioLevelDouble(
+                pcm, 2 * SAMPLES_PER_FRAME * (frame % frameCount), 2 * SAMPLES_PER_FRAME));
+        Benchmark.measure("audio level, byte[]", FRAMES, frame -> sink[0] += AudioLevelCalculator
+                .calculateAudioLevel(pcm, 2 * SAMPLES_PER_FRAME * (frame % frameCount),
+                        2 * SAMPLES_PER_FRAME));
+        Benchmark.measure("audio level, short[]", FRAMES, frame -> sink[0] += AudioLevelCalculator
+                .calculateAudioLevel(samples, SAMPLES_PER_FRAME * (frame % frameCount),
+                        SAMPLES_PER_FRAME));
+    }
+
+    /**
+     * The mu-law encoding of a 16-bit signed pcm value as <tt>ulaw.JavaEncoder</tt> computed it
+     * per sample before it was table driven.
+     */
+    private static byte uLawEncodeArithmetic(int sample)
+    {
+        int signBit;
+
+        sample = (short) sample;
+        if (sample >= 0) {
+            signBit = 0x80;
+        }
+        else {
+            sample = -sample;
+            signBit = 0x00;
+        }
+
+        sample = (132 + sample) >> 3;
+
+        return (byte) ((sample < 0x0020) ? (signBit | (7 << 4) | (31 - (sample >> 0)))
+                : (sample < 0x0040) ? (signBit | (6 << 4) | (31 - (sample >> 1)))
+                : (sample < 0x0080) ? (signBit | (5 << 4) | (31 - (sample >> 2)))
+                : (sample < 0x0100) ? (signBit | (4 << 4) | (31 - (sample >> 3)))
+                : (sample < 0x0200) ? (signBit | (3 << 4) | (31 - (sample >> 4)))
+                : (sample < 0x0400) ? (signBit | (2 << 4) | (31 - (sample >> 5)))
+                : (sample < 0x0800) ? (signBit | (1 << 4) | (31 - (sample >> 6)))
+                : (sample < 0x1000) ? (signBit | (0 << 4) | (31 - (sample >> 7)))
+                : (signBit | (0 << 4) | (31 - (0xfff >> 7))));
+    }
+
+    /**
+     * The audio level of 16-bit little endian pcm samples as <tt>AudioLevelCalculator</tt>
+     * computed it in floating point arithmetic.
+     */
+    private static byte calculateAudioLevelDouble(byte[] samples, int offset, int length)
+    {
+        double rms = 0;
+
+        for (int i = offset; i < offset + length; i += 2) {
+            double sample = ArrayIOUtils.readShort(samples, i);
+
+            sample /= Short.MAX_VALUE;
+            rms += sample * sample;
+        }
+
+        int sampleCount = length / 2;
+        rms = (sampleCount == 0) ? 0 : Math.sqrt(rms / sampleCount);
+
+        double db;
+
+        if (rms > 0) {
+            db = -20 * Math.log10(rms);
+            if (db > AudioLevelCalculator.MIN_AUDIO_LEVEL)
+                db = AudioLevelCalculator.MIN_AUDIO_LEVEL;
+            else if (db < AudioLevelCalculator.MAX_AUDIO_LEVEL)
+                db = AudioLevelCalculator.MAX_AUDIO_LEVEL;
+        }
+        else {
+            db = AudioLevelCalculator.MIN_AUDIO_LEVEL;
+        }
+        return (byte) db;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+/*
+ * WARNING: The use of G.729 may require a license fee and/or royalty fee in some countries and is
+ * licensed by <a href="http://www.sipro.com">SIPRO Lab Telecom</a>.
+ */
+package org.atalk.impl.neomedia.codec.audio.g729;
+
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the time and the memory allocated per frame of the pure-Java G.729 encoder and decoder,
+ * <tt>Coder</tt> and <tt>Decoder</tt> as driven by <tt>JavaEncoder</tt> and <tt>JavaDecoder</tt>.
+ * The input is a synthetic voiced signal, a few harmonics with a slowly varying pitch, and every
+ * 50th frame is erased so that the frame erasure concealment of the decoder is exercised as well.
+ * Runs with the other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class G729Benchmark
+{
+	/**
+	 * The number of frames encoded and decoded, measured after as many warm-up frames.
+	 */
+	private static final int FRAMES = 20000;
+
+	@Before
+	public void setUp()
+	{
+		Benchmark.assumeEnabled();
+	}
+
+	@Test
+	public void encodeDecode()
+		throws Exception
+	{
+		/* One second of input, encoded frame after frame over and over again. */
+		final short[] input = new short[8000];
+		for (int i = 0; i < input.length; i++) {
+			double t = i / 8000.0;
+			double f0 = 150 + 30 * Math.sin(2 * Math.PI * 2 * t);
+			double s = 0;
+			for (int h = 1; h <= 4; h++)
+				s += Math.sin(2 * Math.PI * h * f0 * t) / h;
+			input[i] = (short) (6000 * s);
+		}
+
+		final Coder coder = new Coder();
+		final Decoder decoder = new Decoder();
+		final short[] sp16 = new short[Ld8k.L_FRAME];
+		/* The serial frames of the last FRAMES frames encoded, in the order they were encoded. */
+		final short[][] serials = new short[FRAMES][Ld8k.SERIAL_SIZE];
+		final short[] output = new short[Ld8k.L_FRAME];
+		final int framesPerInput = input.length / Ld8k.L_FRAME;
+
+		Benchmark.measure("G.729 encode", FRAMES, i -> {
+			System.arraycopy(input, (i % framesPerInput) * Ld8k.L_FRAME, sp16, 0, Ld8k.L_FRAME);
+			coder.process(sp16, serials[i % FRAMES]);
+			assertEquals(Ld8k.SYNC_WORD, serials[i % FRAMES][0]);
+		});
+
+		for (int frame = 49; frame < FRAMES; frame += 50)
+			serials[frame][2] = 0; /* Frame erasure */
+
+		Benchmark.measure("G.729 decode", FRAMES, i ->
+			decoder.process(serials[i % FRAMES], output));
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+/*
+ * WARNING: The use of G.729 may require a license fee and/or royalty fee in some countries and is
+ * licensed by <a href="http://www.sipro.com">SIPRO Lab Telecom</a>.
+ */
+package org.atalk.impl.neomedia.codec.audio.g729;
+
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that <tt>Coder</tt> and <tt>Decoder</tt> produce, bit for bit, the bitstream and the
+ * speech of the implementation they were refactored from, whose state lived in static fields. The
+ * input is a synthetic voiced signal with a varying pitch, noise and stretches of near silence,
+ * and some frames are erased before decoding so that the frame erasure concealment is covered as
+ * well.
+ *
+ * @author Eng Chong Meng
+ */
+public class G729ConformanceTest
+{
+	/**
+	 * The number of frames encoded and decoded.
+	 */
+	private static final int FRAMES = 3000;
+
+	/**
+	 * The SHA-256 digest of the serial bitstream of {@link #FRAMES} frames of {@link #input()},
+	 * as produced by the implementation before the refactoring.
+	 */
+	private static final String BITSTREAM_SHA256
+		= "bf452695e0ea1c68fe62be796cb4d866621ee541f39d417ff06a0192f3c92522";
+
+	/**
+	 * The SHA-256 digest of the speech decoded from the bitstream, with every 97th frame erased,
+	 * as produced by the implementation before the refactoring.
+	 */
+	private static final String SPEECH_SHA256
+		= "a477f3843424222172dca1082c83fe6ffb021a7184c7db92f93218be6b48a252";
+
+	@Test
+	public void encodeDecode()
+		throws Exception
+	{
+		short[][] input = input();
+		Stream stream = new Stream();
+
+		for (int frame = 0; frame < FRAMES; frame++)
+			stream.process(frame, input[frame]);
+		assertEquals(BITSTREAM_SHA256, toHex(stream.bitstream.digest()));
+		assertEquals(SPEECH_SHA256, toHex(stream.speech.digest()));
+	}
+
+	/**
+	 * Checks that instances do not share state: two encoder and decoder pairs interleaved frame
+	 * by frame each produce the output of a single one.
+	 */
+	@Test
+	public void encodeDecodeInterleaved()
+		throws Exception
+	{
+		short[][] input = input();
+		Stream stream1 = new Stream();
+		Stream stream2 = new Stream();
+
+		for (int frame = 0; frame < FRAMES; frame++) {
+			stream1.process(frame, input[frame]);
+			stream2.process(frame, input[frame]);
+		}
+		assertEquals(BITSTREAM_SHA256, toHex(stream1.bitstream.digest()));
+		assertEquals(SPEECH_SHA256, toHex(stream1.speech.digest()));
+		assertEquals(BITSTREAM_SHA256, toHex(stream2.bitstream.digest()));
+		assertEquals(SPEECH_SHA256, toHex(stream2.speech.digest()));
+	}
+
+	/**
+	 * Generates the input, {@link #FRAMES} frames of a few harmonics of a slowly varying pitch
+	 * plus noise, attenuated to near silence every third second. {@link StrictMath} keeps it the
+	 * same on every Java runtime.
+	 */
+	private static short[][] input()
+	{
+		short[][] input = new short[FRAMES][Ld8k.L_FRAME];
+		Random noise = new Random(1);
+
+		for (int frame = 0, t = 0; frame < FRAMES; frame++) {
+			double gain = ((frame / 50) % 3 == 2) ? 0.02 : 1;
+
+			for (int i = 0; i < Ld8k.L_FRAME; i++, t++) {
+				double f0 = 120 + 60 * StrictMath.sin(t / 4000.0);
+				double s = 0;
+				for (int h = 1; h <= 5; h++)
+					s += StrictMath.sin(2 * StrictMath.PI * h * f0 * t / 8000.0) / h;
+				input[frame][i] = (short) (gain * 8000 * s + noise.nextGaussian() * 300);
+			}
+		}
+		return input;
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes)
+			hex.append(String.format("%02x", b & 0xFF));
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, short[] samples)
+	{
+		for (short s : samples) {
+			digest.update((byte) s);
+			digest.update((byte) (s >> 8));
+		}
+	}
+
+	/**
+	 * An encoder and decoder pair and the digests of their output.
+	 */
+	private static class Stream
+	{
+		final Coder coder = new Coder();
+
+		final Decoder decoder = new Decoder();
+
+		final short[] serial = new short[Ld8k.SERIAL_SIZE];
+
+		final short[] output = new short[Ld8k.L_FRAME];
+
+		final MessageDigest bitstream;
+
+		final MessageDigest speech;
+
+		Stream()
+			throws Exception
+		{
+			bitstream = MessageDigest.getInstance("SHA-256");
+			speech = MessageDigest.getInstance("SHA-256");
+		}
+
+		void process(int frame, short[] input)
+		{
+			coder.process(input, serial);
+			update(bitstream, serial);
+			if (frame % 97 == 13)
+				serial[2] = 0; /* Frame erasure */
+			decoder.process(serial, output);
+			update(speech, output);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.codec.audio.silk;
+
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the time and the memory allocated per frame of the pure-Java SILK encoder and decoder,
+ * configured as <tt>JavaEncoder</tt> and <tt>JavaDecoder</tt> do, at each of the sample rates they
+ * support. The input is a synthetic voiced signal, a few harmonics with a slowly varying pitch, so
+ * that the voiced code paths are exercised. Runs with the other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class SilkBenchmark
+{
+	/**
+	 * The number of frames encoded and decoded per sample rate, measured after as many warm-up
+	 * frames.
+	 */
+	private static final int FRAMES = 5000;
+
+	@Before
+	public void setUp()
+	{
+		Benchmark.assumeEnabled();
+	}
+
+	@Test
+	public void encodeDecode8kHz()
+		throws Exception
+	{
+		benchmark(8000);
+	}
+
+	@Test
+	public void encodeDecode12kHz()
+		throws Exception
+	{
+		benchmark(12000);
+	}
+
+	@Test
+	public void encodeDecode16kHz()
+		throws Exception
+	{
+		benchmark(16000);
+	}
+
+	@Test
+	public void encodeDecode24kHz()
+		throws Exception
+	{
+		benchmark(24000);
+	}
+
+	/**
+	 * Encodes and decodes {@link #FRAMES} frames at a specific sample rate and reports the
+	 * results.
+	 *
+	 * @param sampleRate
+	 *        the sample rate in Hz
+	 */
+	private static void benchmark(int sampleRate)
+		throws Exception
+	{
+		final int frameLength = JavaDecoder.FRAME_DURATION * sampleRate / 1000;
+
+		final SKP_Silk_encoder_state_FLP encState = new SKP_Silk_encoder_state_FLP();
+		final SKP_SILK_SDK_EncControlStruct encControl = new SKP_SILK_SDK_EncControlStruct();
+		assertEquals(0, EncAPI.SKP_Silk_SDK_InitEncoder(encState, encControl));
+		encControl.API_sampleRate = sampleRate;
+		encControl.bitRate = 40000;
+		encControl.complexity = 2;
+		encControl.maxInternalSampleRate = sampleRate;
+		encControl.packetSize = frameLength;
+		encControl.packetLossPercentage = 0;
+		encControl.useDTX = 0;
+		encControl.useInBandFEC = 0;
+
+		final SKP_Silk_decoder_state decState = new SKP_Silk_decoder_state();
+		assertEquals(0, DecAPI.SKP_Silk_SDK_InitDecoder(decState));
+		final SKP_SILK_SDK_DecControlStruct decControl = new SKP_SILK_SDK_DecControlStruct();
+		decControl.API_sampleRate = sampleRate;
+
+		/* One second of input, encoded frame after frame over and over again. */
+		final short[] input = new short[sampleRate];
+		for (int i = 0; i < input.length; i++) {
+			double t = i / (double) sampleRate;
+			double f0 = 150 + 30 * Math.sin(2 * Math.PI * 2 * t);
+			double s = 0;
+			for (int h = 1; h <= 4; h++)
+				s += Math.sin(2 * Math.PI * h * f0 * t) / h;
+			input[i] = (short) (6000 * s);
+		}
+
+		/* The payloads of the last FRAMES frames encoded, in the order they were encoded. */
+		final byte[][] payloads = new byte[FRAMES][JavaEncoder.MAX_BYTES_PER_FRAME];
+		final short[] payloadLengths = new short[FRAMES];
+		final short[] payloadLength = new short[1];
+		final short[] output = new short[frameLength];
+		final short[] outputLength = new short[1];
+		final int framesPerInput = input.length / frameLength;
+		String name = "SILK " + (sampleRate / 1000) + " kHz ";
+
+		Benchmark.measure(name + "encode", FRAMES, i -> {
+			int frame = i % FRAMES;
+			payloadLength[0] = (short) payloads[frame].length;
+			assertEquals(0, EncAPI.SKP_Silk_SDK_Encode(encState, encControl, input,
+				(i % framesPerInput) * frameLength, frameLength, payloads[frame], 0, payloadLength));
+			payloadLengths[frame] = payloadLength[0];
+		});
+		Benchmark.measure(name + "decode", FRAMES, i -> {
+			int frame = i % FRAMES;
+			outputLength[0] = (short) output.length;
+			assertEquals(0, DecAPI.SKP_Silk_SDK_Decode(decState, decControl, 0, payloads[frame], 0,
+				payloadLengths[frame], output, 0, outputLength));
+			assertEquals(frameLength, outputLength[0]);
+		});
+	}
+}
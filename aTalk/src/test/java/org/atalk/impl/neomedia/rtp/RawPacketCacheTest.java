@@ -0,0 +1,228 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.rtp;
+
+import org.atalk.service.libjitsi.LibJitsiStubs;
+import org.atalk.service.neomedia.RawPacket;
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the per-SSRC ring of <tt>RawPacketCache</tt> with its default bounds of 500 packets and
+ * 1000 ms: the lookups by RTP sequence number also across the wrap of the sequence numbers, the
+ * eviction of the oldest packets when the ring wraps or a bound is exceeded, out of order and
+ * repeated packets, and the containers obtained from the cache to keep their packet until they
+ * are released.
+ *
+ * @author Eng Chong Meng
+ */
+public class RawPacketCacheTest
+{
+    /**
+     * The default maximum number of packets cached for each SSRC.
+     */
+    private static final int MAX_SIZE_PACKETS = 500;
+
+    private static final long SSRC = 0xcafe_babeL;
+
+    /**
+     * The packets handed to the cache by their sequence numbers.
+     */
+    private final Map<Integer, byte[]> packets = new HashMap<>();
+
+    private RawPacketCache cache;
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        LibJitsiStubs.start();
+    }
+
+    @Before
+    public void setUp()
+    {
+        cache = new RawPacketCache(0);
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        cache.close();
+    }
+
+    @Test
+    public void cacheAndGet()
+    {
+        for (int seq = 0; seq < 100; seq++)
+            cachePacket(seq);
+
+        for (int seq = 0; seq < 100; seq++)
+            assertCached(seq);
+        assertNull(cache.get(SSRC, 100));
+        assertNull(cache.get(SSRC + 1, 0));
+        assertEquals(100, cache.getTotalHits());
+        assertEquals(2, cache.getTotalMisses());
+        assertEquals(0, cache.getTotalEvictions());
+    }
+
+    /**
+     * Once the cache holds its maximum number of packets, each new packet evicts the oldest one,
+     * also when the ring wraps and across the wrap of the RTP sequence numbers.
+     */
+    @Test
+    public void evictOldest()
+    {
+        int first = 65000;
+        int count = 3 * MAX_SIZE_PACKETS;
+
+        for (int i = 0; i < count; i++)
+            cachePacket((first + i) & 0xffff);
+
+        for (int i = 0; i < count; i++) {
+            int seq = (first + i) & 0xffff;
+            if (i < count - MAX_SIZE_PACKETS)
+                assertNull(Integer.toString(seq), cache.get(SSRC, seq));
+            else
+                assertCached(seq);
+        }
+        assertEquals(count - MAX_SIZE_PACKETS, cache.getTotalEvictions());
+    }
+
+    /**
+     * Packets which arrive out of order are cached, a repeated packet replaces the cached one and
+     * a packet which is older than the ring is not cached.
+     */
+    @Test
+    public void outOfOrder()
+    {
+        cachePacket(1000);
+        cachePacket(1002);
+        cachePacket(998);
+        cachePacket(1001);
+        for (int seq : new int[]{998, 1000, 1001, 1002})
+            assertCached(seq);
+        assertNull(cache.get(SSRC, 999));
+
+        // a retransmission of different length
+        packets.remove(1000);
+        cachePacket(1000, 1000);
+        assertCached(1000);
+
+        // newer than the other packets by far more than the ring holds
+        cachePacket(3000);
+        cachePacket(1003);
+        assertNull(cache.get(SSRC, 1003));
+        for (int seq : new int[]{998, 1000, 1001, 1002})
+            assertNull(cache.get(SSRC, seq));
+        assertCached(3000);
+    }
+
+    /**
+     * The packets cached more than 1000 ms before the newest one are evicted, and the cache of an
+     * SSRC which does not get new packets is removed by {@link RawPacketCache#clean(long)}.
+     */
+    @Test
+    public void evictByAge()
+    {
+        long now = System.currentTimeMillis();
+
+        for (int seq = 0; seq < 10; seq++)
+            cachePacket(seq);
+        cache.updateTimestamp(SSRC, 0, now - 5000);
+        cache.updateTimestamp(SSRC, 1, now - 5000);
+        cache.updateTimestamp(SSRC, 3, now - 5000);
+        cachePacket(10);
+
+        // the eviction stops at the oldest packet which is recent enough
+        assertNull(cache.get(SSRC, 0));
+        assertNull(cache.get(SSRC, 1));
+        for (int seq = 2; seq <= 10; seq++)
+            assertCached(seq);
+
+        cache.clean(now + 500);
+        assertCached(10);
+        cache.clean(System.currentTimeMillis() + 5000);
+        assertNull(cache.get(SSRC, 10));
+    }
+
+    /**
+     * A container obtained from the cache keeps its packet after the packet is evicted, until it
+     * is released.
+     */
+    @Test
+    public void referencedContainers()
+    {
+        cachePacket(0);
+        RawPacketCache.Container container = cache.getContainer(SSRC, 0);
+        assertNotNull(container);
+
+        Set<RawPacketCache.Container> many = cache.getMany(SSRC, Integer.MAX_VALUE);
+        assertEquals(Collections.singleton(container), many);
+
+        for (int seq = 1; seq <= 2 * MAX_SIZE_PACKETS; seq++)
+            cachePacket(seq);
+        assertNull(cache.get(SSRC, 0));
+        assertArrayEquals(packets.get(0), toArray(container.pkt));
+
+        // still referenced from getMany, so not recycled for the packets cached meanwhile
+        container.release();
+        int last = 3 * MAX_SIZE_PACKETS;
+        for (int seq = 2 * MAX_SIZE_PACKETS + 1; seq <= last; seq++)
+            cachePacket(seq);
+        assertArrayEquals(packets.get(0), toArray(container.pkt));
+        many.iterator().next().release();
+
+        // the most recent packets up to a number of bytes
+        many = cache.getMany(SSRC, 3 * 100);
+        Set<Integer> seqs = new HashSet<>();
+        for (RawPacketCache.Container c : many) {
+            seqs.add(c.pkt.getSequenceNumber());
+            c.release();
+        }
+        assertEquals(new HashSet<>(Arrays.asList(last, last - 1, last - 2)), seqs);
+        assertNull(cache.getMany(SSRC + 1, 100));
+    }
+
+    private void cachePacket(int seq)
+    {
+        cachePacket(seq, 100);
+    }
+
+    /**
+     * Hands an RTP packet of {@link #SSRC} with a specific sequence number and length and a
+     * payload derived from them to the cache.
+     */
+    private void cachePacket(int seq, int len)
+    {
+        RawPacket pkt = RawPacket.makeRTP(SSRC, 100, seq, seq * 960L, len);
+        byte[] buf = pkt.getBuffer();
+
+        for (int i = RawPacket.FIXED_HEADER_SIZE; i < len - 1; i++)
+            buf[i] = (byte) (seq + i);
+        assertNull(packets.put(seq, buf.clone()));
+
+        // The cache copies the packet, so it must not be affected by changes to the original.
+        cache.cachePacket(pkt);
+        Arrays.fill(buf, (byte) 0);
+    }
+
+    private void assertCached(int seq)
+    {
+        RawPacket pkt = cache.get(SSRC, seq);
+
+        assertNotNull(Integer.toString(seq), pkt);
+        assertArrayEquals(Integer.toString(seq), packets.get(seq), toArray(pkt));
+    }
+
+    private static byte[] toArray(RawPacket pkt)
+    {
+        return Arrays.copyOfRange(pkt.getBuffer(), pkt.getOffset(), pkt.getOffset() + pkt.getLength());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.transform;
+
+import org.atalk.impl.neomedia.RTPPacketPredicate;
+import org.atalk.impl.neomedia.transform.srtp.*;
+import org.atalk.service.libjitsi.LibJitsiStubs;
+import org.atalk.service.neomedia.RawPacket;
+import org.atalk.util.Benchmark;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Measures the time and the memory allocated per packet by the RTP transformation of a
+ * <tt>TransformEngineChain</tt> resembling the one of a video <tt>MediaStreamImpl</tt> i.e.
+ * statistics, caching, RTX, FEC, abs-send-time and SRTP.
+ *
+ * The statistics, caching, RTX and FEC engines require a <tt>MediaStreamImpl</tt> and are
+ * represented by pass-through engines, one of which is wrapped in a
+ * <tt>TransformEngineWrapper</tt> as <tt>MediaStreamImpl</tt> does with FEC. Runs with the
+ * other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class TransformEngineChainBenchmark
+{
+	/**
+	 * The ID of the abs-send-time RTP header extension in the benchmarked packets.
+	 */
+	private static final int ABS_SEND_TIME_ID = 3;
+
+	/**
+	 * The length of the RTP header of the benchmarked packets, including the one-byte header
+	 * extension which carries abs-send-time.
+	 */
+	private static final int HEADER_LENGTH = 12 + 8;
+
+	private static final int PACKETS = 1000000;
+
+	private static final int PAYLOAD_LENGTH = 1200;
+
+	@Before
+	public void setUp()
+	{
+		Benchmark.assumeEnabled();
+		LibJitsiStubs.start();
+	}
+
+	@Test
+	public void transformChain()
+		throws Exception
+	{
+		Random random = new Random(System.currentTimeMillis());
+		byte[] masterKey = new byte[16];
+		byte[] masterSalt = new byte[14];
+
+		random.nextBytes(masterKey);
+		random.nextBytes(masterSalt);
+
+		SRTPPolicy policy = new SRTPPolicy(SRTPPolicy.AESCM_ENCRYPTION, 16,
+			SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+		final SRTPTransformer srtpTransformer = new SRTPTransformer(
+			new SRTPContextFactory(true, masterKey, masterSalt, policy, policy));
+		TransformEngine srtpEngine = new TransformEngine()
+		{
+			@Override
+			public PacketTransformer getRTPTransformer()
+			{
+				return srtpTransformer;
+			}
+
+			@Override
+			public PacketTransformer getRTCPTransformer()
+			{
+				return null;
+			}
+		};
+
+		AbsSendTimeEngine absSendTimeEngine = new AbsSendTimeEngine();
+		absSendTimeEngine.setExtensionID(ABS_SEND_TIME_ID);
+
+		TransformEngineWrapper<TransformEngine> fecEngineWrapper = new TransformEngineWrapper<>();
+		fecEngineWrapper.setWrapped(new PassThroughEngine());
+
+		TransformEngineChain chain = new TransformEngineChain(new TransformEngine[]{
+			new PassThroughEngine(), // statistics
+			new PassThroughEngine(), // caching
+			new PassThroughEngine(), // RTX
+			fecEngineWrapper,
+			absSendTimeEngine,
+			srtpEngine
+		});
+		final PacketTransformer rtpTransformer = chain.getRTPTransformer();
+
+		final byte[] buf = new byte[HEADER_LENGTH + PAYLOAD_LENGTH + 10];
+		final RawPacket pkt = new RawPacket(buf, 0, buf.length);
+		final RawPacket[] pkts = new RawPacket[1];
+
+		Benchmark.measure("TransformEngineChain RTP", PACKETS, i -> {
+			resetPacket(pkt, buf, i, PAYLOAD_LENGTH);
+			pkts[0] = pkt;
+			assertNotNull("transform", rtpTransformer.transform(pkts)[0]);
+		});
+		rtpTransformer.close();
+	}
+
+	/**
+	 * Initializes a fresh RTP packet with an abs-send-time header extension, the previous one
+	 * having grown by the SRTP authentication tag.
+	 */
+	private static void resetPacket(RawPacket pkt, byte[] buf, int seq, int payloadLength)
+	{
+		pkt.setBuffer(buf);
+		pkt.setOffset(0);
+		pkt.setLength(HEADER_LENGTH + payloadLength);
+
+		buf[0] = (byte) 0x90; // V=2, X=1
+		buf[1] = 96;
+		pkt.setSequenceNumber(seq & 0xffff);
+		pkt.setSSRC(0x10000);
+
+		// One-byte header extension with a single abs-send-time element of 3 bytes.
+		buf[12] = (byte) 0xBE;
+		buf[13] = (byte) 0xDE;
+		buf[14] = 0;
+		buf[15] = 1;
+		buf[16] = (byte) ((ABS_SEND_TIME_ID << 4) | 2);
+	}
+
+	/**
+	 * A <tt>TransformEngine</tt> which stands for an engine of <tt>MediaStreamImpl</tt> that
+	 * cannot be initialized without one.
+	 */
+	private static class PassThroughEngine
+		extends SinglePacketTransformerAdapter
+		implements TransformEngine
+	{
+		PassThroughEngine()
+		{
+			super(RTPPacketPredicate.INSTANCE);
+		}
+
+		@Override
+		public PacketTransformer getRTPTransformer()
+		{
+			return this;
+		}
+
+		@Override
+		public PacketTransformer getRTCPTransformer()
+		{
+			return null;
+		}
+	}
+}
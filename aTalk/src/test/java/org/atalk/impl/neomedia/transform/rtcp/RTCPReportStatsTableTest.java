@@ -0,0 +1,119 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.transform.rtcp;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks <tt>RTCPReportStatsTable</tt> to keep one <tt>Slot</tt> per SSRC, also for SSRCs which
+ * collide in the table and across the growths of the table, and to count the reports of all
+ * SSRCs in its totals, also when the slots are added and updated by concurrent threads.
+ *
+ * @author Eng Chong Meng
+ */
+public class RTCPReportStatsTableTest
+{
+    private final RTCPReportStatsTable table = new RTCPReportStatsTable();
+
+    @Test
+    public void slotPerSsrc()
+    {
+        // Apart from the first, SSRCs which hash alike, and the full range of the unsigned SSRC.
+        long[] ssrcs = new long[100];
+        for (int i = 1; i < ssrcs.length; i++)
+            ssrcs[i] = ((long) i << 32) | i;
+        ssrcs[0] = 0xffff_ffffL;
+
+        Map<Long, RTCPReportStatsTable.Slot> slots = new HashMap<>();
+        long jitterSum = 0;
+
+        for (int i = 0; i < ssrcs.length; i++) {
+            RTCPReportStatsTable.Slot slot = table.getSlot(ssrcs[i]);
+
+            assertEquals(ssrcs[i], slot.ssrc);
+            assertNull(slots.put(ssrcs[i], slot));
+            for (int n = 0; n <= i; n++)
+                slot.numberOfReports.incrementAndGet();
+            slot.jitterSum.addAndGet(i);
+            jitterSum += i;
+
+            // The slots added before are kept, also when the table grows.
+            for (int j = 0; j <= i; j++) {
+                assertSame(slots.get(ssrcs[j]), table.getSlot(ssrcs[j]));
+                assertEquals(j + 1, table.getNumberOfReports(ssrcs[j]));
+            }
+        }
+        assertEquals(ssrcs.length * (ssrcs.length + 1) / 2, table.getTotalNumberOfReports());
+        assertEquals(jitterSum, table.getTotalJitterSum());
+        assertEquals(0, table.getNumberOfReports(0x1234_5678L));
+    }
+
+    @Test
+    public void empty()
+    {
+        assertEquals(0, table.getNumberOfReports(1));
+        assertEquals(0, table.getTotalNumberOfReports());
+        assertEquals(0, table.getTotalJitterSum());
+    }
+
+    /**
+     * Threads which report on the same and on their own SSRCs while the table grows lose no
+     * report and share one slot per SSRC.
+     */
+    @Test
+    public void concurrentReports()
+            throws Exception
+    {
+        final int threads = 4;
+        final int ssrcsPerThread = 50;
+        final int reports = 200;
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                final long firstSsrc = (t + 1) * 1000L;
+
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                            throws Exception
+                    {
+                        start.await(5, TimeUnit.SECONDS);
+                        for (int r = 0; r < reports; r++) {
+                            table.getSlot(0).numberOfReports.incrementAndGet();
+                            for (long ssrc = firstSsrc; ssrc < firstSsrc + ssrcsPerThread; ssrc++) {
+                                RTCPReportStatsTable.Slot slot = table.getSlot(ssrc);
+                                slot.numberOfReports.incrementAndGet();
+                                slot.jitterSum.addAndGet(2);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * reports, table.getNumberOfReports(0));
+        for (int t = 0; t < threads; t++) {
+            for (long ssrc = (t + 1) * 1000L; ssrc < (t + 1) * 1000L + ssrcsPerThread; ssrc++)
+                assertEquals(reports, table.getNumberOfReports(ssrc));
+        }
+        assertEquals(threads * reports * (ssrcsPerThread + 1), table.getTotalNumberOfReports());
+        assertEquals(threads * reports * ssrcsPerThread * 2, table.getTotalJitterSum());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.atalk.service.libjitsi.LibJitsiStubs;
+import org.atalk.service.neomedia.RawPacket;
+import org.atalk.util.Benchmark;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks a single <tt>SRTPTransformer</tt> shared by several threads, each of which protects the
+ * RTP stream of its own SSRC, to protect every stream as if it had the transformer to itself, and
+ * measures the SRTP throughput for an increasing number of threads. The packets per second should
+ * scale with the number of threads (up to the number of cores) if the transformer does not
+ * serialize the streams. The measurements run with the other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTPTransformerBenchmark
+{
+	private static final int PAYLOAD_LENGTH = 1200;
+
+	private final SRTPPolicy policy = new SRTPPolicy(SRTPPolicy.AESCM_ENCRYPTION, 16,
+		SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+
+	private final byte[] masterKey = new byte[16];
+
+	private final byte[] masterSalt = new byte[14];
+
+	public SRTPTransformerBenchmark()
+	{
+		Random random = new Random(0);
+
+		random.nextBytes(masterKey);
+		random.nextBytes(masterSalt);
+	}
+
+	@BeforeClass
+	public static void setUpClass()
+	{
+		LibJitsiStubs.start();
+	}
+
+	@Test
+	public void concurrentStreams()
+		throws Exception
+	{
+		final int threadCount = 4, packetCount = 1000;
+		SRTPTransformer sender = new SRTPTransformer(
+			new SRTPContextFactory(true, masterKey, masterSalt, policy, policy));
+		final SRTPTransformer receiver = new SRTPTransformer(
+			new SRTPContextFactory(false, masterKey, masterSalt, policy, policy));
+
+		try {
+			run(sender, threadCount, packetCount, new Unprotect()
+			{
+				@Override
+				public void check(RawPacket pkt, byte[] payload)
+				{
+					assertNotNull("reverseTransform", receiver.reverseTransform(pkt));
+					assertEquals(PAYLOAD_LENGTH, pkt.getPayloadLength());
+					assertArrayEquals(payload, Arrays.copyOfRange(pkt.getBuffer(),
+						pkt.getOffset() + pkt.getHeaderLength(),
+						pkt.getOffset() + pkt.getHeaderLength() + PAYLOAD_LENGTH));
+				}
+			});
+		} finally {
+			sender.close();
+			receiver.close();
+		}
+	}
+
+	@Test
+	public void contention()
+		throws Exception
+	{
+		Benchmark.assumeEnabled();
+
+		final int packetCount = 100000;
+		int maxThreads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+		for (int threadCount = 1; threadCount <= maxThreads; threadCount *= 2) {
+			SRTPTransformer transformer = new SRTPTransformer(
+				new SRTPContextFactory(true, masterKey, masterSalt, policy, policy));
+			long time;
+
+			try {
+				time = run(transformer, threadCount, packetCount, null);
+			} finally {
+				transformer.close();
+			}
+			Benchmark.report("SRTPTransformer shared by %d threads: %.0f packets/s, time %d ms.",
+				threadCount, threadCount * (double) packetCount * 1000000000L / time,
+				time / 1000000);
+		}
+	}
+
+	/**
+	 * Protects <tt>packetCount</tt> RTP packets on each of <tt>threadCount</tt> threads, each of
+	 * them on its own SSRC, through a specific transformer and, if <tt>unprotect</tt> is not
+	 * <tt>null</tt>, checks each of them after it is protected.
+	 *
+	 * @return the time all threads took, in nanoseconds
+	 */
+	private static long run(final SRTPTransformer transformer, int threadCount,
+		final int packetCount, final Unprotect unprotect)
+		throws Exception
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		final Throwable[] failures = new Throwable[threadCount];
+		Thread[] threads = new Thread[threadCount];
+
+		for (int t = 0; t < threadCount; t++) {
+			final int index = t;
+
+			threads[t] = new Thread("SRTPTransformerBenchmark-" + t)
+			{
+				@Override
+				public void run()
+				{
+					byte[] buf = new byte[12 + PAYLOAD_LENGTH + 10];
+					byte[] payload = new byte[PAYLOAD_LENGTH];
+					RawPacket pkt = new RawPacket(buf, 0, buf.length);
+					Random random = new Random(index);
+
+					try {
+						start.await();
+						for (int i = 0; i < packetCount; i++) {
+							// A fresh RTP packet, the previous one having grown by the auth tag.
+							pkt.setBuffer(buf);
+							pkt.setOffset(0);
+							pkt.setLength(12 + PAYLOAD_LENGTH);
+							buf[0] = (byte) 0x80;
+							buf[1] = 0;
+							pkt.setSequenceNumber(i & 0xffff);
+							pkt.setSSRC(0x10000 + index);
+							if (unprotect != null) {
+								random.nextBytes(payload);
+								System.arraycopy(payload, 0, buf, 12, PAYLOAD_LENGTH);
+							}
+
+							if (transformer.transform(pkt) == null)
+								throw new IllegalStateException("transform");
+							if (unprotect != null)
+								unprotect.check(pkt, payload);
+						}
+					} catch (Throwable e) {
+						failures[index] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+
+		long startTime = System.nanoTime();
+
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join();
+
+		long time = System.nanoTime() - startTime;
+
+		for (Throwable failure : failures) {
+			if (failure instanceof Exception)
+				throw (Exception) failure;
+			else if (failure instanceof Error)
+				throw (Error) failure;
+		}
+		return time;
+	}
+
+	/**
+	 * Checks a packet protected by {@link #run(SRTPTransformer, int, int, Unprotect)}.
+	 */
+	private interface Unprotect
+	{
+		void check(RawPacket pkt, byte[] payload);
+	}
+}
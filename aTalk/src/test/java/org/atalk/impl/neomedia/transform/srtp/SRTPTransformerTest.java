@@ -0,0 +1,159 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.impl.neomedia.transform.srtp;
+
+import org.atalk.service.libjitsi.LibJitsiStubs;
+import org.atalk.service.neomedia.RawPacket;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the array transformations of <tt>SRTPTransformer</tt> to protect and restore the runs of
+ * packets of the same SSRC as the single packet transformations do, and to drop a packet which
+ * fails with an exception without failing the other packets of the array.
+ *
+ * @author Eng Chong Meng
+ */
+public class SRTPTransformerTest
+{
+	private static final int PAYLOAD_LENGTH = 160;
+
+	private static final SRTPPolicy POLICY = new SRTPPolicy(SRTPPolicy.AESCM_ENCRYPTION, 16,
+		SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+
+	private final byte[] masterKey = new byte[16];
+
+	private final byte[] masterSalt = new byte[14];
+
+	private final SRTPTransformer sender;
+
+	private final SRTPTransformer receiver;
+
+	public SRTPTransformerTest()
+	{
+		Random random = new Random(0);
+
+		random.nextBytes(masterKey);
+		random.nextBytes(masterSalt);
+		sender = new SRTPTransformer(
+			new SRTPContextFactory(true, masterKey, masterSalt, POLICY, POLICY));
+		receiver = new SRTPTransformer(
+			new SRTPContextFactory(false, masterKey, masterSalt, POLICY, POLICY));
+	}
+
+	@BeforeClass
+	public static void setUpClass()
+	{
+		LibJitsiStubs.start();
+	}
+
+	@After
+	public void tearDown()
+	{
+		sender.close();
+		receiver.close();
+	}
+
+	@Test
+	public void transformRuns()
+	{
+		RawPacket[] pkts = {
+			rtp(1, 0), rtp(1, 1), null, rtp(2, 0), rtp(1, 2), rtp(1, 3)
+		};
+		byte[][] payloads = payloads(pkts);
+
+		assertSame(pkts, sender.transform(pkts));
+		for (int i = 0; i < pkts.length; i++) {
+			if (pkts[i] != null)
+				assertEquals(12 + PAYLOAD_LENGTH + 10, pkts[i].getLength());
+		}
+
+		// The packets protected in a batch are restored one at a time.
+		for (int i = 0; i < pkts.length; i++) {
+			if (pkts[i] != null) {
+				assertNotNull("packet " + i, receiver.reverseTransform(pkts[i]));
+				assertArrayEquals(payloads[i], payload(pkts[i]));
+			}
+		}
+	}
+
+	@Test
+	public void transformDropsFailingPacket()
+	{
+		RawPacket[] pkts = {
+			rtp(1, 0), new RawPacket(new byte[]{(byte) 0x80, 0, 0, 1}, 0, 4), rtp(1, 1), rtp(1, 2)
+		};
+		byte[][] payloads = payloads(pkts);
+
+		sender.transform(pkts);
+		assertNull(pkts[1]);
+		for (int i : new int[]{0, 2, 3}) {
+			assertNotNull("packet " + i, pkts[i]);
+			assertNotNull("packet " + i, receiver.reverseTransform(pkts[i]));
+			assertArrayEquals(payloads[i], payload(pkts[i]));
+		}
+	}
+
+	@Test
+	public void reverseTransformDropsFailingPacket()
+	{
+		RawPacket[] pkts = {rtp(1, 0), rtp(1, 1), rtp(1, 2)};
+		byte[][] payloads = payloads(pkts);
+
+		sender.transform(pkts);
+		pkts = new RawPacket[]{
+			pkts[0], new RawPacket(new byte[]{(byte) 0x80, 0, 0, 1}, 0, 4), pkts[1], null, pkts[2]
+		};
+
+		assertSame(pkts, receiver.reverseTransform(pkts));
+		assertNull(pkts[1]);
+		assertNull(pkts[3]);
+		assertArrayEquals(payloads[0], payload(pkts[0]));
+		assertArrayEquals(payloads[1], payload(pkts[2]));
+		assertArrayEquals(payloads[2], payload(pkts[4]));
+	}
+
+	/**
+	 * Returns an RTP packet with a random payload and room for the authentication tag.
+	 */
+	private static RawPacket rtp(int ssrc, int seq)
+	{
+		byte[] buf = new byte[12 + PAYLOAD_LENGTH + 10];
+		Random random = new Random(31 * ssrc + seq);
+
+		random.nextBytes(buf);
+		buf[0] = (byte) 0x80;
+		buf[1] = 0;
+
+		RawPacket pkt = new RawPacket(buf, 0, 12 + PAYLOAD_LENGTH);
+		pkt.setSequenceNumber(seq);
+		pkt.setSSRC(ssrc);
+		return pkt;
+	}
+
+	private static byte[][] payloads(RawPacket[] pkts)
+	{
+		byte[][] payloads = new byte[pkts.length][];
+
+		for (int i = 0; i < pkts.length; i++) {
+			if (pkts[i] != null && pkts[i].getLength() > 12)
+				payloads[i] = payload(pkts[i]);
+		}
+		return payloads;
+	}
+
+	private static byte[] payload(RawPacket pkt)
+	{
+		int off = pkt.getOffset() + 12;
+		return Arrays.copyOfRange(pkt.getBuffer(), off, off + PAYLOAD_LENGTH);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.persistance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link ChatMessageFts#rank(String, String[])} to count the keywords where the full-text
+ * index matches them, i.e. as words and word prefixes, and as substrings where the search falls
+ * back to <tt>LIKE</tt>.
+ *
+ * @author Eng Chong Meng
+ */
+public class ChatMessageFtsTest
+{
+    @Test
+    public void wordPrefixes()
+    {
+        assertEquals(1003, ChatMessageFts.rank("Hello hello, HELLISH", new String[]{"hel"}));
+        assertEquals(0, ChatMessageFts.rank("othello", new String[]{"hello"}));
+        assertEquals(0, ChatMessageFts.rank("hello", new String[]{"ello"}));
+        assertEquals(1001, ChatMessageFts.rank("w12 w123", new String[]{"w123"}));
+    }
+
+    @Test
+    public void distinctKeywordsFirst()
+    {
+        int both = ChatMessageFts.rank("hello world", new String[]{"hello", "world"});
+        int oneTwice = ChatMessageFts.rank("hello hello", new String[]{"hello", "world"});
+
+        assertEquals(2002, both);
+        assertEquals(1002, oneTwice);
+        assertTrue(both > oneTwice);
+        assertEquals(0, ChatMessageFts.rank(null, new String[]{"hello"}));
+    }
+
+    /**
+     * A keyword of several words matches them in a row, the last as a prefix, whatever separates
+     * them in the body.
+     */
+    @Test
+    public void phrases()
+    {
+        assertEquals(1001, ChatMessageFts.rank("Hello, World!", new String[]{"hello wor"}));
+        assertEquals(0, ChatMessageFts.rank("hello big world", new String[]{"hello wor"}));
+        assertEquals(1002, ChatMessageFts.rank("a-b a b", new String[]{"a b"}));
+    }
+
+    /**
+     * Non-ASCII characters are part of the tokens, not separators, and are not folded.
+     */
+    @Test
+    public void nonAsciiTokens()
+    {
+        assertEquals(0, ChatMessageFts.rank("cafés", new String[]{"cafes"}));
+        assertEquals(1001, ChatMessageFts.rank("CAFÉ", new String[]{"caf"}));
+    }
+
+    /**
+     * A keyword which the index cannot look up makes the search, and so the rank, match all
+     * keywords as substrings.
+     */
+    @Test
+    public void substringFallback()
+    {
+        assertEquals(2003, ChatMessageFts.rank("Hello café hello", new String[]{"ello", "é"}));
+        assertEquals(1001, ChatMessageFts.rank("a+b", new String[]{"+"}));
+    }
+}
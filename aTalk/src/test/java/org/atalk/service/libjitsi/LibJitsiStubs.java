@@ -0,0 +1,102 @@
+/*
+ * Jitsi, the OpenSource Java VoIP and Instant Messaging client.
+ *
+ * Distributable under LGPL license. See terms of license at gnu.org.
+ */
+package org.atalk.service.libjitsi;
+
+import org.atalk.service.configuration.ConfigurationService;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+import java.lang.reflect.*;
+
+/**
+ * Starts <tt>libjitsi</tt> for the unit tests of the classes which read their configuration
+ * through {@link LibJitsi#getConfigurationService()}. <tt>LibJitsiOSGiImpl</tt> is given a
+ * <tt>BundleContext</tt> stub which only serves a <tt>ConfigurationService</tt> stub, which has
+ * no properties and answers every typed property getter with its default value; the other
+ * services are looked up as without OSGi.
+ *
+ * @author Eng Chong Meng
+ */
+public final class LibJitsiStubs
+{
+    private LibJitsiStubs()
+    {
+    }
+
+    /**
+     * Starts <tt>libjitsi</tt> with the <tt>ConfigurationService</tt> stub, unless it is started
+     * already.
+     */
+    public static synchronized void start()
+    {
+        final ConfigurationService cfg = newStub(ConfigurationService.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                // getString, getBoolean, getInt, getLong and getDouble with a default value
+                return (method.getName().startsWith("get") && (args != null) && (args.length == 2))
+                        ? args[1] : null;
+            }
+        });
+        final ServiceReference<?> cfgReference = newStub(ServiceReference.class, null);
+
+        LibJitsi.start(newStub(BundleContext.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                switch (method.getName()) {
+                    case "getServiceReference":
+                        return ConfigurationService.class.getName().equals(args[0]) ? cfgReference : null;
+                    case "getService":
+                        return (args[0] == cfgReference) ? cfg : null;
+                    default:
+                        return null;
+                }
+            }
+        }));
+    }
+
+    /**
+     * Creates a <tt>java.lang.reflect.Proxy</tt> of a specific interface which compares and
+     * hashes by identity and answers the other methods through a specific handler, if any, or
+     * with the default value of their return types.
+     */
+    private static <T> T newStub(Class<T> type, final InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new InvocationHandler()
+                {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable
+                    {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                        }
+
+                        Object result = (handler == null) ? null : handler.invoke(proxy, method, args);
+                        Class<?> returnType = method.getReturnType();
+
+                        if ((result == null) && returnType.isPrimitive()) {
+                            if (returnType == boolean.class)
+                                return false;
+                            if (returnType == long.class)
+                                return 0L;
+                            if (returnType == double.class)
+                                return 0.0;
+                            if (returnType != void.class)
+                                return 0;
+                        }
+                        return result;
+                    }
+                }));
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atalk.util.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link RecurringRunnableExecutor} to invoke its {@link RecurringRunnable}s in the order
+ * in which they are due, one at a time by default, and never to invoke a {@code RecurringRunnable}
+ * concurrently with itself, also when it is de-registered and registered again while it runs.
+ *
+ * @author Eng Chong Meng
+ */
+public class RecurringRunnableExecutorTest
+{
+	private RecurringRunnableExecutor executor;
+
+	@After
+	public void tearDown()
+	{
+		if (executor != null)
+			executor.close();
+	}
+
+	/**
+	 * Runnables registered in a shuffled order run in the order of their due times, also after
+	 * some of them are de-registered or rescheduled, which re-keys them in the heap.
+	 */
+	@Test
+	public void heapOrder()
+			throws Exception
+	{
+		final int count = 20;
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(count - 2);
+		long start = System.nanoTime();
+		List<Integer> ids = new ArrayList<>();
+		OneShot[] oneShots = new OneShot[count];
+
+		for (int i = 0; i < count; i++)
+			ids.add(i);
+		Collections.shuffle(ids, new Random(0));
+
+		executor = new RecurringRunnableExecutor("heapOrder");
+		for (int id : ids) {
+			// 10 ms apart, starting after all are registered.
+			oneShots[id] = new OneShot(id, start + TimeUnit.MILLISECONDS.toNanos(200 + 10 * id),
+					order, done);
+			assertTrue(executor.registerRecurringRunnable(oneShots[id]));
+		}
+		assertFalse(executor.registerRecurringRunnable(oneShots[0]));
+
+		assertTrue(executor.deRegisterRecurringRunnable(oneShots[3]));
+		assertTrue(executor.deRegisterRecurringRunnable(oneShots[11]));
+		assertFalse(executor.deRegisterRecurringRunnable(oneShots[11]));
+		oneShots[17].dueTimeNanos = start;
+		executor.reschedule(oneShots[17]);
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		List<Integer> expected = new ArrayList<>();
+		expected.add(17);
+		for (int i = 0; i < count; i++) {
+			if (i != 3 && i != 11 && i != 17)
+				expected.add(i);
+		}
+		assertEquals(expected, order);
+	}
+
+	/**
+	 * With the default worker count, runnables which are due at the same time run one at a time.
+	 */
+	@Test
+	public void singleThreadedByDefault()
+			throws Exception
+	{
+		final AtomicInteger concurrent = new AtomicInteger();
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(8);
+
+		executor = new RecurringRunnableExecutor("singleThreaded");
+		for (int i = 0; i < 4; i++) {
+			executor.registerRecurringRunnable(new PeriodicRunnable(10, true)
+			{
+				@Override
+				public void run()
+				{
+					super.run();
+					enter(concurrent, maxConcurrent);
+					sleep(20);
+					concurrent.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(1, maxConcurrent.get());
+	}
+
+	/**
+	 * A runnable de-registered while it runs is not invoked again, and one registered again while
+	 * its earlier registration still runs is invoked again only after that run completes, even
+	 * with workers to spare.
+	 */
+	@Test
+	public void deRegisterWhileRunning()
+			throws Exception
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger runs = new AtomicInteger();
+		final AtomicInteger concurrent = new AtomicInteger();
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+		RecurringRunnable runnable = new PeriodicRunnable(10, true)
+		{
+			@Override
+			public void run()
+			{
+				super.run();
+				enter(concurrent, maxConcurrent);
+				runs.incrementAndGet();
+				started.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				concurrent.decrementAndGet();
+			}
+		};
+
+		executor = new RecurringRunnableExecutor("deRegister", 4);
+		executor.registerRecurringRunnable(runnable);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		// De-registered while it runs: no further run.
+		assertTrue(executor.deRegisterRecurringRunnable(runnable));
+		sleep(100);
+		assertEquals(1, runs.get());
+
+		// Registered again while the first run still blocks: not run in parallel with it.
+		assertTrue(executor.registerRecurringRunnable(runnable));
+		sleep(100);
+		assertEquals(1, runs.get());
+		assertEquals(1, maxConcurrent.get());
+
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (runs.get() < 3 && System.currentTimeMillis() < deadline)
+			sleep(10);
+		assertTrue("runs " + runs.get(), runs.get() >= 3);
+		assertEquals(1, maxConcurrent.get());
+
+		assertTrue(executor.deRegisterRecurringRunnable(runnable));
+		int runsAfterDeRegister = runs.get();
+		sleep(100);
+		// At most the run in progress at the time of the de-registration completes.
+		assertTrue(runs.get() <= runsAfterDeRegister + 1);
+	}
+
+	private static void enter(AtomicInteger concurrent, AtomicInteger maxConcurrent)
+	{
+		int now = concurrent.incrementAndGet();
+
+		while (true) {
+			int max = maxConcurrent.get();
+			if (now <= max || maxConcurrent.compareAndSet(max, now))
+				break;
+		}
+	}
+
+	private static void sleep(long millis)
+	{
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A {@code RecurringRunnable} which records its id when it runs, once, at a specific time.
+	 */
+	private static class OneShot
+			implements RecurringRunnable
+	{
+		private final int id;
+
+		volatile long dueTimeNanos;
+
+		private final List<Integer> order;
+
+		private final CountDownLatch done;
+
+		private volatile boolean ran = false;
+
+		OneShot(int id, long dueTimeNanos, List<Integer> order, CountDownLatch done)
+		{
+			this.id = id;
+			this.dueTimeNanos = dueTimeNanos;
+			this.order = order;
+			this.done = done;
+		}
+
+		@Override
+		public long getTimeUntilNextRun()
+		{
+			if (ran)
+				return Long.MAX_VALUE;
+			return TimeUnit.NANOSECONDS.toMillis(Math.max(dueTimeNanos - System.nanoTime(), 0L));
+		}
+
+		@Override
+		public void run()
+		{
+			if (!ran) {
+				ran = true;
+				order.add(id);
+				done.countDown();
+			}
+		}
+	}
+}
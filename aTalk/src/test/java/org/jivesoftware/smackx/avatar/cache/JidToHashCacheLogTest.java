@@ -0,0 +1,204 @@
+/*
+ * aTalk, android VoIP and Instant Messaging client
+ * Copyright 2014 Eng Chong Meng
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jivesoftware.smackx.avatar.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jxmpp.jid.BareJid;
+import org.jxmpp.jid.impl.JidCreate;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link JidToHashCacheLog} to keep its entries across reloads, also with values longer
+ * than 64K, after a torn record at the end of the log and after compaction, and to set aside a
+ * log it cannot read.
+ *
+ * @author Eng Chong Meng
+ */
+public class JidToHashCacheLogTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File storeDir;
+
+	private File logFile;
+
+	@Before
+	public void setUp()
+			throws IOException
+	{
+		storeDir = folder.newFolder("avatarStore");
+		logFile = new File(storeDir, JidToHashCacheLog.LOG_FILENAME);
+	}
+
+	@Test
+	public void addPurgeAndReload()
+			throws Exception
+	{
+		JidToHashCacheLog cache = new JidToHashCacheLog(storeDir);
+		cache.addHashByJid(jid(1), "hash1");
+		cache.addHashByJid(jid(2), "hash2");
+		cache.addHashByJid(jid(1), "hash1b");
+		assertTrue(cache.purgeItemFor(jid(2)));
+		assertFalse(cache.purgeItemFor(jid(2)));
+
+		cache = new JidToHashCacheLog(storeDir);
+		assertEquals("hash1b", cache.getHashForJid(jid(1)));
+		assertFalse(cache.contains(jid(2)));
+		assertNull(cache.getHashForJid(jid(2)));
+	}
+
+	/**
+	 * A roster value over the 64K of <tt>writeUTF</tt> is kept, one over
+	 * {@link JidToHashCacheLog#MAX_VALUE_LENGTH} is rejected without leaving anything in the log.
+	 */
+	@Test
+	public void oversizedValues()
+			throws Exception
+	{
+		StringBuilder roster = new StringBuilder();
+		for (int i = 0; roster.length() <= 0xFFFF; i++)
+			roster.append("contact").append(i).append("@example.org,");
+		String tooLong = repeat('x', JidToHashCacheLog.MAX_VALUE_LENGTH + 1);
+
+		JidToHashCacheLog cache = new JidToHashCacheLog(storeDir);
+		cache.addHashByJid(jid(1), "hash1");
+		cache.addHashByJid(jid(2), roster.toString());
+		long length = logFile.length();
+		cache.addHashByJid(jid(3), tooLong);
+		assertFalse(cache.contains(jid(3)));
+		assertEquals(length, logFile.length());
+		cache.addHashByJid(jid(4), "hash4");
+
+		cache = new JidToHashCacheLog(storeDir);
+		assertEquals("hash1", cache.getHashForJid(jid(1)));
+		assertEquals(roster.toString(), cache.getHashForJid(jid(2)));
+		assertFalse(cache.contains(jid(3)));
+		assertEquals("hash4", cache.getHashForJid(jid(4)));
+	}
+
+	/**
+	 * A record torn by a crash is dropped on load, and the records appended after it are read.
+	 */
+	@Test
+	public void tornTail()
+			throws Exception
+	{
+		JidToHashCacheLog cache = new JidToHashCacheLog(storeDir);
+		cache.addHashByJid(jid(1), "hash1");
+		cache.addHashByJid(jid(2), "hash2");
+		long length = logFile.length();
+
+		// a put record cut off in its value
+		FileOutputStream out = new FileOutputStream(logFile, true);
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeByte(1);
+		dos.writeShort(jid(3).toString().length());
+		dos.writeBytes(jid(3).toString());
+		dos.writeInt(100);
+		dos.writeBytes("hash3");
+		dos.close();
+
+		cache = new JidToHashCacheLog(storeDir);
+		assertEquals(length, logFile.length());
+		assertEquals("hash2", cache.getHashForJid(jid(2)));
+		assertFalse(cache.contains(jid(3)));
+		cache.addHashByJid(jid(4), "hash4");
+
+		cache = new JidToHashCacheLog(storeDir);
+		assertEquals("hash1", cache.getHashForJid(jid(1)));
+		assertEquals("hash2", cache.getHashForJid(jid(2)));
+		assertEquals("hash4", cache.getHashForJid(jid(4)));
+	}
+
+	@Test
+	public void compaction()
+			throws Exception
+	{
+		JidToHashCacheLog cache = new JidToHashCacheLog(storeDir);
+		cache.addHashByJid(jid(1), "hash1");
+		for (int i = 0; i < 2 * JidToHashCacheLog.COMPACT_THRESHOLD; i++) {
+			cache.addHashByJid(jid(2), "hash2-" + i);
+			cache.purgeItemFor(jid(3));
+			cache.addHashByJid(jid(3), "hash3-" + i);
+		}
+		assertTrue(cache.purgeItemFor(jid(3)));
+
+		// well below the records appended, about 3 per iteration
+		assertTrue("log length " + logFile.length(),
+				logFile.length() < JidToHashCacheLog.COMPACT_THRESHOLD * 40L);
+		assertFalse(new File(storeDir, JidToHashCacheLog.LOG_FILENAME + ".tmp").exists());
+
+		cache = new JidToHashCacheLog(storeDir);
+		assertEquals("hash1", cache.getHashForJid(jid(1)));
+		assertEquals("hash2-" + (2 * JidToHashCacheLog.COMPACT_THRESHOLD - 1),
+				cache.getHashForJid(jid(2)));
+		assertFalse(cache.contains(jid(3)));
+	}
+
+	@Test
+	public void unreadableLogIsSetAside()
+			throws Exception
+	{
+		byte[] garbage = "not a jidToHash log".getBytes("UTF-8");
+		FileOutputStream out = new FileOutputStream(logFile);
+		out.write(garbage);
+		out.close();
+
+		JidToHashCacheLog cache = new JidToHashCacheLog(storeDir);
+		assertFalse(cache.contains(jid(1)));
+		cache.addHashByJid(jid(1), "hash1");
+
+		File badLogFile = new File(storeDir, JidToHashCacheLog.BAD_LOG_FILENAME);
+		assertArrayEquals(garbage, readFully(badLogFile));
+		assertEquals("hash1", new JidToHashCacheLog(storeDir).getHashForJid(jid(1)));
+	}
+
+	private static BareJid jid(int i)
+			throws IOException
+	{
+		return JidCreate.bareFrom("user" + i + "@example.org");
+	}
+
+	private static String repeat(char c, int count)
+	{
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private static byte[] readFully(File file)
+			throws IOException
+	{
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			in.readFully(bytes);
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,349 @@
+/**
+ *
+ * Copyright the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.bytestreams.ibb;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.atalk.util.Benchmark;
+import org.jivesoftware.smack.SmackFuture.InternalSmackFuture;
+import org.jivesoftware.smack.StanzaListener;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.packet.ErrorIQ;
+import org.jivesoftware.smack.packet.IQ;
+import org.jivesoftware.smack.util.stringencoder.Base64;
+import org.jivesoftware.smackx.bytestreams.ibb.packet.Data;
+import org.jivesoftware.smackx.bytestreams.ibb.packet.DataPacketExtension;
+import org.jivesoftware.smackx.bytestreams.ibb.packet.Open;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.jxmpp.jid.impl.JidCreate;
+
+/**
+ * Checks an In-Band Bytestream over IQ stanzas to deliver exactly the data sent for several sizes
+ * of the window of data packets in flight, the first of them <tt>1</tt> i.e. stop-and-wait, also
+ * across the wrap of the data packet sequence from 65535 to 0 and from a legacy sender which wraps
+ * from 65534 to 0, and measures its throughput. The measurements run with the other benchmarks,
+ * see {@link Benchmark}.
+ *
+ * The two sessions are connected by <tt>java.lang.reflect.Proxy</tt> stub connections which
+ * deliver every stanza after half of the round trip time plus some jitter, in the order sent as
+ * XMPP does, or in any order.
+ *
+ * @author Eng Chong Meng
+ */
+public class InBandBytestreamBenchmark {
+
+    /**
+     * The simulated round trip time to the remote peer of the measurements, in milliseconds.
+     */
+    private static final int RTT = 100;
+
+    /**
+     * The size of the data packets, the default of <tt>InBandBytestreamManager</tt>.
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    /**
+     * The size of the data packets of the transfers across the sequence wrap.
+     */
+    private static final int SMALL_BLOCK_SIZE = 16;
+
+    /**
+     * The number of data packets which wraps the sequence, with some to spare.
+     */
+    private static final int WRAP_BLOCKS = 65536 + 64;
+
+    private static final int[] WINDOWS = {1, 4, 16};
+
+    @BeforeClass
+    public static void setUpBase64() {
+        Base64.setEncoder(new Base64.Encoder() {
+            @Override
+            public byte[] decode(String string) {
+                try {
+                    return java.util.Base64.getDecoder().decode(string);
+                }
+                catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public String encodeToString(byte[] input) {
+                return java.util.Base64.getEncoder().encodeToString(input);
+            }
+
+            @Override
+            public String encodeToStringWithoutPadding(byte[] input) {
+                return java.util.Base64.getEncoder().withoutPadding().encodeToString(input);
+            }
+
+            @Override
+            public byte[] encode(byte[] input) {
+                return encodeToString(input).getBytes(StandardCharsets.US_ASCII);
+            }
+        });
+    }
+
+    @Test
+    public void deliverInOrder() throws Exception {
+        for (int window : WINDOWS) {
+            transfer(window, BLOCK_SIZE, 64, new Loopback(10, false, false));
+        }
+    }
+
+    @Test
+    public void deliverOutOfOrder() throws Exception {
+        for (int window : WINDOWS) {
+            transfer(window, BLOCK_SIZE, 64, new Loopback(10, true, false));
+        }
+    }
+
+    @Test
+    public void deliverAcrossSequenceWrap() throws Exception {
+        for (int window : WINDOWS) {
+            transfer(window, SMALL_BLOCK_SIZE, WRAP_BLOCKS, new Loopback(0, false, false));
+        }
+    }
+
+    @Test
+    public void deliverAcrossLegacySequenceWrap() throws Exception {
+        transfer(1, SMALL_BLOCK_SIZE, WRAP_BLOCKS, new Loopback(0, false, true));
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        Benchmark.assumeEnabled();
+
+        int blocks = 128;
+        for (int window : WINDOWS) {
+            long startTime = System.nanoTime();
+            transfer(window, BLOCK_SIZE, blocks, new Loopback(RTT, true, false));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            Benchmark.report("In-Band Bytestream of %d KB, RTT %d ms, window %d: %d ms, %d KB/s.",
+                            blocks * BLOCK_SIZE / 1024, RTT, window, millis,
+                            blocks * BLOCK_SIZE * 1000L / 1024 / Math.max(1, millis));
+        }
+    }
+
+    /**
+     * Sends random data through a pair of sessions connected by a loopback and checks the data
+     * received to be the data sent.
+     */
+    private static void transfer(int window, int blockSize, int blocks, Loopback loopback) throws Exception {
+        byte[] data = new byte[blockSize * blocks];
+        new Random(window).nextBytes(data);
+
+        try {
+            Open open = new Open("test" + window, blockSize);
+            InBandBytestreamSession sender = new InBandBytestreamSession(loopback.senderConnection, open,
+                            JidCreate.from("receiver@example.org/ibb"), window);
+            InBandBytestreamSession receiver = new InBandBytestreamSession(loopback.receiverConnection, open,
+                            JidCreate.from("sender@example.org/ibb"), window);
+            receiver.setReadTimeout(10000);
+
+            OutputStream out = sender.getOutputStream();
+            out.write(data);
+            out.flush();
+
+            byte[] received = new byte[data.length];
+            InputStream in = receiver.getInputStream();
+            for (int off = 0, count; off < received.length; off += count) {
+                count = in.read(received, off, received.length - off);
+                if (count < 0) {
+                    throw new IOException("End of stream after " + off + " bytes, window " + window);
+                }
+            }
+            assertArrayEquals("window " + window, data, received);
+        }
+        finally {
+            loopback.shutdown();
+        }
+    }
+
+    /**
+     * A pair of stub connections which deliver the stanzas sent through one of them to the
+     * listener of the other.
+     */
+    private static class Loopback {
+
+        private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor();
+
+        private final Random jitter = new Random(0);
+
+        private final int rtt;
+
+        private final boolean reorder;
+
+        /* whether to renumber the data packets as a legacy sender, which skips sequence 65535 */
+        private final boolean legacy;
+
+        /* the data packets sent and not acknowledged yet, by stanza ID */
+        private final Map<String, InternalSmackFuture<IQ, Exception>> pending
+                        = new ConcurrentHashMap<String, InternalSmackFuture<IQ, Exception>>();
+
+        /* the time of the last delivery in each direction, to keep the stanzas in order */
+        private final long[] lastDelivery = new long[2];
+
+        private long legacySeq = 0;
+
+        private volatile StanzaListener receiverListener;
+
+        /* the first failure to deliver a stanza */
+        private volatile Exception failure;
+
+        final XMPPConnection senderConnection = newStub(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("sendIqRequestAsync".equals(method.getName())) {
+                    final IQ request = legacy ? renumber((Data) args[0]) : (IQ) args[0];
+                    InternalSmackFuture<IQ, Exception> future = new InternalSmackFuture<IQ, Exception>();
+
+                    pending.put(request.getStanzaId(), future);
+                    deliver(0, new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                receiverListener.processStanza(request);
+                            }
+                            catch (Exception e) {
+                                fail(e);
+                            }
+                        }
+                    });
+                    return future;
+                }
+                return null;
+            }
+        });
+
+        final XMPPConnection receiverConnection = newStub(new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("addSyncStanzaListener".equals(method.getName())) {
+                    receiverListener = (StanzaListener) args[0];
+                }
+                else if ("sendStanza".equals(method.getName())) {
+                    final IQ response = (IQ) args[0];
+
+                    deliver(1, new Runnable() {
+                        @Override
+                        public void run() {
+                            InternalSmackFuture<IQ, Exception> future = pending.remove(response.getStanzaId());
+                            if (response instanceof ErrorIQ) {
+                                future.setException(new IOException(response.getError().toString()));
+                            }
+                            else {
+                                future.setResult(response);
+                            }
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+
+        Loopback(int rtt, boolean reorder, boolean legacy) {
+            this.rtt = rtt;
+            this.reorder = reorder;
+            this.legacy = legacy;
+        }
+
+        /**
+         * Returns a copy of a data packet with the next sequence of a legacy sender.
+         */
+        private synchronized Data renumber(Data data) {
+            DataPacketExtension extension = data.getDataPacketExtension();
+            Data renumbered = new Data(new DataPacketExtension(extension.getSessionID(), legacySeq,
+                            extension.getData()));
+
+            renumbered.setStanzaId(data.getStanzaId());
+            renumbered.setTo(data.getTo());
+            renumbered.setFrom(data.getFrom());
+            legacySeq = (legacySeq + 1 == 65535) ? 0 : legacySeq + 1;
+            return renumbered;
+        }
+
+        /**
+         * Runs a delivery after half of the round trip time plus up to a quarter of it, after the
+         * previous delivery in the same direction unless reordering.
+         */
+        private synchronized void deliver(int direction, Runnable delivery) {
+            long now = System.nanoTime();
+            long time = now + TimeUnit.MILLISECONDS.toNanos(rtt / 2 + jitter.nextInt(rtt / 4 + 1));
+
+            if (!reorder) {
+                time = Math.max(time, lastDelivery[direction]);
+                lastDelivery[direction] = time;
+            }
+            network.schedule(delivery, time - now, TimeUnit.NANOSECONDS);
+        }
+
+        private void fail(Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        void shutdown() throws Exception {
+            network.shutdownNow();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Creates a stub connection which answers the methods returning a primitive with its default.
+     */
+    private static XMPPConnection newStub(final InvocationHandler handler) {
+        return (XMPPConnection) Proxy.newProxyInstance(XMPPConnection.class.getClassLoader(),
+                        new Class<?>[] {XMPPConnection.class}, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                Object result = handler.invoke(proxy, method, args);
+                                Class<?> type = method.getReturnType();
+
+                                if (result != null || !type.isPrimitive() || type == void.class) {
+                                    return result;
+                                }
+                                else if (type == boolean.class) {
+                                    return false;
+                                }
+                                else if (type == long.class) {
+                                    return 0L;
+                                }
+                                return 0;
+                            }
+                        });
+    }
+}
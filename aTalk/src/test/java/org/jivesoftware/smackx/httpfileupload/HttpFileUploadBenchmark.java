@@ -0,0 +1,459 @@
+/**
+ *
+ * Copyright the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.smackx.httpfileupload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.atalk.util.Benchmark;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jivesoftware.smackx.httpfileupload.element.Slot;
+import org.jivesoftware.smackx.omemo_media_sharing.OmemoMediaSharingUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the uploads of {@link HttpFileUploadManager#uploadFile(File, byte[], byte[], long, Slot,
+ * javax.net.ssl.SSLSocketFactory, UploadProgressListener)} to a local stub HTTP server to deliver
+ * exactly the content of the file, or its AES-GCM encryption, for a 10 MB file and a 3 GB sparse
+ * file, and for uploads which are retried as their connection is dropped, and measures their
+ * throughput against the former 4 KB copy loop, with a <tt>CipherInputStream</tt> when
+ * encrypting. The measurements run with the other benchmarks, see {@link Benchmark}.
+ *
+ * @author Eng Chong Meng
+ */
+public class HttpFileUploadBenchmark {
+
+    private static final long MB = 1024 * 1024;
+
+    private StubServer server;
+
+    private File file;
+
+    private byte[] key;
+
+    private byte[] iv;
+
+    /**
+     * Installs the security provider aTalk installs, see <tt>OSGiService</tt>, whose AES-GCM
+     * cipher takes the <tt>IvParameterSpec</tt> of {@link OmemoMediaSharingUtils}.
+     */
+    @BeforeClass
+    public static void setUpSecurityProvider() {
+        Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubServer();
+        server.start();
+
+        file = File.createTempFile("upload", ".bin");
+        byte[] data = new byte[(int) (10 * MB)];
+        new Random(0).nextBytes(data);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+
+        key = OmemoMediaSharingUtils.generateRandomKey();
+        iv = OmemoMediaSharingUtils.generateRandomIV();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        file.delete();
+        server.close();
+    }
+
+    @Test
+    public void upload() throws Exception {
+        HttpFileUploadManager.uploadFile(file, null, null, file.length(), server.slot(), null, null);
+        server.assertHolds(file);
+    }
+
+    @Test
+    public void uploadEncrypted() throws Exception {
+        server.setDecryption(key, iv);
+        HttpFileUploadManager.uploadFile(file, key, iv, file.length() + 16, server.slot(), null, null);
+        server.assertHolds(file);
+    }
+
+    /**
+     * Checks an upload the connection of which is dropped half way to be retried from the start.
+     */
+    @Test
+    public void retryDropped() throws Exception {
+        server.dropAfter = 4 * MB;
+        HttpFileUploadManager.uploadFile(file, null, null, file.length(), server.slot(), null, null);
+        server.assertHolds(file);
+        assertEquals(2, server.puts);
+
+        server.dropAfter = 4 * MB;
+        server.setDecryption(key, iv);
+        HttpFileUploadManager.uploadFile(file, key, iv, file.length() + 16, server.slot(), null, null);
+        server.assertHolds(file);
+        assertEquals(4, server.puts);
+    }
+
+    /**
+     * Checks an upload the response of which is lost not to be sent again, as the server answers
+     * HEAD with its full length.
+     */
+    @Test
+    public void retryCompletedPerHead() throws Exception {
+        server.dropResponse = true;
+        server.setDecryption(key, iv);
+        HttpFileUploadManager.uploadFile(file, key, iv, file.length() + 16, server.slot(), null, null);
+        server.assertHolds(file);
+        assertEquals(1, server.puts);
+    }
+
+    /**
+     * Checks an upload the response of which is lost to succeed when the server, which does not
+     * support HEAD, answers its retry with 409 Conflict.
+     */
+    @Test
+    public void retryCompletedPerConflict() throws Exception {
+        server.dropResponse = true;
+        server.conflict = true;
+        HttpFileUploadManager.uploadFile(file, null, null, file.length(), server.slot(), null, null);
+        server.assertHolds(file);
+        assertEquals(2, server.puts);
+    }
+
+    /**
+     * Checks the upload of a file beyond the range of an int; the file takes little disk space
+     * where sparse files are supported.
+     */
+    @Test
+    public void uploadLarge() throws Exception {
+        File largeFile = File.createTempFile("upload-large", ".bin");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(largeFile, "rw")) {
+                raf.setLength(3072 * MB);
+                raf.seek(3072 * MB - 1);
+                raf.write(1);
+            }
+            HttpFileUploadManager.uploadFile(largeFile, null, null, largeFile.length(), server.slot(), null, null);
+            server.assertHolds(largeFile);
+        }
+        finally {
+            largeFile.delete();
+        }
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        Benchmark.assumeEnabled();
+
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up
+            boolean report = round > 0;
+            measure(report, "10 MB, 4 KB copy", file.length(), new Upload() {
+                @Override
+                public void run() throws Exception {
+                    legacyUpload(new FileInputStream(file), file.length(), server.slot());
+                }
+            });
+            measure(report, "10 MB, streaming", file.length(), new Upload() {
+                @Override
+                public void run() throws Exception {
+                    HttpFileUploadManager.uploadFile(file, null, null, file.length(), server.slot(), null, null);
+                }
+            });
+            measure(report, "10 MB encrypted, CipherInputStream", file.length() + 16, new Upload() {
+                @Override
+                public void run() throws Exception {
+                    legacyUpload(new CipherInputStream(new FileInputStream(file),
+                            OmemoMediaSharingUtils.encryptionCipherFrom(key, iv)), file.length() + 16,
+                            server.slot());
+                }
+            });
+            measure(report, "10 MB encrypted, bulk AEAD", file.length() + 16, new Upload() {
+                @Override
+                public void run() throws Exception {
+                    HttpFileUploadManager.uploadFile(file, key, iv, file.length() + 16, server.slot(), null,
+                            null);
+                }
+            });
+        }
+    }
+
+    private interface Upload {
+        void run() throws Exception;
+    }
+
+    private void measure(boolean report, String name, long contentLength, Upload upload) throws Exception {
+        server.stored = -1;
+        long startTime = System.nanoTime();
+        upload.run();
+        long nanos = System.nanoTime() - startTime;
+
+        assertEquals(name, contentLength, server.stored);
+        if (report) {
+            Benchmark.report("%-45s %8.1f MB/s", name, contentLength / (double) MB / (nanos / 1e9));
+        }
+    }
+
+    /**
+     * The upload loop this class replaced: a <tt>BufferedInputStream</tt> copied through a 4 KB buffer.
+     */
+    private static void legacyUpload(InputStream fis, long fileSize, Slot slot) throws IOException {
+        HttpURLConnection urlConnection = (HttpURLConnection) slot.getPutUrl().openConnection();
+        urlConnection.setRequestMethod("PUT");
+        urlConnection.setUseCaches(false);
+        urlConnection.setDoOutput(true);
+        urlConnection.setFixedLengthStreamingMode((int) fileSize);
+        urlConnection.setRequestProperty("Content-Type", "application/octet-stream");
+        try {
+            try (BufferedInputStream inputStream = new BufferedInputStream(fis);
+                    OutputStream outputStream = urlConnection.getOutputStream()) {
+                byte[] buffer = new byte[4096];
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesRead);
+                }
+            }
+            if (urlConnection.getResponseCode() != HttpURLConnection.HTTP_CREATED) {
+                throw new IOException("Error response " + urlConnection.getResponseCode());
+            }
+        }
+        finally {
+            urlConnection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the SHA-256 digest of the content of a file.
+     */
+    private static byte[] digest(File file) throws IOException, GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[256 * 1024];
+
+        try (InputStream in = new FileInputStream(file)) {
+            for (int count; (count = in.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * A single threaded HTTP/1.1 server which keeps the length and the SHA-256 digest of the
+     * content of the last PUT request it has received in full, decrypted first if a key and an IV
+     * are given, and answers HEAD requests with that length. It can drop the connection of
+     * the next PUT request after {@link #dropAfter} bytes, or after receiving it but before
+     * responding, and answer a PUT request once a content is stored with 409 Conflict.
+     */
+    private static class StubServer extends Thread {
+
+        private final ServerSocket serverSocket;
+
+        /* the number of bytes of the content stored, or -1 */
+        volatile long stored = -1;
+
+        /* the digest of the (decrypted) content stored */
+        volatile byte[] storedDigest;
+
+        /* the number of PUT requests received */
+        volatile int puts;
+
+        /* the AES key and IV to decrypt the content of PUT requests with, or null */
+        private volatile byte[][] decryption;
+
+        /* the number of bytes after which to drop the next PUT request, or 0 */
+        volatile long dropAfter;
+
+        /* whether to drop the next PUT request after receiving it but before responding */
+        volatile boolean dropResponse;
+
+        /* whether to answer PUT requests with 409 Conflict once a content is stored, and HEAD with 405 */
+        volatile boolean conflict;
+
+        /* the first failure to handle a request */
+        volatile Exception failure;
+
+        StubServer() throws IOException {
+            super("HttpFileUploadBenchmark server");
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            setDaemon(true);
+        }
+
+        Slot slot() throws IOException {
+            URL url = new URL("http", "127.0.0.1", serverSocket.getLocalPort(), "/upload");
+            return new Slot(url, url);
+        }
+
+        void setDecryption(byte[] key, byte[] iv) {
+            decryption = new byte[][] {key, iv};
+        }
+
+        /**
+         * Asserts the content stored to be the content of a file, once decrypted if a key and an
+         * IV are given.
+         */
+        void assertHolds(File file) throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            assertEquals(file.length() + (decryption == null ? 0 : 16), stored);
+            assertArrayEquals(digest(file), storedDigest);
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[256 * 1024];
+
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    InputStream in = socket.getInputStream();
+                    OutputStream out = socket.getOutputStream();
+                    String requestLine = readLine(in);
+                    long contentLength = 0;
+
+                    for (String header; !(header = readLine(in)).isEmpty(); ) {
+                        String name = header.substring(0, header.indexOf(':')).trim();
+                        String value = header.substring(header.indexOf(':') + 1).trim();
+                        if ("Content-Length".equalsIgnoreCase(name)) {
+                            contentLength = Long.parseLong(value);
+                        }
+                    }
+
+                    if (requestLine.startsWith("HEAD")) {
+                        if (conflict) {
+                            respond(out, "405 Method Not Allowed", 0);
+                        }
+                        else if (stored < 0) {
+                            respond(out, "404 Not Found", 0);
+                        }
+                        else {
+                            respond(out, "200 OK", stored);
+                        }
+                        continue;
+                    }
+
+                    puts++;
+                    long drop = dropAfter;
+                    dropAfter = 0;
+                    boolean exists = stored >= 0;
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    byte[][] keyAndIv = decryption;
+                    Cipher cipher = null;
+                    if (keyAndIv != null) {
+                        // independent of OmemoMediaSharingUtils, which encrypts the content
+                        cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyAndIv[0], "AES"),
+                                new GCMParameterSpec(128, keyAndIv[1]));
+                    }
+                    long remaining = contentLength;
+
+                    while (remaining > 0) {
+                        int count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (count < 0) {
+                            break;
+                        }
+                        remaining -= count;
+                        if (drop > 0 && contentLength - remaining >= drop) {
+                            break;
+                        }
+                        if (cipher == null) {
+                            digest.update(buffer, 0, count);
+                        }
+                        else {
+                            byte[] plaintext = cipher.update(buffer, 0, count);
+                            if (plaintext != null) {
+                                digest.update(plaintext);
+                            }
+                        }
+                    }
+                    if (remaining > 0) {
+                        continue;
+                    }
+
+                    if (conflict && exists) {
+                        respond(out, "409 Conflict", 0);
+                        continue;
+                    }
+                    if (cipher != null) {
+                        // fails unless the authentication tag matches
+                        digest.update(cipher.doFinal());
+                    }
+                    stored = contentLength;
+                    storedDigest = digest.digest();
+
+                    if (dropResponse) {
+                        dropResponse = false;
+                        continue;
+                    }
+                    respond(out, "201 Created", 0);
+                }
+                catch (IOException | GeneralSecurityException e) {
+                    if (!serverSocket.isClosed() && failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+
+        private static void respond(OutputStream out, String status, long contentLength) throws IOException {
+            out.write(("HTTP/1.1 " + status + "\r\nContent-Length: " + contentLength + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int c; (c = in.read()) != '\n'; ) {
+                if (c < 0) {
+                    throw new IOException("End of stream");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}